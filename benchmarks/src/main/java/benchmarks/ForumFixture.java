@@ -0,0 +1,72 @@
+package benchmarks;
+
+import common.ClientInfo;
+import common.FrameWriter;
+import server.model.MessageReply;
+import server.model.Topic;
+import server.model.User;
+import server.repository.ReplyRepository;
+import server.repository.TopicRepository;
+import server.repository.UserRepository;
+import server.search.SearchIndex;
+import server.service.AuthHandler;
+import server.service.SearchHandler;
+import server.service.TopicHandler;
+import server.session.InMemorySessionStore;
+import server.session.SessionStore;
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Repositories and handlers filled with synthetic forum data of a given size.
+final class ForumFixture {
+    static final Consumer<String> NO_LOG = message -> { };
+    static final Consumer<ClientInfo> NO_LIST_UPDATE = clientInfo -> { };
+
+    final UserRepository userRepository = new UserRepository();
+    final TopicRepository topicRepository = new TopicRepository();
+    final ReplyRepository replyRepository = new ReplyRepository();
+    final SearchIndex searchIndex = new SearchIndex();
+    final SessionStore sessionStore = new InMemorySessionStore();
+    final Map<String, FrameWriter> activeClientOutputs = new HashMap<>();
+    final AuthHandler authHandler;
+    final TopicHandler topicHandler;
+    final SearchHandler searchHandler;
+    final String[] usernames;
+    final int[] topicIds;
+
+    ForumFixture(int userCount, int topicCount, int replyCount) {
+        authHandler = new AuthHandler(userRepository, sessionStore, NO_LOG, NO_LIST_UPDATE);
+        topicHandler = new TopicHandler(topicRepository, replyRepository, searchIndex, authHandler, NO_LOG, activeClientOutputs);
+        searchHandler = new SearchHandler(searchIndex, topicRepository, replyRepository, authHandler, NO_LOG);
+
+        usernames = new String[userCount];
+        for (int i = 0; i < userCount; i++) {
+            usernames[i] = String.format("bench%06d", i);
+            userRepository.save(new User(usernames[i], "benchpass", "nick" + i + "xx", "common"));
+        }
+
+        topicIds = new int[topicCount];
+        for (int i = 0; i < topicCount; i++) {
+            int topicId = topicRepository.getNextTopicId();
+            topicIds[i] = topicId;
+            Topic topic = new Topic(topicId, "Topic title " + i, "Subject " + (i % 50),
+                    "Opening post for topic " + i + " with a little bit of realistic body text.", usernames[i % userCount]);
+            topicRepository.save(topic);
+            searchIndex.indexTopic(topic);
+        }
+
+        for (int i = 0; i < replyCount; i++) {
+            int topicId = topicIds[i % topicCount];
+            MessageReply reply = new MessageReply(replyRepository.getNextReplyId(), topicId, usernames[i % userCount],
+                    "Reply number " + i + " to the topic, about as long as a typical forum answer.");
+            replyRepository.save(reply);
+            searchIndex.indexReply(reply);
+        }
+    }
+
+    static ClientInfo benchClient(String userId) {
+        return new ClientInfo("bench", userId, null, InetAddress.getLoopbackAddress(), 40000);
+    }
+}
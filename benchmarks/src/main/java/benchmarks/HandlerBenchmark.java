@@ -0,0 +1,63 @@
+package benchmarks;
+
+import common.ClientInfo;
+import common.ProtocolMessage;
+import common.protocol.GetRepliesRequest;
+import common.protocol.GetTopicsRequest;
+import common.protocol.TopicListResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// End-to-end list operations over a realistically sized forum (default 10k topics, 1M replies).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class HandlerBenchmark {
+    @Param({"10000"})
+    public int topics;
+
+    @Param({"1000000"})
+    public int replies;
+
+    private ForumFixture fixture;
+    private ClientInfo clientInfo;
+    private String topicsVersion;
+
+    @Setup
+    public void setUp() {
+        fixture = new ForumFixture(1_000, topics, replies);
+        clientInfo = ForumFixture.benchClient(null);
+        topicsVersion = ((TopicListResponse) handleGetTopics()).getVersion();
+    }
+
+    @Benchmark
+    public ProtocolMessage handleGetTopics() {
+        return fixture.topicHandler.handleGetTopics(new GetTopicsRequest(), clientInfo);
+    }
+
+    // A client revalidating the list it already has: answered with 078.
+    @Benchmark
+    public ProtocolMessage handleGetTopicsNotModified() {
+        return fixture.topicHandler.handleGetTopics(new GetTopicsRequest(topicsVersion), clientInfo);
+    }
+
+    @Benchmark
+    public ProtocolMessage handleGetReplies() {
+        String topicId = String.valueOf(fixture.topicIds[ThreadLocalRandom.current().nextInt(fixture.topicIds.length)]);
+        return fixture.topicHandler.handleGetReplies(new GetRepliesRequest(topicId), clientInfo);
+    }
+}
@@ -0,0 +1,69 @@
+package benchmarks;
+
+import server.model.Topic;
+import server.repository.TopicRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Topic lookup by id: the String-keyed ConcurrentHashMap the repositories used to be, against
+// TopicRepository's int-keyed table. stringIdToIntLookup includes the parse a handler does at
+// the protocol boundary.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class IdLookupBenchmark {
+    @Param({"10000", "1000000"})
+    public int topics;
+
+    private final Map<String, Topic> stringKeyed = new ConcurrentHashMap<>();
+    private final TopicRepository intKeyed = new TopicRepository();
+    private String[] stringIds;
+
+    @Setup
+    public void setUp() {
+        stringIds = new String[topics];
+        for (int i = 0; i < topics; i++) {
+            int id = intKeyed.getNextTopicId();
+            Topic topic = new Topic(id, "Topic title " + i, "Subject", "Body", "bench");
+            intKeyed.save(topic);
+            stringIds[i] = String.valueOf(id);
+            stringKeyed.put(stringIds[i], topic);
+        }
+    }
+
+    // A fresh String per lookup, as one decoded from a request would be (no cached hash code).
+    private String randomStringId() {
+        return new String(stringIds[ThreadLocalRandom.current().nextInt(topics)]);
+    }
+
+    @Benchmark
+    public Topic stringKeyedLookup() {
+        return stringKeyed.get(randomStringId());
+    }
+
+    @Benchmark
+    public Topic stringIdToIntLookup() {
+        return intKeyed.findById(Integer.parseInt(randomStringId()));
+    }
+
+    @Benchmark
+    public Topic intKeyedLookup() {
+        return intKeyed.findById(ThreadLocalRandom.current().nextInt(topics) + 3);
+    }
+}
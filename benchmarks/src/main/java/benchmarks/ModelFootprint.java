@@ -0,0 +1,63 @@
+package benchmarks;
+
+import server.model.MessageReply;
+import server.model.Topic;
+import server.repository.ReplyRepository;
+import server.repository.TopicRepository;
+import java.lang.ref.Reference;
+
+// Retained heap of the topic and reply repositories, as bytes per post. Not a JMH benchmark:
+// run it directly with
+//   java -cp target/benchmarks.jar benchmarks.ModelFootprint [replies] [topics]
+// Author names and subjects are fresh String instances per post, the way they arrive from
+// decoded requests.
+public final class ModelFootprint {
+    private static final int USERS = 1_000;
+    private static final int SUBJECTS = 50;
+
+    private ModelFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int replyCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int topicCount = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+
+        long baseline = usedHeap();
+        TopicRepository topicRepository = new TopicRepository();
+        int[] topicIds = new int[topicCount];
+        for (int i = 0; i < topicCount; i++) {
+            topicIds[i] = topicRepository.getNextTopicId();
+            topicRepository.save(new Topic(topicIds[i], "Topic title " + i, "Subject " + (i % SUBJECTS),
+                    "Opening post for topic " + i + " with a little bit of realistic body text.", author(i)));
+        }
+        long afterTopics = usedHeap();
+
+        ReplyRepository replyRepository = new ReplyRepository();
+        for (int i = 0; i < replyCount; i++) {
+            replyRepository.save(new MessageReply(replyRepository.getNextReplyId(), topicIds[i % topicCount], author(i),
+                    "Reply number " + i + " to the topic, about as long as a typical forum answer."));
+        }
+        long afterReplies = usedHeap();
+
+        System.out.printf("topics:  %,d in %,d KB (%.1f bytes/topic)%n", topicCount,
+                (afterTopics - baseline) / 1024, (afterTopics - baseline) / (double) topicCount);
+        System.out.printf("replies: %,d in %,d KB (%.1f bytes/reply)%n", replyCount,
+                (afterReplies - afterTopics) / 1024, (afterReplies - afterTopics) / (double) replyCount);
+
+        // Keep both repositories reachable until after the last measurement.
+        Reference.reachabilityFence(topicRepository);
+        Reference.reachabilityFence(replyRepository);
+    }
+
+    private static String author(int i) {
+        return String.format("bench%06d", i % USERS);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,98 @@
+package benchmarks;
+
+import server.model.MessageReply;
+import server.model.Topic;
+import server.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Mixed read/write groups: three reader threads and one writer thread share each repository,
+// which is roughly the read/write ratio of the forum's traffic.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Group)
+public class RepositoryBenchmark {
+    private static final int USERS = 1_000;
+    private static final int TOPICS = 10_000;
+    private static final int REPLIES = 100_000;
+
+    private ForumFixture fixture;
+    private final AtomicInteger newUserCounter = new AtomicInteger();
+
+    // Rebuilt every iteration so the writer threads do not grow the data set across the run.
+    @Setup(Level.Iteration)
+    public void setUp() {
+        fixture = new ForumFixture(USERS, TOPICS, REPLIES);
+    }
+
+    private int randomTopicId() {
+        return fixture.topicIds[ThreadLocalRandom.current().nextInt(fixture.topicIds.length)];
+    }
+
+    private String randomUsername() {
+        return fixture.usernames[ThreadLocalRandom.current().nextInt(fixture.usernames.length)];
+    }
+
+    @Benchmark
+    @Group("users")
+    @GroupThreads(3)
+    public User userFindByUsername() {
+        return fixture.userRepository.findByUsername(randomUsername());
+    }
+
+    @Benchmark
+    @Group("users")
+    @GroupThreads(1)
+    public void userSave() {
+        String username = "new" + newUserCounter.incrementAndGet();
+        fixture.userRepository.save(new User(username, "benchpass", username, "common"));
+    }
+
+    @Benchmark
+    @Group("topics")
+    @GroupThreads(3)
+    public Topic topicFindById() {
+        return fixture.topicRepository.findById(randomTopicId());
+    }
+
+    @Benchmark
+    @Group("topics")
+    @GroupThreads(1)
+    public void topicSave() {
+        int topicId = fixture.topicRepository.getNextTopicId();
+        fixture.topicRepository.save(new Topic(topicId, "New topic", "Subject", "Body", randomUsername()));
+    }
+
+    @Benchmark
+    @Group("replies")
+    @GroupThreads(3)
+    public List<MessageReply> replyFindByTopicId() {
+        return fixture.replyRepository.findByTopicId(randomTopicId());
+    }
+
+    @Benchmark
+    @Group("replies")
+    @GroupThreads(1)
+    public void replySave() {
+        fixture.replyRepository.save(new MessageReply(fixture.replyRepository.getNextReplyId(), randomTopicId(),
+                randomUsername(), "New reply body"));
+    }
+}
@@ -0,0 +1,56 @@
+package benchmarks;
+
+import common.ClientInfo;
+import common.ProtocolMessage;
+import common.protocol.SearchRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+// Search (130) over the fixture's topics and replies. "rare" matches a handful of posts,
+// "common" matches every reply, and "mixed" intersects the two.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+    @Param({"10000"})
+    public int topics;
+
+    @Param({"1000000"})
+    public int replies;
+
+    @Param({"rare", "common", "mixed"})
+    public String query;
+
+    private ForumFixture fixture;
+    private ClientInfo clientInfo;
+    private String queryText;
+
+    @Setup
+    public void setUp() {
+        fixture = new ForumFixture(1_000, topics, replies);
+        clientInfo = ForumFixture.benchClient(null);
+        switch (query) {
+            case "rare": queryText = String.valueOf(replies / 2); break;
+            case "common": queryText = "typical forum answer"; break;
+            default: queryText = "answer " + (replies / 2); break;
+        }
+    }
+
+    @Benchmark
+    public ProtocolMessage handleSearch() {
+        return fixture.searchHandler.handleSearch(new SearchRequest(queryText, 20), clientInfo);
+    }
+}
@@ -0,0 +1,111 @@
+package benchmarks;
+
+import common.FrameReader;
+import common.FrameWriter;
+import common.ProtocolMessage;
+import common.SerializationHelper;
+import common.WriteStats;
+import common.protocol.GetTopicsRequest;
+import common.protocol.ReplyRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+    // Frames queued in the writer before the benchmark thread waits, so the queue cannot grow
+    // without bound when encoding outpaces the writer thread.
+    private static final int MAX_QUEUED_FRAMES = 1024;
+
+    @Param({"reply", "topicList"})
+    public String payload;
+
+    private ProtocolMessage message;
+    private FrameReader reader;
+    private FrameWriter writer;
+
+    @Setup
+    public void setUp() {
+        if ("reply".equals(payload)) {
+            message = new ReplyRequest("c00042", "1234", "Reply number 42 to the topic, about as long as a typical forum answer.");
+        } else {
+            ForumFixture fixture = new ForumFixture(100, 1_000, 0);
+            message = fixture.topicHandler.handleGetTopics(new GetTopicsRequest(), ForumFixture.benchClient(null));
+        }
+        byte[] frame = (SerializationHelper.encode(message) + "\n").getBytes(StandardCharsets.UTF_8);
+        reader = new FrameReader(new RepeatingInputStream(frame), 16 * 1024 * 1024);
+        writer = new FrameWriter(OutputStream.nullOutputStream(), "bench-writer", new WriteStats(), null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        writer.close();
+    }
+
+    @Benchmark
+    public ProtocolMessage readMessage() throws IOException {
+        return SerializationHelper.readMessage(reader);
+    }
+
+    @Benchmark
+    public void writeMessage() throws IOException {
+        while (writer.getQueueDepth() > MAX_QUEUED_FRAMES) {
+            Thread.onSpinWait();
+        }
+        SerializationHelper.writeMessage(message, writer);
+    }
+
+    @Benchmark
+    public String encode() {
+        return SerializationHelper.encode(message);
+    }
+
+    @Benchmark
+    public String messageToString() {
+        return message.toString();
+    }
+
+    // Endless stream that replays the same frame, so readMessage never hits end of stream.
+    private static final class RepeatingInputStream extends InputStream {
+        private final byte[] data;
+        private int position;
+
+        RepeatingInputStream(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read() {
+            byte b = data[position];
+            position = (position + 1) % data.length;
+            return b & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            int count = Math.min(length, data.length - position);
+            System.arraycopy(data, position, buffer, offset, count);
+            position = (position + count) % data.length;
+            return count;
+        }
+    }
+}
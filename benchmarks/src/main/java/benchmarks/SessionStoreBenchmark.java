@@ -0,0 +1,85 @@
+package benchmarks;
+
+import common.ClientInfo;
+import server.session.InMemorySessionStore;
+import server.session.MappedSessionStore;
+import server.session.ReplicatedSessionStore;
+import server.session.SessionStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// The token check every authenticated request makes, against each session store. Hits come
+// from the near cache in all three; a miss probes the mapped file, or the replicated store's
+// remembered misses (it has no peers here).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SessionStoreBenchmark {
+    private static final int SESSIONS = 10_000;
+
+    @Param({"memory", "mapped", "replicated"})
+    public String store;
+
+    private SessionStore sessions;
+    private Path file;
+    private String[] tokens;
+
+    @Setup
+    public void setUp() throws IOException {
+        switch (store) {
+            case "memory":
+                sessions = new InMemorySessionStore();
+                break;
+            case "mapped":
+                file = Files.createTempFile("sessions", ".dat");
+                Files.delete(file);
+                sessions = new MappedSessionStore(file, SESSIONS * 2, ForumFixture.NO_LOG);
+                break;
+            default:
+                sessions = new ReplicatedSessionStore(Collections.emptyList(), "", 1000, ForumFixture.NO_LOG);
+        }
+        tokens = new String[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            tokens[i] = sessions.newToken("c");
+            sessions.put(tokens[i], ForumFixture.benchClient(String.format("bench%06d", i)));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        sessions.close();
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // A fresh String per lookup, as one decoded from a request would be (no cached hash code).
+    @Benchmark
+    public ClientInfo hit() {
+        return sessions.get(new String(tokens[ThreadLocalRandom.current().nextInt(SESSIONS)]));
+    }
+
+    @Benchmark
+    public ClientInfo miss() {
+        return sessions.get("x" + ThreadLocalRandom.current().nextInt(SESSIONS));
+    }
+}
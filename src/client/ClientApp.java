@@ -1,17 +1,26 @@
 package client;
 
 import client.ui.*;
+import common.ClientConnection;
 import common.ProtocolMessage;
+import common.protocol.*;
+import common.ui.LogPanel;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.IOException;
-import java.util.List;
-import java.util.Map;
+import java.nio.file.Paths;
+import java.util.function.Consumer;
 
 public class ClientApp extends JFrame {
+    // The server's cap on one 070/075 page.
+    private static final int PAGE_SIZE = 100;
+
     private final ClientConnection connection;
+    private final ForumCache cache;
+    private final ForumPages forumPages;
+    private final OpcodeTable<Consumer<ProtocolMessage>> responseHandlers;
     private String currentUsername;
     private String currentToken;
     private AuthPanel authPanel;
@@ -19,15 +28,28 @@ public class ClientApp extends JFrame {
     private TopicPanel topicPanel;
     private ReplyPanel replyPanel;
     private AdminPanel adminPanel;
+    private SearchPanel searchPanel;
+    private BrowserPanel browserPanel;
+    private PagedTableModel topicsModel;
+    private PagedTableModel repliesModel;
+    private String browsedTopicId;
     private LogPanel logPanel;
     private JTabbedPane mainTabbedPane;
 
     public ClientApp() {
         connection = new ClientConnection(this::handleReceivedMessage, this::appendLogMessage);
+        connection.setAutoReconnect(Boolean.parseBoolean(System.getProperty("forum.client.reconnect", "true")));
+        String cacheFile = System.getProperty("forum.client.cacheFile");
+        cache = new ForumCache(cacheFile != null ? Paths.get(cacheFile) : null,
+                Integer.getInteger("forum.client.cacheLists", ForumCache.DEFAULT_MAX_LISTS), this::appendLogMessage);
+        forumPages = new ForumPages(connection, cache);
+        responseHandlers = createResponseHandlers();
+        connection.setConnectionListener(() -> SwingUtilities.invokeLater(this::updateGUIState));
 
         initializeGUI();
         registerActionListeners();
         updateGUIState();
+        cache.load();
 
         setVisible(true);
     }
@@ -43,15 +65,21 @@ public class ClientApp extends JFrame {
         topicPanel = new TopicPanel();
         replyPanel = new ReplyPanel();
         adminPanel = new AdminPanel();
-        logPanel = new LogPanel();
+        searchPanel = new SearchPanel();
+        logPanel = new LogPanel("Forum Messages / Client Log", Integer.getInteger("forum.client.logLines", LogPanel.DEFAULT_MAX_LINES));
+        topicsModel = new PagedTableModel(new String[]{"ID", "Title", "Subject", "Author"}, PAGE_SIZE, this::showPageError);
+        repliesModel = new PagedTableModel(new String[]{"ID", "Author", "Message"}, PAGE_SIZE, this::showPageError);
+        browserPanel = new BrowserPanel(topicsModel, repliesModel);
 
         JPanel topPanel = new JPanel(new BorderLayout());
         topPanel.add(authPanel, BorderLayout.NORTH);
         topPanel.add(dataRetrievalPanel, BorderLayout.CENTER);
 
         mainTabbedPane = new JTabbedPane();
+        mainTabbedPane.addTab("Browse", browserPanel);
         mainTabbedPane.addTab("Create Topic", topicPanel);
         mainTabbedPane.addTab("Replies", replyPanel);
+        mainTabbedPane.addTab("Search", searchPanel);
         mainTabbedPane.addTab("Admin Operations", adminPanel);
 
         JPanel mainContentPanel = new JPanel(new BorderLayout());
@@ -73,6 +101,7 @@ public class ClientApp extends JFrame {
                     }
                 }
                 connection.disconnect();
+                cache.save();
                 appendLogMessage("Client application closing.");
                 System.exit(0);
             }
@@ -88,12 +117,25 @@ public class ClientApp extends JFrame {
 
         dataRetrievalPanel.getRetrieveUserDataButton().addActionListener(e -> sendRetrieveUserDataRequest());
         dataRetrievalPanel.getGetAllTopicsButton().addActionListener(e -> sendGetAllTopicsRequest());
+        dataRetrievalPanel.getMyTopicsButton().addActionListener(e -> sendMyPostsRequest(PostRow.TOPIC));
+        dataRetrievalPanel.getMyRepliesButton().addActionListener(e -> sendMyPostsRequest(PostRow.REPLY));
 
         topicPanel.getCreateTopicButton().addActionListener(e -> sendCreateTopicRequest());
 
         replyPanel.getSendReplyButton().addActionListener(e -> sendReplyMessageRequest());
         replyPanel.getGetRepliesButton().addActionListener(e -> sendGetRepliesRequest());
 
+        searchPanel.getSearchButton().addActionListener(e -> sendSearchRequest());
+
+        browserPanel.getRefreshButton().addActionListener(e -> sendGetAllTopicsRequest());
+        browserPanel.getTopicTable().getSelectionModel().addListSelectionListener(e -> {
+            int row = browserPanel.getTopicTable().getSelectedRow();
+            Object topicId = row >= 0 && !e.getValueIsAdjusting() ? topicsModel.getValueAt(row, 0) : null;
+            if (topicId != null) {
+                browseReplies(topicId.toString());
+            }
+        });
+
         adminPanel.getUpdateUserButton().addActionListener(e -> sendAdminUpdateUserRequest());
         adminPanel.getDeleteUserButton().addActionListener(e -> sendAdminDeleteUserRequest());
         adminPanel.getDeleteMessageButton().addActionListener(e -> sendAdminDeleteMessageRequest());
@@ -108,6 +150,8 @@ public class ClientApp extends JFrame {
         dataRetrievalPanel.updateState(isLoggedIn);
         topicPanel.updateState(isLoggedIn);
         replyPanel.updateState(isLoggedIn);
+        searchPanel.updateState(isLoggedIn);
+        browserPanel.updateState(connection.isConnected());
         adminPanel.updateState(isAdmin);
 
         if (!isAdmin) {
@@ -115,145 +159,182 @@ public class ClientApp extends JFrame {
         }
     }
 
+    private OpcodeTable<Consumer<ProtocolMessage>> createResponseHandlers() {
+        OpcodeTable<Consumer<ProtocolMessage>> table = new OpcodeTable<>();
+        table.put("001", message -> {
+            currentToken = ((LoginResponse) message).getToken();
+            currentUsername = authPanel.getUsername();
+            connection.startSession(currentToken);
+            appendLogMessage("Login successful! Welcome, " + currentUsername + ".");
+            updateGUIState();
+            mainTabbedPane.setSelectedIndex(0);
+        });
+        table.put("002", message -> {
+            appendLogMessage("SERVER ERROR (002 - Login Failed): " + message.getMessageContent());
+            connection.disconnect();
+            updateGUIState();
+        });
+        table.put("006", message -> {
+            UserDataResponse userData = (UserDataResponse) message;
+            appendLogMessage("\n--- User Data Retrieved (006) ---\n" +
+                    "Username: " + userData.getUser() + "\n" +
+                    "Nickname: " + userData.getNickname() + "\n" +
+                    "----------------------------------\n");
+        });
+        table.put("011", message -> {
+            appendLogMessage("Registration successful! " + message.getMessageContent());
+            authPanel.clearRegisterFields();
+        });
+        table.put("021", message -> {
+            connection.endSession();
+            currentToken = null;
+            currentUsername = null;
+            updateGUIState();
+            appendLogMessage("Logged out successfully. " + message.getMessageContent());
+            mainTabbedPane.setSelectedIndex(0);
+        });
+        table.put("031", message -> appendLogMessage("Profile updated successfully! " + message.getMessageContent()));
+        table.put("041", message -> {
+            connection.endSession();
+            currentToken = null;
+            currentUsername = null;
+            updateGUIState();
+            appendLogMessage("Account deleted successfully. " + message.getMessageContent());
+            mainTabbedPane.setSelectedIndex(0);
+        });
+        table.put("051", message -> {
+            appendLogMessage("Forum topic created successfully! " + message.getMessageContent());
+            topicPanel.clearFields();
+        });
+        table.put("061", message -> {
+            appendLogMessage("Reply sent successfully! " + message.getMessageContent());
+            replyPanel.clearReplyFields();
+        });
+        table.put("111", this::displayListFromServer);
+        table.put("131", this::displayListFromServer);
+        table.put("141", this::displayListFromServer);
+        table.put("081", message -> {
+            appendLogMessage("User profile updated by admin successfully! " + message.getMessageContent());
+            adminPanel.clearUpdateFields();
+        });
+        table.put("091", message -> {
+            appendLogMessage("User account deleted by admin successfully! " + message.getMessageContent());
+            adminPanel.clearUpdateFields();
+        });
+        table.put("101", message -> appendLogMessage("Message/Topic deleted by admin successfully! " + message.getMessageContent()));
+        table.put("191", message -> {
+            ResumeResponse resumed = (ResumeResponse) message;
+            if (resumed.isGap()) {
+                appendLogMessage("Session resumed, but events missed while disconnected could not be replayed; refresh the topic list.");
+            } else if (resumed.getReplayed() > 0) {
+                appendLogMessage("Session resumed; " + resumed.getReplayed() + " missed events replayed.");
+            }
+        });
+        table.put("192", message -> {
+            appendLogMessage("Session could not be resumed, please log in again: " + message.getMessageContent());
+            connection.endSession();
+            currentToken = null;
+            currentUsername = null;
+            updateGUIState();
+        });
+        table.put("193", message -> appendLogMessage(describeEvent((ForumEvent) message)));
+
+        putServerError(table, "007", "Get User Data Failed");
+        putServerError(table, "012", "Registration Failed");
+        putServerError(table, "022", "Logout Failed");
+        putServerError(table, "032", "Profile Update Failed");
+        putServerError(table, "042", "Account Deletion Failed");
+        putServerError(table, "052", "Topic Creation Failed");
+        putServerError(table, "062", "Send Reply Failed");
+        putServerError(table, "072", "Get Replies Failed");
+        putServerError(table, "077", "Get Topics Failed");
+        putServerError(table, "082", "Admin Update User Failed");
+        putServerError(table, "092", "Admin Delete User Failed");
+        putServerError(table, "102", "Admin Delete Message Failed");
+        putServerError(table, "112", "List All Users Failed");
+        putServerError(table, "132", "Search Failed");
+        putServerError(table, "142", "Get My Posts Failed");
+        return table;
+    }
+
+    private static String describeEvent(ForumEvent event) {
+        switch (event.getKind()) {
+            case ForumEvent.TOPIC_CREATED:
+                return "New topic " + event.getId() + ".";
+            case ForumEvent.TOPIC_DELETED:
+                return "Topic " + event.getId() + " was deleted.";
+            case ForumEvent.REPLY_CREATED:
+                return "New reply " + event.getId() + " in topic " + event.getTopicId() + ".";
+            case ForumEvent.REPLY_DELETED:
+                return "Reply " + event.getId() + " was deleted.";
+            default:
+                return "Forum event " + event.getKind() + " for " + event.getId() + ".";
+        }
+    }
+
+    private void putServerError(OpcodeTable<Consumer<ProtocolMessage>> table, String opCode, String description) {
+        table.put(opCode, message -> appendLogMessage("SERVER ERROR (" + opCode + " - " + description + "): " + message.getMessageContent()));
+    }
+
     private void handleReceivedMessage(ProtocolMessage message) {
         SwingUtilities.invokeLater(() -> {
             appendJsonLog("RECEIVED", message);
-            String opCode = message.getOperationCode();
-            String messageDetails = message.getMessageContent();
-
-            switch (opCode) {
-                case "001":
-                    currentToken = message.getToken();
-                    currentUsername = authPanel.getUsername();
-                    appendLogMessage("Login successful! Welcome, " + currentUsername + ".");
-                    updateGUIState();
-                    mainTabbedPane.setSelectedIndex(0);
-                    break;
-                case "002":
-                    appendLogMessage("SERVER ERROR (002 - Login Failed): " + messageDetails);
-                    connection.disconnect();
-                    updateGUIState();
-                    break;
-                case "006":
-                    appendLogMessage("\n--- User Data Retrieved (006) ---\n" +
-                            "Username: " + message.getUser() + "\n" +
-                            "Nickname: " + message.getNickname() + "\n" +
-                            "----------------------------------\n");
-                    break;
-                case "007": appendLogMessage("SERVER ERROR (007 - Get User Data Failed): " + messageDetails); break;
-                case "011":
-                    appendLogMessage("Registration successful! " + messageDetails);
-                    authPanel.clearRegisterFields();
-                    break;
-                case "012": appendLogMessage("SERVER ERROR (012 - Registration Failed): " + messageDetails); break;
-                case "021":
-                    currentToken = null;
-                    currentUsername = null;
-                    updateGUIState();
-                    appendLogMessage("Logged out successfully. " + messageDetails);
-                    mainTabbedPane.setSelectedIndex(0);
-                    break;
-                case "022": appendLogMessage("SERVER ERROR (022 - Logout Failed): " + messageDetails); break;
-                case "031":
-                    appendLogMessage("Profile updated successfully! " + messageDetails);
-                    break;
-                case "032": appendLogMessage("SERVER ERROR (032 - Profile Update Failed): " + messageDetails); break;
-                case "041":
-                    currentToken = null;
-                    currentUsername = null;
-                    updateGUIState();
-                    appendLogMessage("Account deleted successfully. " + messageDetails);
-                    mainTabbedPane.setSelectedIndex(0);
-                    break;
-                case "042": appendLogMessage("SERVER ERROR (042 - Account Deletion Failed): " + messageDetails); break;
-                case "051":
-                    appendLogMessage("Forum topic created successfully! " + messageDetails);
-                    topicPanel.clearFields();
-                    break;
-                case "052": appendLogMessage("SERVER ERROR (052 - Topic Creation Failed): " + messageDetails); break;
-                case "061":
-                    appendLogMessage("Reply sent successfully! " + messageDetails);
-                    replyPanel.clearReplyFields();
-                    break;
-                case "062": appendLogMessage("SERVER ERROR (062 - Send Reply Failed): " + messageDetails); break;
-                case "071":
-                case "076":
-                case "111":
-                    displayListFromServer(opCode, message);
-                    break;
-                case "072": appendLogMessage("SERVER ERROR (072 - Get Replies Failed): " + messageDetails); break;
-                case "077": appendLogMessage("SERVER ERROR (077 - Get Topics Failed): " + messageDetails); break;
-                case "081":
-                    appendLogMessage("User profile updated by admin successfully! " + messageDetails);
-                    adminPanel.clearUpdateFields();
-                    break;
-                case "082": appendLogMessage("SERVER ERROR (082 - Admin Update User Failed): " + messageDetails); break;
-                case "091":
-                    appendLogMessage("User account deleted by admin successfully! " + messageDetails);
-                    adminPanel.clearUpdateFields();
-                    break;
-                case "092": appendLogMessage("SERVER ERROR (092 - Admin Delete User Failed): " + messageDetails); break;
-                case "101":
-                    appendLogMessage("Message/Topic deleted by admin successfully! " + messageDetails);
-                    break;
-                case "102": appendLogMessage("SERVER ERROR (102 - Admin Delete Message Failed): " + messageDetails); break;
-                case "112": appendLogMessage("SERVER ERROR (112 - List All Users Failed): " + messageDetails); break;
-                default:
-                    appendLogMessage("Unknown server response: " + opCode + " - " + messageDetails);
+            Consumer<ProtocolMessage> handler = responseHandlers.get(message.getOperationCode());
+            if (handler != null) {
+                handler.accept(message);
+            } else {
+                appendLogMessage("Unknown server response: " + message.getOperationCode() + " - " + message.getMessageContent());
             }
         });
     }
 
-    private void displayListFromServer(String opCode, ProtocolMessage message) {
+    private void displayListFromServer(ProtocolMessage message) {
         StringBuilder listText = new StringBuilder();
-        String title = "Server Response";
-
-        switch (opCode) {
-            case "111":
-                title = "All Registered Users";
-                List<Map<String, String>> users = message.getUsers();
-                if (users == null || users.isEmpty()) {
-                    listText.append("No registered users found.");
-                } else {
-                    for (Map<String, String> user : users) {
-                        listText.append("Username: ").append(user.get("user"))
-                                .append(" | Nickname: ").append(user.get("nick")).append("\n");
-                    }
+        String title;
+
+        if (message instanceof UserListResponse) {
+            title = "All Registered Users";
+            String[] users = ((UserListResponse) message).getUsers();
+            if (users == null || users.length == 0) {
+                listText.append("No registered users found.");
+            } else {
+                for (String user : users) {
+                    listText.append("Username: ").append(user).append("\n");
                 }
-                break;
-
-            case "076":
-                title = "All Topics";
-                List<Map<String, String>> topics = message.getTopics();
-                if (topics == null || topics.isEmpty()) {
-                    listText.append("No topics found.");
-                } else {
-                    for (Map<String, String> topic : topics) {
-                        listText.append("ID: ").append(topic.get("id"))
-                                .append(" | Title: ").append(topic.get("title"))
-                                .append(" | Author: ").append(topic.get("author")).append("\n")
-                                .append("   Subject: ").append(topic.get("subject")).append("\n---\n");
-                    }
+            }
+        } else if (message instanceof SearchResponse) {
+            SearchResponse search = (SearchResponse) message;
+            title = "Search Results for \"" + search.getQuery() + "\"";
+            PostRow[] hits = search.getHits();
+            if (hits == null || hits.length == 0) {
+                listText.append("No matching topics or replies.");
+            } else {
+                for (PostRow hit : hits) {
+                    listText.append(PostRow.REPLY.equals(hit.getKind()) ? "Reply " + hit.getId() + " in topic " : "Topic ")
+                            .append(hit.getTopicId())
+                            .append(" | Title: ").append(hit.getTitle())
+                            .append(" | Author: ").append(hit.getNick()).append("\n")
+                            .append("   > ").append(hit.getSnippet()).append("\n---\n");
                 }
-                break;
-
-            case "071":
-                title = "Replies for Topic " + message.getTopicId();
-                List<Map<String, String>> replies = message.getMessageList();
-                if (replies == null || replies.isEmpty()) {
-                    listText.append("No replies found for this topic.");
-                } else {
-                    for (Map<String, String> reply : replies) {
-                        listText.append("ID: ").append(reply.get("id"))
-                                .append(" | Author: ").append(reply.get("author")).append("\n")
-                                .append("   > ").append(reply.get("content")).append("\n---\n");
-                    }
+            }
+        } else if (message instanceof MyPostsResponse) {
+            MyPostsResponse myPosts = (MyPostsResponse) message;
+            boolean replies = PostRow.REPLY.equals(myPosts.getKind());
+            PostRow[] posts = myPosts.getPosts();
+            title = (replies ? "My Replies" : "My Topics") + " (" + (posts == null ? 0 : posts.length) + " of " + myPosts.getTotal() + ")";
+            if (posts == null || posts.length == 0) {
+                listText.append(replies ? "You have not replied to any topic yet." : "You have not created any topics yet.");
+            } else {
+                for (PostRow post : posts) {
+                    listText.append(replies ? "Reply " + post.getId() + " in topic " : "Topic ")
+                            .append(post.getTopicId())
+                            .append(" | Title: ").append(post.getTitle()).append("\n")
+                            .append("   > ").append(post.getSnippet()).append("\n---\n");
                 }
-                break;
-
-            default:
-                appendLogMessage("List type not implemented for display: " + opCode);
-                return;
+            }
+        } else {
+            appendLogMessage("List type not implemented for display: " + message.getOperationCode());
+            return;
         }
         showListInDialog(title, listText.toString());
     }
@@ -270,8 +351,9 @@ public class ClientApp extends JFrame {
         logPanel.appendMessage(message);
     }
 
+    // The JSON is rendered only if the line is selected in the log.
     private void appendJsonLog(String direction, ProtocolMessage message) {
-        appendLogMessage(direction + ": " + message.toString());
+        logPanel.appendMessage(direction + ": " + message.getOperationCode() + " " + message.getClass().getSimpleName(), message::toString);
     }
 
     private void sendLoginRequest() {
@@ -291,9 +373,7 @@ public class ClientApp extends JFrame {
                 return;
             }
 
-            ProtocolMessage loginMsg = new ProtocolMessage("000");
-            loginMsg.setUser(user);
-            loginMsg.setPassword(pass);
+            ProtocolMessage loginMsg = new LoginRequest(user, pass);
             appendJsonLog("SENT", loginMsg);
             connection.sendMessage(loginMsg);
         } catch (NumberFormatException e) {
@@ -323,10 +403,7 @@ public class ClientApp extends JFrame {
                 return;
             }
 
-            ProtocolMessage registerMsg = new ProtocolMessage("010");
-            registerMsg.setUser(user);
-            registerMsg.setPassword(pass);
-            registerMsg.setNickname(nick);
+            ProtocolMessage registerMsg = new RegisterRequest(user, nick, pass);
             appendJsonLog("SENT", registerMsg);
             connection.sendMessage(registerMsg);
         } catch (NumberFormatException e) {
@@ -342,9 +419,7 @@ public class ClientApp extends JFrame {
             return;
         }
         try {
-            ProtocolMessage logoutMsg = new ProtocolMessage("020");
-            logoutMsg.setUser(currentUsername);
-            logoutMsg.setToken(currentToken);
+            ProtocolMessage logoutMsg = new LogoutRequest(currentToken, currentUsername);
             appendJsonLog("SENT", logoutMsg);
             connection.sendMessage(logoutMsg);
         } catch (Exception e) {
@@ -372,16 +447,9 @@ public class ClientApp extends JFrame {
                 return;
             }
 
-            ProtocolMessage updateMsg = new ProtocolMessage("030");
-            updateMsg.setUser(user);
-            updateMsg.setPassword(pass);
-            updateMsg.setToken(currentToken);
-            if (!newNick.isEmpty()) {
-                updateMsg.setNewNickname(newNick);
-            }
-            if (!newPass.isEmpty()) {
-                updateMsg.setNewPassword(newPass);
-            }
+            ProtocolMessage updateMsg = new ChangeProfileRequest(currentToken, user, pass,
+                    newNick.isEmpty() ? null : newNick,
+                    newPass.isEmpty() ? null : newPass);
             appendJsonLog("SENT", updateMsg);
             connection.sendMessage(updateMsg);
         } catch (Exception e) {
@@ -407,10 +475,7 @@ public class ClientApp extends JFrame {
                 return;
             }
 
-            ProtocolMessage deleteMsg = new ProtocolMessage("040");
-            deleteMsg.setUser(user);
-            deleteMsg.setToken(currentToken);
-            deleteMsg.setPassword(pass);
+            ProtocolMessage deleteMsg = new DeleteAccountRequest(currentToken, user, pass);
             appendJsonLog("SENT", deleteMsg);
             connection.sendMessage(deleteMsg);
         } catch (Exception e) {
@@ -433,11 +498,7 @@ public class ClientApp extends JFrame {
                 return;
             }
 
-            ProtocolMessage topicMsg = new ProtocolMessage("050");
-            topicMsg.setToken(currentToken);
-            topicMsg.setTitle(title);
-            topicMsg.setSubject(subject);
-            topicMsg.setMessageContent(msgContent);
+            ProtocolMessage topicMsg = new CreateTopicRequest(currentToken, title, subject, msgContent);
             appendJsonLog("SENT", topicMsg);
             connection.sendMessage(topicMsg);
         } catch (Exception e) {
@@ -457,9 +518,7 @@ public class ClientApp extends JFrame {
                 return;
             }
 
-            ProtocolMessage retrieveUserMsg = new ProtocolMessage("005");
-            retrieveUserMsg.setToken(currentToken);
-            retrieveUserMsg.setUser(username); // Protocol expects username
+            ProtocolMessage retrieveUserMsg = new UserDataRequest(currentToken, username); // Protocol expects username
             appendJsonLog("SENT", retrieveUserMsg);
             connection.sendMessage(retrieveUserMsg);
         } catch (Exception e) {
@@ -481,10 +540,7 @@ public class ClientApp extends JFrame {
                 return;
             }
 
-            ProtocolMessage replyMsg = new ProtocolMessage("060");
-            replyMsg.setToken(currentToken);
-            replyMsg.setId(topicId);
-            replyMsg.setMessageContent(msgContent);
+            ProtocolMessage replyMsg = new ReplyRequest(currentToken, topicId, msgContent);
             appendJsonLog("SENT", replyMsg);
             connection.sendMessage(replyMsg);
         } catch (Exception e) {
@@ -503,24 +559,95 @@ public class ClientApp extends JFrame {
                 JOptionPane.showMessageDialog(this, "Topic ID cannot be empty.", "Input Error", JOptionPane.WARNING_MESSAGE);
                 return;
             }
-            ProtocolMessage getRepliesMsg = new ProtocolMessage("070");
-            getRepliesMsg.setId(topicId);
-            appendJsonLog("SENT", getRepliesMsg);
-            connection.sendMessage(getRepliesMsg);
+            mainTabbedPane.setSelectedComponent(browserPanel);
+            browseReplies(topicId);
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "Error sending get replies request: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
 
+    // Topic and reply lists are shown in the Browse tab and fetched a page at a time as the
+    // tables scroll, instead of in one response rendered into a dialog.
+    private void browseReplies(String topicId) {
+        if (topicId.equals(browsedTopicId)) {
+            repliesModel.reload();
+            return;
+        }
+        browsedTopicId = topicId;
+        browserPanel.setRepliesTitle("Replies for Topic " + topicId);
+        repliesModel.setLoader((offset, limit) -> forumPages.replies(topicId, offset, limit).thenApply(ClientApp::replyPage));
+    }
+
+    private static PagedTableModel.Page topicPage(TopicListResponse response) {
+        TopicRow[] topics = response.getTopics() == null ? new TopicRow[0] : response.getTopics();
+        Object[][] rows = new Object[topics.length][];
+        for (int i = 0; i < topics.length; i++) {
+            rows[i] = new Object[]{topics[i].getId(), topics[i].getTitle(), topics[i].getSubject(), topics[i].getNick()};
+        }
+        return new PagedTableModel.Page(response.getOffset() != null ? response.getOffset() : 0,
+                response.getTotal() != null ? response.getTotal() : rows.length, rows);
+    }
+
+    private static PagedTableModel.Page replyPage(ReplyListResponse response) {
+        ReplyRow[] replies = response.getReplies() == null ? new ReplyRow[0] : response.getReplies();
+        Object[][] rows = new Object[replies.length][];
+        for (int i = 0; i < replies.length; i++) {
+            rows[i] = new Object[]{replies[i].getId(), replies[i].getNick(), replies[i].getContent()};
+        }
+        return new PagedTableModel.Page(response.getOffset() != null ? response.getOffset() : 0,
+                response.getTotal() != null ? response.getTotal() : rows.length, rows);
+    }
+
+    private void showPageError(Throwable error) {
+        Throwable cause = error.getCause() != null ? error.getCause() : error;
+        appendLogMessage("Could not load list page: " + cause.getMessage());
+    }
+
+    private void sendSearchRequest() {
+        if (!connection.isConnected()) {
+            JOptionPane.showMessageDialog(this, "You must be connected to search.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        try {
+            String query = searchPanel.getQuery();
+            if (query.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "Search text cannot be empty.", "Input Error", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            ProtocolMessage searchMsg = new SearchRequest(query, null);
+            appendJsonLog("SENT", searchMsg);
+            connection.sendMessage(searchMsg);
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this, "Error sending search request: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void sendMyPostsRequest(String kind) {
+        if (!connection.isConnected() || currentToken == null) {
+            JOptionPane.showMessageDialog(this, "You must be logged in to list your posts.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        try {
+            ProtocolMessage myPostsMsg = new MyPostsRequest(currentToken, kind, 0, 100);
+            appendJsonLog("SENT", myPostsMsg);
+            connection.sendMessage(myPostsMsg);
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this, "Error sending my posts request: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     private void sendGetAllTopicsRequest() {
         if (!connection.isConnected()) {
             JOptionPane.showMessageDialog(this, "You must be connected to get all topics.", "Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
         try {
-            ProtocolMessage getAllTopicsMsg = new ProtocolMessage("075");
-            appendJsonLog("SENT", getAllTopicsMsg);
-            connection.sendMessage(getAllTopicsMsg);
+            mainTabbedPane.setSelectedComponent(browserPanel);
+            if (topicsModel.getRowCount() == 0) {
+                topicsModel.setLoader((offset, limit) -> forumPages.topics(offset, limit).thenApply(ClientApp::topicPage));
+            } else {
+                topicsModel.reload();
+            }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "Error sending get all topics request: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
         }
@@ -544,15 +671,9 @@ public class ClientApp extends JFrame {
                 JOptionPane.showMessageDialog(this, "Enter a new nickname or a new password.", "Input Error", JOptionPane.WARNING_MESSAGE);
                 return;
             }
-            ProtocolMessage adminUpdateMsg = new ProtocolMessage("080");
-            adminUpdateMsg.setToken(currentToken);
-            adminUpdateMsg.setUser(targetUser);
-            if (!newNick.isEmpty()) {
-                adminUpdateMsg.setNewNickname(newNick);
-            }
-            if (!newPass.isEmpty()) {
-                adminUpdateMsg.setNewPassword(newPass);
-            }
+            ProtocolMessage adminUpdateMsg = new AdminChangeUserRequest(currentToken, targetUser,
+                    newNick.isEmpty() ? null : newNick,
+                    newPass.isEmpty() ? null : newPass);
             appendJsonLog("SENT", adminUpdateMsg);
             connection.sendMessage(adminUpdateMsg);
         } catch (Exception e) {
@@ -575,9 +696,9 @@ public class ClientApp extends JFrame {
                 JOptionPane.showMessageDialog(this, "Target username cannot be empty.", "Input Error", JOptionPane.WARNING_MESSAGE);
                 return;
             }
-            ProtocolMessage adminDeleteUserMsg = new ProtocolMessage("090");
-            adminDeleteUserMsg.setToken(currentToken);
-            adminDeleteUserMsg.setUser(targetUser);
+            boolean deletePosts = JOptionPane.showConfirmDialog(this, "Also delete all topics and replies by '" + targetUser + "'?",
+                    "Delete Posts", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION;
+            ProtocolMessage adminDeleteUserMsg = new AdminDeleteUserRequest(currentToken, targetUser, deletePosts);
             appendJsonLog("SENT", adminDeleteUserMsg);
             connection.sendMessage(adminDeleteUserMsg);
         } catch (Exception e) {
@@ -600,9 +721,7 @@ public class ClientApp extends JFrame {
                 JOptionPane.showMessageDialog(this, "Message/Topic ID cannot be empty.", "Input Error", JOptionPane.WARNING_MESSAGE);
                 return;
             }
-            ProtocolMessage adminDeleteMessageMsg = new ProtocolMessage("100");
-            adminDeleteMessageMsg.setToken(currentToken);
-            adminDeleteMessageMsg.setId(messageId);
+            ProtocolMessage adminDeleteMessageMsg = new AdminDeleteMessageRequest(currentToken, messageId);
             appendJsonLog("SENT", adminDeleteMessageMsg);
             connection.sendMessage(adminDeleteMessageMsg);
         } catch (Exception e) {
@@ -616,8 +735,7 @@ public class ClientApp extends JFrame {
             return;
         }
         try {
-            ProtocolMessage listUsersMsg = new ProtocolMessage("110");
-            listUsersMsg.setToken(currentToken);
+            ProtocolMessage listUsersMsg = new ListUsersRequest(currentToken);
             appendJsonLog("SENT", listUsersMsg);
             connection.sendMessage(listUsersMsg);
         } catch (Exception e) {
@@ -0,0 +1,132 @@
+package client;
+
+import com.google.gson.JsonSyntaxException;
+import common.ProtocolMessage;
+import common.SerializationHelper;
+import common.protocol.ReplyListResponse;
+import common.protocol.TopicListResponse;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Topic lists and reply lists (or pages of them) as last received, with the version the server
+// tagged them with. Asking again with that version (if_version) costs a 073/078 instead of the
+// whole list when nothing changed. With a file, the cache is saved on exit and loaded at
+// startup, one "key<TAB>frame" line per list.
+public class ForumCache {
+    public static final int DEFAULT_MAX_LISTS = 256;
+
+    private final Path file;
+    private final int maxLists;
+    private final Consumer<String> logConsumer;
+    private final Map<String, ProtocolMessage> lists;
+
+    public ForumCache(Path file, int maxLists, Consumer<String> logConsumer) {
+        this.file = file;
+        this.maxLists = maxLists;
+        this.logConsumer = logConsumer;
+        // Access order, so the least recently shown list goes first.
+        this.lists = new LinkedHashMap<String, ProtocolMessage>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ProtocolMessage> eldest) {
+                return size() > ForumCache.this.maxLists;
+            }
+        };
+    }
+
+    // A null limit is the whole list.
+    public static String topicsKey(Integer offset, Integer limit) {
+        return "topics:" + offset + ":" + limit;
+    }
+
+    public static String repliesKey(String topicId, Integer offset, Integer limit) {
+        return "replies:" + topicId + ":" + offset + ":" + limit;
+    }
+
+    public synchronized String getVersion(String key) {
+        ProtocolMessage cached = lists.get(key);
+        return cached != null ? versionOf(cached) : null;
+    }
+
+    // Lists without a version cannot be revalidated and are not kept.
+    public synchronized void put(String key, ProtocolMessage list) {
+        if (versionOf(list) != null) {
+            lists.put(key, list);
+        } else {
+            lists.remove(key);
+        }
+    }
+
+    // The cached list if it is the one at version, else null.
+    @SuppressWarnings("unchecked")
+    public synchronized <T extends ProtocolMessage> T get(String key, String version) {
+        ProtocolMessage cached = lists.get(key);
+        return cached != null && versionOf(cached).equals(version) ? (T) cached : null;
+    }
+
+    private static String versionOf(ProtocolMessage list) {
+        if (list instanceof TopicListResponse) {
+            return ((TopicListResponse) list).getVersion();
+        }
+        if (list instanceof ReplyListResponse) {
+            return ((ReplyListResponse) list).getVersion();
+        }
+        return null;
+    }
+
+    public void load() {
+        if (file == null) {
+            return;
+        }
+        int loaded = 0;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                if (tab > 0) {
+                    put(line.substring(0, tab), SerializationHelper.decode(line.substring(tab + 1)));
+                    loaded++;
+                }
+            }
+            logConsumer.accept("Loaded " + loaded + " cached lists from " + file + ".");
+        } catch (NoSuchFileException e) {
+            // First run.
+        } catch (IOException | JsonSyntaxException e) {
+            logConsumer.accept("Ignoring unreadable cache file " + file + ": " + e.getMessage());
+        }
+    }
+
+    // Written next to the target and moved over it, so a crash mid-write keeps the old file.
+    public synchronized void save() {
+        if (file == null) {
+            return;
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8))) {
+                for (Map.Entry<String, ProtocolMessage> entry : lists.entrySet()) {
+                    out.write(entry.getKey());
+                    out.write('\t');
+                    out.write(SerializationHelper.encode(entry.getValue()));
+                    out.write('\n');
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logConsumer.accept("Could not save cache file " + file + ": " + e.getMessage());
+        }
+    }
+}
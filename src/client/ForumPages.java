@@ -0,0 +1,48 @@
+package client;
+
+import common.ClientConnection;
+import common.ProtocolMessage;
+import common.protocol.GetRepliesRequest;
+import common.protocol.GetTopicsRequest;
+import common.protocol.NotModifiedResponse;
+import common.protocol.ReplyListResponse;
+import common.protocol.TopicListResponse;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+// Pages of the topic list and of a topic's replies, fetched with correlated requests so they
+// bypass the GUI's response handlers. Each page is revalidated through the cache: one the
+// server answers with 073/078 is served from it.
+public class ForumPages {
+    private final ClientConnection connection;
+    private final ForumCache cache;
+
+    public ForumPages(ClientConnection connection, ForumCache cache) {
+        this.connection = connection;
+        this.cache = cache;
+    }
+
+    public CompletableFuture<TopicListResponse> topics(int offset, int limit) {
+        return fetch(ForumCache.topicsKey(offset, limit), version -> new GetTopicsRequest(version, offset, limit), TopicListResponse.class, true);
+    }
+
+    public CompletableFuture<ReplyListResponse> replies(String topicId, int offset, int limit) {
+        return fetch(ForumCache.repliesKey(topicId, offset, limit), version -> new GetRepliesRequest(topicId, version, offset, limit), ReplyListResponse.class, true);
+    }
+
+    private <T extends ProtocolMessage> CompletableFuture<T> fetch(String key, Function<String, ProtocolMessage> request, Class<T> listType, boolean conditional) {
+        return connection.sendRequest(request.apply(conditional ? cache.getVersion(key) : null)).thenCompose(response -> {
+            if (listType.isInstance(response)) {
+                cache.put(key, response);
+                return CompletableFuture.completedFuture(listType.cast(response));
+            }
+            if (response instanceof NotModifiedResponse) {
+                T cached = cache.get(key, ((NotModifiedResponse) response).getVersion());
+                // Evicted (or replaced by another page) since the request was sent: ask for it in full.
+                return cached != null ? CompletableFuture.completedFuture(cached) : fetch(key, request, listType, false);
+            }
+            return CompletableFuture.failedFuture(new IOException(response.getOperationCode() + ": " + response.getMessageContent()));
+        });
+    }
+}
@@ -0,0 +1,316 @@
+package client.loadgen;
+
+import common.ClientConnection;
+import common.ProtocolMessage;
+import common.protocol.GetRepliesRequest;
+import common.protocol.GetTopicsRequest;
+import common.protocol.LoginRequest;
+import common.protocol.LoginResponse;
+import common.protocol.LogoutRequest;
+import common.protocol.RegisterRequest;
+import common.protocol.ReplyRequest;
+import common.protocol.TopicListResponse;
+import common.protocol.TopicRow;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Headless load generator. Sessions (login -> list topics -> read replies -> post reply) arrive
+// on an open-loop Poisson schedule and are run by N virtual users, each with its own
+// ClientConnection. Latency is measured from the time a step was supposed to start, so time a
+// session spends waiting for a free user or behind a slow response is counted instead of hidden
+// (coordinated omission).
+//
+// java -cp ".:gson-2.10.1.jar" client.loadgen.LoadGenerator --port 12345 --users 50 --rate 20 --duration 60
+public class LoadGenerator {
+    private static final long RESPONSE_TIMEOUT_MS = 30_000;
+    private static final String PASSWORD = "loadpass1";
+
+    private final String host;
+    private final int port;
+    private final int users;
+    private final double sessionsPerSecond;
+    private final int durationSeconds;
+    private final long meanThinkMillis;
+    private final int repliesReadPerSession;
+    private final double postProbability;
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+    private final BlockingQueue<Long> arrivals = new LinkedBlockingQueue<>();
+    private final AtomicLong completedSessions = new AtomicLong();
+    private volatile boolean running = true;
+
+    public LoadGenerator(String host, int port, int users, double sessionsPerSecond, int durationSeconds,
+                         long meanThinkMillis, int repliesReadPerSession, double postProbability) {
+        this.host = host;
+        this.port = port;
+        this.users = users;
+        this.sessionsPerSecond = sessionsPerSecond;
+        this.durationSeconds = durationSeconds;
+        this.meanThinkMillis = meanThinkMillis;
+        this.repliesReadPerSession = repliesReadPerSession;
+        this.postProbability = postProbability;
+    }
+
+    public void run() throws InterruptedException {
+        System.out.printf("Load: %d users, %.1f sessions/s for %ds against %s:%d (think %dms, %d reads, post p=%.2f)%n",
+                users, sessionsPerSecond, durationSeconds, host, port, meanThinkMillis, repliesReadPerSession, postProbability);
+
+        List<VirtualUser> virtualUsers = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            VirtualUser user = new VirtualUser(String.format("load%04d", i + 1));
+            try {
+                user.connectAndRegister();
+                virtualUsers.add(user);
+            } catch (Exception e) {
+                System.err.println("Virtual user " + user.username + " could not connect: " + e.getMessage());
+            }
+        }
+        if (virtualUsers.isEmpty()) {
+            System.err.println("No virtual users connected; aborting.");
+            return;
+        }
+
+        CountDownLatch finished = new CountDownLatch(virtualUsers.size());
+        for (VirtualUser user : virtualUsers) {
+            Thread thread = new Thread(() -> {
+                try {
+                    user.runSessions();
+                } finally {
+                    finished.countDown();
+                }
+            }, "vu-" + user.username);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        long startNanos = System.nanoTime();
+        long endNanos = startNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long nextArrival = startNanos;
+        while (nextArrival < endNanos) {
+            long sleepNanos = nextArrival - System.nanoTime();
+            if (sleepNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            }
+            arrivals.add(nextArrival);
+            nextArrival += exponentialNanos(1_000_000_000L / sessionsPerSecond);
+        }
+
+        running = false;
+        finished.await(RESPONSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        for (VirtualUser user : virtualUsers) {
+            user.connection.disconnect();
+        }
+        printReport(elapsedNanos, virtualUsers);
+    }
+
+    private void printReport(long elapsedNanos, List<VirtualUser> virtualUsers) {
+        double seconds = elapsedNanos / 1e9;
+        long requests = 0;
+        for (LatencyHistogram histogram : histograms.values()) {
+            requests += histogram.getCount();
+        }
+        long framesWritten = 0;
+        long flushes = 0;
+        long inflatedFrames = 0;
+        long inflateNanos = 0;
+        for (VirtualUser user : virtualUsers) {
+            framesWritten += user.connection.getWriteStats().getFramesWritten();
+            flushes += user.connection.getWriteStats().getFlushes();
+            inflatedFrames += user.connection.getCompressionStats().getInflatedFrames();
+            inflateNanos += user.connection.getCompressionStats().getInflateNanos();
+        }
+
+        System.out.printf("%nCompleted %d sessions, %d requests in %.1fs (%.1f req/s), %d sessions never started%n",
+                completedSessions.get(), requests, seconds, requests / seconds, arrivals.size());
+        System.out.printf("Client writes: %d frames in %d flushes%n", framesWritten, flushes);
+        if (inflatedFrames > 0) {
+            System.out.printf("Compressed responses: %d, inflate cpu %.1f ms%n", inflatedFrames, inflateNanos / 1e6);
+        }
+        System.out.println("Latency in ms, measured from intended start (coordinated-omission corrected):");
+        System.out.printf("%-4s %8s %7s %9s %9s %9s %9s %9s %9s %9s%n",
+                "op", "count", "errors", "mean", "p50", "p90", "p99", "p99.9", "p99.99", "max");
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            LatencyHistogram h = entry.getValue();
+            AtomicLong errorCount = errors.get(entry.getKey());
+            System.out.printf("%-4s %8d %7d %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(), h.getCount(), errorCount == null ? 0 : errorCount.get(),
+                    h.getMeanMicros() / 1000.0,
+                    h.getPercentileMicros(50) / 1000.0,
+                    h.getPercentileMicros(90) / 1000.0,
+                    h.getPercentileMicros(99) / 1000.0,
+                    h.getPercentileMicros(99.9) / 1000.0,
+                    h.getPercentileMicros(99.99) / 1000.0,
+                    h.getMaxMicros() / 1000.0);
+        }
+    }
+
+    private void record(String opCode, long intendedStartNanos, boolean error) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStartNanos);
+        histograms.computeIfAbsent(opCode, k -> new LatencyHistogram()).record(micros);
+        if (error) {
+            errors.computeIfAbsent(opCode, k -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    private static long exponentialNanos(double meanNanos) {
+        return (long) (-Math.log(1.0 - ThreadLocalRandom.current().nextDouble()) * meanNanos);
+    }
+
+    private static boolean isErrorResponse(ProtocolMessage response) {
+        String op = response.getOperationCode();
+        return op == null || op.endsWith("2") || "999".equals(op);
+    }
+
+    private class VirtualUser {
+        private final String username;
+        private final ClientConnection connection;
+        private final List<String> knownTopicIds = new ArrayList<>();
+        private String token;
+
+        VirtualUser(String username) {
+            this.username = username;
+            this.connection = new ClientConnection(message -> { }, log -> { });
+        }
+
+        void connectAndRegister() throws Exception {
+            connection.connect(host, port);
+            await(new RegisterRequest(username, username, PASSWORD)); // 012 "already exists" is fine on reruns
+        }
+
+        void runSessions() {
+            while (running || !arrivals.isEmpty()) {
+                try {
+                    Long intendedStart = arrivals.poll(100, TimeUnit.MILLISECONDS);
+                    if (intendedStart == null) {
+                        continue;
+                    }
+                    if (!running && intendedStart < System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(RESPONSE_TIMEOUT_MS)) {
+                        break;
+                    }
+                    runSession(intendedStart);
+                    completedSessions.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    if (!connection.isConnected()) {
+                        System.err.println(username + " lost its connection: " + e.getMessage());
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void runSession(long intendedStart) throws Exception {
+            ProtocolMessage loginResponse = step(new LoginRequest(username, PASSWORD), intendedStart);
+            if (!(loginResponse instanceof LoginResponse)) {
+                return;
+            }
+            token = ((LoginResponse) loginResponse).getToken();
+
+            ProtocolMessage topicsResponse = step(new GetTopicsRequest(), thinkAfterNow());
+            if (topicsResponse instanceof TopicListResponse) {
+                TopicRow[] topics = ((TopicListResponse) topicsResponse).getTopics();
+                if (topics != null && topics.length > 0) {
+                    knownTopicIds.clear();
+                    for (TopicRow topic : topics) {
+                        knownTopicIds.add(topic.getId());
+                    }
+                }
+            }
+
+            if (!knownTopicIds.isEmpty()) {
+                for (int i = 0; i < repliesReadPerSession; i++) {
+                    step(new GetRepliesRequest(randomTopicId()), thinkAfterNow());
+                }
+                if (ThreadLocalRandom.current().nextDouble() < postProbability) {
+                    String content = "Load test reply from " + username + " at " + System.currentTimeMillis();
+                    step(new ReplyRequest(token, randomTopicId(), content), thinkAfterNow());
+                }
+            }
+
+            step(new LogoutRequest(token, username), thinkAfterNow());
+        }
+
+        // Waits until the intended start (the end of the think time), sends, and records the
+        // latency against the intended start rather than the actual send time.
+        private ProtocolMessage step(ProtocolMessage request, long intendedStart) throws Exception {
+            long sleepNanos = intendedStart - System.nanoTime();
+            if (sleepNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            }
+            String opCode = request.getOperationCode();
+            try {
+                ProtocolMessage response = await(request);
+                record(opCode, intendedStart, isErrorResponse(response));
+                return response;
+            } catch (TimeoutException | ExecutionException e) {
+                record(opCode, intendedStart, true);
+                throw e;
+            }
+        }
+
+        private ProtocolMessage await(ProtocolMessage request) throws InterruptedException, ExecutionException, TimeoutException, IOException {
+            if (!connection.isConnected()) {
+                throw new IOException("Not connected.");
+            }
+            return connection.sendRequest(request).get(RESPONSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+
+        private long thinkAfterNow() {
+            return System.nanoTime() + exponentialNanos(TimeUnit.MILLISECONDS.toNanos(meanThinkMillis));
+        }
+
+        private String randomTopicId() {
+            return knownTopicIds.get(ThreadLocalRandom.current().nextInt(knownTopicIds.size()));
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String host = "localhost";
+        int port = 12345;
+        int users = 20;
+        double rate = 10.0;
+        int duration = 30;
+        long thinkMillis = 200;
+        int reads = 2;
+        double postProbability = 0.3;
+
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--host": host = value; i++; break;
+                case "--port": port = Integer.parseInt(value); i++; break;
+                case "--users": users = Integer.parseInt(value); i++; break;
+                case "--rate": rate = Double.parseDouble(value); i++; break;
+                case "--duration": duration = Integer.parseInt(value); i++; break;
+                case "--think-ms": thinkMillis = Long.parseLong(value); i++; break;
+                case "--reads": reads = Integer.parseInt(value); i++; break;
+                case "--post-probability": postProbability = Double.parseDouble(value); i++; break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.err.println("Options: --host H --port P --users N --rate SESSIONS_PER_SEC --duration SEC "
+                            + "--think-ms MS --reads N --post-probability P");
+                    System.exit(2);
+            }
+        }
+
+        new LoadGenerator(host, port, users, rate, duration, thinkMillis, reads, postProbability).run();
+        System.exit(0);
+    }
+}
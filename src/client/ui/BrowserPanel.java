@@ -0,0 +1,49 @@
+package client.ui;
+
+import javax.swing.*;
+import javax.swing.table.TableModel;
+import java.awt.*;
+
+public class BrowserPanel extends JPanel {
+    private final JTable topicTable;
+    private final JTable replyTable;
+    private final JButton refreshButton;
+    private final JLabel repliesLabel;
+
+    public BrowserPanel(TableModel topics, TableModel replies) {
+        super(new BorderLayout());
+
+        topicTable = new JTable(topics);
+        topicTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        topicTable.setFillsViewportHeight(true);
+        replyTable = new JTable(replies);
+        replyTable.setFillsViewportHeight(true);
+
+        refreshButton = new JButton("Refresh Topics (075)");
+        repliesLabel = new JLabel("Select a topic to see its replies.");
+
+        JPanel topicsPanel = new JPanel(new BorderLayout());
+        topicsPanel.add(refreshButton, BorderLayout.NORTH);
+        topicsPanel.add(new JScrollPane(topicTable), BorderLayout.CENTER);
+
+        JPanel repliesPanel = new JPanel(new BorderLayout());
+        repliesPanel.add(repliesLabel, BorderLayout.NORTH);
+        repliesPanel.add(new JScrollPane(replyTable), BorderLayout.CENTER);
+
+        JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, topicsPanel, repliesPanel);
+        splitPane.setResizeWeight(0.6);
+        add(splitPane, BorderLayout.CENTER);
+    }
+
+    public JTable getTopicTable() { return topicTable; }
+    public JButton getRefreshButton() { return refreshButton; }
+
+    public void setRepliesTitle(String title) {
+        repliesLabel.setText(title);
+    }
+
+    public void updateState(boolean isConnected) {
+        refreshButton.setEnabled(isConnected);
+        topicTable.setEnabled(isConnected);
+    }
+}
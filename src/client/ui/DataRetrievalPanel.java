@@ -7,6 +7,8 @@ public class DataRetrievalPanel extends JPanel {
     private final JTextField usernameToRetrieveField;
     private final JButton retrieveUserDataButton;
     private final JButton getAllTopicsButton;
+    private final JButton myTopicsButton;
+    private final JButton myRepliesButton;
 
     public DataRetrievalPanel() {
         super(new GridBagLayout());
@@ -30,6 +32,14 @@ public class DataRetrievalPanel extends JPanel {
         getAllTopicsButton = new JButton("Get All Topics (075)");
         gbc.gridx = 0; gbc.gridy = 1; gbc.gridwidth = 3;
         add(getAllTopicsButton, gbc);
+
+        JPanel myPostsPanel = new JPanel(new GridLayout(1, 2, 5, 0));
+        myTopicsButton = new JButton("My Topics (140)");
+        myRepliesButton = new JButton("My Replies (140)");
+        myPostsPanel.add(myTopicsButton);
+        myPostsPanel.add(myRepliesButton);
+        gbc.gridx = 0; gbc.gridy = 2; gbc.gridwidth = 3;
+        add(myPostsPanel, gbc);
     }
 
     public String getUsernameToRetrieve() {
@@ -44,9 +54,19 @@ public class DataRetrievalPanel extends JPanel {
         return getAllTopicsButton;
     }
 
+    public JButton getMyTopicsButton() {
+        return myTopicsButton;
+    }
+
+    public JButton getMyRepliesButton() {
+        return myRepliesButton;
+    }
+
     public void updateState(boolean isLoggedIn) {
         usernameToRetrieveField.setEnabled(isLoggedIn);
         retrieveUserDataButton.setEnabled(isLoggedIn);
         getAllTopicsButton.setEnabled(isLoggedIn);
+        myTopicsButton.setEnabled(isLoggedIn);
+        myRepliesButton.setEnabled(isLoggedIn);
     }
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+package client.ui;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+// A table over a list too long to fetch at once. JTable only asks for the cells it paints, so
+// only the pages holding visible rows are loaded: a missing page is requested on first access
+// and its cells read as null until it arrives. Loaders convert a page to cells on the thread
+// that completes the fetch; the model itself is only touched on the EDT. At most MAX_PAGES
+// pages are kept, least recently read dropped first.
+public class PagedTableModel extends AbstractTableModel {
+    private static final int MAX_PAGES = 64;
+
+    public static final class Page {
+        private final int offset;
+        private final int total;
+        private final Object[][] rows;
+
+        public Page(int offset, int total, Object[][] rows) {
+            this.offset = offset;
+            this.total = total;
+            this.rows = rows;
+        }
+    }
+
+    public interface PageLoader {
+        CompletableFuture<Page> load(int offset, int limit);
+    }
+
+    private final String[] columns;
+    private final int pageSize;
+    private final Consumer<Throwable> errorHandler;
+    private final Map<Integer, Object[][]> pages = new LinkedHashMap<Integer, Object[][]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Object[][]> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+    private final Set<Integer> loading = new HashSet<>();
+    private PageLoader loader;
+    private int generation;
+    private int rowCount;
+
+    public PagedTableModel(String[] columns, int pageSize, Consumer<Throwable> errorHandler) {
+        this.columns = columns;
+        this.pageSize = pageSize;
+        this.errorHandler = errorHandler;
+    }
+
+    // Shows another list, starting empty.
+    public void setLoader(PageLoader loader) {
+        this.loader = loader;
+        generation++;
+        pages.clear();
+        loading.clear();
+        rowCount = 0;
+        fireTableDataChanged();
+        requestPage(0);
+    }
+
+    // Fetches the visible pages again; the old rows stay on screen until they are replaced.
+    public void reload() {
+        if (loader == null) {
+            return;
+        }
+        generation++;
+        pages.clear();
+        loading.clear();
+        if (rowCount == 0) {
+            requestPage(0);
+        } else {
+            fireTableRowsUpdated(0, rowCount - 1);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        int pageIndex = rowIndex / pageSize;
+        Object[][] page = pages.get(pageIndex);
+        if (page == null) {
+            requestPage(pageIndex);
+            return null;
+        }
+        int row = rowIndex - pageIndex * pageSize;
+        return row < page.length ? page[row][columnIndex] : null;
+    }
+
+    private void requestPage(int pageIndex) {
+        if (loader == null || !loading.add(pageIndex)) {
+            return;
+        }
+        int requestGeneration = generation;
+        loader.load(pageIndex * pageSize, pageSize).whenComplete((page, error) -> SwingUtilities.invokeLater(() -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            loading.remove(pageIndex);
+            if (error != null) {
+                errorHandler.accept(error);
+                return;
+            }
+            pages.put(pageIndex, page.rows);
+            if (page.total != rowCount) {
+                rowCount = page.total;
+                fireTableDataChanged();
+            } else if (page.rows.length > 0) {
+                fireTableRowsUpdated(page.offset, Math.min(page.offset + page.rows.length, rowCount) - 1);
+            }
+        }));
+    }
+}
@@ -0,0 +1,34 @@
+package client.ui;
+
+import javax.swing.*;
+import java.awt.*;
+
+public class SearchPanel extends JPanel {
+    private final JTextField queryField;
+    private final JButton searchButton;
+
+    public SearchPanel() {
+        super(new GridBagLayout());
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(5, 5, 5, 5);
+        gbc.anchor = GridBagConstraints.WEST;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+
+        gbc.gridx = 0; gbc.gridy = 0; add(new JLabel("Search Topics and Replies:"), gbc);
+        queryField = new JTextField(20);
+        gbc.gridx = 1; gbc.weightx = 1.0; add(queryField, gbc);
+
+        searchButton = new JButton("Search (130)");
+        gbc.gridx = 0; gbc.gridy = 1; gbc.gridwidth = 2; add(searchButton, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 2; gbc.weighty = 1.0; add(new JPanel(), gbc);
+    }
+
+    public String getQuery() { return queryField.getText().trim(); }
+    public JButton getSearchButton() { return searchButton; }
+
+    public void updateState(boolean isLoggedIn) {
+        queryField.setEnabled(isLoggedIn);
+        searchButton.setEnabled(isLoggedIn);
+    }
+}
@@ -0,0 +1,439 @@
+package common;
+
+import common.protocol.CompressionRequest;
+import common.protocol.CompressionResponse;
+import common.protocol.ForumEvent;
+import common.protocol.ResumeRequest;
+import common.protocol.ResumeResponse;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+public class ClientConnection {
+    // Server responses (e.g. 076 with every topic) are much larger than client requests.
+    private static final int MAX_FRAME_BYTES = Integer.getInteger("forum.client.maxFrameBytes", 64 * 1024 * 1024);
+    private static final int COMPRESSION_THRESHOLD_BYTES = Integer.getInteger("forum.compression.minBytes", FrameWriter.DEFAULT_COMPRESSION_THRESHOLD_BYTES);
+    private static final int HANDSHAKE_TIMEOUT_MS = 5000;
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+    private static final long RECONNECT_BASE_DELAY_MS = Long.getLong("forum.client.reconnect.baseMs", 250);
+    private static final long RECONNECT_MAX_DELAY_MS = Long.getLong("forum.client.reconnect.maxMs", 30000);
+
+    private Socket socket;
+    private FrameWriter out;
+    private FrameReader in;
+    private Thread listenerThread;
+    private final Consumer<ProtocolMessage> messageHandler;
+    private final Consumer<String> logConsumer;
+    private final WriteStats writeStats;
+    private final CompressionStats compressionStats;
+    private final Map<String, CompletableFuture<ProtocolMessage>> pendingRequests;
+    private final AtomicLong nextRequestId;
+
+    private volatile boolean connected = false;
+    private volatile boolean compressionRequested = Boolean.getBoolean("forum.client.compression");
+    // Off unless the owner asks for it: internal links (cluster peers, replication, dashboard,
+    // load generator) replace a dropped connection themselves.
+    private volatile boolean autoReconnect = false;
+    private volatile Runnable connectionListener = () -> { };
+
+    // Set by every successful connect, from nextGeneration, so a listener or writer of an
+    // earlier socket cannot tear down the current one.
+    private volatile int generation;
+    private final AtomicInteger nextGeneration = new AtomicInteger();
+    private String host;
+    private int port;
+    private Thread reconnectThread;
+
+    // The session whose events this connection follows. Kept across reconnects; the epoch and
+    // sequence number of the last event seen are sent back on resume.
+    private volatile String sessionToken;
+    private volatile String eventEpoch;
+    private volatile long lastEventSeq;
+
+    public ClientConnection(Consumer<ProtocolMessage> messageHandler, Consumer<String> logConsumer) {
+        this.messageHandler = messageHandler;
+        this.logConsumer = logConsumer;
+        this.writeStats = new WriteStats();
+        this.compressionStats = new CompressionStats();
+        this.pendingRequests = new ConcurrentHashMap<>();
+        this.nextRequestId = new AtomicLong(1);
+    }
+
+    public boolean isConnected() {
+        return this.connected && this.socket != null && !this.socket.isClosed();
+    }
+
+    public synchronized void connect(String host, int port) throws IOException, UnknownHostException {
+        stopReconnecting();
+        if (this.connected) {
+            this.logConsumer.accept("Already connected. Disconnecting first.");
+            this.close();
+        }
+        this.host = host;
+        this.port = port;
+        publish(dial(host, port, null));
+        this.connectionListener.run();
+    }
+
+    // Connects and handshakes without touching the current connection or holding the lock, so
+    // a slow server never blocks connect() or disconnect() on another thread. A resume request
+    // is queued on the new writer before the link is published, which makes it the first
+    // request the server sees on it.
+    private Link dial(String host, int port, ResumeRequest resume) throws IOException {
+        int linkGeneration = this.nextGeneration.incrementAndGet();
+        Socket socket = new Socket();
+        FrameWriter out = null;
+        try {
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+            out = new FrameWriter(socket.getOutputStream(), "client-sender", this.writeStats,
+                    e -> handleWriteError(linkGeneration, e));
+            FrameReader in = new FrameReader(socket.getInputStream(), MAX_FRAME_BYTES);
+            if (this.compressionRequested) {
+                negotiateCompression(socket, out, in);
+            }
+            if (resume != null) {
+                SerializationHelper.writeMessage(resume, out);
+            }
+            return new Link(socket, out, in, linkGeneration);
+        } catch (IOException e) {
+            this.logConsumer.accept("Failed to connect: " + e.getMessage());
+            socket.close();
+            if (out != null) {
+                out.close();
+            }
+            throw e;
+        }
+    }
+
+    // Caller holds the lock.
+    private void publish(Link link) {
+        this.socket = link.socket;
+        this.out = link.out;
+        this.in = link.in;
+        this.generation = link.generation;
+        this.connected = true;
+        this.logConsumer.accept("Connected to server: " + this.host + ":" + this.port);
+
+        FrameReader reader = link.in;
+        this.listenerThread = new Thread(() -> listenForMessages(link.generation, reader));
+        this.listenerThread.setDaemon(true);
+        this.listenerThread.start();
+    }
+
+    private static void discard(Link link) {
+        try {
+            link.socket.close();
+        } catch (IOException ignored) {
+            // Never published, so nobody else is using it.
+        }
+        link.out.close();
+    }
+
+    // Closes the connection for good: no reconnect, and the session's events are no longer followed.
+    public synchronized void disconnect() {
+        stopReconnecting();
+        this.sessionToken = null;
+        if (!this.connected) {
+            this.logConsumer.accept("Not connected.");
+            return;
+        }
+        close();
+        this.connectionListener.run();
+    }
+
+    private void close() {
+        this.connected = false;
+        try {
+            if (this.out != null) this.out.close(); // drains queued requests (e.g. a final logout)
+            if (this.socket != null && !this.socket.isClosed()) {
+                this.socket.close();
+            }
+            if (this.in != null) this.in.close();
+            this.logConsumer.accept("Disconnected from server.");
+        } catch (IOException e) {
+            this.logConsumer.accept("Error during disconnection: " + e.getMessage());
+        } finally {
+            this.socket = null;
+            this.out = null;
+            this.in = null;
+            failPendingRequests(new IOException("Connection closed before a response was received."));
+        }
+    }
+
+    public void sendMessage(ProtocolMessage message) {
+        if (!this.connected) {
+            this.logConsumer.accept("Cannot send message: not connected to server.");
+            return;
+        }
+        try {
+            SerializationHelper.writeMessage(message, this.out);
+            this.logConsumer.accept("Sent " + message.getOperationCode() + " request.");
+        } catch (IOException e) {
+            this.logConsumer.accept("Failed to queue message for sending: " + e.getMessage());
+        }
+    }
+
+    // Follows the events of a freshly logged-in session, on this connection and on the ones
+    // reconnect opens later.
+    public void startSession(String token) {
+        this.sessionToken = token;
+        this.eventEpoch = null;
+        this.lastEventSeq = 0;
+        sendMessage(new ResumeRequest(token, null, null));
+    }
+
+    // After logout or account deletion.
+    public void endSession() {
+        this.sessionToken = null;
+    }
+
+    public void setAutoReconnect(boolean autoReconnect) {
+        this.autoReconnect = autoReconnect;
+        if (!autoReconnect) {
+            stopReconnecting();
+        }
+    }
+
+    // Runs, on whatever thread noticed, after the connection is opened, lost or closed.
+    public void setConnectionListener(Runnable connectionListener) {
+        this.connectionListener = connectionListener;
+    }
+
+    public WriteStats getWriteStats() {
+        return this.writeStats;
+    }
+
+    public CompressionStats getCompressionStats() {
+        return this.compressionStats;
+    }
+
+    // Takes effect on the next connect().
+    public void setCompressionRequested(boolean compressionRequested) {
+        this.compressionRequested = compressionRequested;
+    }
+
+    // Runs before the listener starts, so the reply can be read here and nothing else is sent
+    // until both sides have switched framing. A server that refuses (or predates 120) answers
+    // with an error and the connection simply stays uncompressed.
+    private void negotiateCompression(Socket socket, FrameWriter out, FrameReader in) throws IOException {
+        SerializationHelper.writeMessage(new CompressionRequest(CompressionRequest.DEFLATE), out);
+        socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+        ProtocolMessage reply;
+        try {
+            reply = SerializationHelper.readMessage(in);
+        } finally {
+            socket.setSoTimeout(0);
+        }
+        if (reply instanceof CompressionResponse) {
+            in.enableCompression(this.compressionStats);
+            out.enableCompression(COMPRESSION_THRESHOLD_BYTES, this.compressionStats);
+            this.logConsumer.accept("Compression enabled (deflate).");
+        } else if (reply != null) {
+            this.logConsumer.accept("Server declined compression: " + reply.getMessageContent());
+        } else {
+            throw new IOException("Server closed the connection during the compression handshake.");
+        }
+    }
+
+    // Tags the message with a fresh request id and completes the returned future with the
+    // response carrying the same id. Any number of these may be in flight on one socket;
+    // responses without a matching id still go to the messageHandler.
+    public CompletableFuture<ProtocolMessage> sendRequest(ProtocolMessage message) {
+        CompletableFuture<ProtocolMessage> future = new CompletableFuture<>();
+        if (!this.connected) {
+            future.completeExceptionally(new IOException("Not connected to server."));
+            return future;
+        }
+        String requestId = Long.toString(this.nextRequestId.getAndIncrement());
+        message.setRequestId(requestId);
+        this.pendingRequests.put(requestId, future);
+        try {
+            SerializationHelper.writeMessage(message, this.out);
+        } catch (IOException e) {
+            this.pendingRequests.remove(requestId);
+            future.completeExceptionally(e);
+        }
+        if (!this.connected && this.pendingRequests.remove(requestId) != null) {
+            future.completeExceptionally(new IOException("Connection closed before the request was sent."));
+        }
+        return future;
+    }
+
+    public int getPendingRequestCount() {
+        return this.pendingRequests.size();
+    }
+
+    private void failPendingRequests(Throwable cause) {
+        List<String> requestIds = new ArrayList<>(this.pendingRequests.keySet());
+        for (String requestId : requestIds) {
+            CompletableFuture<ProtocolMessage> future = this.pendingRequests.remove(requestId);
+            if (future != null) {
+                future.completeExceptionally(cause);
+            }
+        }
+    }
+
+    private void listenForMessages(int connectionGeneration, FrameReader reader) {
+        while (this.connected && this.generation == connectionGeneration) {
+            try {
+                ProtocolMessage message = SerializationHelper.readMessage(reader);
+                if (message == null) {
+                    connectionLost(connectionGeneration, "Server closed the connection.");
+                    break;
+                }
+                if (message instanceof ForumEvent && !isNewEvent((ForumEvent) message)) {
+                    continue;
+                }
+                if (message instanceof ResumeResponse) {
+                    ResumeResponse resumed = (ResumeResponse) message;
+                    if (!resumed.getEpoch().equals(this.eventEpoch)) {
+                        this.eventEpoch = resumed.getEpoch();
+                        this.lastEventSeq = resumed.getSeq();
+                    } else {
+                        this.lastEventSeq = Math.max(this.lastEventSeq, resumed.getSeq());
+                    }
+                }
+                String requestId = message.getRequestId();
+                if (requestId != null) {
+                    CompletableFuture<ProtocolMessage> future = this.pendingRequests.remove(requestId);
+                    if (future != null) {
+                        future.complete(message);
+                        continue;
+                    }
+                }
+                this.messageHandler.accept(message);
+            } catch (IOException e) {
+                connectionLost(connectionGeneration, "Server disconnected or IO error: " + e.getMessage());
+            } catch (Exception e) {
+                if (this.connected && this.generation == connectionGeneration) {
+                    this.logConsumer.accept("Unexpected error while listening: " + e.getMessage());
+                }
+            }
+        }
+        this.logConsumer.accept("Listener thread stopped.");
+    }
+
+    // Events are numbered per server run; one already seen (replayed after it had arrived)
+    // is dropped, and a new epoch means a new server run.
+    private boolean isNewEvent(ForumEvent event) {
+        if (!event.getEpoch().equals(this.eventEpoch)) {
+            this.eventEpoch = event.getEpoch();
+        } else if (event.getSeq() <= this.lastEventSeq) {
+            return false;
+        }
+        this.lastEventSeq = event.getSeq();
+        return true;
+    }
+
+    private void handleWriteError(int connectionGeneration, IOException e) {
+        connectionLost(connectionGeneration, "Error sending message: " + e.getMessage());
+    }
+
+    private void connectionLost(int connectionGeneration, String reason) {
+        if (!this.connected || this.generation != connectionGeneration) {
+            return;
+        }
+        synchronized (this) {
+            if (!this.connected || this.generation != connectionGeneration) {
+                return;
+            }
+            this.logConsumer.accept(reason);
+            close();
+            if (this.autoReconnect && this.host != null) {
+                this.reconnectThread = new Thread(this::reconnectLoop, "client-reconnect");
+                this.reconnectThread.setDaemon(true);
+                this.reconnectThread.start();
+            }
+        }
+        this.connectionListener.run();
+    }
+
+    private synchronized void stopReconnecting() {
+        if (this.reconnectThread != null) {
+            this.reconnectThread.interrupt();
+            this.reconnectThread = null;
+        }
+    }
+
+    // Exponential backoff with jitter, so the clients of a server that blipped do not all
+    // come back in the same instant. Gives up only when stopped by connect() or disconnect().
+    private void reconnectLoop() {
+        Thread self = Thread.currentThread();
+        for (int attempt = 1; ; attempt++) {
+            long ceiling = RECONNECT_BASE_DELAY_MS << Math.min(attempt - 1, 20);
+            ceiling = Math.min(ceiling, RECONNECT_MAX_DELAY_MS);
+            long delay = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+            String host;
+            int port;
+            synchronized (this) {
+                if (this.reconnectThread != self) {
+                    return;
+                }
+                host = this.host;
+                port = this.port;
+            }
+            this.logConsumer.accept("Reconnecting to " + host + ":" + port + " in " + delay + " ms (attempt " + attempt + ").");
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                return;
+            }
+            Link link;
+            try {
+                link = dial(host, port, resumeRequest());
+            } catch (IOException e) {
+                continue;
+            }
+            boolean current;
+            synchronized (this) {
+                current = this.reconnectThread == self;
+                if (current) {
+                    publish(link);
+                    this.reconnectThread = null;
+                }
+            }
+            if (current) {
+                this.connectionListener.run();
+            } else {
+                discard(link);
+            }
+            return;
+        }
+    }
+
+    // Rebinds the token on the new connection and has the server replay the events missed in
+    // between; null when no session is being followed.
+    private ResumeRequest resumeRequest() {
+        String token = this.sessionToken;
+        if (token == null) {
+            return null;
+        }
+        String epoch = this.eventEpoch;
+        this.logConsumer.accept("Resuming session" + (epoch != null ? " after event " + this.lastEventSeq : "") + ".");
+        return new ResumeRequest(token, epoch, epoch != null ? this.lastEventSeq : null);
+    }
+
+    private static final class Link {
+        final Socket socket;
+        final FrameWriter out;
+        final FrameReader in;
+        final int generation;
+
+        Link(Socket socket, FrameWriter out, FrameReader in, int generation) {
+            this.socket = socket;
+            this.out = out;
+            this.in = in;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package common;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+
+public class CompressionStats {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = THREADS.isCurrentThreadCpuTimeSupported();
+
+    private final LongAdder compressedFrames = new LongAdder();
+    private final LongAdder uncompressedFrames = new LongAdder();
+    private final LongAdder rawBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder deflateNanos = new LongAdder();
+    private final LongAdder inflatedFrames = new LongAdder();
+    private final LongAdder inflateNanos = new LongAdder();
+
+    // CPU time of the calling thread, or wall time where the JVM cannot measure it.
+    static long cpuTimeNanos() {
+        return CPU_TIME_SUPPORTED ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    public void recordCompressed(int raw, int compressed, long nanos) {
+        compressedFrames.increment();
+        rawBytes.add(raw);
+        compressedBytes.add(compressed);
+        deflateNanos.add(nanos);
+    }
+
+    // Frames under the threshold, or that did not get smaller, go out as they are.
+    public void recordUncompressed(long nanos) {
+        uncompressedFrames.increment();
+        deflateNanos.add(nanos);
+    }
+
+    public void recordInflated(long nanos) {
+        inflatedFrames.increment();
+        inflateNanos.add(nanos);
+    }
+
+    public long getCompressedFrames() { return compressedFrames.sum(); }
+    public long getUncompressedFrames() { return uncompressedFrames.sum(); }
+    public long getRawBytes() { return rawBytes.sum(); }
+    public long getCompressedBytes() { return compressedBytes.sum(); }
+    public long getDeflateNanos() { return deflateNanos.sum(); }
+    public long getInflatedFrames() { return inflatedFrames.sum(); }
+    public long getInflateNanos() { return inflateNanos.sum(); }
+
+    public double getCompressionRatio() {
+        long compressed = getCompressedBytes();
+        return compressed == 0 ? 0.0 : (double) getRawBytes() / compressed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("compressed frames=%d (%d -> %d bytes, %.2fx), uncompressed frames=%d, deflate cpu=%.1f ms, inflated frames=%d, inflate cpu=%.1f ms",
+                getCompressedFrames(), getRawBytes(), getCompressedBytes(), getCompressionRatio(), getUncompressedFrames(),
+                getDeflateNanos() / 1_000_000.0, getInflatedFrames(), getInflateNanos() / 1_000_000.0);
+    }
+}
@@ -0,0 +1,201 @@
+package common;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// Newline-delimited frame reader with a hard size limit. Keep one instance per connection
+// so the read and frame buffers are reused between messages. After enableCompression() it
+// reads the length-prefixed frames described in FrameWriter instead.
+public class FrameReader {
+    public static final int DEFAULT_MAX_FRAME_BYTES = 1024 * 1024;
+
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int INITIAL_FRAME_BUFFER_SIZE = 4096;
+    private static final int FRAME_BUFFER_TRIM_SIZE = 256 * 1024;
+
+    private final InputStream in;
+    private final int maxFrameBytes;
+    private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+    private int readPos;
+    private int readLimit;
+    private byte[] frameBuffer = new byte[INITIAL_FRAME_BUFFER_SIZE];
+    private Inflater inflater;
+    private byte[] inflateBuffer;
+    private CompressionStats compressionStats;
+
+    public FrameReader(InputStream in, int maxFrameBytes) {
+        if (maxFrameBytes <= 0) {
+            throw new IllegalArgumentException("maxFrameBytes must be positive: " + maxFrameBytes);
+        }
+        this.in = in;
+        this.maxFrameBytes = maxFrameBytes;
+    }
+
+    public int getMaxFrameBytes() { return maxFrameBytes; }
+
+    // Must be called from the reading thread, right after the frame that announced the switch.
+    // Bytes already buffered are read with the new framing.
+    public void enableCompression(CompressionStats stats) {
+        if (inflater == null) {
+            inflater = new Inflater(true);
+            compressionStats = stats;
+        }
+    }
+
+    public boolean isCompressionEnabled() {
+        return inflater != null;
+    }
+
+    // Returns null at end of stream. Oversized frames are rejected before the rest is read.
+    public String readFrame() throws IOException {
+        if (inflater != null) {
+            return readBinaryFrame();
+        }
+        int frameLength = 0;
+        while (true) {
+            if (readPos == readLimit) {
+                int n = in.read(readBuffer, 0, readBuffer.length);
+                if (n == -1) {
+                    readPos = 0;
+                    readLimit = 0;
+                    return frameLength == 0 ? null : decodeFrame(frameLength);
+                }
+                readPos = 0;
+                readLimit = n;
+            }
+
+            int start = readPos;
+            while (readPos < readLimit && readBuffer[readPos] != '\n') {
+                readPos++;
+            }
+            int chunkLength = readPos - start;
+            if (frameLength + chunkLength > maxFrameBytes) {
+                throw new FrameTooLargeException(maxFrameBytes);
+            }
+            ensureFrameCapacity(frameLength + chunkLength);
+            System.arraycopy(readBuffer, start, frameBuffer, frameLength, chunkLength);
+            frameLength += chunkLength;
+
+            if (readPos < readLimit) {
+                readPos++; // consume '\n'
+                return decodeFrame(frameLength);
+            }
+        }
+    }
+
+    public void close() throws IOException {
+        in.close();
+        if (inflater != null) {
+            inflater.end();
+        }
+    }
+
+    private String readBinaryFrame() throws IOException {
+        int header = 0;
+        for (int i = 0; i < 4; i++) {
+            if (readPos == readLimit && !fill()) {
+                if (i == 0) {
+                    return null;
+                }
+                throw new EOFException("Stream ended inside a frame header.");
+            }
+            header = (header << 8) | (readBuffer[readPos++] & 0xff);
+        }
+        boolean compressed = (header & FrameWriter.COMPRESSED_FLAG) != 0;
+        int payloadLength = header & ~FrameWriter.COMPRESSED_FLAG;
+        if (payloadLength > maxFrameBytes) {
+            throw new FrameTooLargeException(maxFrameBytes);
+        }
+
+        ensureFrameCapacity(payloadLength);
+        int copied = 0;
+        while (copied < payloadLength) {
+            if (readPos == readLimit && !fill()) {
+                throw new EOFException("Stream ended inside a frame.");
+            }
+            int chunk = Math.min(payloadLength - copied, readLimit - readPos);
+            System.arraycopy(readBuffer, readPos, frameBuffer, copied, chunk);
+            readPos += chunk;
+            copied += chunk;
+        }
+        if (!compressed) {
+            return decodeFrame(payloadLength);
+        }
+
+        long start = CompressionStats.cpuTimeNanos();
+        int inflatedLength = inflate(payloadLength);
+        String frame = new String(inflateBuffer, 0, inflatedLength, StandardCharsets.UTF_8);
+        if (inflateBuffer.length > FRAME_BUFFER_TRIM_SIZE) {
+            inflateBuffer = null;
+        }
+        if (frameBuffer.length > FRAME_BUFFER_TRIM_SIZE) {
+            frameBuffer = new byte[INITIAL_FRAME_BUFFER_SIZE];
+        }
+        compressionStats.recordInflated(CompressionStats.cpuTimeNanos() - start);
+        return frame;
+    }
+
+    // The inflated size is held to maxFrameBytes as well, so a small frame cannot expand
+    // without bound.
+    private int inflate(int payloadLength) throws IOException {
+        if (inflateBuffer == null) {
+            inflateBuffer = new byte[Math.min(Math.max(payloadLength * 4, INITIAL_FRAME_BUFFER_SIZE), maxFrameBytes)];
+        }
+        inflater.reset();
+        inflater.setInput(frameBuffer, 0, payloadLength);
+        int length = 0;
+        try {
+            while (!inflater.finished()) {
+                if (length == inflateBuffer.length) {
+                    if (length >= maxFrameBytes) {
+                        throw new FrameTooLargeException(maxFrameBytes);
+                    }
+                    inflateBuffer = Arrays.copyOf(inflateBuffer, (int) Math.min((long) length * 2, maxFrameBytes));
+                }
+                int n = inflater.inflate(inflateBuffer, length, inflateBuffer.length - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated compressed frame.");
+                }
+                length += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed frame: " + e.getMessage(), e);
+        }
+        return length;
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(readBuffer, 0, readBuffer.length);
+        if (n == -1) {
+            readPos = 0;
+            readLimit = 0;
+            return false;
+        }
+        readPos = 0;
+        readLimit = n;
+        return true;
+    }
+
+    private String decodeFrame(int frameLength) {
+        if (frameLength > 0 && frameBuffer[frameLength - 1] == '\r') {
+            frameLength--;
+        }
+        String frame = new String(frameBuffer, 0, frameLength, StandardCharsets.UTF_8);
+        if (frameBuffer.length > FRAME_BUFFER_TRIM_SIZE) {
+            frameBuffer = new byte[INITIAL_FRAME_BUFFER_SIZE];
+        }
+        return frame;
+    }
+
+    private void ensureFrameCapacity(int required) {
+        if (required > frameBuffer.length) {
+            int newSize = Math.max(required, Math.min(frameBuffer.length * 2, maxFrameBytes));
+            frameBuffer = Arrays.copyOf(frameBuffer, newSize);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package common;
+
+import java.io.IOException;
+
+public class FrameTooLargeException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int maxFrameBytes;
+
+    public FrameTooLargeException(int maxFrameBytes) {
+        super("Frame exceeds maximum size of " + maxFrameBytes + " bytes.");
+        this.maxFrameBytes = maxFrameBytes;
+    }
+
+    public int getMaxFrameBytes() { return maxFrameBytes; }
+}
@@ -0,0 +1,255 @@
+package common;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+
+// Queues outbound frames and writes them from a single thread, flushing the socket only when
+// the queue drains or when the size/time threshold is hit. Bursts of responses and broadcasts
+// then cost one write syscall instead of one per message.
+//
+// Once compression is enabled, frames are written as a 4-byte big-endian header followed by
+// the payload. The top bit of the header marks a deflated payload; the rest is its length.
+//
+// The queue is bounded: a peer that stops reading fails the writer once maxQueuedFrames are
+// waiting, and the error handler is told so the owner can drop the connection.
+public class FrameWriter {
+    public static final int DEFAULT_FLUSH_THRESHOLD_BYTES = 64 * 1024;
+    public static final long DEFAULT_MAX_FLUSH_DELAY_MICROS = 2000;
+    public static final int DEFAULT_COMPRESSION_THRESHOLD_BYTES = 1024;
+    public static final int DEFAULT_MAX_QUEUED_FRAMES = 4096;
+    static final int COMPRESSED_FLAG = 0x80000000;
+
+    private static final String CLOSE_MARKER = new String("<close>");
+    private static final String COMPRESS_MARKER = new String("<compress>");
+    private static final long CLOSE_TIMEOUT_MS = 1000;
+    private static final int DEFLATE_BUFFER_TRIM_SIZE = 256 * 1024;
+
+    private final OutputStream out;
+    private final BlockingQueue<String> queue;
+    private final WriteStats stats;
+    private final Consumer<IOException> errorHandler;
+    private final int flushThresholdBytes;
+    private final long maxFlushDelayNanos;
+    private final Thread writerThread;
+
+    private volatile boolean closed = false;
+    private volatile IOException failure;
+    private volatile int compressionThresholdBytes;
+    private volatile CompressionStats compressionStats;
+
+    // Only touched by the writer thread.
+    private Deflater deflater;
+    private byte[] deflateBuffer;
+
+    public FrameWriter(OutputStream out, String name, WriteStats stats, Consumer<IOException> errorHandler) {
+        this(out, name, stats, errorHandler, DEFAULT_FLUSH_THRESHOLD_BYTES, DEFAULT_MAX_FLUSH_DELAY_MICROS,
+                DEFAULT_MAX_QUEUED_FRAMES);
+    }
+
+    public FrameWriter(OutputStream out, String name, WriteStats stats, Consumer<IOException> errorHandler,
+                       int flushThresholdBytes, long maxFlushDelayMicros, int maxQueuedFrames) {
+        this.out = new BufferedOutputStream(out, flushThresholdBytes);
+        this.queue = new LinkedBlockingQueue<>(maxQueuedFrames);
+        this.stats = stats;
+        this.errorHandler = errorHandler;
+        this.flushThresholdBytes = flushThresholdBytes;
+        this.maxFlushDelayNanos = TimeUnit.MICROSECONDS.toNanos(maxFlushDelayMicros);
+        this.writerThread = new Thread(this::writeLoop, name);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    public void send(String frame) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (closed) {
+            throw new IOException("Writer is closed.");
+        }
+        if (!queue.offer(frame)) {
+            throw overflow();
+        }
+    }
+
+    // Frames sent after this call use the binary framing above, deflating those of at least
+    // thresholdBytes. The switch happens in queue order, so the peer can be told in the frame
+    // sent just before.
+    public void enableCompression(int thresholdBytes, CompressionStats stats) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (closed) {
+            throw new IOException("Writer is closed.");
+        }
+        this.compressionThresholdBytes = thresholdBytes;
+        this.compressionStats = stats;
+        if (!queue.offer(COMPRESS_MARKER)) {
+            throw overflow();
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    // Writes whatever is already queued, then stops the writer thread; if the queue stays full
+    // for the close timeout, what is queued is dropped instead. The underlying stream is left
+    // open; the owner closes the socket.
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (Thread.currentThread() == writerThread) {
+            if (!queue.offer(CLOSE_MARKER)) {
+                discardQueued();
+            }
+            return;
+        }
+        try {
+            if (!queue.offer(CLOSE_MARKER, CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                discardQueued();
+            }
+            writerThread.join(CLOSE_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The peer is not keeping up: drop what is queued, stop the writer thread and report it once.
+    private IOException overflow() {
+        IOException e = new IOException("Outbound queue full (" + queue.size() + " frames).");
+        synchronized (this) {
+            if (failure != null) {
+                return failure;
+            }
+            failure = e;
+            closed = true;
+        }
+        discardQueued();
+        if (errorHandler != null) {
+            errorHandler.accept(e);
+        }
+        return e;
+    }
+
+    // Replaces whatever is queued with the close marker so the writer thread stops.
+    private void discardQueued() {
+        do {
+            queue.clear();
+        } while (!queue.offer(CLOSE_MARKER));
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                String frame = queue.take();
+                long firstUnflushedAt = System.nanoTime();
+                int pendingBytes = 0;
+                while (frame != null) {
+                    if (frame == CLOSE_MARKER) {
+                        if (pendingBytes > 0) {
+                            flush();
+                        }
+                        return;
+                    }
+                    if (frame == COMPRESS_MARKER) {
+                        deflater = new Deflater(Deflater.BEST_SPEED, true);
+                        frame = queue.poll();
+                        continue;
+                    }
+                    byte[] bytes = frame.getBytes(StandardCharsets.UTF_8);
+                    int written = deflater == null ? writeLine(bytes) : writeBinary(bytes);
+                    stats.recordFrame(written);
+                    pendingBytes += written;
+
+                    if (pendingBytes >= flushThresholdBytes || System.nanoTime() - firstUnflushedAt >= maxFlushDelayNanos) {
+                        flush();
+                        pendingBytes = 0;
+                        firstUnflushedAt = System.nanoTime();
+                    }
+                    frame = queue.poll();
+                }
+                if (pendingBytes > 0) {
+                    flush();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            failure = e;
+            closed = true;
+            queue.clear();
+            if (errorHandler != null) {
+                errorHandler.accept(e);
+            }
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+
+    private int writeLine(byte[] bytes) throws IOException {
+        out.write(bytes);
+        out.write('\n');
+        return bytes.length + 1;
+    }
+
+    private int writeBinary(byte[] bytes) throws IOException {
+        if (bytes.length < compressionThresholdBytes) {
+            compressionStats.recordUncompressed(0);
+            return writeBinary(bytes, bytes.length, 0);
+        }
+        long start = CompressionStats.cpuTimeNanos();
+        int compressedLength = deflate(bytes);
+        long elapsed = CompressionStats.cpuTimeNanos() - start;
+        if (compressedLength >= bytes.length) {
+            compressionStats.recordUncompressed(elapsed);
+            return writeBinary(bytes, bytes.length, 0);
+        }
+        compressionStats.recordCompressed(bytes.length, compressedLength, elapsed);
+        int written = writeBinary(deflateBuffer, compressedLength, COMPRESSED_FLAG);
+        if (deflateBuffer.length > DEFLATE_BUFFER_TRIM_SIZE) {
+            deflateBuffer = null;
+        }
+        return written;
+    }
+
+    private int writeBinary(byte[] payload, int length, int flags) throws IOException {
+        int header = flags | length;
+        out.write(header >>> 24);
+        out.write(header >>> 16);
+        out.write(header >>> 8);
+        out.write(header);
+        out.write(payload, 0, length);
+        return length + 4;
+    }
+
+    // Deflates into deflateBuffer, giving up once the output is no smaller than the input.
+    private int deflate(byte[] bytes) {
+        if (deflateBuffer == null || deflateBuffer.length < bytes.length) {
+            deflateBuffer = new byte[Math.max(bytes.length, DEFAULT_COMPRESSION_THRESHOLD_BYTES)];
+        }
+        deflater.reset();
+        deflater.setInput(bytes);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished() && length < bytes.length) {
+            length += deflater.deflate(deflateBuffer, length, bytes.length - length);
+        }
+        return deflater.finished() ? length : bytes.length;
+    }
+
+    private void flush() throws IOException {
+        out.flush();
+        stats.recordFlush();
+    }
+}
@@ -2,25 +2,59 @@ package common;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.gson.JsonSyntaxException;
-import java.io.BufferedReader;
+import common.protocol.MessageTypes;
 import java.io.IOException;
-import java.io.PrintWriter;
 
 public class SerializationHelper {
     private static final Gson GSON = new GsonBuilder().create();
+    private static final String OP_KEY = "\"op\":\"";
 
-    public static void writeMessage(ProtocolMessage message, PrintWriter writer) throws IOException {
-        String json = GSON.toJson(message);
-        writer.println(json);
-        writer.flush();
+    public static String encode(ProtocolMessage message) {
+        return GSON.toJson(message);
     }
 
-    public static ProtocolMessage readMessage(BufferedReader reader) throws IOException, JsonSyntaxException {
-        String json = reader.readLine();
+    public static void writeMessage(ProtocolMessage message, FrameWriter writer) throws IOException {
+        writer.send(encode(message));
+    }
+
+    public static ProtocolMessage readMessage(FrameReader reader) throws IOException, JsonSyntaxException {
+        String json = reader.readFrame();
         if (json == null) {
             return null;
         }
-        return GSON.fromJson(json, ProtocolMessage.class);
+        return decode(json);
+    }
+
+    // Resolves the message class from the opcode and binds the frame straight into it. The
+    // opcode is found by scanning for the first "op":"; a quote inside a JSON string is always
+    // escaped, so the match is a key, but it can belong to a nested object. The bound message
+    // must therefore carry the opcode that was scanned. Anything else falls back to a tree
+    // parse.
+    public static ProtocolMessage decode(String json) throws JsonSyntaxException {
+        int keyIndex = json.indexOf(OP_KEY);
+        int valueStart = keyIndex + OP_KEY.length();
+        if (keyIndex >= 0 && json.length() > valueStart + 3 && json.charAt(valueStart + 3) == '"') {
+            String opCode = json.substring(valueStart, valueStart + 3);
+            ProtocolMessage message = GSON.fromJson(json, MessageTypes.typeOf(opCode));
+            if (message == null || opCode.equals(message.getOperationCode())) {
+                return message;
+            }
+        }
+
+        JsonElement tree = JsonParser.parseString(json);
+        if (!tree.isJsonObject()) {
+            if (tree.isJsonNull()) {
+                return null;
+            }
+            throw new JsonSyntaxException("Expected a JSON object but was: " + json);
+        }
+        JsonObject object = tree.getAsJsonObject();
+        JsonElement op = object.get("op");
+        String opCode = op != null && op.isJsonPrimitive() ? op.getAsString() : null;
+        return GSON.fromJson(object, MessageTypes.typeOf(opCode));
     }
-}
\ No newline at end of file
+}
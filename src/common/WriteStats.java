@@ -0,0 +1,33 @@
+package common;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class WriteStats {
+    private final LongAdder framesWritten = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+
+    public void recordFrame(int bytes) {
+        framesWritten.increment();
+        bytesWritten.add(bytes);
+    }
+
+    public void recordFlush() {
+        flushes.increment();
+    }
+
+    public long getFramesWritten() { return framesWritten.sum(); }
+    public long getBytesWritten() { return bytesWritten.sum(); }
+    public long getFlushes() { return flushes.sum(); }
+
+    public double getFramesPerFlush() {
+        long flushCount = getFlushes();
+        return flushCount == 0 ? 0.0 : (double) getFramesWritten() / flushCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("frames=%d, bytes=%d, flushes=%d (%.2f frames/flush)",
+                getFramesWritten(), getBytesWritten(), getFlushes(), getFramesPerFlush());
+    }
+}
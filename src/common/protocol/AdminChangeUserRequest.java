@@ -0,0 +1,25 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+
+public class AdminChangeUserRequest extends AuthenticatedRequest {
+    public static final String OPCODE = "080";
+
+    @SerializedName("user")
+    private final String user;
+    @SerializedName("new_nick")
+    private final String newNickname;
+    @SerializedName("new_pass")
+    private final String newPassword;
+
+    public AdminChangeUserRequest(String token, String user, String newNickname, String newPassword) {
+        super(OPCODE, token);
+        this.user = user;
+        this.newNickname = newNickname;
+        this.newPassword = newPassword;
+    }
+
+    public String getUser() { return user; }
+    public String getNewNickname() { return newNickname; }
+    public String getNewPassword() { return newPassword; }
+}
@@ -0,0 +1,17 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+
+public class AdminDeleteMessageRequest extends AuthenticatedRequest {
+    public static final String OPCODE = "100";
+
+    @SerializedName("id")
+    private final String id;
+
+    public AdminDeleteMessageRequest(String token, String id) {
+        super(OPCODE, token);
+        this.id = id;
+    }
+
+    public String getId() { return id; }
+}
@@ -0,0 +1,21 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+
+public class AdminDeleteUserRequest extends AuthenticatedRequest {
+    public static final String OPCODE = "090";
+
+    @SerializedName("user")
+    private final String user;
+    @SerializedName("delete_posts")
+    private final Boolean deletePosts;
+
+    public AdminDeleteUserRequest(String token, String user, Boolean deletePosts) {
+        super(OPCODE, token);
+        this.user = user;
+        this.deletePosts = deletePosts;
+    }
+
+    public String getUser() { return user; }
+    public Boolean getDeletePosts() { return deletePosts; }
+}
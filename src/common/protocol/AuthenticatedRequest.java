@@ -0,0 +1,22 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+// Base for every request that carries a session token.
+public abstract class AuthenticatedRequest extends ProtocolMessage {
+    @SerializedName("token")
+    private final String token;
+
+    protected AuthenticatedRequest(String operationCode, String token) {
+        super(operationCode);
+        this.token = token;
+    }
+
+    protected AuthenticatedRequest(String operationCode, String token, String messageContent) {
+        super(operationCode, messageContent);
+        this.token = token;
+    }
+
+    public String getToken() { return token; }
+}
@@ -0,0 +1,29 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+
+public class ChangeProfileRequest extends AuthenticatedRequest {
+    public static final String OPCODE = "030";
+
+    @SerializedName("user")
+    private final String user;
+    @SerializedName("pass")
+    private final String password;
+    @SerializedName("new_nick")
+    private final String newNickname;
+    @SerializedName("new_pass")
+    private final String newPassword;
+
+    public ChangeProfileRequest(String token, String user, String password, String newNickname, String newPassword) {
+        super(OPCODE, token);
+        this.user = user;
+        this.password = password;
+        this.newNickname = newNickname;
+        this.newPassword = newPassword;
+    }
+
+    public String getUser() { return user; }
+    public String getPassword() { return password; }
+    public String getNewNickname() { return newNickname; }
+    public String getNewPassword() { return newPassword; }
+}
@@ -0,0 +1,19 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+public class CompressionRequest extends ProtocolMessage {
+    public static final String OPCODE = "120";
+    public static final String DEFLATE = "deflate";
+
+    @SerializedName("codec")
+    private final String codec;
+
+    public CompressionRequest(String codec) {
+        super(OPCODE);
+        this.codec = codec;
+    }
+
+    public String getCodec() { return codec; }
+}
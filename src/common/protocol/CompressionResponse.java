@@ -0,0 +1,18 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+public class CompressionResponse extends ProtocolMessage {
+    public static final String OPCODE = "121";
+
+    @SerializedName("codec")
+    private final String codec;
+
+    public CompressionResponse(String codec) {
+        super(OPCODE);
+        this.codec = codec;
+    }
+
+    public String getCodec() { return codec; }
+}
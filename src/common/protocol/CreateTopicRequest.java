@@ -0,0 +1,21 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+
+public class CreateTopicRequest extends AuthenticatedRequest {
+    public static final String OPCODE = "050";
+
+    @SerializedName("title")
+    private final String title;
+    @SerializedName("subject")
+    private final String subject;
+
+    public CreateTopicRequest(String token, String title, String subject, String messageContent) {
+        super(OPCODE, token, messageContent);
+        this.title = title;
+        this.subject = subject;
+    }
+
+    public String getTitle() { return title; }
+    public String getSubject() { return subject; }
+}
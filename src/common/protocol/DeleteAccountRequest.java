@@ -0,0 +1,21 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+
+public class DeleteAccountRequest extends AuthenticatedRequest {
+    public static final String OPCODE = "040";
+
+    @SerializedName("user")
+    private final String user;
+    @SerializedName("pass")
+    private final String password;
+
+    public DeleteAccountRequest(String token, String user, String password) {
+        super(OPCODE, token);
+        this.user = user;
+        this.password = password;
+    }
+
+    public String getUser() { return user; }
+    public String getPassword() { return password; }
+}
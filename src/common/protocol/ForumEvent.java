@@ -0,0 +1,40 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+// Pushed by the server, unasked, to connections subscribed with 190. seq increases by one per
+// event within an epoch (one server run); topic_id is null for a reply that no longer exists.
+public class ForumEvent extends ProtocolMessage {
+    public static final String OPCODE = "193";
+    public static final String TOPIC_CREATED = "topic";
+    public static final String TOPIC_DELETED = "topic_deleted";
+    public static final String REPLY_CREATED = "reply";
+    public static final String REPLY_DELETED = "reply_deleted";
+
+    @SerializedName("epoch")
+    private final String epoch;
+    @SerializedName("seq")
+    private final long seq;
+    @SerializedName("kind")
+    private final String kind;
+    @SerializedName("topic_id")
+    private final String topicId;
+    @SerializedName("id")
+    private final String id;
+
+    public ForumEvent(String epoch, long seq, String kind, String topicId, String id) {
+        super(OPCODE);
+        this.epoch = epoch;
+        this.seq = seq;
+        this.kind = kind;
+        this.topicId = topicId;
+        this.id = id;
+    }
+
+    public String getEpoch() { return epoch; }
+    public long getSeq() { return seq; }
+    public String getKind() { return kind; }
+    public String getTopicId() { return topicId; }
+    public String getId() { return id; }
+}
@@ -0,0 +1,33 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+// Cluster-internal: a 060 reply accepted by the client's node and posted on the topic's owner.
+// The sending node has already checked the token, so this carries the author instead, and the
+// cluster secret stands in for it. Answered with 061/062.
+public class ForwardedReplyRequest extends ProtocolMessage {
+    public static final String OPCODE = "160";
+
+    @SerializedName("secret")
+    private final String secret;
+    @SerializedName("user")
+    private final String user;
+    @SerializedName("nick")
+    private final String nickname;
+    @SerializedName("id")
+    private final String id;
+
+    public ForwardedReplyRequest(String secret, String user, String nickname, String id, String messageContent) {
+        super(OPCODE, messageContent);
+        this.secret = secret;
+        this.user = user;
+        this.nickname = nickname;
+        this.id = id;
+    }
+
+    public String getSecret() { return secret; }
+    public String getUser() { return user; }
+    public String getNickname() { return nickname; }
+    public String getId() { return id; }
+}
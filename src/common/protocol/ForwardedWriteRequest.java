@@ -0,0 +1,30 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+// Replication-internal: a write a follower received and passes on to the primary. "request" is
+// the client's request as sent; the follower has resolved its token to "user", and the primary
+// runs the request under a session of its own for that user. Answered with 171, or 172 when
+// the request could not be run at all.
+public class ForwardedWriteRequest extends ProtocolMessage {
+    public static final String OPCODE = "170";
+
+    @SerializedName("secret")
+    private final String secret;
+    @SerializedName("user")
+    private final String user;
+    @SerializedName("request")
+    private final String request;
+
+    public ForwardedWriteRequest(String secret, String user, String request) {
+        super(OPCODE);
+        this.secret = secret;
+        this.user = user;
+        this.request = request;
+    }
+
+    public String getSecret() { return secret; }
+    public String getUser() { return user; }
+    public String getRequest() { return request; }
+}
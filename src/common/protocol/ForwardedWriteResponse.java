@@ -0,0 +1,24 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+// The primary's answer to 170: the response for the client, and the replication log offset the
+// write is covered by, which the follower waits for before answering.
+public class ForwardedWriteResponse extends ProtocolMessage {
+    public static final String OPCODE = "171";
+
+    @SerializedName("offset")
+    private final long offset;
+    @SerializedName("response")
+    private final String response;
+
+    public ForwardedWriteResponse(long offset, String response) {
+        super(OPCODE);
+        this.offset = offset;
+        this.response = response;
+    }
+
+    public long getOffset() { return offset; }
+    public String getResponse() { return response; }
+}
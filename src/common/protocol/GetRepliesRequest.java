@@ -0,0 +1,39 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+// if_version, offset and limit work as in 075; the "not modified" answer is 073.
+public class GetRepliesRequest extends ProtocolMessage {
+    public static final String OPCODE = "070";
+
+    @SerializedName("id")
+    private final String id;
+    @SerializedName("if_version")
+    private final String ifVersion;
+    @SerializedName("offset")
+    private final Integer offset;
+    @SerializedName("limit")
+    private final Integer limit;
+
+    public GetRepliesRequest(String id) {
+        this(id, null);
+    }
+
+    public GetRepliesRequest(String id, String ifVersion) {
+        this(id, ifVersion, null, null);
+    }
+
+    public GetRepliesRequest(String id, String ifVersion, Integer offset, Integer limit) {
+        super(OPCODE);
+        this.id = id;
+        this.ifVersion = ifVersion;
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    public String getId() { return id; }
+    public String getIfVersion() { return ifVersion; }
+    public Integer getOffset() { return offset; }
+    public Integer getLimit() { return limit; }
+}
@@ -0,0 +1,37 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+// With if_version, the version of a list the client already has: answered with 078 instead of
+// the list when nothing changed since. With limit, only that many topics from offset are sent;
+// without it, all of them.
+public class GetTopicsRequest extends ProtocolMessage {
+    public static final String OPCODE = "075";
+
+    @SerializedName("if_version")
+    private final String ifVersion;
+    @SerializedName("offset")
+    private final Integer offset;
+    @SerializedName("limit")
+    private final Integer limit;
+
+    public GetTopicsRequest() {
+        this(null);
+    }
+
+    public GetTopicsRequest(String ifVersion) {
+        this(ifVersion, null, null);
+    }
+
+    public GetTopicsRequest(String ifVersion, Integer offset, Integer limit) {
+        super(OPCODE);
+        this.ifVersion = ifVersion;
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    public String getIfVersion() { return ifVersion; }
+    public Integer getOffset() { return offset; }
+    public Integer getLimit() { return limit; }
+}
@@ -0,0 +1,9 @@
+package common.protocol;
+
+public class ListUsersRequest extends AuthenticatedRequest {
+    public static final String OPCODE = "110";
+
+    public ListUsersRequest(String token) {
+        super(OPCODE, token);
+    }
+}
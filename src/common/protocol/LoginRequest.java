@@ -0,0 +1,22 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+public class LoginRequest extends ProtocolMessage {
+    public static final String OPCODE = "000";
+
+    @SerializedName("user")
+    private final String user;
+    @SerializedName("pass")
+    private final String password;
+
+    public LoginRequest(String user, String password) {
+        super(OPCODE);
+        this.user = user;
+        this.password = password;
+    }
+
+    public String getUser() { return user; }
+    public String getPassword() { return password; }
+}
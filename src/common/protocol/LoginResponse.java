@@ -0,0 +1,18 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+public class LoginResponse extends ProtocolMessage {
+    public static final String OPCODE = "001";
+
+    @SerializedName("token")
+    private final String token;
+
+    public LoginResponse(String token) {
+        super(OPCODE);
+        this.token = token;
+    }
+
+    public String getToken() { return token; }
+}
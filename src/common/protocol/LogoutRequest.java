@@ -0,0 +1,17 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+
+public class LogoutRequest extends AuthenticatedRequest {
+    public static final String OPCODE = "020";
+
+    @SerializedName("user")
+    private final String user;
+
+    public LogoutRequest(String token, String user) {
+        super(OPCODE, token);
+        this.user = user;
+    }
+
+    public String getUser() { return user; }
+}
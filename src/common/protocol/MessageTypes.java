@@ -0,0 +1,58 @@
+package common.protocol;
+
+import common.ProtocolMessage;
+
+// Opcode -> message class used when decoding frames. Opcodes without an entry (status replies
+// such as 011 or 092, and 999) only carry "msg" and decode to the ProtocolMessage base class.
+public final class MessageTypes {
+    private static final OpcodeTable<Class<? extends ProtocolMessage>> TYPES = new OpcodeTable<>();
+
+    static {
+        TYPES.put(LoginRequest.OPCODE, LoginRequest.class);
+        TYPES.put(LoginResponse.OPCODE, LoginResponse.class);
+        TYPES.put(UserDataRequest.OPCODE, UserDataRequest.class);
+        TYPES.put(UserDataResponse.OPCODE, UserDataResponse.class);
+        TYPES.put(RegisterRequest.OPCODE, RegisterRequest.class);
+        TYPES.put(LogoutRequest.OPCODE, LogoutRequest.class);
+        TYPES.put(ChangeProfileRequest.OPCODE, ChangeProfileRequest.class);
+        TYPES.put(DeleteAccountRequest.OPCODE, DeleteAccountRequest.class);
+        TYPES.put(CreateTopicRequest.OPCODE, CreateTopicRequest.class);
+        TYPES.put(ReplyRequest.OPCODE, ReplyRequest.class);
+        TYPES.put(GetRepliesRequest.OPCODE, GetRepliesRequest.class);
+        TYPES.put(ReplyListResponse.OPCODE, ReplyListResponse.class);
+        TYPES.put(NotModifiedResponse.REPLIES_OPCODE, NotModifiedResponse.class);
+        TYPES.put(GetTopicsRequest.OPCODE, GetTopicsRequest.class);
+        TYPES.put(TopicListResponse.OPCODE, TopicListResponse.class);
+        TYPES.put(NotModifiedResponse.TOPICS_OPCODE, NotModifiedResponse.class);
+        TYPES.put(AdminChangeUserRequest.OPCODE, AdminChangeUserRequest.class);
+        TYPES.put(AdminDeleteUserRequest.OPCODE, AdminDeleteUserRequest.class);
+        TYPES.put(AdminDeleteMessageRequest.OPCODE, AdminDeleteMessageRequest.class);
+        TYPES.put(ListUsersRequest.OPCODE, ListUsersRequest.class);
+        TYPES.put(UserListResponse.OPCODE, UserListResponse.class);
+        TYPES.put(CompressionRequest.OPCODE, CompressionRequest.class);
+        TYPES.put(CompressionResponse.OPCODE, CompressionResponse.class);
+        TYPES.put(SearchRequest.OPCODE, SearchRequest.class);
+        TYPES.put(SearchResponse.OPCODE, SearchResponse.class);
+        TYPES.put(MyPostsRequest.OPCODE, MyPostsRequest.class);
+        TYPES.put(MyPostsResponse.OPCODE, MyPostsResponse.class);
+        TYPES.put(ShardReadRequest.OPCODE, ShardReadRequest.class);
+        TYPES.put(ForwardedReplyRequest.OPCODE, ForwardedReplyRequest.class);
+        TYPES.put(ForwardedWriteRequest.OPCODE, ForwardedWriteRequest.class);
+        TYPES.put(ForwardedWriteResponse.OPCODE, ForwardedWriteResponse.class);
+        TYPES.put(SessionSyncRequest.OPCODE, SessionSyncRequest.class);
+        TYPES.put(SessionSyncResponse.OPCODE, SessionSyncResponse.class);
+        TYPES.put(ResumeRequest.OPCODE, ResumeRequest.class);
+        TYPES.put(ResumeResponse.OPCODE, ResumeResponse.class);
+        TYPES.put(ForumEvent.OPCODE, ForumEvent.class);
+        TYPES.put(StatsRequest.OPCODE, StatsRequest.class);
+        TYPES.put(StatsResponse.OPCODE, StatsResponse.class);
+    }
+
+    private MessageTypes() {
+    }
+
+    public static Class<? extends ProtocolMessage> typeOf(String opCode) {
+        Class<? extends ProtocolMessage> type = TYPES.get(opCode);
+        return type != null ? type : ProtocolMessage.class;
+    }
+}
@@ -0,0 +1,25 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+
+public class MyPostsRequest extends AuthenticatedRequest {
+    public static final String OPCODE = "140";
+
+    @SerializedName("kind")
+    private final String kind;
+    @SerializedName("offset")
+    private final Integer offset;
+    @SerializedName("limit")
+    private final Integer limit;
+
+    public MyPostsRequest(String token, String kind, Integer offset, Integer limit) {
+        super(OPCODE, token);
+        this.kind = kind;
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    public String getKind() { return kind; }
+    public Integer getOffset() { return offset; }
+    public Integer getLimit() { return limit; }
+}
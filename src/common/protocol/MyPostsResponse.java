@@ -0,0 +1,34 @@
+package common.protocol;
+
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+// One page of the caller's topics or replies, newest first. total is the number of live posts
+// of that kind, so the client can tell how many pages there are.
+public class MyPostsResponse extends ProtocolMessage {
+    public static final String OPCODE = "141";
+
+    @SerializedName("kind")
+    private final String kind;
+    @SerializedName("offset")
+    private final int offset;
+    @SerializedName("total")
+    private final int total;
+    @SerializedName("msg_list")
+    @JsonAdapter(PostRow.TableAdapter.class)
+    private final PostRow[] posts;
+
+    public MyPostsResponse(String kind, int offset, int total, PostRow[] posts) {
+        super(OPCODE);
+        this.kind = kind;
+        this.offset = offset;
+        this.total = total;
+        this.posts = posts;
+    }
+
+    public String getKind() { return kind; }
+    public int getOffset() { return offset; }
+    public int getTotal() { return total; }
+    public PostRow[] getPosts() { return posts; }
+}
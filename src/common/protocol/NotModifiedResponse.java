@@ -0,0 +1,25 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+// The list the client holds at if_version is still current. 078 answers 075; 073 answers 070
+// and names the topic.
+public class NotModifiedResponse extends ProtocolMessage {
+    public static final String TOPICS_OPCODE = "078";
+    public static final String REPLIES_OPCODE = "073";
+
+    @SerializedName("topic_id")
+    private final String topicId;
+    @SerializedName("version")
+    private final String version;
+
+    public NotModifiedResponse(String operationCode, String topicId, String version) {
+        super(operationCode);
+        this.topicId = topicId;
+        this.version = version;
+    }
+
+    public String getTopicId() { return topicId; }
+    public String getVersion() { return version; }
+}
@@ -0,0 +1,39 @@
+package common.protocol;
+
+// Array-backed map from a three-digit opcode ("000".."999") to a value. Lookups are an index
+// computation instead of string hashing, which is all the dispatch tables need.
+public final class OpcodeTable<V> {
+    public static final int SIZE = 1000;
+
+    private final Object[] values = new Object[SIZE];
+
+    // Returns -1 for anything that is not exactly three ASCII digits.
+    public static int index(String opCode) {
+        if (opCode == null || opCode.length() != 3) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = 0; i < 3; i++) {
+            char c = opCode.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+
+    public void put(String opCode, V value) {
+        int index = index(opCode);
+        if (index < 0) {
+            throw new IllegalArgumentException("Invalid opcode: " + opCode);
+        }
+        values[index] = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(String opCode) {
+        int index = index(opCode);
+        return index < 0 ? null : (V) values[index];
+    }
+}
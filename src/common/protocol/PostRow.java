@@ -0,0 +1,58 @@
+package common.protocol;
+
+// A topic or reply together with the topic it belongs to. For a topic, id and topicId are the same.
+public final class PostRow {
+    public static final String TOPIC = "topic";
+    public static final String REPLY = "reply";
+
+    private final String kind;
+    private final String id;
+    private final String topicId;
+    private final String title;
+    private final String nick;
+    private final String snippet;
+
+    public PostRow(String kind, String id, String topicId, String title, String nick, String snippet) {
+        this.kind = kind;
+        this.id = id;
+        this.topicId = topicId;
+        this.title = title;
+        this.nick = nick;
+        this.snippet = snippet;
+    }
+
+    public String getKind() { return kind; }
+    public String getId() { return id; }
+    public String getTopicId() { return topicId; }
+    public String getTitle() { return title; }
+    public String getNick() { return nick; }
+    public String getSnippet() { return snippet; }
+
+    public static final class TableAdapter extends RowTableAdapter<PostRow> {
+        public TableAdapter() {
+            super("kind", "id", "topic_id", "title", "nick", "msg");
+        }
+
+        @Override
+        protected String valueOf(PostRow row, int column) {
+            switch (column) {
+                case 0: return row.kind;
+                case 1: return row.id;
+                case 2: return row.topicId;
+                case 3: return row.title;
+                case 4: return row.nick;
+                default: return row.snippet;
+            }
+        }
+
+        @Override
+        protected PostRow newRow(String[] values) {
+            return new PostRow(values[0], values[1], values[2], values[3], values[4], values[5]);
+        }
+
+        @Override
+        protected PostRow[] newArray(int size) {
+            return new PostRow[size];
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+public class RegisterRequest extends ProtocolMessage {
+    public static final String OPCODE = "010";
+
+    @SerializedName("user")
+    private final String user;
+    @SerializedName("nick")
+    private final String nickname;
+    @SerializedName("pass")
+    private final String password;
+
+    public RegisterRequest(String user, String nickname, String password) {
+        super(OPCODE);
+        this.user = user;
+        this.nickname = nickname;
+        this.password = password;
+    }
+
+    public String getUser() { return user; }
+    public String getNickname() { return nickname; }
+    public String getPassword() { return password; }
+}
@@ -0,0 +1,45 @@
+package common.protocol;
+
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+// offset and total as in 076.
+public class ReplyListResponse extends ProtocolMessage {
+    public static final String OPCODE = "071";
+
+    @SerializedName("topic_id")
+    private final String topicId;
+    @SerializedName("msg_list")
+    @JsonAdapter(ReplyRow.TableAdapter.class)
+    private final ReplyRow[] replies;
+    @SerializedName("version")
+    private final String version;
+    @SerializedName("offset")
+    private final Integer offset;
+    @SerializedName("total")
+    private final Integer total;
+
+    public ReplyListResponse(String topicId, ReplyRow[] replies) {
+        this(topicId, replies, null);
+    }
+
+    public ReplyListResponse(String topicId, ReplyRow[] replies, String version) {
+        this(topicId, replies, version, null, null);
+    }
+
+    public ReplyListResponse(String topicId, ReplyRow[] replies, String version, Integer offset, Integer total) {
+        super(OPCODE);
+        this.topicId = topicId;
+        this.replies = replies;
+        this.version = version;
+        this.offset = offset;
+        this.total = total;
+    }
+
+    public String getTopicId() { return topicId; }
+    public ReplyRow[] getReplies() { return replies; }
+    public String getVersion() { return version; }
+    public Integer getOffset() { return offset; }
+    public Integer getTotal() { return total; }
+}
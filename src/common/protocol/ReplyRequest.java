@@ -0,0 +1,17 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+
+public class ReplyRequest extends AuthenticatedRequest {
+    public static final String OPCODE = "060";
+
+    @SerializedName("id")
+    private final String id;
+
+    public ReplyRequest(String token, String id, String messageContent) {
+        super(OPCODE, token, messageContent);
+        this.id = id;
+    }
+
+    public String getId() { return id; }
+}
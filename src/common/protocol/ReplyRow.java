@@ -0,0 +1,42 @@
+package common.protocol;
+
+public final class ReplyRow {
+    private final String id;
+    private final String nick;
+    private final String content;
+
+    public ReplyRow(String id, String nick, String content) {
+        this.id = id;
+        this.nick = nick;
+        this.content = content;
+    }
+
+    public String getId() { return id; }
+    public String getNick() { return nick; }
+    public String getContent() { return content; }
+
+    public static final class TableAdapter extends RowTableAdapter<ReplyRow> {
+        public TableAdapter() {
+            super("id", "nick", "msg");
+        }
+
+        @Override
+        protected String valueOf(ReplyRow row, int column) {
+            switch (column) {
+                case 0: return row.id;
+                case 1: return row.nick;
+                default: return row.content;
+            }
+        }
+
+        @Override
+        protected ReplyRow newRow(String[] values) {
+            return new ReplyRow(values[0], values[1], values[2]);
+        }
+
+        @Override
+        protected ReplyRow[] newArray(int size) {
+            return new ReplyRow[size];
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+
+// Subscribes this connection to 193 events for the session. A client that reconnects sends the
+// epoch and sequence number of the last event it saw, and the server first replays what came
+// after it; without them (right after login) only new events are sent. Answered with 191, or
+// 192 when the token is not valid.
+public class ResumeRequest extends AuthenticatedRequest {
+    public static final String OPCODE = "190";
+
+    @SerializedName("epoch")
+    private final String epoch;
+    @SerializedName("last_seq")
+    private final Long lastSeq;
+
+    public ResumeRequest(String token, String epoch, Long lastSeq) {
+        super(OPCODE, token);
+        this.epoch = epoch;
+        this.lastSeq = lastSeq;
+    }
+
+    public String getEpoch() { return epoch; }
+    public Long getLastSeq() { return lastSeq; }
+}
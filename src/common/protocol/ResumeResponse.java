@@ -0,0 +1,33 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+// Answer to 190, written after the replayed events. gap is true when the events after last_seq
+// are no longer held (or the server restarted since), so the client has to reload what it
+// shows; seq is the latest event sent so far.
+public class ResumeResponse extends ProtocolMessage {
+    public static final String OPCODE = "191";
+
+    @SerializedName("epoch")
+    private final String epoch;
+    @SerializedName("seq")
+    private final long seq;
+    @SerializedName("replayed")
+    private final int replayed;
+    @SerializedName("gap")
+    private final boolean gap;
+
+    public ResumeResponse(String epoch, long seq, int replayed, boolean gap) {
+        super(OPCODE);
+        this.epoch = epoch;
+        this.seq = seq;
+        this.replayed = replayed;
+        this.gap = gap;
+    }
+
+    public String getEpoch() { return epoch; }
+    public long getSeq() { return seq; }
+    public int getReplayed() { return replayed; }
+    public boolean isGap() { return gap; }
+}
@@ -0,0 +1,149 @@
+package common.protocol;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Writes a row array as {"cols":[...],"rows":[[...],...]} so the column names go over the wire
+// once instead of once per row. Reading also accepts the older array-of-objects form, and
+// matches columns by name so the sender may reorder or add columns.
+public abstract class RowTableAdapter<T> extends TypeAdapter<T[]> {
+    private final String[] columns;
+
+    protected RowTableAdapter(String... columns) {
+        this.columns = columns;
+    }
+
+    protected abstract String valueOf(T row, int column);
+
+    protected abstract T newRow(String[] values);
+
+    protected abstract T[] newArray(int size);
+
+    @Override
+    public void write(JsonWriter out, T[] rows) throws IOException {
+        if (rows == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("cols").beginArray();
+        for (String column : columns) {
+            out.value(column);
+        }
+        out.endArray();
+        out.name("rows").beginArray();
+        for (T row : rows) {
+            out.beginArray();
+            for (int c = 0; c < columns.length; c++) {
+                out.value(valueOf(row, c));
+            }
+            out.endArray();
+        }
+        out.endArray();
+        out.endObject();
+    }
+
+    @Override
+    public T[] read(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case NULL:
+                in.nextNull();
+                return null;
+            case BEGIN_ARRAY:
+                return readObjectRows(in);
+            case BEGIN_OBJECT:
+                return readTable(in);
+            default:
+                throw new JsonSyntaxException("Expected a row table but was " + in.peek() + " at " + in.getPath());
+        }
+    }
+
+    private T[] readTable(JsonReader in) throws IOException {
+        int[] wireToLocal = null;
+        List<T> rows = new ArrayList<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if ("cols".equals(name)) {
+                List<String> names = new ArrayList<>();
+                in.beginArray();
+                while (in.hasNext()) {
+                    names.add(in.nextString());
+                }
+                in.endArray();
+                wireToLocal = new int[names.size()];
+                for (int i = 0; i < wireToLocal.length; i++) {
+                    wireToLocal[i] = columnIndex(names.get(i));
+                }
+            } else if ("rows".equals(name)) {
+                in.beginArray();
+                while (in.hasNext()) {
+                    String[] values = new String[columns.length];
+                    int wireColumn = 0;
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        // Without a header the columns are taken to be in our own order.
+                        int local = wireToLocal == null ? (wireColumn < columns.length ? wireColumn : -1)
+                                : (wireColumn < wireToLocal.length ? wireToLocal[wireColumn] : -1);
+                        String value = readValue(in);
+                        if (local >= 0) {
+                            values[local] = value;
+                        }
+                        wireColumn++;
+                    }
+                    in.endArray();
+                    rows.add(newRow(values));
+                }
+                in.endArray();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return rows.toArray(newArray(rows.size()));
+    }
+
+    private T[] readObjectRows(JsonReader in) throws IOException {
+        List<T> rows = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            String[] values = new String[columns.length];
+            in.beginObject();
+            while (in.hasNext()) {
+                int local = columnIndex(in.nextName());
+                if (local >= 0) {
+                    values[local] = readValue(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            rows.add(newRow(values));
+        }
+        in.endArray();
+        return rows.toArray(newArray(rows.size()));
+    }
+
+    private String readValue(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private int columnIndex(String name) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,22 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+public class SearchRequest extends ProtocolMessage {
+    public static final String OPCODE = "130";
+
+    @SerializedName("query")
+    private final String query;
+    @SerializedName("limit")
+    private final Integer limit;
+
+    public SearchRequest(String query, Integer limit) {
+        super(OPCODE);
+        this.query = query;
+        this.limit = limit;
+    }
+
+    public String getQuery() { return query; }
+    public Integer getLimit() { return limit; }
+}
@@ -0,0 +1,24 @@
+package common.protocol;
+
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+public class SearchResponse extends ProtocolMessage {
+    public static final String OPCODE = "131";
+
+    @SerializedName("query")
+    private final String query;
+    @SerializedName("msg_list")
+    @JsonAdapter(PostRow.TableAdapter.class)
+    private final PostRow[] hits;
+
+    public SearchResponse(String query, PostRow[] hits) {
+        super(OPCODE);
+        this.query = query;
+        this.hits = hits;
+    }
+
+    public String getQuery() { return query; }
+    public PostRow[] getHits() { return hits; }
+}
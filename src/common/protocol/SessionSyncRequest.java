@@ -0,0 +1,40 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+// Between nodes sharing sessions: "put" and "remove" announce a login or logout on the sending
+// node, "get" asks for a token the sender has not seen. Answered with 181, or 182 when the
+// shared secret is wrong.
+public class SessionSyncRequest extends ProtocolMessage {
+    public static final String OPCODE = "180";
+    public static final String PUT = "put";
+    public static final String REMOVE = "remove";
+    public static final String GET = "get";
+
+    @SerializedName("secret")
+    private final String secret;
+    @SerializedName("action")
+    private final String action;
+    @SerializedName("token")
+    private final String token;
+    @SerializedName("user")
+    private final String user;
+    @SerializedName("nick")
+    private final String nickname;
+
+    public SessionSyncRequest(String secret, String action, String token, String user, String nickname) {
+        super(OPCODE);
+        this.secret = secret;
+        this.action = action;
+        this.token = token;
+        this.user = user;
+        this.nickname = nickname;
+    }
+
+    public String getSecret() { return secret; }
+    public String getAction() { return action; }
+    public String getToken() { return token; }
+    public String getUser() { return user; }
+    public String getNickname() { return nickname; }
+}
@@ -0,0 +1,27 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+// Answer to 180. For "get", user is null when the node does not know the token.
+public class SessionSyncResponse extends ProtocolMessage {
+    public static final String OPCODE = "181";
+
+    @SerializedName("token")
+    private final String token;
+    @SerializedName("user")
+    private final String user;
+    @SerializedName("nick")
+    private final String nickname;
+
+    public SessionSyncResponse(String token, String user, String nickname) {
+        super(OPCODE);
+        this.token = token;
+        this.user = user;
+        this.nickname = nickname;
+    }
+
+    public String getToken() { return token; }
+    public String getUser() { return user; }
+    public String getNickname() { return nickname; }
+}
@@ -0,0 +1,34 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+// Cluster-internal: a read forwarded to the node that owns the data. "read" is the client
+// opcode being served (070 for one topic's replies, 075 for the node's own topics only) and
+// the reply is that opcode's normal response. For 075, limit asks for only the node's first
+// limit topics, which may be more than a client page holds, with total set to all of them.
+public class ShardReadRequest extends ProtocolMessage {
+    public static final String OPCODE = "150";
+
+    @SerializedName("read")
+    private final String read;
+    @SerializedName("id")
+    private final String id;
+    @SerializedName("limit")
+    private final Integer limit;
+
+    public ShardReadRequest(String read, String id) {
+        this(read, id, null);
+    }
+
+    public ShardReadRequest(String read, String id, Integer limit) {
+        super(OPCODE);
+        this.read = read;
+        this.id = id;
+        this.limit = limit;
+    }
+
+    public String getRead() { return read; }
+    public String getId() { return id; }
+    public Integer getLimit() { return limit; }
+}
@@ -0,0 +1,9 @@
+package common.protocol;
+
+public class StatsRequest extends AuthenticatedRequest {
+    public static final String OPCODE = "200";
+
+    public StatsRequest(String token) {
+        super(OPCODE, token);
+    }
+}
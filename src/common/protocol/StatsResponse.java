@@ -0,0 +1,69 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+import java.util.Map;
+
+// Answer to 200: the server's counters at time_ms. requests (per opcode), latency_buckets and
+// the gc fields are totals since startup, so a dashboard diffs two answers to get rates; the
+// rest are current values. latency_buckets are counts in RequestStats' log-linear buckets. The
+// replication lag is null on a server that does not replicate, and 0 on a primary.
+public class StatsResponse extends ProtocolMessage {
+    public static final String OPCODE = "201";
+
+    @SerializedName("time_ms")
+    private final long timeMillis;
+    @SerializedName("connections")
+    private final int connections;
+    @SerializedName("sessions")
+    private final int sessions;
+    @SerializedName("outbound_queue")
+    private final int outboundQueue;
+    @SerializedName("requests")
+    private final Map<String, Long> requests;
+    @SerializedName("latency_buckets")
+    private final long[] latencyBuckets;
+    @SerializedName("heap_used")
+    private final long heapUsed;
+    @SerializedName("heap_max")
+    private final long heapMax;
+    @SerializedName("gc_count")
+    private final long gcCount;
+    @SerializedName("gc_ms")
+    private final long gcMillis;
+    @SerializedName("replication_lag_entries")
+    private final Long replicationLagEntries;
+    @SerializedName("replication_lag_ms")
+    private final Long replicationLagMillis;
+
+    public StatsResponse(long timeMillis, int connections, int sessions, int outboundQueue, Map<String, Long> requests,
+                         long[] latencyBuckets, long heapUsed, long heapMax, long gcCount, long gcMillis,
+                         Long replicationLagEntries, Long replicationLagMillis) {
+        super(OPCODE);
+        this.timeMillis = timeMillis;
+        this.connections = connections;
+        this.sessions = sessions;
+        this.outboundQueue = outboundQueue;
+        this.requests = requests;
+        this.latencyBuckets = latencyBuckets;
+        this.heapUsed = heapUsed;
+        this.heapMax = heapMax;
+        this.gcCount = gcCount;
+        this.gcMillis = gcMillis;
+        this.replicationLagEntries = replicationLagEntries;
+        this.replicationLagMillis = replicationLagMillis;
+    }
+
+    public long getTimeMillis() { return timeMillis; }
+    public int getConnections() { return connections; }
+    public int getSessions() { return sessions; }
+    public int getOutboundQueue() { return outboundQueue; }
+    public Map<String, Long> getRequests() { return requests; }
+    public long[] getLatencyBuckets() { return latencyBuckets; }
+    public long getHeapUsed() { return heapUsed; }
+    public long getHeapMax() { return heapMax; }
+    public long getGcCount() { return gcCount; }
+    public long getGcMillis() { return gcMillis; }
+    public Long getReplicationLagEntries() { return replicationLagEntries; }
+    public Long getReplicationLagMillis() { return replicationLagMillis; }
+}
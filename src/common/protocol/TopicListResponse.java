@@ -0,0 +1,43 @@
+package common.protocol;
+
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+// version is null when the list cannot be revalidated (a list merged from cluster nodes).
+// offset and total are only set for a page: the position of its first topic and the size of
+// the whole list.
+public class TopicListResponse extends ProtocolMessage {
+    public static final String OPCODE = "076";
+
+    @SerializedName("msg_list")
+    @JsonAdapter(TopicRow.TableAdapter.class)
+    private final TopicRow[] topics;
+    @SerializedName("version")
+    private final String version;
+    @SerializedName("offset")
+    private final Integer offset;
+    @SerializedName("total")
+    private final Integer total;
+
+    public TopicListResponse(TopicRow[] topics) {
+        this(topics, null);
+    }
+
+    public TopicListResponse(TopicRow[] topics, String version) {
+        this(topics, version, null, null);
+    }
+
+    public TopicListResponse(TopicRow[] topics, String version, Integer offset, Integer total) {
+        super(OPCODE);
+        this.topics = topics;
+        this.version = version;
+        this.offset = offset;
+        this.total = total;
+    }
+
+    public TopicRow[] getTopics() { return topics; }
+    public String getVersion() { return version; }
+    public Integer getOffset() { return offset; }
+    public Integer getTotal() { return total; }
+}
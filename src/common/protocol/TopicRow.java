@@ -0,0 +1,50 @@
+package common.protocol;
+
+public final class TopicRow {
+    private final String id;
+    private final String title;
+    private final String subject;
+    private final String nick;
+    private final String content;
+
+    public TopicRow(String id, String title, String subject, String nick, String content) {
+        this.id = id;
+        this.title = title;
+        this.subject = subject;
+        this.nick = nick;
+        this.content = content;
+    }
+
+    public String getId() { return id; }
+    public String getTitle() { return title; }
+    public String getSubject() { return subject; }
+    public String getNick() { return nick; }
+    public String getContent() { return content; }
+
+    public static final class TableAdapter extends RowTableAdapter<TopicRow> {
+        public TableAdapter() {
+            super("id", "title", "subject", "nick", "msg");
+        }
+
+        @Override
+        protected String valueOf(TopicRow row, int column) {
+            switch (column) {
+                case 0: return row.id;
+                case 1: return row.title;
+                case 2: return row.subject;
+                case 3: return row.nick;
+                default: return row.content;
+            }
+        }
+
+        @Override
+        protected TopicRow newRow(String[] values) {
+            return new TopicRow(values[0], values[1], values[2], values[3], values[4]);
+        }
+
+        @Override
+        protected TopicRow[] newArray(int size) {
+            return new TopicRow[size];
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+
+public class UserDataRequest extends AuthenticatedRequest {
+    public static final String OPCODE = "005";
+
+    @SerializedName("user")
+    private final String user;
+
+    public UserDataRequest(String token, String user) {
+        super(OPCODE, token);
+        this.user = user;
+    }
+
+    public String getUser() { return user; }
+}
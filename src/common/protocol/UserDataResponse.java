@@ -0,0 +1,22 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+public class UserDataResponse extends ProtocolMessage {
+    public static final String OPCODE = "006";
+
+    @SerializedName("user")
+    private final String user;
+    @SerializedName("nick")
+    private final String nickname;
+
+    public UserDataResponse(String user, String nickname) {
+        super(OPCODE);
+        this.user = user;
+        this.nickname = nickname;
+    }
+
+    public String getUser() { return user; }
+    public String getNickname() { return nickname; }
+}
@@ -0,0 +1,18 @@
+package common.protocol;
+
+import com.google.gson.annotations.SerializedName;
+import common.ProtocolMessage;
+
+public class UserListResponse extends ProtocolMessage {
+    public static final String OPCODE = "111";
+
+    @SerializedName("user_list")
+    private final String[] users;
+
+    public UserListResponse(String[] users) {
+        super(OPCODE);
+        this.users = users;
+    }
+
+    public String[] getUsers() { return users; }
+}
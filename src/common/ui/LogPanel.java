@@ -0,0 +1,179 @@
+package common.ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.function.Supplier;
+
+// Keeps only the last maxLines lines, so a long-running app does not grow without bound. Lines
+// can be appended from any thread: they are queued and added to the list in one batch every
+// FLUSH_MS instead of one EDT task per line. A line may carry details (a message's JSON) that
+// are only rendered when the line is selected.
+public class LogPanel extends JPanel {
+    public static final int DEFAULT_MAX_LINES = 5000;
+    private static final int FLUSH_MS = 50;
+    // Longer lines are cut in the list; the detail pane shows them whole.
+    private static final int LINE_WIDTH_CHARS = 160;
+
+    private final LineModel lines;
+    private final JList<Line> lineList;
+    private final JScrollPane scrollPane;
+    private final JTextArea detailArea;
+    private final Timer flushTimer;
+    private final Object pendingLock = new Object();
+    private ArrayDeque<Line> pending = new ArrayDeque<>();
+
+    public LogPanel() {
+        this("Forum Messages / Client Log", DEFAULT_MAX_LINES);
+    }
+
+    public LogPanel(String title, int maxLines) {
+        super(new BorderLayout());
+        setBorder(BorderFactory.createTitledBorder(title));
+
+        lines = new LineModel(maxLines);
+        lineList = new JList<>(lines);
+        lineList.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        lineList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        lineList.setCellRenderer(new LineRenderer());
+        // Fixed cell sizes, so adding lines never measures the ones already there.
+        FontMetrics metrics = lineList.getFontMetrics(lineList.getFont());
+        lineList.setFixedCellHeight(metrics.getHeight() + 2);
+        lineList.setFixedCellWidth(metrics.charWidth('m') * LINE_WIDTH_CHARS);
+        lineList.setVisibleRowCount(15);
+        lineList.addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) {
+                showDetails(lineList.getSelectedValue());
+            }
+        });
+
+        detailArea = new JTextArea(6, 0);
+        detailArea.setEditable(false);
+        detailArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        scrollPane = new JScrollPane(lineList);
+        JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, scrollPane, new JScrollPane(detailArea));
+        splitPane.setResizeWeight(0.8);
+        add(splitPane, BorderLayout.CENTER);
+
+        flushTimer = new Timer(FLUSH_MS, e -> flush());
+        flushTimer.setRepeats(false);
+    }
+
+    public void appendMessage(String message) {
+        appendMessage(message, null);
+    }
+
+    // details is called on the EDT, and only if the line is selected.
+    public void appendMessage(String message, Supplier<String> details) {
+        Line line = new Line(System.currentTimeMillis(), message, details);
+        synchronized (pendingLock) {
+            // Lines beyond the capacity would be evicted by the same flush anyway.
+            if (pending.size() >= lines.capacity()) {
+                pending.pollFirst();
+            }
+            pending.addLast(line);
+            if (pending.size() > 1) {
+                return;
+            }
+        }
+        flushTimer.start();
+    }
+
+    private void flush() {
+        ArrayDeque<Line> batch;
+        synchronized (pendingLock) {
+            batch = pending;
+            pending = new ArrayDeque<>();
+        }
+        // Follow new lines unless the user has scrolled up to read older ones.
+        JScrollBar bar = scrollPane.getVerticalScrollBar();
+        boolean following = bar.getValue() + bar.getVisibleAmount() >= bar.getMaximum() - lineList.getFixedCellHeight();
+        lines.addAll(batch);
+        if (following && lines.getSize() > 0) {
+            lineList.ensureIndexIsVisible(lines.getSize() - 1);
+        }
+    }
+
+    private void showDetails(Line line) {
+        if (line == null) {
+            detailArea.setText("");
+            return;
+        }
+        if (line.rendered == null) {
+            String details = line.details != null ? line.details.get() : null;
+            line.rendered = "[" + new Date(line.time) + "] " + line.text + (details != null ? "\n" + details : "");
+        }
+        detailArea.setText(line.rendered);
+        detailArea.setCaretPosition(0);
+    }
+
+    private static final class Line {
+        private final long time;
+        private final String text;
+        private final Supplier<String> details;
+        private String rendered;
+
+        private Line(long time, String text, Supplier<String> details) {
+            this.time = time;
+            this.text = text;
+            this.details = details;
+        }
+    }
+
+    // A ring of the newest lines; only touched on the EDT.
+    private static final class LineModel extends AbstractListModel<Line> {
+        private final Line[] ring;
+        private int head;
+        private int size;
+
+        private LineModel(int capacity) {
+            ring = new Line[Math.max(capacity, 1)];
+        }
+
+        private int capacity() {
+            return ring.length;
+        }
+
+        @Override
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public Line getElementAt(int index) {
+            return ring[(head + index) % ring.length];
+        }
+
+        private void addAll(ArrayDeque<Line> batch) {
+            int added = batch.size();
+            if (added == 0) {
+                return;
+            }
+            int evicted = Math.max(size + added - ring.length, 0);
+            for (Line line : batch) {
+                ring[(head + size) % ring.length] = line;
+                if (size < ring.length) {
+                    size++;
+                } else {
+                    head = (head + 1) % ring.length;
+                }
+            }
+            if (evicted > 0) {
+                fireIntervalRemoved(this, 0, evicted - 1);
+            }
+            fireIntervalAdded(this, size - added, size - 1);
+        }
+    }
+
+    // Timestamps are formatted and multi-line text flattened only for the rows being painted.
+    private static final class LineRenderer extends DefaultListCellRenderer {
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+            Line line = (Line) value;
+            String text = "[" + new Date(line.time) + "] " + line.text.trim().replace('\n', ' ') + (line.details != null ? " [+]" : "");
+            return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+        }
+    }
+}
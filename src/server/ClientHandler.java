@@ -1,38 +1,48 @@
 package server;
 
 import common.ClientInfo;
+import common.FrameReader;
+import common.FrameTooLargeException;
+import common.FrameWriter;
 import common.ProtocolMessage;
 import common.SerializationHelper;
-import server.service.AdminHandler;
+import common.protocol.AuthenticatedRequest;
+import common.protocol.CompressionRequest;
+import common.protocol.CompressionResponse;
+import server.jfr.RequestDecodeEvent;
+import server.jfr.RequestHandlerEvent;
+import server.RequestDispatcher.OpClass;
+import server.jfr.ResponseWriteEvent;
 import server.service.AuthHandler;
-import server.service.ProfileHandler;
-import server.service.TopicHandler;
-import server.service.UserDataHandler;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.PrintWriter;
 import java.net.Socket;
 import java.net.SocketException;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
 import java.util.function.Consumer;
 
 public class ClientHandler implements Runnable {
+    // Upper bound on pipelined reads from one connection that may run concurrently.
+    private static final int MAX_IN_FLIGHT_PER_CONNECTION = 32;
+
     private final Socket clientSocket;
     private ClientInfo clientInfo;
-    private final BufferedReader in;
-    private final PrintWriter out;
+    private final FrameReader in;
+    private final FrameWriter out;
     private final Consumer<String> logConsumer;
     private final Consumer<ClientInfo> clientListUpdater;
     private final Consumer<ClientHandler> clientDisconnectedCallback;
+    private final RequestDispatcher dispatcher;
     private final AuthHandler authHandler;
-    private final ProfileHandler profileHandler;
-    private final TopicHandler topicHandler;
-    private final UserDataHandler userDataHandler;
-    private final AdminHandler adminHandler;
-    private final Map<String, PrintWriter> activeClientOutputs;
+    private final Map<String, FrameWriter> activeClientOutputs;
+    private final ServerMetrics metrics;
+    private final SlowRequestLog slowRequests;
+    private final RequestScheduler scheduler;
+    private final Semaphore inFlightPermits;
+    private final int compressionThresholdBytes;
 
     private volatile boolean running = true;
 
@@ -40,26 +50,31 @@ public class ClientHandler implements Runnable {
                          Consumer<String> logConsumer,
                          Consumer<ClientInfo> clientListUpdater,
                          Consumer<ClientHandler> clientDisconnectedCallback,
+                         RequestDispatcher dispatcher,
                          AuthHandler authHandler,
-                         ProfileHandler profileHandler,
-                         TopicHandler topicHandler,
-                         UserDataHandler userDataHandler,
-                         AdminHandler adminHandler,
-                         Map<String, PrintWriter> activeClientOutputs) throws IOException {
+                         Map<String, FrameWriter> activeClientOutputs,
+                         ServerMetrics metrics,
+                         SlowRequestLog slowRequests,
+                         RequestScheduler scheduler,
+                         int maxFrameBytes,
+                         int compressionThresholdBytes) throws IOException {
 
         this.clientSocket = clientSocket;
         this.logConsumer = logConsumer;
         this.clientListUpdater = clientListUpdater;
         this.clientDisconnectedCallback = clientDisconnectedCallback;
+        this.dispatcher = dispatcher;
         this.authHandler = authHandler;
-        this.profileHandler = profileHandler;
-        this.topicHandler = topicHandler;
-        this.userDataHandler = userDataHandler;
-        this.adminHandler = adminHandler;
         this.activeClientOutputs = activeClientOutputs;
+        this.metrics = metrics;
+        this.slowRequests = slowRequests;
+        this.scheduler = scheduler;
+        this.inFlightPermits = new Semaphore(MAX_IN_FLIGHT_PER_CONNECTION);
+        this.compressionThresholdBytes = compressionThresholdBytes;
 
-        this.out = new PrintWriter(this.clientSocket.getOutputStream(), true); // 'true' para auto-flush
-        this.in = new BufferedReader(new InputStreamReader(this.clientSocket.getInputStream()));
+        this.out = new FrameWriter(this.clientSocket.getOutputStream(), "client-writer-" + this.clientSocket.getPort(),
+                metrics.getOutboundWrites(), e -> stop());
+        this.in = new FrameReader(this.clientSocket.getInputStream(), maxFrameBytes);
 
         this.clientInfo = new ClientInfo("Guest", this.clientSocket.getInetAddress(), this.clientSocket.getPort());
         logMessageWithClientContext("New client connected: " + this.clientInfo.getAddress().getHostAddress() + ":" + this.clientInfo.getPort());
@@ -71,6 +86,11 @@ public class ClientHandler implements Runnable {
         return this.clientInfo;
     }
 
+    // Frames waiting for this connection's writer thread.
+    public int getOutboundQueueDepth() {
+        return this.out.getQueueDepth();
+    }
+
     private void logMessageWithClientContext(String message) {
         String clientContext = (this.clientInfo.getUserId() != null && !this.clientInfo.getUserId().isEmpty())
                 ? this.clientInfo.getUserId() + " (" + this.clientInfo.getName() + ")"
@@ -81,8 +101,11 @@ public class ClientHandler implements Runnable {
     @Override
     public void run() {
         try {
+            boolean firstFrame = true;
             while (this.running) {
-                ProtocolMessage request = SerializationHelper.readMessage(this.in);
+                String frame = this.in.readFrame();
+                long receivedNanos = System.nanoTime();
+                ProtocolMessage request = frame == null ? null : decodeRequest(frame);
                 if (request == null) {
                     logMessageWithClientContext("Client disconnected gracefully (stream closed).");
                     break;
@@ -90,30 +113,59 @@ public class ClientHandler implements Runnable {
 
                 logMessageWithClientContext("Received op: " + request.getOperationCode() + " -> " + request.toString());
 
+                if (CompressionRequest.OPCODE.equals(request.getOperationCode())) {
+                    negotiateCompression(request, firstFrame);
+                    firstFrame = false;
+                    continue;
+                }
+                firstFrame = false;
+
+                // A token from an earlier connection: a reconnect, possibly to another server.
+                if (this.clientInfo.getToken() == null && request instanceof AuthenticatedRequest
+                        && this.authHandler.resumeSession(((AuthenticatedRequest) request).getToken(), this.clientInfo)) {
+                    this.activeClientOutputs.put(this.clientInfo.getToken(), this.out);
+                    logMessageWithClientContext("Session resumed. Token: " + this.clientInfo.getToken());
+                }
+
                 if ("000".equals(request.getOperationCode())) {
-                    ProtocolMessage loginResponse = this.authHandler.handleLogin(request, this.clientInfo);
+                    ProtocolMessage loginResponse = this.dispatcher.dispatch(request, this.clientInfo);
                     if ("001".equals(loginResponse.getOperationCode())) {
                         this.activeClientOutputs.put(this.clientInfo.getToken(), this.out);
                         logMessageWithClientContext("Login successful. Token: " + this.clientInfo.getToken());
                     } else {
                         logMessageWithClientContext("Login failed. Response: " + loginResponse.getMessageContent());
                     }
+                    loginResponse.setRequestId(request.getRequestId());
                     SerializationHelper.writeMessage(loginResponse, this.out);
                     continue;
                 }
 
-                ProtocolMessage response = processMessage(request);
-                if (response != null) {
-                    SerializationHelper.writeMessage(response, this.out);
-                    logMessageWithClientContext("Sent response op: " + response.getOperationCode() + " -> " + response.toString());
+                OpClass opClass = this.dispatcher.opClassOf(request.getOperationCode());
+                if (opClass == OpClass.INTERNAL) {
+                    handleRequest(request, frame.length(), receivedNanos);
+                } else if (request.getRequestId() != null && this.dispatcher.isReadOnly(request.getOperationCode())) {
+                    dispatchConcurrently(request, opClass, frame.length(), receivedNanos);
+                } else {
+                    dispatchInOrder(request, opClass, frame.length(), receivedNanos);
                 }
             }
+        } catch (FrameTooLargeException e) {
+            this.metrics.recordOversizedFrame();
+            logMessageWithClientContext("Closing connection: " + e.getMessage() + " (total oversized frames: " + this.metrics.getOversizedFrames() + ")");
+            try {
+                SerializationHelper.writeMessage(ProtocolMessage.createErrorMessage("999", "Message too large."), this.out);
+            } catch (IOException ignored) {
+                // Connection is being closed anyway.
+            }
         } catch (SocketException e) {
             logMessageWithClientContext("Disconnected (SocketException): " + e.getMessage());
         } catch (java.io.EOFException e) {
             logMessageWithClientContext("Disconnected gracefully (EOFException).");
         } catch (IOException e) {
             logMessageWithClientContext("I/O error: " + e.getMessage());
+        } catch (CancellationException e) {
+            // The scheduler dropped a queued request because the server is shutting down.
+            logMessageWithClientContext("Disconnected: server shutting down.");
         } catch (Exception e) {
             logMessageWithClientContext("Unexpected error: " + e.getClass().getSimpleName() + " - " + e.getMessage());
             e.printStackTrace();
@@ -122,36 +174,127 @@ public class ClientHandler implements Runnable {
         }
     }
 
+    private static ProtocolMessage decodeRequest(String frame) {
+        RequestDecodeEvent event = new RequestDecodeEvent();
+        event.begin();
+        ProtocolMessage request = SerializationHelper.decode(frame);
+        event.complete(request != null ? request.getOperationCode() : null, frame.length());
+        return request;
+    }
+
+    // Correlated reads carry their request id back, so their responses may be written in any
+    // order. Everything else waits here until its worker is done, which keeps state-changing
+    // operations and uncorrelated responses in the order the client sent them.
+    private void dispatchConcurrently(ProtocolMessage request, OpClass opClass, int requestChars, long receivedNanos) throws InterruptedException {
+        this.inFlightPermits.acquire();
+        boolean accepted = this.scheduler.submit(opClass, () -> {
+            try {
+                handleRequest(request, requestChars, receivedNanos);
+            } catch (Exception e) {
+                logMessageWithClientContext("Error processing pipelined op " + request.getOperationCode() + ": " + e.getMessage());
+            } finally {
+                this.inFlightPermits.release();
+            }
+        });
+        if (accepted) {
+            this.metrics.recordPipelinedRequest();
+        } else {
+            this.inFlightPermits.release();
+            rejectBusy(request, opClass);
+        }
+    }
+
+    private void dispatchInOrder(ProtocolMessage request, OpClass opClass, int requestChars, long receivedNanos) throws Exception {
+        FutureTask<Void> task = new FutureTask<>(() -> handleRequest(request, requestChars, receivedNanos), null);
+        if (!this.scheduler.submit(opClass, task)) {
+            rejectBusy(request, opClass);
+            return;
+        }
+        try {
+            task.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    private void rejectBusy(ProtocolMessage request, OpClass opClass) {
+        logMessageWithClientContext("Server busy, refused " + opClass.name().toLowerCase() + " op " + request.getOperationCode() + ".");
+        writeResponse(request, ProtocolMessage.createErrorMessage("999", "Server busy, try again later."));
+    }
+
+    // Requests slower than their opcode's threshold, counted from when the frame was read, are
+    // kept in the slow request log with the time spent in each phase.
+    private void handleRequest(ProtocolMessage request, int requestChars, long receivedNanos) {
+        long handlerStart = System.nanoTime();
+        ProtocolMessage response = processMessage(request);
+        long handlerEnd = System.nanoTime();
+        int responseChars = response != null ? writeResponse(request, response) : 0;
+        long end = System.nanoTime();
+        if (end - receivedNanos >= this.slowRequests.getThresholdNanos(request.getOperationCode())) {
+            this.slowRequests.record(request, this.clientInfo, requestChars, responseChars,
+                    handlerStart - receivedNanos, handlerEnd - handlerStart, end - handlerEnd);
+        }
+    }
+
+    // Only accepted as the first frame: nothing else can be writing to this connection yet, so
+    // the 121 reply is the last plain-text frame either side sees.
+    private void negotiateCompression(ProtocolMessage request, boolean firstFrame) throws IOException {
+        String codec = request instanceof CompressionRequest ? ((CompressionRequest) request).getCodec() : null;
+        ProtocolMessage response;
+        if (this.compressionThresholdBytes < 0) {
+            response = ProtocolMessage.createErrorMessage("122", "Compression is disabled on this server.");
+        } else if (!firstFrame) {
+            response = ProtocolMessage.createErrorMessage("122", "Compression must be negotiated before any other request.");
+        } else if (!CompressionRequest.DEFLATE.equals(codec)) {
+            response = ProtocolMessage.createErrorMessage("122", "Unsupported codec: " + codec);
+        } else {
+            this.in.enableCompression(this.metrics.getCompression());
+            response = new CompressionResponse(CompressionRequest.DEFLATE);
+            response.setRequestId(request.getRequestId());
+            SerializationHelper.writeMessage(response, this.out);
+            this.out.enableCompression(this.compressionThresholdBytes, this.metrics.getCompression());
+            logMessageWithClientContext("Compression enabled (deflate, frames >= " + this.compressionThresholdBytes + " bytes).");
+            return;
+        }
+        logMessageWithClientContext("Compression refused: " + response.getMessageContent());
+        writeResponse(request, response);
+    }
+
+    // Returns the frame's length, or 0 if it could not be sent.
+    private int writeResponse(ProtocolMessage request, ProtocolMessage response) {
+        response.setRequestId(request.getRequestId());
+        String frame;
+        try {
+            ResponseWriteEvent event = new ResponseWriteEvent();
+            event.begin();
+            frame = SerializationHelper.encode(response);
+            this.out.send(frame);
+            event.complete(response.getOperationCode(), frame.length());
+        } catch (IOException e) {
+            logMessageWithClientContext("Error sending response op " + response.getOperationCode() + ": " + e.getMessage());
+            return 0;
+        }
+        logMessageWithClientContext("Sent response op: " + response.getOperationCode() + " -> " + response.toString());
+        return frame.length();
+    }
+
     private ProtocolMessage processMessage(ProtocolMessage request) {
         String opCode = request.getOperationCode();
 
-        switch (opCode) {
-            case "005": return this.userDataHandler.handleRetrieveUserData(request, this.clientInfo);
-            case "010": return this.authHandler.handleRegister(request, this.clientInfo);
-            case "020":
-                if (this.clientInfo.getToken() != null) {
-                    this.activeClientOutputs.remove(this.clientInfo.getToken());
-                }
-                return this.authHandler.handleLogout(request, this.clientInfo);
-            case "030": return this.profileHandler.handleChangeProfile(request, this.clientInfo);
-            case "040":
-                if (this.clientInfo.getToken() != null) {
-                    this.activeClientOutputs.remove(this.clientInfo.getToken());
-                }
-                return this.profileHandler.handleDeleteAccount(request, this.clientInfo);
-            case "050": return this.topicHandler.handleCreateTopic(request, this.clientInfo);
-            case "060": return this.topicHandler.handleReplyMessage(request, this.clientInfo);
-            case "070": return this.topicHandler.handleGetReplies(request, this.clientInfo);
-            case "075": return this.topicHandler.handleGetTopics(request, this.clientInfo);
-            case "080": return this.adminHandler.handleChangeUserByAdmin(request, this.clientInfo);
-            case "090": return this.adminHandler.handleDeleteUserByAdmin(request, this.clientInfo);
-            case "100": return this.adminHandler.handleDeleteMessage(request, this.clientInfo);
-            case "110": return this.adminHandler.handleListAllUsers(request, this.clientInfo);
-            case "999": return ProtocolMessage.createErrorMessage("999", "Client-side error received: " + request.getMessageContent());
-            default:
-                logMessageWithClientContext("Unknown operation code: " + opCode);
-                return ProtocolMessage.createErrorMessage("999", "Unknown operation code: " + opCode);
+        if (("020".equals(opCode) || "040".equals(opCode)) && this.clientInfo.getToken() != null) {
+            this.activeClientOutputs.remove(this.clientInfo.getToken());
+        }
+        long start = System.nanoTime();
+        RequestHandlerEvent event = new RequestHandlerEvent();
+        event.begin();
+        ProtocolMessage response = this.dispatcher.dispatch(request, this.clientInfo);
+        event.complete(request, this.clientInfo, response);
+        if (response == null) {
+            logMessageWithClientContext("Unknown operation code: " + opCode);
+            return ProtocolMessage.createErrorMessage("999", "Unknown operation code: " + opCode);
         }
+        this.metrics.getRequests().record(opCode, System.nanoTime() - start);
+        return response;
     }
 
     public void stop() {
@@ -0,0 +1,171 @@
+package server;
+
+import common.ClientInfo;
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// The server window's client list. Rows are found through a hash index rather than a scan, and
+// changes posted from handler threads are coalesced per client and applied in one batch every
+// FLUSH_MS, so thousands of logins cost a few model events instead of one EDT task each.
+// Optionally the rows are shown filtered by a substring and sorted by user.
+class ClientListModel extends AbstractListModel<ClientInfo> {
+    private static final int FLUSH_MS = 100;
+    private static final Comparator<ClientInfo> BY_USER = Comparator
+            .comparing(ClientInfo::getUserId, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(ClientInfo::getPort);
+
+    // Pending changes, last one per client wins; a null value removes the client.
+    private final Map<ClientInfo, ClientInfo> pending = new LinkedHashMap<>();
+    private final Timer flushTimer;
+    // Only touched on the EDT.
+    private final List<ClientInfo> rows = new ArrayList<>();
+    private final Map<ClientInfo, Integer> rowIndex = new HashMap<>();
+    private List<ClientInfo> view = rows;
+    private String filter = "";
+    private boolean sorted;
+
+    ClientListModel() {
+        flushTimer = new Timer(FLUSH_MS, e -> flush());
+        flushTimer.setRepeats(false);
+    }
+
+    // Updates the client's row; a client not yet listed is added once it has logged in.
+    void update(ClientInfo clientInfo) {
+        post(clientInfo, clientInfo);
+    }
+
+    void remove(ClientInfo clientInfo) {
+        post(clientInfo, null);
+    }
+
+    private void post(ClientInfo key, ClientInfo change) {
+        synchronized (pending) {
+            pending.remove(key);
+            pending.put(key, change);
+            if (pending.size() > 1) {
+                return;
+            }
+        }
+        flushTimer.start();
+    }
+
+    void setFilter(String filter) {
+        this.filter = filter == null ? "" : filter.trim().toLowerCase(Locale.ROOT);
+        refreshView();
+    }
+
+    void setSorted(boolean sorted) {
+        this.sorted = sorted;
+        refreshView();
+    }
+
+    @Override
+    public int getSize() {
+        return view.size();
+    }
+
+    @Override
+    public ClientInfo getElementAt(int index) {
+        return view.get(index);
+    }
+
+    private void flush() {
+        List<Map.Entry<ClientInfo, ClientInfo>> batch;
+        synchronized (pending) {
+            batch = new ArrayList<>(pending.entrySet());
+            pending.clear();
+        }
+        int oldSize = rows.size();
+        int firstChanged = Integer.MAX_VALUE;
+        int lastChanged = -1;
+        boolean removed = false;
+        for (Map.Entry<ClientInfo, ClientInfo> change : batch) {
+            ClientInfo clientInfo = change.getValue();
+            Integer row = rowIndex.get(change.getKey());
+            if (clientInfo == null) {
+                if (row != null) {
+                    rows.set(row, null);
+                    rowIndex.remove(change.getKey());
+                    removed = true;
+                }
+            } else if (row != null) {
+                rows.set(row, clientInfo);
+                firstChanged = Math.min(firstChanged, row);
+                lastChanged = Math.max(lastChanged, row);
+            } else if (clientInfo.getUserId() != null) {
+                rowIndex.put(clientInfo, rows.size());
+                rows.add(clientInfo);
+            }
+        }
+        if (removed) {
+            compact();
+        }
+
+        if (view != rows) {
+            refreshView();
+        } else if (removed) {
+            // Rows after a removed one have moved, so everything is repainted.
+            fireResized(0, oldSize);
+        } else {
+            if (lastChanged >= 0) {
+                fireContentsChanged(this, firstChanged, lastChanged);
+            }
+            fireResized(oldSize, oldSize);
+        }
+    }
+
+    // Drops the rows removed in this batch in one pass and reindexes the ones that moved.
+    private void compact() {
+        int kept = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            ClientInfo clientInfo = rows.get(i);
+            if (clientInfo != null) {
+                if (kept != i) {
+                    rows.set(kept, clientInfo);
+                    rowIndex.put(clientInfo, kept);
+                }
+                kept++;
+            }
+        }
+        rows.subList(kept, rows.size()).clear();
+    }
+
+    // Filtering and sorting copy the rows, once per batch rather than per change.
+    private void refreshView() {
+        int oldSize = view.size();
+        if (filter.isEmpty() && !sorted) {
+            view = rows;
+        } else {
+            List<ClientInfo> filtered = new ArrayList<>();
+            for (ClientInfo clientInfo : rows) {
+                if (filter.isEmpty() || clientInfo.toString().toLowerCase(Locale.ROOT).contains(filter)) {
+                    filtered.add(clientInfo);
+                }
+            }
+            if (sorted) {
+                filtered.sort(BY_USER);
+            }
+            view = filtered;
+        }
+        fireResized(0, oldSize);
+    }
+
+    // Rows [from, min(oldSize, size)) changed, and rows were added or dropped at the end.
+    private void fireResized(int from, int oldSize) {
+        int newSize = view.size();
+        if (Math.min(oldSize, newSize) > from) {
+            fireContentsChanged(this, from, Math.min(oldSize, newSize) - 1);
+        }
+        if (newSize < oldSize) {
+            fireIntervalRemoved(this, newSize, oldSize - 1);
+        } else if (newSize > oldSize) {
+            fireIntervalAdded(this, oldSize, newSize - 1);
+        }
+    }
+}
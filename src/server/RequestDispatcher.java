@@ -0,0 +1,90 @@
+package server;
+
+import common.ClientInfo;
+import common.ProtocolMessage;
+import common.protocol.MessageTypes;
+import common.protocol.OpcodeTable;
+
+// Precomputed opcode -> handler table used by every ClientHandler. Built once at startup.
+public class RequestDispatcher {
+    @FunctionalInterface
+    public interface Handler<T extends ProtocolMessage> {
+        ProtocolMessage handle(T request, ClientInfo clientInfo);
+    }
+
+    // Which RequestScheduler queue a route's requests wait in. INTERNAL requests come from other
+    // servers and run on the connection's own thread, so peers waiting on each other never
+    // need a free worker.
+    public enum OpClass { AUTH, WRITE, ADMIN, READ, INTERNAL }
+
+    private static final class Route<T extends ProtocolMessage> {
+        private final Class<T> requestType;
+        private final Handler<T> handler;
+        private final boolean readOnly;
+        private final OpClass opClass;
+
+        private Route(Class<T> requestType, Handler<T> handler, boolean readOnly, OpClass opClass) {
+            this.requestType = requestType;
+            this.handler = handler;
+            this.readOnly = readOnly;
+            this.opClass = opClass;
+        }
+
+        private Route<T> withOpClass(OpClass opClass) {
+            return new Route<>(requestType, handler, readOnly, opClass);
+        }
+
+        private ProtocolMessage handle(ProtocolMessage request, ClientInfo clientInfo) {
+            if (!requestType.isInstance(request)) {
+                return ProtocolMessage.createErrorMessage("999", "Malformed request for op " + request.getOperationCode() + ".");
+            }
+            return handler.handle(requestType.cast(request), clientInfo);
+        }
+    }
+
+    private final OpcodeTable<Route<?>> routes = new OpcodeTable<>();
+
+    public <T extends ProtocolMessage> void register(String opCode, Class<T> requestType, Handler<T> handler) {
+        addRoute(opCode, new Route<>(requestType, handler, false, OpClass.WRITE));
+    }
+
+    // Read-only routes may run concurrently with other requests from the same connection.
+    public <T extends ProtocolMessage> void registerReadOnly(String opCode, Class<T> requestType, Handler<T> handler) {
+        addRoute(opCode, new Route<>(requestType, handler, true, OpClass.READ));
+    }
+
+    // Routes start out as WRITE, or READ if read-only; call this after registering them.
+    public void classify(OpClass opClass, String... opCodes) {
+        for (String opCode : opCodes) {
+            Route<?> route = routes.get(opCode);
+            if (route != null) {
+                routes.put(opCode, route.withOpClass(opClass));
+            }
+        }
+    }
+
+    private void addRoute(String opCode, Route<?> route) {
+        if (MessageTypes.typeOf(opCode) != route.requestType) {
+            throw new IllegalArgumentException("Opcode " + opCode + " decodes to " + MessageTypes.typeOf(opCode).getSimpleName()
+                    + ", not " + route.requestType.getSimpleName());
+        }
+        routes.put(opCode, route);
+    }
+
+    public boolean isReadOnly(String opCode) {
+        Route<?> route = routes.get(opCode);
+        return route != null && route.readOnly;
+    }
+
+    // Unknown opcodes are answered with an error right away, so they are INTERNAL.
+    public OpClass opClassOf(String opCode) {
+        Route<?> route = routes.get(opCode);
+        return route != null ? route.opClass : OpClass.INTERNAL;
+    }
+
+    // Returns null when no handler is registered for the opcode.
+    public ProtocolMessage dispatch(ProtocolMessage request, ClientInfo clientInfo) {
+        Route<?> route = routes.get(request.getOperationCode());
+        return route != null ? route.handle(request, clientInfo) : null;
+    }
+}
@@ -0,0 +1,212 @@
+package server;
+
+import server.RequestDispatcher.OpClass;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Runs requests on a fixed set of workers, taking them from one bounded queue per op class.
+// Workers pick the next queue by smooth weighted round robin over the non-empty ones, so under
+// load each class gets a share of the workers in proportion to its weight rather than to how
+// much of it is queued: a flood of reads slows other reads, not logins and posts. Reads are also
+// the first to be refused, as soon as everything queued together reaches the read limit, while
+// the other classes are only refused once their own queue is full. Reads may also only hold
+// readWorkers of the workers at once, so the rest are always free for everything else.
+public class RequestScheduler {
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+    // Indexed by OpClass.ordinal(); INTERNAL requests are never queued.
+    private static final int[] DEFAULT_WEIGHTS = {8, 4, 2, 1};
+    private static final int QUEUES = DEFAULT_WEIGHTS.length;
+    private static final int READ = OpClass.READ.ordinal();
+
+    private final int[] weights;
+    private final int queueCapacity;
+    private final int readLimit;
+    private final int readWorkers;
+    private final Consumer<String> logConsumer;
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final List<ArrayDeque<Runnable>> queues = new ArrayList<>(QUEUES);
+    private final int[] currentWeights = new int[QUEUES];
+    private final long[] shed = new long[QUEUES];
+    private final long[] completed = new long[QUEUES];
+    private int queued;
+    private int runningReads;
+    private boolean shutdown;
+
+    public RequestScheduler(int workerCount, int[] weights, int queueCapacity, int readLimit, int readWorkers,
+                            Consumer<String> logConsumer) {
+        if (weights.length != QUEUES) {
+            throw new IllegalArgumentException("Expected " + QUEUES + " weights, got " + weights.length);
+        }
+        this.weights = weights.clone();
+        this.queueCapacity = queueCapacity;
+        this.readLimit = readLimit;
+        this.readWorkers = Math.max(1, Math.min(readWorkers, workerCount));
+        this.logConsumer = logConsumer;
+        for (int i = 0; i < QUEUES; i++) {
+            if (weights[i] <= 0) {
+                throw new IllegalArgumentException("Weights must be positive, got " + weights[i] + " for " + OpClass.values()[i]);
+            }
+            queues.add(new ArrayDeque<>());
+        }
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::workLoop, "request-worker-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+        workers.forEach(Thread::start);
+    }
+
+    // -Dforum.scheduler.workers (twice the processors, at least 4), -Dforum.scheduler.readWorkers
+    // (half the workers), -Dforum.scheduler.queueCapacity per class (256),
+    // -Dforum.scheduler.readLimit queued requests before reads are refused (half the capacity) and
+    // -Dforum.scheduler.weights=auth:8,write:4,admin:2,read:1.
+    public static RequestScheduler fromSystemProperties(Consumer<String> logConsumer) {
+        int workerCount = Integer.getInteger("forum.scheduler.workers", Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+        int queueCapacity = Integer.getInteger("forum.scheduler.queueCapacity", DEFAULT_QUEUE_CAPACITY);
+        int readWorkers = Integer.getInteger("forum.scheduler.readWorkers", workerCount / 2);
+        int readLimit = Integer.getInteger("forum.scheduler.readLimit", queueCapacity / 2);
+        int[] weights = DEFAULT_WEIGHTS.clone();
+        for (String entry : System.getProperty("forum.scheduler.weights", "").split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("forum.scheduler.weights entries must be class:weight, got: " + entry);
+            }
+            OpClass opClass = OpClass.valueOf(parts[0].toUpperCase());
+            if (opClass == OpClass.INTERNAL) {
+                throw new IllegalArgumentException("INTERNAL requests are not scheduled.");
+            }
+            weights[opClass.ordinal()] = Integer.parseInt(parts[1]);
+        }
+        return new RequestScheduler(workerCount, weights, queueCapacity, readLimit, readWorkers, logConsumer);
+    }
+
+    // Returns false, without running the task, when its class is being shed or the scheduler has
+    // been shut down. A queued Future is cancelled on shutdown, so whoever waits on it wakes up.
+    public boolean submit(OpClass opClass, Runnable task) {
+        if (opClass == OpClass.INTERNAL) {
+            throw new IllegalArgumentException("INTERNAL requests run on their connection's thread.");
+        }
+        int index = opClass.ordinal();
+        lock.lock();
+        try {
+            ArrayDeque<Runnable> queue = queues.get(index);
+            if (shutdown || queue.size() >= queueCapacity || (opClass == OpClass.READ && queued >= readLimit)) {
+                shed[index]++;
+                return false;
+            }
+            queue.add(task);
+            queued++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void shutdown() {
+        List<Runnable> dropped = new ArrayList<>();
+        lock.lock();
+        try {
+            shutdown = true;
+            queues.forEach(dropped::addAll);
+            queues.forEach(ArrayDeque::clear);
+            queued = 0;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Runnable task : dropped) {
+            if (task instanceof Future) {
+                ((Future<?>) task).cancel(false);
+            }
+        }
+        workers.forEach(Thread::interrupt);
+    }
+
+    private void workLoop() {
+        while (true) {
+            int index;
+            Runnable task;
+            lock.lock();
+            try {
+                index = nextQueue();
+                while (index < 0 && !shutdown) {
+                    notEmpty.awaitUninterruptibly();
+                    index = nextQueue();
+                }
+                if (shutdown) {
+                    return;
+                }
+                task = queues.get(index).poll();
+                queued--;
+                if (index == READ) {
+                    runningReads++;
+                }
+            } finally {
+                lock.unlock();
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logConsumer.accept("Error in scheduled " + OpClass.values()[index] + " request: " + e.getMessage());
+            }
+            lock.lock();
+            try {
+                completed[index]++;
+                if (index == READ && runningReads-- == readWorkers && !queues.get(READ).isEmpty()) {
+                    notEmpty.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Smooth weighted round robin: every queue that can be served earns its weight, the richest
+    // is picked and pays back the total, which interleaves the classes instead of serving them
+    // in bursts. -1 when there is nothing this worker may take.
+    private int nextQueue() {
+        int best = -1;
+        int total = 0;
+        for (int i = 0; i < QUEUES; i++) {
+            if (queues.get(i).isEmpty() || (i == READ && runningReads >= readWorkers)) {
+                continue;
+            }
+            currentWeights[i] += weights[i];
+            total += weights[i];
+            if (best < 0 || currentWeights[i] > currentWeights[best]) {
+                best = i;
+            }
+        }
+        if (best >= 0) {
+            currentWeights[best] -= total;
+        }
+        return best;
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            StringBuilder summary = new StringBuilder();
+            for (int i = 0; i < QUEUES; i++) {
+                summary.append(i == 0 ? "" : ", ").append(OpClass.values()[i].name().toLowerCase())
+                        .append(" completed=").append(completed[i]).append(" shed=").append(shed[i]);
+            }
+            return summary.toString();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
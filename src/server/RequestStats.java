@@ -0,0 +1,85 @@
+package server;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Requests handled per opcode and how long dispatching them took. Request threads only add to
+// LongAdders, so they do not contend with each other or with whoever reads the totals. Latencies
+// in microseconds go into log-linear buckets: exact below SUB_BUCKETS, then SUB_BUCKETS / 2 per
+// power of two, so a percentile read from them is within about 12%.
+public class RequestStats {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_BUCKETS = SUB_BUCKETS / 2;
+    public static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 2) * HALF_BUCKETS;
+
+    private final Map<String, LongAdder> requestsByOpcode = new ConcurrentHashMap<>();
+    private final LongAdder[] latencyBuckets = new LongAdder[BUCKET_COUNT];
+
+    public RequestStats() {
+        for (int i = 0; i < latencyBuckets.length; i++) {
+            latencyBuckets[i] = new LongAdder();
+        }
+    }
+
+    // Only called for registered opcodes, so the map stays as small as the protocol.
+    public void record(String opCode, long nanos) {
+        requestsByOpcode.computeIfAbsent(opCode, k -> new LongAdder()).increment();
+        latencyBuckets[bucketIndex(Math.max(nanos / 1000, 0))].increment();
+    }
+
+    public Map<String, Long> getRequestCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        requestsByOpcode.forEach((opCode, count) -> counts.put(opCode, count.sum()));
+        return counts;
+    }
+
+    public long[] getLatencyCounts() {
+        long[] counts = new long[latencyBuckets.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = latencyBuckets[i].sum();
+        }
+        return counts;
+    }
+
+    // The upper bound in microseconds of the bucket holding the percentile (0-100) of counts,
+    // such as the difference of two getLatencyCounts() results; 0 when counts are all zero.
+    public static long percentileMicros(long[] counts, double percentile) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return bucketUpperBound(i);
+            }
+        }
+        return bucketUpperBound(counts.length - 1);
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int range = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> range); // always in [HALF_BUCKETS, SUB_BUCKETS)
+        return range * HALF_BUCKETS + subBucket;
+    }
+
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int range = index / HALF_BUCKETS - 1;
+        long subBucket = index % HALF_BUCKETS + HALF_BUCKETS;
+        return ((subBucket + 1) << range) - 1;
+    }
+}
@@ -1,23 +1,67 @@
 package server;
 
 import common.ClientInfo;
+import common.FrameReader;
+import common.FrameWriter;
+import common.ProtocolMessage;
+import common.protocol.AdminChangeUserRequest;
+import common.protocol.AdminDeleteMessageRequest;
+import common.protocol.AdminDeleteUserRequest;
+import common.protocol.ChangeProfileRequest;
+import common.protocol.CreateTopicRequest;
+import common.protocol.DeleteAccountRequest;
+import common.protocol.ForwardedReplyRequest;
+import common.protocol.ForwardedWriteRequest;
+import common.protocol.GetRepliesRequest;
+import common.protocol.GetTopicsRequest;
+import common.protocol.ListUsersRequest;
+import common.protocol.LoginRequest;
+import common.protocol.LogoutRequest;
+import common.protocol.MyPostsRequest;
+import common.protocol.RegisterRequest;
+import common.protocol.ReplyRequest;
+import common.protocol.ResumeRequest;
+import common.protocol.SearchRequest;
+import common.protocol.SessionSyncRequest;
+import common.protocol.ShardReadRequest;
+import common.protocol.StatsRequest;
+import common.protocol.UserDataRequest;
+import common.ui.LogPanel;
+import server.RequestDispatcher.OpClass;
+import server.cluster.ClusterConfig;
+import server.cluster.ClusterRouter;
+import server.dashboard.DashboardPanel;
+import server.dashboard.DashboardSampler;
+import server.events.EventFeed;
+import server.replication.ReplicationConfig;
+import server.replication.ReplicationFollower;
+import server.replication.ReplicationPrimary;
 import server.repository.ReplyRepository;
+import server.repository.RepositoryListener;
 import server.repository.TopicRepository;
 import server.repository.UserRepository;
+import server.search.SearchIndex;
 import server.service.AdminHandler;
 import server.service.AuthHandler;
 import server.service.ProfileHandler;
+import server.service.SearchHandler;
+import server.service.StatsHandler;
 import server.service.TopicHandler;
 import server.service.UserDataHandler;
+import server.session.ReplicatedSessionStore;
+import server.session.SessionStore;
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -31,36 +75,167 @@ public class ServerApp extends JFrame {
     private final UserRepository userRepository;
     private final TopicRepository topicRepository;
     private final ReplyRepository replyRepository;
-    private final Map<String, ClientInfo> authenticatedUsers;
+    private final SearchIndex searchIndex;
+    private final SessionStore sessionStore;
     private final List<ClientHandler> connectedClientHandlers;
-    private final Map<String, PrintWriter> activeClientOutputs;
+    private final Map<String, FrameWriter> activeClientOutputs;
     private final AuthHandler authHandler;
     private final ProfileHandler profileHandler;
     private final TopicHandler topicHandler;
     private final UserDataHandler userDataHandler;
     private final AdminHandler adminHandler;
-    private DefaultListModel<ClientInfo> listModel;
+    private final SearchHandler searchHandler;
+    private final ClusterConfig clusterConfig;
+    private final ClusterRouter clusterRouter;
+    private final ReplicationConfig replicationConfig;
+    private final ReplicationPrimary replicationPrimary;
+    private final ReplicationFollower replicationFollower;
+    private final EventFeed eventFeed;
+    private final StatsHandler statsHandler;
+    private final DashboardSampler dashboardSampler;
+    private final RequestDispatcher dispatcher;
+    private final ServerMetrics metrics;
+    private final SlowRequestLog slowRequests;
+    private final RequestScheduler scheduler;
+    private final int maxFrameBytes;
+    private final int compressionThresholdBytes;
+    private final ClientListModel listModel = new ClientListModel();
     private JList<ClientInfo> clientList;
-    private JTextArea logArea;
+    private final LogPanel logPanel = new LogPanel("Server Log", Integer.getInteger("forum.logLines", LogPanel.DEFAULT_MAX_LINES));
 
     public ServerApp() {
+        clusterConfig = ClusterConfig.fromSystemProperties();
+        replicationConfig = ReplicationConfig.fromSystemProperties();
+        if (clusterConfig != null && replicationConfig != null) {
+            throw new IllegalStateException("Cluster mode and replication cannot be combined.");
+        }
         userRepository = new UserRepository();
-        topicRepository = new TopicRepository();
+        topicRepository = clusterConfig != null ? new TopicRepository(clusterConfig::ownsTopic) : new TopicRepository();
         replyRepository = new ReplyRepository();
-        authenticatedUsers = new ConcurrentHashMap<>();
+        searchIndex = new SearchIndex();
+        try {
+            sessionStore = SessionStore.fromSystemProperties(clusterConfig, this::logMessage);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open session store: " + e.getMessage(), e);
+        }
         connectedClientHandlers = new CopyOnWriteArrayList<>();
         activeClientOutputs = new ConcurrentHashMap<>(); // Inicializa o mapa com o tipo correto
-        authHandler = new AuthHandler(userRepository, authenticatedUsers, this::logMessage, this::updateClientListGUI);
-        topicHandler = new TopicHandler(topicRepository, replyRepository, authHandler, this::logMessage, activeClientOutputs);
+        metrics = new ServerMetrics();
+        slowRequests = SlowRequestLog.fromSystemProperties();
+        scheduler = RequestScheduler.fromSystemProperties(this::logMessage);
+        maxFrameBytes = Integer.getInteger("forum.maxFrameBytes", FrameReader.DEFAULT_MAX_FRAME_BYTES);
+        // Clients opt in with a 120 handshake; -1 refuses it.
+        compressionThresholdBytes = Boolean.parseBoolean(System.getProperty("forum.compression", "true"))
+                ? Integer.getInteger("forum.compression.minBytes", FrameWriter.DEFAULT_COMPRESSION_THRESHOLD_BYTES)
+                : -1;
+        authHandler = new AuthHandler(userRepository, sessionStore, this::logMessage, this::updateClientListGUI);
+        topicHandler = new TopicHandler(topicRepository, replyRepository, searchIndex, authHandler, this::logMessage, activeClientOutputs);
         profileHandler = new ProfileHandler(userRepository, authHandler, this::logMessage, this::updateClientListGUI);
         userDataHandler = new UserDataHandler(userRepository, authHandler, this::logMessage);
-        adminHandler = new AdminHandler(userRepository, topicRepository, replyRepository, authHandler, this::logMessage, this::updateClientListGUI);
+        adminHandler = new AdminHandler(userRepository, topicRepository, replyRepository, searchIndex, authHandler, this::logMessage, this::updateClientListGUI);
+        searchHandler = new SearchHandler(searchIndex, topicRepository, replyRepository, authHandler, this::logMessage);
+        clusterRouter = clusterConfig != null ? new ClusterRouter(clusterConfig, topicHandler, authHandler, this::logMessage) : null;
+        replicationPrimary = replicationConfig != null && replicationConfig.isPrimary() ? createReplicationPrimary() : null;
+        replicationFollower = replicationConfig != null && !replicationConfig.isPrimary() ? createReplicationFollower() : null;
+        eventFeed = new EventFeed(topicRepository, replyRepository, userRepository, activeClientOutputs,
+                Integer.getInteger("forum.events.replay", EventFeed.DEFAULT_REPLAY_EVENTS),
+                Integer.getInteger("forum.events.retainSeconds", EventFeed.DEFAULT_RETAIN_SECONDS), this::logMessage);
+        // After replication, which installs its own listener.
+        topicRepository.setListener(RepositoryListener.both(topicRepository.getListener(), eventFeed));
+        replyRepository.setListener(RepositoryListener.both(replyRepository.getListener(), eventFeed));
+        userRepository.setListener(RepositoryListener.both(userRepository.getListener(), eventFeed));
+        authHandler.setLogoutListener(eventFeed::endSession);
+        statsHandler = new StatsHandler(metrics.getRequests(), connectedClientHandlers::size, activeClientOutputs::size,
+                this::getOutboundQueueDepth, replicationConfig != null ? metrics.getReplication() : null, authHandler, this::logMessage);
+        dashboardSampler = new DashboardSampler(statsHandler::collect, DashboardSampler.DEFAULT_POINTS, this::logMessage);
+        dispatcher = createDispatcher();
 
         initializeGUI();
-        askForPort();
+        searchHandler.indexExistingContent();
+        if (clusterConfig != null) {
+            port = clusterConfig.getSelfAddress().getPort();
+            logMessage("Cluster node '" + clusterConfig.getSelfId() + "' of " + clusterConfig.getNodes().keySet());
+        } else {
+            askForPort();
+        }
         startServer();
     }
 
+    // Both load the snapshot file, if any, before the search index is built.
+    private ReplicationPrimary createReplicationPrimary() {
+        try {
+            return new ReplicationPrimary(replicationConfig, userRepository, topicRepository, replyRepository, searchIndex,
+                    authHandler, metrics.getReplication(), this::logMessage);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not load replication snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    private ReplicationFollower createReplicationFollower() {
+        try {
+            return new ReplicationFollower(replicationConfig, userRepository, topicRepository, replyRepository, searchIndex,
+                    authHandler, metrics.getReplication(), this::logMessage);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not load replication snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    private RequestDispatcher createDispatcher() {
+        RequestDispatcher table = new RequestDispatcher();
+        table.register("000", LoginRequest.class, authHandler::handleLogin);
+        table.registerReadOnly("005", UserDataRequest.class, userDataHandler::handleRetrieveUserData);
+        table.register("010", RegisterRequest.class, authHandler::handleRegister);
+        table.register("020", LogoutRequest.class, authHandler::handleLogout);
+        table.register("030", ChangeProfileRequest.class, profileHandler::handleChangeProfile);
+        table.register("040", DeleteAccountRequest.class, profileHandler::handleDeleteAccount);
+        table.register("050", CreateTopicRequest.class, topicHandler::handleCreateTopic);
+        if (clusterRouter == null) {
+            table.register("060", ReplyRequest.class, topicHandler::handleReplyMessage);
+            table.registerReadOnly("070", GetRepliesRequest.class, topicHandler::handleGetReplies);
+            table.registerReadOnly("075", GetTopicsRequest.class, topicHandler::handleGetTopics);
+        } else {
+            table.register("060", ReplyRequest.class, clusterRouter::handleReplyMessage);
+            table.registerReadOnly("070", GetRepliesRequest.class, clusterRouter::handleGetReplies);
+            table.registerReadOnly("075", GetTopicsRequest.class, clusterRouter::handleGetTopics);
+            table.register("150", ShardReadRequest.class, clusterRouter::handleShardRead);
+            table.register("160", ForwardedReplyRequest.class, clusterRouter::handleForwardedReply);
+        }
+        table.register("080", AdminChangeUserRequest.class, adminHandler::handleChangeUserByAdmin);
+        table.register("090", AdminDeleteUserRequest.class, adminHandler::handleDeleteUserByAdmin);
+        table.register("100", AdminDeleteMessageRequest.class, adminHandler::handleDeleteMessage);
+        table.registerReadOnly("110", ListUsersRequest.class, adminHandler::handleListAllUsers);
+        table.registerReadOnly("130", SearchRequest.class, searchHandler::handleSearch);
+        table.registerReadOnly("140", MyPostsRequest.class, topicHandler::handleGetMyPosts);
+        table.register("190", ResumeRequest.class, eventFeed::handleResume);
+        table.registerReadOnly("200", StatsRequest.class, statsHandler::handleStats);
+        table.register("999", ProtocolMessage.class, (request, clientInfo) ->
+                ProtocolMessage.createErrorMessage("999", "Client-side error received: " + request.getMessageContent()));
+        if (sessionStore instanceof ReplicatedSessionStore) {
+            table.register("180", SessionSyncRequest.class, ((ReplicatedSessionStore) sessionStore)::handleSync);
+        }
+        if (replicationPrimary != null) {
+            table.register("170", ForwardedWriteRequest.class, (request, clientInfo) ->
+                    replicationPrimary.handleForwardedWrite(request, clientInfo, table));
+        }
+        if (replicationFollower != null) {
+            // Reads are served from the local copy; writes only ever happen on the primary.
+            table.register("010", RegisterRequest.class, replicationFollower::forwardWrite);
+            table.register("030", ChangeProfileRequest.class, replicationFollower::forwardWrite);
+            table.register("040", DeleteAccountRequest.class, replicationFollower::forwardWrite);
+            table.register("050", CreateTopicRequest.class, replicationFollower::forwardWrite);
+            table.register("060", ReplyRequest.class, replicationFollower::forwardWrite);
+            table.register("080", AdminChangeUserRequest.class, replicationFollower::forwardWrite);
+            table.register("090", AdminDeleteUserRequest.class, replicationFollower::forwardWrite);
+            table.register("100", AdminDeleteMessageRequest.class, replicationFollower::forwardWrite);
+        }
+        table.classify(OpClass.AUTH, "010", "020", "190");
+        table.classify(OpClass.ADMIN, "080", "090", "100", "110", "200");
+        // Inline on the peer's connection thread rather than a scheduler worker, so two nodes
+        // waiting on each other can never starve each other's workers.
+        table.classify(OpClass.INTERNAL, "150", "160", "170", "180", "999");
+        return table;
+    }
+
     private void initializeGUI() {
         setTitle("TCP Server (Forum)");
         setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
@@ -69,23 +244,41 @@ public class ServerApp extends JFrame {
 
         JPanel mainPanel = new JPanel(new BorderLayout());
 
-        listModel = new DefaultListModel<>();
         clientList = new JList<>(listModel);
         clientList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        JScrollPane clientScrollPane = new JScrollPane(clientList);
-        clientScrollPane.setBorder(BorderFactory.createTitledBorder("Connected & Authenticated Clients"));
-        clientScrollPane.setPreferredSize(new Dimension(250, 0));
+        clientList.setPrototypeCellValue(new ClientInfo("Client-000000", "username000000", null, InetAddress.getLoopbackAddress(), 65535));
 
-        logArea = new JTextArea();
-        logArea.setEditable(false);
-        logArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
-        JScrollPane logScrollPane = new JScrollPane(logArea);
-        logScrollPane.setBorder(BorderFactory.createTitledBorder("Server Log"));
+        JTextField clientFilterField = new JTextField();
+        clientFilterField.setToolTipText("Show only clients containing this text");
+        clientFilterField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) { listModel.setFilter(clientFilterField.getText()); }
+            @Override
+            public void removeUpdate(DocumentEvent e) { listModel.setFilter(clientFilterField.getText()); }
+            @Override
+            public void changedUpdate(DocumentEvent e) { listModel.setFilter(clientFilterField.getText()); }
+        });
+        JCheckBox sortClientsBox = new JCheckBox("Sort by user");
+        sortClientsBox.addActionListener(e -> listModel.setSorted(sortClientsBox.isSelected()));
+        JPanel clientFilterPanel = new JPanel(new BorderLayout());
+        clientFilterPanel.add(clientFilterField, BorderLayout.CENTER);
+        clientFilterPanel.add(sortClientsBox, BorderLayout.EAST);
+
+        JPanel clientPanel = new JPanel(new BorderLayout());
+        clientPanel.setBorder(BorderFactory.createTitledBorder("Connected & Authenticated Clients"));
+        clientPanel.add(clientFilterPanel, BorderLayout.NORTH);
+        clientPanel.add(new JScrollPane(clientList), BorderLayout.CENTER);
+        clientPanel.setPreferredSize(new Dimension(250, 0));
 
-        mainPanel.add(clientScrollPane, BorderLayout.WEST);
-        mainPanel.add(logScrollPane, BorderLayout.CENTER);
+        mainPanel.add(clientPanel, BorderLayout.WEST);
+        mainPanel.add(logPanel, BorderLayout.CENTER);
 
-        add(mainPanel);
+        JTabbedPane tabbedPane = new JTabbedPane();
+        tabbedPane.addTab("Server", mainPanel);
+        tabbedPane.addTab("Dashboard", new DashboardPanel(dashboardSampler));
+        tabbedPane.addTab("Slow Requests", new SlowRequestPanel(slowRequests, this::logMessage));
+        add(tabbedPane);
+        dashboardSampler.start();
 
         addWindowListener(new WindowAdapter() {
             @Override
@@ -115,7 +308,14 @@ public class ServerApp extends JFrame {
         try {
             serverSocket = new ServerSocket(port);
             running = true;
-            logMessage("Server started on port " + port);
+            logMessage("Server started on port " + port + " (max frame size: " + maxFrameBytes + " bytes, compression: "
+                    + (compressionThresholdBytes < 0 ? "off" : "frames >= " + compressionThresholdBytes + " bytes") + ")");
+            if (replicationPrimary != null) {
+                replicationPrimary.start(port);
+            }
+            if (replicationFollower != null) {
+                replicationFollower.start();
+            }
 
             Thread acceptThread = new Thread(this::acceptClientsLoop);
             acceptThread.setDaemon(true);
@@ -136,12 +336,14 @@ public class ServerApp extends JFrame {
                         this::logMessage,
                         this::updateClientListGUI,
                         this::removeClientHandler,
+                        dispatcher,
                         authHandler,
-                        profileHandler,
-                        topicHandler,
-                        userDataHandler,
-                        adminHandler,
-                        activeClientOutputs
+                        activeClientOutputs,
+                        metrics,
+                        slowRequests,
+                        scheduler,
+                        maxFrameBytes,
+                        compressionThresholdBytes
                 );
                 connectedClientHandlers.add(clientHandler);
                 new Thread(clientHandler).start();
@@ -161,37 +363,26 @@ public class ServerApp extends JFrame {
     }
 
     private void updateClientListGUI(ClientInfo clientInfo) {
-        SwingUtilities.invokeLater(() -> {
-            boolean found = false;
-            for (int i = 0; i < listModel.getSize(); i++) {
-                if (listModel.getElementAt(i).equals(clientInfo)) {
-                    listModel.setElementAt(clientInfo, i);
-                    found = true;
-                    break;
-                }
-            }
-            if (!found && clientInfo.getUserId() != null) {
-                listModel.addElement(clientInfo);
-            }
-            clientList.repaint();
-        });
+        listModel.update(clientInfo);
     }
 
     private void removeClientHandler(ClientHandler handler) {
         connectedClientHandlers.remove(handler);
-        SwingUtilities.invokeLater(() -> {
-            listModel.removeElement(handler.getClientInfo());
-            clientList.repaint();
-        });
+        listModel.remove(handler.getClientInfo());
+    }
+
+    private int getOutboundQueueDepth() {
+        int depth = 0;
+        for (ClientHandler handler : connectedClientHandlers) {
+            depth += handler.getOutboundQueueDepth();
+        }
+        return depth;
     }
 
     private void logMessage(String message) {
         String logEntry = "[" + new java.util.Date() + "] " + message;
         System.out.println(logEntry);
-        SwingUtilities.invokeLater(() -> {
-            logArea.append(logEntry + "\n");
-            logArea.setCaretPosition(logArea.getDocument().getLength());
-        });
+        logPanel.appendMessage(message);
     }
 
     private void stopServer() {
@@ -204,9 +395,32 @@ public class ServerApp extends JFrame {
                 handler.stop();
             }
             connectedClientHandlers.clear();
-            authenticatedUsers.clear();
+            scheduler.shutdown();
+            dashboardSampler.stop();
+            if (clusterRouter != null) {
+                clusterRouter.close();
+            }
+            if (replicationPrimary != null) {
+                replicationPrimary.close();
+            }
+            if (replicationFollower != null) {
+                replicationFollower.close();
+            }
+            sessionStore.close();
+            eventFeed.close();
             activeClientOutputs.clear();
 
+            logMessage("Outbound writes: " + metrics.getOutboundWrites());
+            logMessage("Compression: " + metrics.getCompression());
+            logMessage("Scheduler: " + scheduler);
+            if (replicationConfig != null) {
+                logMessage("Replication: " + metrics.getReplication());
+            }
+            String slowRequestFile = System.getProperty("forum.slow.dumpFile");
+            if (slowRequestFile != null) {
+                slowRequests.dump(Paths.get(slowRequestFile));
+                logMessage("Slow requests: " + slowRequests.getRecorded() + ", last ones written to " + slowRequestFile + ".");
+            }
             logMessage("Server stopped.");
         } catch (IOException e) {
             logMessage("Error stopping server: " + e.getMessage());
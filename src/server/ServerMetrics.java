@@ -0,0 +1,47 @@
+package server;
+
+import common.CompressionStats;
+import common.WriteStats;
+import server.replication.ReplicationStats;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ServerMetrics {
+    private final LongAdder oversizedFrames = new LongAdder();
+    private final LongAdder pipelinedRequests = new LongAdder();
+    private final WriteStats outboundWrites = new WriteStats();
+    private final CompressionStats compression = new CompressionStats();
+    private final ReplicationStats replication = new ReplicationStats();
+    private final RequestStats requests = new RequestStats();
+
+    public void recordOversizedFrame() {
+        oversizedFrames.increment();
+    }
+
+    public long getOversizedFrames() {
+        return oversizedFrames.sum();
+    }
+
+    public void recordPipelinedRequest() {
+        pipelinedRequests.increment();
+    }
+
+    public long getPipelinedRequests() {
+        return pipelinedRequests.sum();
+    }
+
+    public WriteStats getOutboundWrites() {
+        return outboundWrites;
+    }
+
+    public CompressionStats getCompression() {
+        return compression;
+    }
+
+    public ReplicationStats getReplication() {
+        return replication;
+    }
+
+    public RequestStats getRequests() {
+        return requests;
+    }
+}
@@ -0,0 +1,193 @@
+package server;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import common.ClientInfo;
+import common.ProtocolMessage;
+import common.SerializationHelper;
+import common.protocol.OpcodeTable;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// The last capacity requests that took longer than their opcode's threshold, from the frame
+// being read until the response has been queued and logged. A fast request only costs a
+// threshold lookup; the payload is encoded, redacted and truncated only for the slow ones.
+public class SlowRequestLog {
+    public static final long DEFAULT_THRESHOLD_MS = 200;
+    public static final int DEFAULT_CAPACITY = 200;
+    private static final int MAX_PAYLOAD_CHARS = 512;
+    private static final Set<String> REDACTED_FIELDS = Set.of("pass", "new_pass", "token", "secret");
+    // Fields holding another request as a JSON string, such as a forwarded write's (170).
+    private static final Set<String> NESTED_REQUEST_FIELDS = Set.of("request");
+
+    private final long[] thresholdNanos = new long[OpcodeTable.SIZE];
+    private final long defaultThresholdNanos;
+    private final Entry[] ring;
+    private int head;
+    private int size;
+    private long recorded;
+
+    public SlowRequestLog(long defaultThresholdMillis, int capacity) {
+        this.defaultThresholdNanos = defaultThresholdMillis * 1_000_000L;
+        Arrays.fill(thresholdNanos, defaultThresholdNanos);
+        this.ring = new Entry[Math.max(capacity, 1)];
+    }
+
+    // -Dforum.slow.thresholdMs=200 for every opcode, -Dforum.slow.thresholds=075:50,130:500 per
+    // opcode, -Dforum.slow.capacity=200 entries kept.
+    public static SlowRequestLog fromSystemProperties() {
+        SlowRequestLog log = new SlowRequestLog(Long.getLong("forum.slow.thresholdMs", DEFAULT_THRESHOLD_MS),
+                Integer.getInteger("forum.slow.capacity", DEFAULT_CAPACITY));
+        String overrides = System.getProperty("forum.slow.thresholds", "");
+        for (String override : overrides.split(",")) {
+            if (override.isBlank()) {
+                continue;
+            }
+            String[] parts = override.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("forum.slow.thresholds entries must be opcode:ms, got: " + override);
+            }
+            log.setThreshold(parts[0], Long.parseLong(parts[1]));
+        }
+        return log;
+    }
+
+    public void setThreshold(String opCode, long millis) {
+        int index = OpcodeTable.index(opCode);
+        if (index < 0) {
+            throw new IllegalArgumentException("Invalid opcode: " + opCode);
+        }
+        thresholdNanos[index] = millis * 1_000_000L;
+    }
+
+    public long getThresholdNanos(String opCode) {
+        int index = OpcodeTable.index(opCode);
+        return index < 0 ? defaultThresholdNanos : thresholdNanos[index];
+    }
+
+    public void record(ProtocolMessage request, ClientInfo clientInfo, int requestChars, int responseChars,
+                       long queueNanos, long handlerNanos, long writeNanos) {
+        Entry entry = new Entry(System.currentTimeMillis(), request.getOperationCode(), clientInfo.getUserId(),
+                requestChars, responseChars, queueNanos, handlerNanos, writeNanos, redactedPayload(request));
+        synchronized (this) {
+            ring[(head + size) % ring.length] = entry;
+            if (size < ring.length) {
+                size++;
+            } else {
+                head = (head + 1) % ring.length;
+            }
+            recorded++;
+        }
+    }
+
+    // Oldest first.
+    public synchronized List<Entry> getEntries() {
+        List<Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(ring[(head + i) % ring.length]);
+        }
+        return entries;
+    }
+
+    // Including the ones since pushed out of the ring.
+    public synchronized long getRecorded() {
+        return recorded;
+    }
+
+    public void dump(Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Entry entry : getEntries()) {
+                out.write(entry.toString());
+                out.newLine();
+            }
+        }
+    }
+
+    private static String redactedPayload(ProtocolMessage request) {
+        JsonElement tree = JsonParser.parseString(SerializationHelper.encode(request));
+        redact(tree);
+        String payload = tree.toString();
+        return payload.length() > MAX_PAYLOAD_CHARS ? payload.substring(0, MAX_PAYLOAD_CHARS) + "..." : payload;
+    }
+
+    // Masked whole when it does not parse, since it may still hold a password.
+    private static String redactNested(String json) {
+        try {
+            JsonElement tree = JsonParser.parseString(json);
+            redact(tree);
+            return tree.toString();
+        } catch (JsonParseException e) {
+            return "***";
+        }
+    }
+
+    private static void redact(JsonElement element) {
+        if (element.isJsonObject()) {
+            for (Map.Entry<String, JsonElement> field : element.getAsJsonObject().entrySet()) {
+                if (REDACTED_FIELDS.contains(field.getKey())) {
+                    field.setValue(new JsonPrimitive("***"));
+                } else if (NESTED_REQUEST_FIELDS.contains(field.getKey()) && field.getValue().isJsonPrimitive()) {
+                    field.setValue(new JsonPrimitive(redactNested(field.getValue().getAsString())));
+                } else {
+                    redact(field.getValue());
+                }
+            }
+        } else if (element.isJsonArray()) {
+            element.getAsJsonArray().forEach(SlowRequestLog::redact);
+        }
+    }
+
+    public static final class Entry {
+        private final long timeMillis;
+        private final String opCode;
+        private final String user;
+        private final int requestChars;
+        private final int responseChars;
+        private final long queueNanos;
+        private final long handlerNanos;
+        private final long writeNanos;
+        private final String payload;
+
+        Entry(long timeMillis, String opCode, String user, int requestChars, int responseChars,
+              long queueNanos, long handlerNanos, long writeNanos, String payload) {
+            this.timeMillis = timeMillis;
+            this.opCode = opCode;
+            this.user = user;
+            this.requestChars = requestChars;
+            this.responseChars = responseChars;
+            this.queueNanos = queueNanos;
+            this.handlerNanos = handlerNanos;
+            this.writeNanos = writeNanos;
+            this.payload = payload;
+        }
+
+        public long getTimeMillis() { return timeMillis; }
+        public String getOpCode() { return opCode; }
+        public String getUser() { return user; }
+        public int getRequestChars() { return requestChars; }
+        public int getResponseChars() { return responseChars; }
+        public long getQueueNanos() { return queueNanos; }
+        public long getHandlerNanos() { return handlerNanos; }
+        public long getWriteNanos() { return writeNanos; }
+        public long getTotalNanos() { return queueNanos + handlerNanos + writeNanos; }
+        public String getPayload() { return payload; }
+
+        @Override
+        public String toString() {
+            return String.format("[%s] op=%s user=%s total=%.1fms queue=%.1fms handler=%.1fms write=%.1fms request=%d response=%d payload=%s",
+                    new Date(timeMillis), opCode, user, getTotalNanos() / 1e6, queueNanos / 1e6, handlerNanos / 1e6, writeNanos / 1e6,
+                    requestChars, responseChars, payload);
+        }
+    }
+}
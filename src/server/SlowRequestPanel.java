@@ -0,0 +1,126 @@
+package server;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+
+// The slow request log in the server window, newest first. It is read when the tab is shown
+// or Refresh is pressed rather than pushed on every slow request.
+class SlowRequestPanel extends JPanel {
+    private static final String[] COLUMNS = {"Time", "Op", "User", "Total ms", "Queue ms", "Handler ms", "Write ms", "Request", "Response"};
+
+    private final SlowRequestLog slowRequests;
+    private final Consumer<String> logConsumer;
+    private final EntryTableModel tableModel = new EntryTableModel();
+    private final JLabel summaryLabel = new JLabel();
+    private final JTextArea payloadArea = new JTextArea(5, 0);
+
+    SlowRequestPanel(SlowRequestLog slowRequests, Consumer<String> logConsumer) {
+        super(new BorderLayout());
+        this.slowRequests = slowRequests;
+        this.logConsumer = logConsumer;
+
+        JTable table = new JTable(tableModel);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getSelectionModel().addListSelectionListener(e -> {
+            int row = table.getSelectedRow();
+            payloadArea.setText(row >= 0 ? tableModel.entries.get(row).getPayload() : "");
+            payloadArea.setCaretPosition(0);
+        });
+        payloadArea.setEditable(false);
+        payloadArea.setLineWrap(true);
+        payloadArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        JButton refreshButton = new JButton("Refresh");
+        refreshButton.addActionListener(e -> refresh());
+        JButton dumpButton = new JButton("Dump to File...");
+        dumpButton.addActionListener(e -> dumpToFile());
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        buttonPanel.add(refreshButton);
+        buttonPanel.add(dumpButton);
+        buttonPanel.add(summaryLabel);
+
+        JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, new JScrollPane(table), new JScrollPane(payloadArea));
+        splitPane.setResizeWeight(0.75);
+        add(buttonPanel, BorderLayout.NORTH);
+        add(splitPane, BorderLayout.CENTER);
+
+        addHierarchyListener(e -> {
+            if (isShowing()) {
+                refresh();
+            }
+        });
+    }
+
+    private void refresh() {
+        List<SlowRequestLog.Entry> entries = new ArrayList<>(slowRequests.getEntries());
+        Collections.reverse(entries);
+        tableModel.setEntries(entries);
+        summaryLabel.setText(slowRequests.getRecorded() + " slow requests since start, " + entries.size() + " kept.");
+        payloadArea.setText("");
+    }
+
+    private void dumpToFile() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            slowRequests.dump(chooser.getSelectedFile().toPath());
+            logConsumer.accept("Slow request log written to " + chooser.getSelectedFile() + ".");
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Could not write the slow request log: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private static final class EntryTableModel extends AbstractTableModel {
+        private List<SlowRequestLog.Entry> entries = new ArrayList<>();
+
+        void setEntries(List<SlowRequestLog.Entry> entries) {
+            this.entries = entries;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return entries.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            SlowRequestLog.Entry entry = entries.get(row);
+            switch (column) {
+                case 0: return new Date(entry.getTimeMillis());
+                case 1: return entry.getOpCode();
+                case 2: return entry.getUser();
+                case 3: return millis(entry.getTotalNanos());
+                case 4: return millis(entry.getQueueNanos());
+                case 5: return millis(entry.getHandlerNanos());
+                case 6: return millis(entry.getWriteNanos());
+                case 7: return entry.getRequestChars();
+                case 8: return entry.getResponseChars();
+                default: return null;
+            }
+        }
+
+        private static String millis(long nanos) {
+            return String.format("%.1f", nanos / 1e6);
+        }
+    }
+}
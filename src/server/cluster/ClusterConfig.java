@@ -0,0 +1,73 @@
+package server.cluster;
+
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Static cluster membership, read from system properties:
+//   -Dforum.cluster.nodes=a=localhost:12345,b=localhost:12346,c=localhost:12347
+//   -Dforum.cluster.self=a
+//   -Dforum.cluster.secret=<shared by all nodes>
+// Every node gets the same node list and secret and its own "self".
+public final class ClusterConfig {
+    private final String selfId;
+    private final Map<String, InetSocketAddress> nodes;
+    private final String secret;
+    private final HashRing ring;
+
+    private ClusterConfig(String selfId, Map<String, InetSocketAddress> nodes, String secret) {
+        this.selfId = selfId;
+        this.nodes = Collections.unmodifiableMap(nodes);
+        this.secret = secret;
+        this.ring = new HashRing(nodes.keySet());
+    }
+
+    // null when forum.cluster.nodes is not set, i.e. the server runs on its own.
+    public static ClusterConfig fromSystemProperties() {
+        String nodeList = System.getProperty("forum.cluster.nodes");
+        if (nodeList == null || nodeList.trim().isEmpty()) {
+            return null;
+        }
+        return parse(nodeList, System.getProperty("forum.cluster.self"), System.getProperty("forum.cluster.secret", ""));
+    }
+
+    public static ClusterConfig parse(String nodeList, String selfId, String secret) {
+        Map<String, InetSocketAddress> nodes = new LinkedHashMap<>();
+        for (String entry : nodeList.split(",")) {
+            String trimmed = entry.trim();
+            int equals = trimmed.indexOf('=');
+            int colon = trimmed.lastIndexOf(':');
+            if (equals <= 0 || colon < equals) {
+                throw new IllegalArgumentException("Cluster node must look like id=host:port, got: " + trimmed);
+            }
+            String id = trimmed.substring(0, equals);
+            String host = trimmed.substring(equals + 1, colon);
+            int port = Integer.parseInt(trimmed.substring(colon + 1));
+            if (nodes.put(id, InetSocketAddress.createUnresolved(host, port)) != null) {
+                throw new IllegalArgumentException("Duplicate cluster node id: " + id);
+            }
+        }
+        if (selfId == null || !nodes.containsKey(selfId)) {
+            throw new IllegalArgumentException("forum.cluster.self must name one of the nodes " + nodes.keySet() + ", got: " + selfId);
+        }
+        // Forwarded replies (160) carry the author's name, so without a secret anyone could post as anyone.
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("forum.cluster.secret must be set in cluster mode.");
+        }
+        return new ClusterConfig(selfId, nodes, secret);
+    }
+
+    public String getSelfId() { return selfId; }
+    public InetSocketAddress getSelfAddress() { return nodes.get(selfId); }
+    public Map<String, InetSocketAddress> getNodes() { return nodes; }
+    public String getSecret() { return secret; }
+
+    public String ownerOf(int topicId) {
+        return ring.ownerOf(topicId);
+    }
+
+    public boolean ownsTopic(int topicId) {
+        return selfId.equals(ring.ownerOf(topicId));
+    }
+}
@@ -0,0 +1,221 @@
+package server.cluster;
+
+import common.ClientInfo;
+import common.ProtocolMessage;
+import common.protocol.ForwardedReplyRequest;
+import common.protocol.GetRepliesRequest;
+import common.protocol.GetTopicsRequest;
+import common.protocol.ReplyListResponse;
+import common.protocol.ReplyRequest;
+import common.protocol.ShardReadRequest;
+import common.protocol.TopicListResponse;
+import common.protocol.TopicRow;
+import server.model.User;
+import server.service.AuthHandler;
+import server.service.Ids;
+import server.service.Page;
+import server.service.TopicHandler;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Routes the topic operations in a cluster. Topics live on the node that owns their id on the
+// hash ring; replies live with their topic. 060 and 070 for a topic owned elsewhere are
+// forwarded to the owner, 075 asks every node for its own topics and merges them. Accounts and
+// sessions stay on the node the client is connected to, which authenticates before forwarding.
+public class ClusterRouter {
+    private static final long DEFAULT_TIMEOUT_MS = 5000;
+
+    private final ClusterConfig config;
+    private final TopicHandler topicHandler;
+    private final AuthHandler authHandler;
+    private final Consumer<String> logConsumer;
+    private final Map<String, PeerLink> peers = new LinkedHashMap<>();
+    private final long timeoutMs;
+
+    public ClusterRouter(ClusterConfig config, TopicHandler topicHandler, AuthHandler authHandler, Consumer<String> logConsumer) {
+        this.config = config;
+        this.topicHandler = topicHandler;
+        this.authHandler = authHandler;
+        this.logConsumer = logConsumer;
+        this.timeoutMs = Long.getLong("forum.cluster.timeoutMs", DEFAULT_TIMEOUT_MS);
+        for (Map.Entry<String, InetSocketAddress> node : config.getNodes().entrySet()) {
+            if (!node.getKey().equals(config.getSelfId())) {
+                peers.put(node.getKey(), new PeerLink(node.getKey(), node.getValue(), logConsumer));
+            }
+        }
+    }
+
+    public ProtocolMessage handleReplyMessage(ReplyRequest request, ClientInfo clientInfo) {
+        int topicId = Ids.parse(request.getId());
+        String owner = config.ownerOf(topicId);
+        if (topicId == Ids.NONE || owner.equals(config.getSelfId())) {
+            return topicHandler.handleReplyMessage(request, clientInfo);
+        }
+
+        String token = request.getToken();
+        String msgContent = request.getMessageContent();
+        if (token == null || token.isEmpty() || msgContent == null || msgContent.isEmpty()) {
+            return ProtocolMessage.createErrorMessage("062", "Token, Topic ID, or message cannot be null/empty.");
+        }
+        ClientInfo authClient = authHandler.getAuthenticatedClientInfo(token);
+        if (authClient == null || !authClient.getUserId().equals(clientInfo.getUserId())) {
+            return ProtocolMessage.createErrorMessage("062", "Invalid or expired token.");
+        }
+        User author = authHandler.getUserByUsername(authClient.getUserId());
+        String nickname = author != null ? author.getNickname() : null;
+
+        logConsumer.accept("Forwarding reply by " + authClient.getUserId() + " to topic '" + topicId + "' to node " + owner + ".");
+        return forward(owner, new ForwardedReplyRequest(config.getSecret(), authClient.getUserId(), nickname, request.getId(), msgContent), "062");
+    }
+
+    public ProtocolMessage handleGetReplies(GetRepliesRequest request, ClientInfo clientInfo) {
+        int topicId = Ids.parse(request.getId());
+        String owner = config.ownerOf(topicId);
+        if (topicId == Ids.NONE || owner.equals(config.getSelfId())) {
+            return topicHandler.handleGetReplies(request, clientInfo);
+        }
+        Page page = Page.of(request.getOffset(), request.getLimit(), 0);
+        if (page == null) {
+            return ProtocolMessage.createErrorMessage("072", "Offset must be >= 0 and limit > 0.");
+        }
+        // The owner sends the whole list; a page is cut from it here.
+        ProtocolMessage response = forward(owner, new ShardReadRequest(GetRepliesRequest.OPCODE, request.getId()), "072");
+        if (page.isPaged() && response instanceof ReplyListResponse) {
+            ReplyListResponse replies = (ReplyListResponse) response;
+            int total = replies.getReplies().length;
+            page = Page.of(request.getOffset(), request.getLimit(), total);
+            return new ReplyListResponse(replies.getTopicId(), page.slice(replies.getReplies()), null, page.getFrom(), total);
+        }
+        return response;
+    }
+
+    // Every node's topics are already in id order, so their lists are merged rather than
+    // sorted, and for a page each node sends only its rows up to the end of the page, which
+    // are all the page can hold. A node that does not answer in time is left out rather than
+    // failing the whole list. The merged list has no version, so if_version is ignored.
+    public ProtocolMessage handleGetTopics(GetTopicsRequest request, ClientInfo clientInfo) {
+        Page requested = Page.of(request.getOffset(), request.getLimit(), Integer.MAX_VALUE);
+        if (requested == null) {
+            return ProtocolMessage.createErrorMessage("077", "Offset must be >= 0 and limit > 0.");
+        }
+        Integer rowsPerNode = requested.isPaged() ? requested.getTo() : null;
+        Map<String, CompletableFuture<ProtocolMessage>> pending = new LinkedHashMap<>();
+        for (PeerLink peer : peers.values()) {
+            pending.put(peer.getNodeId(), peer.send(new ShardReadRequest(GetTopicsRequest.OPCODE, null, rowsPerNode)));
+        }
+
+        List<TopicRow[]> lists = new ArrayList<>();
+        TopicListResponse local = topicHandler.getFirstTopics(rowsPerNode);
+        lists.add(local.getTopics());
+        int total = local.getTotal();
+        int answered = 1;
+        for (Map.Entry<String, CompletableFuture<ProtocolMessage>> shard : pending.entrySet()) {
+            ProtocolMessage response = await(shard.getKey(), shard.getValue());
+            if (response instanceof TopicListResponse) {
+                TopicListResponse topics = (TopicListResponse) response;
+                lists.add(topics.getTopics());
+                total += topics.getTotal() != null ? topics.getTotal() : topics.getTopics().length;
+                answered++;
+            }
+        }
+        TopicRow[] rows = mergeById(lists, rowsPerNode != null ? rowsPerNode : Integer.MAX_VALUE);
+
+        logConsumer.accept("Sent merged 076 with " + rows.length + " of " + total + " topics from " + answered + "/" + (peers.size() + 1) + " nodes.");
+        if (requested.isPaged()) {
+            Page page = Page.of(request.getOffset(), request.getLimit(), total);
+            return new TopicListResponse(page.slice(rows), null, page.getFrom(), total);
+        }
+        return new TopicListResponse(rows);
+    }
+
+    // The first limit rows of lists that are each in id order.
+    private static TopicRow[] mergeById(List<TopicRow[]> lists, int limit) {
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Comparator.comparingInt(head -> Ids.parse(lists.get(head[0])[head[1]].getId())));
+        int available = 0;
+        for (int i = 0; i < lists.size(); i++) {
+            if (lists.get(i).length > 0) {
+                heads.add(new int[]{i, 0});
+                available += lists.get(i).length;
+            }
+        }
+        List<TopicRow> merged = new ArrayList<>(Math.min(available, limit));
+        while (merged.size() < limit && !heads.isEmpty()) {
+            int[] head = heads.poll();
+            TopicRow[] list = lists.get(head[0]);
+            merged.add(list[head[1]]);
+            if (++head[1] < list.length) {
+                heads.add(head);
+            }
+        }
+        return merged.toArray(new TopicRow[0]);
+    }
+
+    // 150 from a peer: answered from this node's data only, never forwarded again.
+    public ProtocolMessage handleShardRead(ShardReadRequest request, ClientInfo clientInfo) {
+        if (GetRepliesRequest.OPCODE.equals(request.getRead())) {
+            return topicHandler.handleGetReplies(new GetRepliesRequest(request.getId()), clientInfo);
+        }
+        if (GetTopicsRequest.OPCODE.equals(request.getRead())) {
+            if (request.getLimit() != null && request.getLimit() < 0) {
+                return ProtocolMessage.createErrorMessage("152", "Limit must be >= 0.");
+            }
+            return topicHandler.getFirstTopics(request.getLimit());
+        }
+        return ProtocolMessage.createErrorMessage("152", "Unsupported shard read: " + request.getRead());
+    }
+
+    // 160 from a peer that already authenticated the author.
+    public ProtocolMessage handleForwardedReply(ForwardedReplyRequest request, ClientInfo clientInfo) {
+        if (request.getSecret() == null || !MessageDigest.isEqual(
+                request.getSecret().getBytes(StandardCharsets.UTF_8), config.getSecret().getBytes(StandardCharsets.UTF_8))) {
+            logConsumer.accept("Rejected forwarded reply from " + clientInfo.getAddress().getHostAddress() + ": wrong cluster secret.");
+            return ProtocolMessage.createErrorMessage("062", "Invalid cluster credentials.");
+        }
+        if (request.getUser() == null || request.getMessageContent() == null || request.getMessageContent().isEmpty()) {
+            return ProtocolMessage.createErrorMessage("062", "Token, Topic ID, or message cannot be null/empty.");
+        }
+        int topicId = Ids.parse(request.getId());
+        if (!config.ownsTopic(topicId)) {
+            return ProtocolMessage.createErrorMessage("062", "Topic not found.");
+        }
+        if (request.getNickname() != null) {
+            topicHandler.rememberRemoteNickname(request.getUser(), request.getNickname());
+        }
+        return topicHandler.postReply(topicId, request.getUser(), request.getMessageContent());
+    }
+
+    private ProtocolMessage forward(String owner, ProtocolMessage request, String errorOpCode) {
+        ProtocolMessage response = await(owner, peers.get(owner).send(request));
+        return response != null ? response : ProtocolMessage.createErrorMessage(errorOpCode, "Node " + owner + " holding this topic is unavailable.");
+    }
+
+    // null when the peer fails or times out.
+    private ProtocolMessage await(String nodeId, CompletableFuture<ProtocolMessage> response) {
+        try {
+            return response.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            response.cancel(false);
+            logConsumer.accept("Cluster node " + nodeId + " did not answer: " + e);
+            return null;
+        }
+    }
+
+    public void close() {
+        for (PeerLink peer : peers.values()) {
+            peer.close();
+        }
+    }
+}
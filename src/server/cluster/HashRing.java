@@ -0,0 +1,84 @@
+package server.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+// Consistent-hash ring over topic ids. Every node is placed at VIRTUAL_NODES points so that
+// ownership is spread evenly, and adding or removing a node only moves the ids that fall next
+// to its own points. Every node must build the ring from the same node ids; the input order
+// does not matter.
+public final class HashRing {
+    private static final int VIRTUAL_NODES = 128;
+
+    private final int[] points;
+    private final String[] owners;
+
+    public HashRing(Collection<String> nodeIds) {
+        if (nodeIds.isEmpty()) {
+            throw new IllegalArgumentException("A hash ring needs at least one node.");
+        }
+        List<Point> ring = new ArrayList<>(nodeIds.size() * VIRTUAL_NODES);
+        for (String nodeId : nodeIds) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                ring.add(new Point(hash(nodeId + "#" + i), nodeId));
+            }
+        }
+        ring.sort(Comparator.<Point>comparingInt(point -> point.hash).thenComparing(point -> point.nodeId));
+
+        points = new int[ring.size()];
+        owners = new String[ring.size()];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = ring.get(i).hash;
+            owners[i] = ring.get(i).nodeId;
+        }
+    }
+
+    // The first point at or after the id's hash, wrapping around to the start.
+    public String ownerOf(int topicId) {
+        int hash = mix(topicId);
+        int low = 0;
+        int high = points.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (points[middle] < hash) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return owners[low == points.length ? 0 : low];
+    }
+
+    // FNV-1a over the UTF-8 bytes: stable across JVMs, unlike relying on hashCode() staying put.
+    private static int hash(String value) {
+        int hash = 0x811c9dc5;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x01000193;
+        }
+        return mix(hash);
+    }
+
+    // Murmur3 finalizer, so sequential ids land all over the ring.
+    private static int mix(int value) {
+        value ^= value >>> 16;
+        value *= 0x85ebca6b;
+        value ^= value >>> 13;
+        value *= 0xc2b2ae35;
+        value ^= value >>> 16;
+        return value;
+    }
+
+    private static final class Point {
+        private final int hash;
+        private final String nodeId;
+
+        private Point(int hash, String nodeId) {
+            this.hash = hash;
+            this.nodeId = nodeId;
+        }
+    }
+}
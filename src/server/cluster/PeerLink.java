@@ -0,0 +1,58 @@
+package server.cluster;
+
+import common.ClientConnection;
+import common.ProtocolMessage;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+// Internal link to one other node: an ordinary client connection, so forwarded requests are
+// pipelined and matched to their responses by req_id. Connects on first use and again after
+// the peer drops, with a fresh connection: the old one does not reconnect on its own. Also
+// used by a replication follower to reach its primary.
+public final class PeerLink {
+    private final String nodeId;
+    private final InetSocketAddress address;
+    private final Consumer<String> logConsumer;
+    private ClientConnection connection;
+
+    public PeerLink(String nodeId, InetSocketAddress address, Consumer<String> logConsumer) {
+        this.nodeId = nodeId;
+        this.address = address;
+        this.logConsumer = logConsumer;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public CompletableFuture<ProtocolMessage> send(ProtocolMessage request) {
+        try {
+            return connection().sendRequest(request);
+        } catch (IOException e) {
+            CompletableFuture<ProtocolMessage> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    private synchronized ClientConnection connection() throws IOException {
+        if (connection == null || !connection.isConnected()) {
+            ClientConnection link = new ClientConnection(
+                    unsolicited -> logConsumer.accept("[CLUSTER " + nodeId + "] Ignoring unsolicited op " + unsolicited.getOperationCode()),
+                    message -> logConsumer.accept("[CLUSTER " + nodeId + "] " + message));
+            link.setAutoReconnect(false);
+            link.connect(address.getHostString(), address.getPort());
+            connection = link;
+        }
+        return connection;
+    }
+
+    public synchronized void close() {
+        if (connection != null) {
+            connection.disconnect();
+        }
+        connection = null;
+    }
+}
@@ -0,0 +1,96 @@
+package server.dashboard;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.List;
+import java.util.function.Supplier;
+
+// A line chart of a few time series, newest sample at the right edge. The y axis starts at zero
+// and is scaled to the largest visible value.
+final class ChartPanel extends JComponent {
+    private static final Color[] COLORS = {
+            new Color(0x1f77b4), new Color(0xd62728), new Color(0x2ca02c), new Color(0xff7f0e),
+            new Color(0x9467bd), new Color(0x8c564b), new Color(0xe377c2), new Color(0x17becf)
+    };
+    private static final int MARGIN = 6;
+
+    private final String title;
+    private final String unit;
+    private final Supplier<List<TimeSeries>> series;
+    private final int points;
+
+    ChartPanel(String title, String unit, Supplier<List<TimeSeries>> series, int points) {
+        this.title = title;
+        this.unit = unit;
+        this.series = series;
+        this.points = points;
+        setPreferredSize(new Dimension(320, 160));
+        setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 11));
+    }
+
+    @Override
+    protected void paintComponent(Graphics graphics) {
+        Graphics2D g = (Graphics2D) graphics.create();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, getWidth(), getHeight());
+
+            List<TimeSeries> visible = series.get();
+            double[][] values = new double[visible.size()][];
+            double max = 0;
+            for (int i = 0; i < values.length; i++) {
+                values[i] = visible.get(i).toArray();
+                for (double value : values[i]) {
+                    max = Math.max(max, value);
+                }
+            }
+            max = max > 0 ? max * 1.1 : 1;
+
+            FontMetrics metrics = g.getFontMetrics();
+            int lineHeight = metrics.getHeight();
+            g.setColor(Color.DARK_GRAY);
+            g.drawString(title, MARGIN, MARGIN + metrics.getAscent());
+            int legendX = MARGIN + metrics.stringWidth(title) + 12;
+            for (int i = 0; i < values.length; i++) {
+                String label = visible.get(i).getName() + " " + format(visible.get(i).last());
+                g.setColor(COLORS[i % COLORS.length]);
+                g.drawString(label, legendX, MARGIN + metrics.getAscent());
+                legendX += metrics.stringWidth(label) + 10;
+            }
+
+            int left = MARGIN;
+            int top = MARGIN + lineHeight + 4;
+            int width = getWidth() - 2 * MARGIN;
+            int height = getHeight() - top - MARGIN;
+            if (width <= 0 || height <= 0) {
+                return;
+            }
+            g.setColor(new Color(0xdddddd));
+            g.drawRect(left, top, width, height);
+            g.setColor(Color.GRAY);
+            g.drawString(format(max) + " " + unit, left + 3, top + metrics.getAscent());
+
+            double step = (double) width / Math.max(points - 1, 1);
+            for (int i = 0; i < values.length; i++) {
+                double[] data = values[i];
+                int[] xs = new int[data.length];
+                int[] ys = new int[data.length];
+                // Right-aligned, so series that started later still line up in time.
+                int offset = points - data.length;
+                for (int j = 0; j < data.length; j++) {
+                    xs[j] = left + (int) Math.round((offset + j) * step);
+                    ys[j] = top + height - (int) Math.round(data[j] / max * height);
+                }
+                g.setColor(COLORS[i % COLORS.length]);
+                g.drawPolyline(xs, ys, data.length);
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private static String format(double value) {
+        return value >= 100 || value == Math.rint(value) ? String.valueOf(Math.round(value)) : String.format("%.2f", value);
+    }
+}
@@ -0,0 +1,75 @@
+package server.dashboard;
+
+import common.ClientConnection;
+import common.ProtocolMessage;
+import common.protocol.LoginRequest;
+import common.protocol.LoginResponse;
+import common.protocol.StatsRequest;
+import common.protocol.StatsResponse;
+import javax.swing.*;
+import java.awt.*;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// The server window's dashboard for a server running elsewhere, or one started without its
+// window: logs in as an admin and polls 200 once per second.
+// java -cp ".:gson-2.10.1.jar" server.dashboard.DashboardApp --host localhost --port 12345 --user admin
+public class DashboardApp {
+    private static final long RESPONSE_TIMEOUT_SECONDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        String host = "localhost";
+        int port = 12345;
+        String user = null;
+
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--host": host = value; i++; break;
+                case "--port": port = Integer.parseInt(value); i++; break;
+                case "--user": user = value; i++; break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.err.println("Options: --host H --port P --user ADMIN");
+                    System.exit(2);
+            }
+        }
+        if (user == null) {
+            user = JOptionPane.showInputDialog(null, "Admin user:", "Forum Dashboard", JOptionPane.QUESTION_MESSAGE);
+        }
+        JPasswordField passwordField = new JPasswordField();
+        if (user == null || JOptionPane.showConfirmDialog(null, passwordField, "Password for " + user,
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.QUESTION_MESSAGE) != JOptionPane.OK_OPTION) {
+            System.exit(0);
+        }
+
+        ClientConnection connection = new ClientConnection(message -> {}, System.out::println);
+        connection.connect(host, port);
+        ProtocolMessage login = connection.sendRequest(new LoginRequest(user, new String(passwordField.getPassword())))
+                .get(RESPONSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        if (!(login instanceof LoginResponse)) {
+            JOptionPane.showMessageDialog(null, "Login failed: " + login.getMessageContent(), "Forum Dashboard", JOptionPane.ERROR_MESSAGE);
+            System.exit(1);
+        }
+        String token = ((LoginResponse) login).getToken();
+
+        DashboardSampler sampler = new DashboardSampler(() -> {
+            ProtocolMessage response = connection.sendRequest(new StatsRequest(token)).get(RESPONSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (!(response instanceof StatsResponse)) {
+                throw new IOException(response.getOperationCode() + ": " + response.getMessageContent());
+            }
+            return (StatsResponse) response;
+        }, DashboardSampler.DEFAULT_POINTS, System.out::println);
+
+        String title = "Forum Dashboard - " + host + ":" + port;
+        SwingUtilities.invokeLater(() -> {
+            JFrame frame = new JFrame(title);
+            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            frame.add(new DashboardPanel(sampler), BorderLayout.CENTER);
+            frame.setSize(900, 600);
+            frame.setLocationRelativeTo(null);
+            frame.setVisible(true);
+            sampler.start();
+        });
+    }
+}
@@ -0,0 +1,21 @@
+package server.dashboard;
+
+import javax.swing.*;
+import java.awt.*;
+
+// Charts of what a DashboardSampler collects, repainted after each sample.
+public class DashboardPanel extends JPanel {
+    public DashboardPanel(DashboardSampler sampler) {
+        super(new GridLayout(4, 2, 4, 4));
+        int points = sampler.getPoints();
+        add(new ChartPanel("Requests", "req/s", sampler::getRequestRates, points));
+        add(new ChartPanel("Latency", "ms", sampler::getLatency, points));
+        add(new ChartPanel("Clients", "", sampler::getConnections, points));
+        add(new ChartPanel("Outbound queue", "frames", sampler::getOutboundQueue, points));
+        add(new ChartPanel("Heap", "MB", sampler::getHeap, points));
+        add(new ChartPanel("GC", "ms/s", sampler::getGcTime, points));
+        add(new ChartPanel("Replication lag", "ms", sampler::getReplicationLagMillis, points));
+        add(new ChartPanel("Replication backlog", "entries", sampler::getReplicationLagEntries, points));
+        sampler.setSampleListener(() -> SwingUtilities.invokeLater(this::repaint));
+    }
+}
@@ -0,0 +1,142 @@
+package server.dashboard;
+
+import common.protocol.StatsResponse;
+import server.RequestStats;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Takes a StatsResponse from its source once per second on its own thread and turns it into
+// time series: rates and the interval's p99 from the difference to the previous snapshot, the
+// rest as sampled. The source is the local StatsHandler or a 200 request to a remote server.
+public class DashboardSampler {
+    public static final int DEFAULT_POINTS = 300;
+
+    private final Callable<StatsResponse> source;
+    private final Consumer<String> logConsumer;
+    private final int points;
+    private final TimeSeries requestRate;
+    private final Map<String, TimeSeries> opcodeRates = new ConcurrentSkipListMap<>();
+    private final TimeSeries p99Latency;
+    private final TimeSeries connections;
+    private final TimeSeries sessions;
+    private final TimeSeries outboundQueue;
+    private final TimeSeries heapUsed;
+    private final TimeSeries heapMax;
+    private final TimeSeries gcTime;
+    private final TimeSeries replicationLagMillis;
+    private final TimeSeries replicationLagEntries;
+    private volatile Runnable sampleListener = () -> {};
+    private ScheduledExecutorService scheduler;
+    // Only touched by the sampling thread.
+    private StatsResponse previous;
+    private boolean failing;
+
+    public DashboardSampler(Callable<StatsResponse> source, int points, Consumer<String> logConsumer) {
+        this.source = source;
+        this.logConsumer = logConsumer;
+        this.points = points;
+        this.requestRate = new TimeSeries("all", points);
+        this.p99Latency = new TimeSeries("p99", points);
+        this.connections = new TimeSeries("connections", points);
+        this.sessions = new TimeSeries("sessions", points);
+        this.outboundQueue = new TimeSeries("queued frames", points);
+        this.heapUsed = new TimeSeries("used", points);
+        this.heapMax = new TimeSeries("max", points);
+        this.gcTime = new TimeSeries("gc", points);
+        this.replicationLagMillis = new TimeSeries("lag", points);
+        this.replicationLagEntries = new TimeSeries("entries behind", points);
+    }
+
+    // Called on the sampling thread after each sample.
+    public void setSampleListener(Runnable sampleListener) {
+        this.sampleListener = sampleListener;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::sample, 0, 1, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void sample() {
+        StatsResponse current;
+        try {
+            current = source.call();
+        } catch (Exception e) {
+            if (!failing) {
+                logConsumer.accept("Dashboard sampling failed: " + e.getMessage());
+                failing = true;
+            }
+            previous = null;
+            return;
+        }
+        failing = false;
+        if (previous != null) {
+            double seconds = Math.max(current.getTimeMillis() - previous.getTimeMillis(), 1) / 1000.0;
+            long total = 0;
+            for (Map.Entry<String, Long> entry : current.getRequests().entrySet()) {
+                long delta = Math.max(entry.getValue() - previous.getRequests().getOrDefault(entry.getKey(), 0L), 0);
+                opcodeRates.computeIfAbsent(entry.getKey(), opCode -> new TimeSeries(opCode, points)).add(delta / seconds);
+                total += delta;
+            }
+            requestRate.add(total / seconds);
+            long[] buckets = current.getLatencyBuckets();
+            long[] interval = new long[buckets.length];
+            for (int i = 0; i < buckets.length; i++) {
+                interval[i] = Math.max(buckets[i] - (i < previous.getLatencyBuckets().length ? previous.getLatencyBuckets()[i] : 0), 0);
+            }
+            p99Latency.add(RequestStats.percentileMicros(interval, 99) / 1000.0);
+            gcTime.add(Math.max(current.getGcMillis() - previous.getGcMillis(), 0) / seconds);
+        }
+        connections.add(current.getConnections());
+        sessions.add(current.getSessions());
+        outboundQueue.add(current.getOutboundQueue());
+        heapUsed.add(current.getHeapUsed() / (1024.0 * 1024.0));
+        heapMax.add(Math.max(current.getHeapMax(), 0) / (1024.0 * 1024.0));
+        if (current.getReplicationLagMillis() != null) {
+            replicationLagMillis.add(current.getReplicationLagMillis());
+            replicationLagEntries.add(current.getReplicationLagEntries());
+        }
+        previous = current;
+        sampleListener.run();
+    }
+
+    List<TimeSeries> getRequestRates() {
+        List<TimeSeries> series = new ArrayList<>();
+        series.add(requestRate);
+        series.addAll(opcodeRates.values());
+        return series;
+    }
+
+    List<TimeSeries> getLatency() { return List.of(p99Latency); }
+    List<TimeSeries> getConnections() { return List.of(connections, sessions); }
+    List<TimeSeries> getOutboundQueue() { return List.of(outboundQueue); }
+    List<TimeSeries> getHeap() { return List.of(heapUsed, heapMax); }
+    List<TimeSeries> getGcTime() { return List.of(gcTime); }
+    List<TimeSeries> getReplicationLagMillis() { return List.of(replicationLagMillis); }
+    List<TimeSeries> getReplicationLagEntries() { return List.of(replicationLagEntries); }
+
+    int getPoints() {
+        return points;
+    }
+}
@@ -0,0 +1,45 @@
+package server.dashboard;
+
+// The last capacity samples of one value in a primitive ring. The sampler thread adds to it and
+// the chart copies it out when painting; both only hold the lock for an array copy.
+final class TimeSeries {
+    private final String name;
+    private final double[] values;
+    private int head;
+    private int size;
+
+    TimeSeries(String name, int capacity) {
+        this.name = name;
+        this.values = new double[capacity];
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int capacity() {
+        return values.length;
+    }
+
+    synchronized void add(double value) {
+        values[(head + size) % values.length] = value;
+        if (size < values.length) {
+            size++;
+        } else {
+            head = (head + 1) % values.length;
+        }
+    }
+
+    // Oldest first.
+    synchronized double[] toArray() {
+        double[] copy = new double[size];
+        int firstPart = Math.min(size, values.length - head);
+        System.arraycopy(values, head, copy, 0, firstPart);
+        System.arraycopy(values, 0, copy, firstPart, size - firstPart);
+        return copy;
+    }
+
+    synchronized double last() {
+        return size == 0 ? 0 : values[(head + size - 1) % values.length];
+    }
+}
@@ -0,0 +1,161 @@
+package server.events;
+
+import common.ClientInfo;
+import common.FrameWriter;
+import common.ProtocolMessage;
+import common.SerializationHelper;
+import common.protocol.ForumEvent;
+import common.protocol.ResumeRequest;
+import common.protocol.ResumeResponse;
+import server.jfr.BroadcastEvent;
+import server.model.MessageReply;
+import server.model.Topic;
+import server.repository.ReplyRepository;
+import server.repository.RepositoryListener;
+import server.repository.TopicRepository;
+import server.repository.UserRepository;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Pushes a 193 event for every topic and reply created or deleted on this server, including
+// those applied from a replication primary, to the sessions that subscribed with 190. Each
+// session keeps a ring of its latest events, so a client whose connection drops gets exactly
+// what it missed when it resumes instead of reloading every topic; one that was away for more
+// than the ring holds is told to reload. A session ends with its logout or the deletion of its
+// account, and a timer drops those without a connection for longer than retainMillis.
+//
+// Events are numbered and delivered under one lock, so every connection sees them in order.
+public class EventFeed implements RepositoryListener {
+    public static final int DEFAULT_REPLAY_EVENTS = 256;
+    public static final int DEFAULT_RETAIN_SECONDS = 300;
+    private static final long PRUNE_INTERVAL_SECONDS = 10;
+
+    private final TopicRepository topicRepository;
+    private final ReplyRepository replyRepository;
+    private final UserRepository userRepository;
+    private final Map<String, FrameWriter> activeClientOutputs;
+    private final Consumer<String> logConsumer;
+    private final int replayEvents;
+    private final long retainMillis;
+    private final String epoch;
+    private final Map<String, ReplayBuffer> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService pruneTimer;
+    private long lastSeq;
+
+    public EventFeed(TopicRepository topicRepository, ReplyRepository replyRepository, UserRepository userRepository,
+                     Map<String, FrameWriter> activeClientOutputs, int replayEvents, int retainSeconds, Consumer<String> logConsumer) {
+        if (replayEvents <= 0) {
+            throw new IllegalArgumentException("Replay buffer must hold at least one event: " + replayEvents);
+        }
+        this.topicRepository = topicRepository;
+        this.replyRepository = replyRepository;
+        this.userRepository = userRepository;
+        this.activeClientOutputs = activeClientOutputs;
+        this.replayEvents = replayEvents;
+        this.retainMillis = retainSeconds * 1000L;
+        this.logConsumer = logConsumer;
+        this.epoch = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+        this.pruneTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-feed-prune");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pruneTimer.scheduleWithFixedDelay(this::prune, PRUNE_INTERVAL_SECONDS, PRUNE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void topicChanged(int topicId) {
+        Topic topic = topicRepository.findById(topicId);
+        String id = String.valueOf(topicId);
+        publish(topic == null || topic.isDeleted() ? ForumEvent.TOPIC_DELETED : ForumEvent.TOPIC_CREATED, id, id);
+    }
+
+    @Override
+    public void replyChanged(int replyId) {
+        MessageReply reply = replyRepository.findById(replyId);
+        String topicId = reply == null ? null : String.valueOf(reply.getTopicId());
+        publish(reply == null || reply.isDeleted() ? ForumEvent.REPLY_DELETED : ForumEvent.REPLY_CREATED, topicId, String.valueOf(replyId));
+    }
+
+    // A deleted account's sessions end with it.
+    @Override
+    public void userChanged(String username) {
+        if (userRepository.findByUsername(username) == null) {
+            synchronized (this) {
+                sessions.values().removeIf(buffer -> buffer.getUser().equals(username));
+            }
+        }
+    }
+
+    // After a logout.
+    public synchronized void endSession(String token) {
+        sessions.remove(token);
+    }
+
+    private synchronized void prune() {
+        long now = System.currentTimeMillis();
+        sessions.entrySet().removeIf(entry -> entry.getValue().expired(activeClientOutputs.get(entry.getKey()), now, retainMillis));
+    }
+
+    public void close() {
+        pruneTimer.shutdownNow();
+    }
+
+    private synchronized void publish(String kind, String topicId, String id) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+        BroadcastEvent event = new BroadcastEvent();
+        event.begin();
+        long seq = ++lastSeq;
+        String frame = SerializationHelper.encode(new ForumEvent(epoch, seq, kind, topicId, id));
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, ReplayBuffer> entry : sessions.entrySet()) {
+            entry.getValue().append(seq, frame, activeClientOutputs.get(entry.getKey()), now);
+        }
+        event.complete(ForumEvent.OPCODE + " " + kind, sessions.size(), frame.length());
+    }
+
+    // --- Operation 190: subscribe, or resume after a reconnect ---
+    public ProtocolMessage handleResume(ResumeRequest request, ClientInfo clientInfo) {
+        String token = request.getToken();
+        if (token == null || token.isEmpty() || !token.equals(clientInfo.getToken())) {
+            return ProtocolMessage.createErrorMessage("192", "Invalid or expired token.");
+        }
+        FrameWriter out = activeClientOutputs.get(token);
+        if (out == null) {
+            return ProtocolMessage.createErrorMessage("192", "Connection is not bound to the session.");
+        }
+
+        Long clientSeq = request.getLastSeq();
+        synchronized (this) {
+            ReplayBuffer buffer = sessions.get(token);
+            if (clientSeq != null && buffer != null && epoch.equals(request.getEpoch()) && buffer.covers(clientSeq, lastSeq)) {
+                int replayed;
+                try {
+                    replayed = buffer.replayAfter(clientSeq, out);
+                } catch (IOException e) {
+                    return ProtocolMessage.createErrorMessage("192", "Connection closed during replay.");
+                }
+                buffer.attach(out);
+                logConsumer.accept("Session '" + clientInfo.getUserId() + "' resumed events after " + clientSeq + ": " + replayed + " replayed.");
+                return new ResumeResponse(epoch, lastSeq, replayed, false);
+            }
+            if (buffer == null) {
+                buffer = new ReplayBuffer(clientInfo.getUserId(), replayEvents, lastSeq + 1);
+                sessions.put(token, buffer);
+            }
+            buffer.attach(out);
+            if (clientSeq != null) {
+                logConsumer.accept("Session '" + clientInfo.getUserId() + "' cannot replay events after " + request.getEpoch() + "/" + clientSeq + "; client must reload.");
+            }
+            return new ResumeResponse(epoch, lastSeq, 0, clientSeq != null);
+        }
+    }
+}
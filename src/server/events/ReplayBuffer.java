@@ -0,0 +1,85 @@
+package server.events;
+
+import common.FrameWriter;
+import java.io.IOException;
+
+// The latest events of one subscribed session, oldest overwritten first, and the connection
+// they are currently pushed to. Guarded by the EventFeed lock.
+final class ReplayBuffer {
+    private final long[] seqs;
+    private final String[] frames;
+    private final long firstSeq;
+    private final String user;
+    private int count;
+    private int next;
+    private FrameWriter attached;
+    private long detachedSince;
+
+    ReplayBuffer(String user, int capacity, long firstSeq) {
+        this.user = user;
+        this.seqs = new long[capacity];
+        this.frames = new String[capacity];
+        this.firstSeq = firstSeq;
+    }
+
+    String getUser() { return user; }
+
+    // Keeps the event and pushes it if the session is still on the connection it was attached
+    // to. A different connection for the same token may have missed earlier pushes, so it gets
+    // nothing until it resumes.
+    void append(long seq, String frame, FrameWriter current, long now) {
+        seqs[next] = seq;
+        frames[next] = frame;
+        next = (next + 1) % seqs.length;
+        count = Math.min(count + 1, seqs.length);
+
+        if (attached != null && attached == current) {
+            try {
+                current.send(frame);
+                return;
+            } catch (IOException e) {
+                // Same as a dropped connection: the client resumes from its last seen event.
+            }
+        }
+        detach(now);
+    }
+
+    // True once the session has been without a connection for longer than retainMillis;
+    // notices a dropped connection the same way append does.
+    boolean expired(FrameWriter current, long now, long retainMillis) {
+        if (attached != current) {
+            detach(now);
+        }
+        return attached == null && now - detachedSince > retainMillis;
+    }
+
+    private void detach(long now) {
+        if (attached != null) {
+            attached = null;
+            detachedSince = now;
+        }
+    }
+
+    void attach(FrameWriter out) {
+        attached = out;
+    }
+
+    // True when every event after lastSeq is still here.
+    boolean covers(long lastSeq, long headSeq) {
+        long oldest = count < seqs.length ? firstSeq : seqs[next];
+        return lastSeq >= oldest - 1 && lastSeq <= headSeq;
+    }
+
+    int replayAfter(long lastSeq, FrameWriter out) throws IOException {
+        int replayed = 0;
+        int start = count < seqs.length ? 0 : next;
+        for (int i = 0; i < count; i++) {
+            int slot = (start + i) % seqs.length;
+            if (seqs[slot] > lastSeq) {
+                out.send(frames[slot]);
+                replayed++;
+            }
+        }
+        return replayed;
+    }
+}
@@ -0,0 +1,36 @@
+package server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("forum.Broadcast")
+@Label("Broadcast")
+@Description("Queueing one frame for many connected clients")
+@Category({"Forum", "Broadcast"})
+@Enabled(false)
+@StackTrace(false)
+public class BroadcastEvent extends Event {
+    @Label("Kind")
+    String kind;
+
+    @Label("Recipients")
+    int recipients;
+
+    @Label("Frame Length")
+    @Description("In characters")
+    int frameLength;
+
+    public void complete(String kind, int recipients, int frameLength) {
+        if (shouldCommit()) {
+            this.kind = kind;
+            this.recipients = recipients;
+            this.frameLength = frameLength;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Includes the repository listener, so replication and event fan-out triggered by the change
+// are part of its duration.
+@Name("forum.RepositoryMutation")
+@Label("Repository Mutation")
+@Description("A change to the topic, reply or user repository")
+@Category({"Forum", "Repositories"})
+@Enabled(false)
+@StackTrace(false)
+public class RepositoryMutationEvent extends Event {
+    @Label("Repository")
+    String repository;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Key")
+    String key;
+
+    @Label("Entries")
+    int entries;
+
+    public void complete(String repository, String operation, String key, int entries) {
+        if (shouldCommit()) {
+            record(repository, operation, key, entries);
+        }
+    }
+
+    // For id-keyed mutations; the id is only turned into a string when the event is recorded.
+    public void complete(String repository, String operation, int id, int entries) {
+        if (shouldCommit()) {
+            record(repository, operation, String.valueOf(id), entries);
+        }
+    }
+
+    private void record(String repository, String operation, String key, int entries) {
+        this.repository = repository;
+        this.operation = operation;
+        this.key = key;
+        this.entries = entries;
+        commit();
+    }
+}
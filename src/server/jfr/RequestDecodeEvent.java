@@ -0,0 +1,33 @@
+package server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Off unless a recording enables it (see forum.jfc); a disabled event costs a flag check.
+@Name("forum.RequestDecode")
+@Label("Request Decode")
+@Description("Binding one request frame into its message class")
+@Category({"Forum", "Requests"})
+@Enabled(false)
+@StackTrace(false)
+public class RequestDecodeEvent extends Event {
+    @Label("Opcode")
+    String opCode;
+
+    @Label("Frame Length")
+    @Description("In characters")
+    int frameLength;
+
+    public void complete(String opCode, int frameLength) {
+        if (shouldCommit()) {
+            this.opCode = opCode;
+            this.frameLength = frameLength;
+            commit();
+        }
+    }
+}
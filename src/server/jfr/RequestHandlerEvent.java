@@ -0,0 +1,62 @@
+package server.jfr;
+
+import common.ClientInfo;
+import common.ProtocolMessage;
+import common.protocol.ForwardedReplyRequest;
+import common.protocol.GetRepliesRequest;
+import common.protocol.ReplyRequest;
+import common.protocol.ShardReadRequest;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("forum.RequestHandler")
+@Label("Request Handler")
+@Description("Running the handler registered for a request's opcode")
+@Category({"Forum", "Requests"})
+@Enabled(false)
+@StackTrace(false)
+public class RequestHandlerEvent extends Event {
+    @Label("Opcode")
+    String opCode;
+
+    @Label("User")
+    String user;
+
+    @Label("Topic Id")
+    String topicId;
+
+    @Label("Response Opcode")
+    String responseOpCode;
+
+    // response is null for an unknown opcode.
+    public void complete(ProtocolMessage request, ClientInfo clientInfo, ProtocolMessage response) {
+        if (shouldCommit()) {
+            this.opCode = request.getOperationCode();
+            this.user = clientInfo.getUserId();
+            this.topicId = topicIdOf(request);
+            this.responseOpCode = response != null ? response.getOperationCode() : null;
+            commit();
+        }
+    }
+
+    private static String topicIdOf(ProtocolMessage request) {
+        if (request instanceof ReplyRequest) {
+            return ((ReplyRequest) request).getId();
+        }
+        if (request instanceof GetRepliesRequest) {
+            return ((GetRepliesRequest) request).getId();
+        }
+        if (request instanceof ForwardedReplyRequest) {
+            return ((ForwardedReplyRequest) request).getId();
+        }
+        if (request instanceof ShardReadRequest) {
+            return ((ShardReadRequest) request).getId();
+        }
+        return null;
+    }
+}
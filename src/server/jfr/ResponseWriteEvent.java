@@ -0,0 +1,34 @@
+package server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Encoding and queueing only; the socket write itself happens on the connection's writer
+// thread and shows up as jdk.SocketWrite.
+@Name("forum.ResponseWrite")
+@Label("Response Write")
+@Description("Encoding a response and handing it to the connection's writer")
+@Category({"Forum", "Requests"})
+@Enabled(false)
+@StackTrace(false)
+public class ResponseWriteEvent extends Event {
+    @Label("Opcode")
+    String opCode;
+
+    @Label("Frame Length")
+    @Description("In characters")
+    int frameLength;
+
+    public void complete(String opCode, int frameLength) {
+        if (shouldCommit()) {
+            this.opCode = opCode;
+            this.frameLength = frameLength;
+            commit();
+        }
+    }
+}
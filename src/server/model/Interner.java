@@ -0,0 +1,36 @@
+package server.model;
+
+// Fixed-size, lossy string dedup table. Each string hashes to one slot; an equal string already
+// in the slot is returned instead of the argument, otherwise the argument takes the slot. Memory
+// stays bounded no matter how many distinct values pass through, and a collision only costs a
+// missed dedup. Unsynchronized on purpose: Strings are safely published, so a racing reader sees
+// either the old or the new slot value.
+public final class Interner {
+    private static final int DEFAULT_SLOTS = 1 << 14;
+
+    // Subjects, author usernames and roles.
+    public static final Interner SHARED = new Interner(Integer.getInteger("forum.intern.slots", DEFAULT_SLOTS));
+
+    private final String[] slots;
+    private final int mask;
+
+    public Interner(int slotCount) {
+        int size = Integer.highestOneBit(Math.max(2, slotCount - 1) << 1);
+        slots = new String[size];
+        mask = size - 1;
+    }
+
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        int hash = value.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        String cached = slots[slot];
+        if (value.equals(cached)) {
+            return cached;
+        }
+        slots[slot] = value;
+        return value;
+    }
+}
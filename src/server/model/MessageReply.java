@@ -1,31 +1,47 @@
 package server.model;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 
-public class MessageReply implements Serializable {
-    private static final long serialVersionUID = 1L;
+// Immutable; deleting a reply replaces it with a copy that has the DELETED bit set.
+public final class MessageReply implements Serializable {
+    private static final long serialVersionUID = 2L;
 
-    private String id;
-    private String topicId;
-    private String authorUserId;
-    private String content;
-    private long timestamp;
+    private static final byte DELETED = 1;
 
-    public MessageReply(String id, String topicId, String authorUserId, String content) {
+    private final int id;
+    private final int topicId;
+    private final String authorUserId;
+    private final byte[] content; // UTF-8
+    private final long timestamp;
+    private final byte flags;
+
+    public MessageReply(int id, int topicId, String authorUserId, String content) {
+        this(id, topicId, authorUserId, content, System.currentTimeMillis());
+    }
+
+    // For replies copied from another server, which keep their original time.
+    public MessageReply(int id, int topicId, String authorUserId, String content, long timestamp) {
+        this(id, topicId, Interner.SHARED.intern(authorUserId), content.getBytes(StandardCharsets.UTF_8), timestamp, (byte) 0);
+    }
+
+    private MessageReply(int id, int topicId, String authorUserId, byte[] content, long timestamp, byte flags) {
         this.id = id;
         this.topicId = topicId;
         this.authorUserId = authorUserId;
         this.content = content;
-        this.timestamp = System.currentTimeMillis();
+        this.timestamp = timestamp;
+        this.flags = flags;
     }
 
-    public String getId() { return id; }
-    public String getTopicId() { return topicId; }
+    public int getId() { return id; }
+    public int getTopicId() { return topicId; }
     public String getAuthorUserId() { return authorUserId; }
-    public String getContent() { return content; }
+    public String getContent() { return isDeleted() ? "Mensagem Apagada" : new String(content, StandardCharsets.UTF_8); }
     public long getTimestamp() { return timestamp; }
+    public boolean isDeleted() { return (flags & DELETED) != 0; }
 
-    public void markAsDeleted() {
-        this.content = "Mensagem Apagada";
+    public MessageReply asDeleted() {
+        return isDeleted() ? this : new MessageReply(id, topicId, authorUserId, content, timestamp, (byte) (flags | DELETED));
     }
-}
\ No newline at end of file
+}
@@ -1,34 +1,43 @@
 package server.model;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 
-public class Topic implements Serializable {
-    private static final long serialVersionUID = 1L;
+// Immutable; deleting a topic replaces it with a copy that has the DELETED bit set.
+public final class Topic implements Serializable {
+    private static final long serialVersionUID = 2L;
 
-    private String id;
-    private String title;
-    private String subject;
-    private String content;
-    private String authorUserId;
+    private static final byte DELETED = 1;
 
-    public Topic(String id, String title, String subject, String content, String authorUserId) {
+    private final int id;
+    private final String title;
+    private final String subject;
+    private final byte[] content; // UTF-8
+    private final String authorUserId;
+    private final byte flags;
+
+    public Topic(int id, String title, String subject, String content, String authorUserId) {
+        this(id, title, Interner.SHARED.intern(subject), content.getBytes(StandardCharsets.UTF_8),
+                Interner.SHARED.intern(authorUserId), (byte) 0);
+    }
+
+    private Topic(int id, String title, String subject, byte[] content, String authorUserId, byte flags) {
         this.id = id;
         this.title = title;
         this.subject = subject;
         this.content = content;
         this.authorUserId = authorUserId;
+        this.flags = flags;
     }
 
-    public String getId() { return id; }
-    public String getTitle() { return title; }
-    public String getSubject() { return subject; }
-    public String getContent() { return content; }
-    public String getAuthorUserId() { return authorUserId; }
-
-    public void markAsDeleted() {
-        this.title = "[DELETED]";
-        this.subject = "[DELETED]";
-        this.content = "Mensagem Apagada";
-        this.authorUserId = "[DELETED]";
+    public int getId() { return id; }
+    public String getTitle() { return isDeleted() ? "[DELETED]" : title; }
+    public String getSubject() { return isDeleted() ? "[DELETED]" : subject; }
+    public String getContent() { return isDeleted() ? "Mensagem Apagada" : new String(content, StandardCharsets.UTF_8); }
+    public String getAuthorUserId() { return isDeleted() ? "[DELETED]" : authorUserId; }
+    public boolean isDeleted() { return (flags & DELETED) != 0; }
+
+    public Topic asDeleted() {
+        return isDeleted() ? this : new Topic(id, title, subject, content, authorUserId, (byte) (flags | DELETED));
     }
-}
\ No newline at end of file
+}
@@ -1,57 +1,54 @@
 package server.model;
 
-public class User {
-    private int id;
-
-    private String username;
-    private String password;
-    private String nickname;
-    private String role;
+// Immutable snapshot; changes go through UserRepository.replace with a with* copy.
+public final class User {
+    private final int id;
+    private final String username;
+    private final String password;
+    private final String nickname;
+    private final String role;
 
     public User(String username, String password, String nickname, String role) {
+        this(0, username, password, nickname, role);
+    }
+
+    private User(int id, String username, String password, String nickname, String role) {
+        this.id = id;
         this.username = username;
         this.password = password;
         this.nickname = nickname;
-        this.role = role;
+        this.role = Interner.SHARED.intern(role);
     }
 
     public int getId() {
         return id;
     }
 
-    public void setId(int id) {
-        this.id = id;
-    }
-
     public String getUsername() {
         return username;
     }
 
-    public void setUsername(String username) {
-        this.username = username;
-    }
-
     public String getPassword() {
         return password;
     }
 
-    public void setPassword(String password) {
-        this.password = password;
-    }
-
     public String getNickname() {
         return nickname;
     }
 
-    public void setNickname(String nickname) {
-        this.nickname = nickname;
-    }
-
     public String getRole() {
         return role;
     }
 
-    public void setRole(String role) {
-        this.role = role;
+    public User withId(int id) {
+        return new User(id, username, password, nickname, role);
+    }
+
+    public User withPassword(String password) {
+        return new User(id, username, password, nickname, role);
+    }
+
+    public User withNickname(String nickname) {
+        return new User(id, username, password, nickname, role);
     }
-}
\ No newline at end of file
+}
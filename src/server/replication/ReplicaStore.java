@@ -0,0 +1,213 @@
+package server.replication;
+
+import server.model.MessageReply;
+import server.model.Topic;
+import server.model.User;
+import server.repository.ReplyRepository;
+import server.repository.TopicRepository;
+import server.repository.UserRepository;
+import server.search.SearchIndex;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// The repositories as seen by replication: reads an entity's state into a frame, applies a
+// frame back, and moves the whole data set in and out of snapshots.
+final class ReplicaStore {
+    interface FrameSink {
+        void write(ReplicationFrame frame) throws IOException;
+    }
+
+    private final UserRepository userRepository;
+    private final TopicRepository topicRepository;
+    private final ReplyRepository replyRepository;
+    private final SearchIndex searchIndex;
+
+    // What a snapshot being received has covered; the rest is gone on the sender.
+    private Set<String> snapshotUsers;
+    private BitSet snapshotTopics;
+    private BitSet snapshotReplies;
+    // Off while loading a snapshot file at startup; the server indexes everything once after.
+    private boolean indexing = true;
+
+    ReplicaStore(UserRepository userRepository, TopicRepository topicRepository, ReplyRepository replyRepository, SearchIndex searchIndex) {
+        this.userRepository = userRepository;
+        this.topicRepository = topicRepository;
+        this.replyRepository = replyRepository;
+        this.searchIndex = searchIndex;
+    }
+
+    void setListener(ReplicationLog log) {
+        userRepository.setListener(log);
+        topicRepository.setListener(log);
+        replyRepository.setListener(log);
+    }
+
+    ReplicationFrame topicFrame(int topicId) {
+        Topic topic = topicRepository.findById(topicId);
+        return topic != null ? ReplicationFrame.topic(topic) : null;
+    }
+
+    ReplicationFrame replyFrame(int replyId) {
+        MessageReply reply = replyRepository.findById(replyId);
+        return reply != null ? ReplicationFrame.reply(reply) : ReplicationFrame.replyRemoved(replyId);
+    }
+
+    ReplicationFrame userFrame(String username) {
+        User user = userRepository.findByUsername(username);
+        return user != null ? ReplicationFrame.user(user) : ReplicationFrame.userRemoved(username);
+    }
+
+    // Users first, so everything a later frame refers to already exists.
+    void dump(FrameSink sink) throws IOException {
+        for (User user : userRepository.findAll()) {
+            sink.write(ReplicationFrame.user(user));
+        }
+        for (Topic topic : topicRepository.findAll()) {
+            sink.write(ReplicationFrame.topic(topic));
+        }
+        for (MessageReply reply : replyRepository.findAll()) {
+            sink.write(ReplicationFrame.reply(reply));
+        }
+    }
+
+    void apply(ReplicationFrame frame) {
+        switch (frame.kind) {
+            case ReplicationFrame.TOPIC:
+                Topic topic = frame.toTopic();
+                topicRepository.save(topic);
+                if (topic.isDeleted()) {
+                    searchIndex.removeTopic(topic.getId());
+                } else if (indexing) {
+                    searchIndex.indexTopic(topic);
+                }
+                if (snapshotTopics != null) {
+                    snapshotTopics.set(topic.getId());
+                }
+                break;
+            case ReplicationFrame.REPLY:
+                MessageReply reply = frame.toReply();
+                replyRepository.save(reply);
+                if (reply.isDeleted()) {
+                    searchIndex.removeReply(reply.getId());
+                } else if (indexing) {
+                    searchIndex.indexReply(reply);
+                }
+                if (snapshotReplies != null) {
+                    snapshotReplies.set(reply.getId());
+                }
+                break;
+            case ReplicationFrame.REPLY_REMOVED:
+                MessageReply removed = replyRepository.findById(frame.id);
+                if (removed != null) {
+                    replyRepository.deleteReply(removed.getTopicId(), removed.getId());
+                    searchIndex.removeReply(removed.getId());
+                }
+                break;
+            case ReplicationFrame.USER:
+                userRepository.save(frame.toUser());
+                if (snapshotUsers != null) {
+                    snapshotUsers.add(frame.username);
+                }
+                break;
+            case ReplicationFrame.USER_REMOVED:
+                userRepository.deleteByUsername(frame.username);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown replicated entity: " + frame.kind);
+        }
+    }
+
+    void beginSnapshot() {
+        snapshotUsers = new HashSet<>();
+        snapshotTopics = new BitSet();
+        snapshotReplies = new BitSet();
+    }
+
+    // Anything the snapshot did not mention no longer exists on the sender. Topics and replies
+    // are never removed outright here, only tombstoned, the same as a delete on the sender.
+    void endSnapshot() {
+        for (String username : userRepository.listAllUsernames()) {
+            if (!snapshotUsers.contains(username)) {
+                userRepository.deleteByUsername(username);
+            }
+        }
+        for (Topic topic : topicRepository.findAll()) {
+            if (!snapshotTopics.get(topic.getId()) && topicRepository.markDeleted(topic.getId()) != null) {
+                searchIndex.removeTopic(topic.getId());
+            }
+        }
+        for (MessageReply reply : replyRepository.findAll()) {
+            if (!snapshotReplies.get(reply.getId()) && replyRepository.markDeleted(reply.getId()) != null) {
+                searchIndex.removeReply(reply.getId());
+            }
+        }
+        snapshotUsers = null;
+        snapshotTopics = null;
+        snapshotReplies = null;
+    }
+
+    // Written next to the target and moved over it, so a crash mid-write keeps the old file.
+    void writeSnapshot(Path file, String logId, long offset, boolean clean) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8))) {
+            ReplicationFrame header = ReplicationFrame.of(ReplicationFrame.SNAPSHOT);
+            header.logId = logId;
+            header.offset = offset;
+            header.clean = clean ? Boolean.TRUE : null;
+            out.write(header.encode());
+            out.write('\n');
+            dump(frame -> {
+                out.write(frame.encode());
+                out.write('\n');
+            });
+            out.write(ReplicationFrame.of(ReplicationFrame.SNAPSHOT_END).encode());
+            out.write('\n');
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Replaces the repositories' contents with the file's, leaving the search index to be
+    // built afterwards. Returns the header (log id and offset), or null when there is no file yet.
+    ReplicationFrame loadSnapshot(Path file) throws IOException {
+        indexing = false;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            ReplicationFrame header = ReplicationFrame.decode(in.readLine());
+            if (header == null || !ReplicationFrame.SNAPSHOT.equals(header.type)) {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+            beginSnapshot();
+            String line;
+            while ((line = in.readLine()) != null) {
+                ReplicationFrame frame = ReplicationFrame.decode(line);
+                if (ReplicationFrame.SNAPSHOT_END.equals(frame.type)) {
+                    endSnapshot();
+                    return header;
+                }
+                apply(frame);
+            }
+            throw new IOException("Snapshot file is truncated: " + file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } finally {
+            indexing = true;
+            snapshotUsers = null;
+            snapshotTopics = null;
+            snapshotReplies = null;
+        }
+    }
+}
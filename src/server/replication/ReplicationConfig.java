@@ -0,0 +1,93 @@
+package server.replication;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Leader-follower replication, read from system properties:
+//   primary:  -Dforum.replication.role=primary -Dforum.replication.port=13345
+//   follower: -Dforum.replication.role=follower -Dforum.replication.primary=localhost:13345
+// Both need -Dforum.replication.secret=<shared> and optionally take
+// -Dforum.replication.snapshotFile=<path> to survive restarts.
+public final class ReplicationConfig {
+    // Operations a follower sends to the primary instead of running them itself.
+    public static final List<String> WRITE_OPCODES = Collections.unmodifiableList(Arrays.asList(
+            "010", "030", "040", "050", "060", "080", "090", "100"));
+
+    private static final int DEFAULT_PORT = 13345;
+    private static final int DEFAULT_LOG_ENTRIES = 200_000;
+    private static final int DEFAULT_SNAPSHOT_SECONDS = 30;
+    private static final long DEFAULT_WRITE_TIMEOUT_MS = 5000;
+
+    private final boolean primary;
+    private final int port;
+    private final InetSocketAddress primaryAddress;
+    private final String secret;
+    private final Path snapshotFile;
+    private final int snapshotIntervalSeconds;
+    private final int logEntries;
+    private final long writeTimeoutMs;
+
+    private ReplicationConfig(boolean primary, int port, InetSocketAddress primaryAddress, String secret, Path snapshotFile,
+                              int snapshotIntervalSeconds, int logEntries, long writeTimeoutMs) {
+        this.primary = primary;
+        this.port = port;
+        this.primaryAddress = primaryAddress;
+        this.secret = secret;
+        this.snapshotFile = snapshotFile;
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+        this.logEntries = logEntries;
+        this.writeTimeoutMs = writeTimeoutMs;
+    }
+
+    // null when forum.replication.role is not set, i.e. the server runs on its own.
+    public static ReplicationConfig fromSystemProperties() {
+        String role = System.getProperty("forum.replication.role");
+        if (role == null || role.trim().isEmpty()) {
+            return null;
+        }
+        String snapshotFile = System.getProperty("forum.replication.snapshotFile");
+        return parse(role.trim(), Integer.getInteger("forum.replication.port", DEFAULT_PORT),
+                System.getProperty("forum.replication.primary"), System.getProperty("forum.replication.secret", ""),
+                snapshotFile == null || snapshotFile.isEmpty() ? null : Paths.get(snapshotFile),
+                Integer.getInteger("forum.replication.snapshotSeconds", DEFAULT_SNAPSHOT_SECONDS),
+                Integer.getInteger("forum.replication.logEntries", DEFAULT_LOG_ENTRIES),
+                Long.getLong("forum.replication.writeTimeoutMs", DEFAULT_WRITE_TIMEOUT_MS));
+    }
+
+    public static ReplicationConfig parse(String role, int port, String primaryAddress, String secret, Path snapshotFile,
+                                          int snapshotIntervalSeconds, int logEntries, long writeTimeoutMs) {
+        if (logEntries <= 0 || snapshotIntervalSeconds <= 0) {
+            throw new IllegalArgumentException("forum.replication.logEntries and snapshotSeconds must be positive.");
+        }
+        // The secret guards the snapshot stream and forwarded writes, which run as any user.
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("forum.replication.secret must be set when forum.replication.role is.");
+        }
+        if ("primary".equals(role)) {
+            return new ReplicationConfig(true, port, null, secret, snapshotFile, snapshotIntervalSeconds, logEntries, writeTimeoutMs);
+        }
+        if (!"follower".equals(role)) {
+            throw new IllegalArgumentException("forum.replication.role must be primary or follower, got: " + role);
+        }
+        int colon = primaryAddress == null ? -1 : primaryAddress.lastIndexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("forum.replication.primary must look like host:port, got: " + primaryAddress);
+        }
+        InetSocketAddress address = InetSocketAddress.createUnresolved(primaryAddress.substring(0, colon),
+                Integer.parseInt(primaryAddress.substring(colon + 1)));
+        return new ReplicationConfig(false, port, address, secret, snapshotFile, snapshotIntervalSeconds, logEntries, writeTimeoutMs);
+    }
+
+    public boolean isPrimary() { return primary; }
+    public int getPort() { return port; }
+    public InetSocketAddress getPrimaryAddress() { return primaryAddress; }
+    public String getSecret() { return secret; }
+    public Path getSnapshotFile() { return snapshotFile; }
+    public int getSnapshotIntervalSeconds() { return snapshotIntervalSeconds; }
+    public int getLogEntries() { return logEntries; }
+    public long getWriteTimeoutMs() { return writeTimeoutMs; }
+}
@@ -0,0 +1,326 @@
+package server.replication;
+
+import com.google.gson.JsonParseException;
+import common.ClientInfo;
+import common.FrameReader;
+import common.ProtocolMessage;
+import common.SerializationHelper;
+import common.protocol.AuthenticatedRequest;
+import common.protocol.ForwardedWriteRequest;
+import common.protocol.ForwardedWriteResponse;
+import server.cluster.PeerLink;
+import server.model.User;
+import server.repository.ReplyRepository;
+import server.repository.TopicRepository;
+import server.repository.UserRepository;
+import server.search.SearchIndex;
+import server.service.AuthHandler;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Follower side of replication. One thread reads the primary's stream and applies it to the
+// local repositories, which serve every read; writes are passed to the primary as 170 and
+// answered once the entry they produced has been applied here, so a client always reads its
+// own writes. After a restart the follower asks to resume from the offset in its snapshot
+// file and only gets a full snapshot if the primary no longer has the entries after it.
+public class ReplicationFollower {
+    private static final long INITIAL_BACKOFF_MS = 200;
+    private static final long MAX_BACKOFF_MS = 10_000;
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+
+    private final ReplicationConfig config;
+    private final ReplicaStore store;
+    private final AuthHandler authHandler;
+    private final ReplicationStats stats;
+    private final Consumer<String> logConsumer;
+    private final Object appliedLock = new Object();
+    private final AtomicInteger appliedWaiters = new AtomicInteger();
+    private volatile String logId;
+    private volatile long appliedOffset;
+    private volatile boolean receivingSnapshot;
+    private volatile boolean running;
+    private volatile Socket socket;
+    private volatile PeerLink primaryLink;
+    private ScheduledExecutorService snapshotTimer;
+
+    public ReplicationFollower(ReplicationConfig config, UserRepository userRepository, TopicRepository topicRepository,
+                               ReplyRepository replyRepository, SearchIndex searchIndex, AuthHandler authHandler,
+                               ReplicationStats stats, Consumer<String> logConsumer) throws IOException {
+        this.config = config;
+        this.store = new ReplicaStore(userRepository, topicRepository, replyRepository, searchIndex);
+        this.authHandler = authHandler;
+        this.stats = stats;
+        this.logConsumer = logConsumer;
+        ReplicationFrame saved = config.getSnapshotFile() != null ? store.loadSnapshot(config.getSnapshotFile()) : null;
+        if (saved != null) {
+            logId = saved.logId;
+            appliedOffset = saved.offset;
+            stats.recordApplied(saved.offset, System.currentTimeMillis());
+            logConsumer.accept("[REPLICATION] Loaded snapshot at offset " + saved.offset + " of log " + saved.logId + ".");
+        }
+    }
+
+    public void start() {
+        running = true;
+        Thread thread = new Thread(this::followLoop, "replication-follower");
+        thread.setDaemon(true);
+        thread.start();
+        if (config.getSnapshotFile() != null) {
+            snapshotTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread timer = new Thread(runnable, "replication-snapshot");
+                timer.setDaemon(true);
+                return timer;
+            });
+            long seconds = config.getSnapshotIntervalSeconds();
+            snapshotTimer.scheduleWithFixedDelay(this::writeSnapshotFile, seconds, seconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private void followLoop() {
+        long backoffMs = INITIAL_BACKOFF_MS;
+        while (running) {
+            try {
+                if (follow()) {
+                    backoffMs = INITIAL_BACKOFF_MS;
+                }
+            } catch (IOException | JsonParseException e) {
+                if (running) {
+                    logConsumer.accept("[REPLICATION] Lost primary " + primaryName() + ": " + e.getMessage()
+                            + "; retrying in " + backoffMs + " ms.");
+                }
+            }
+            if (!running) {
+                return;
+            }
+            try {
+                Thread.sleep(backoffMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        }
+    }
+
+    // One connection to the primary. Returns whether it was accepted, i.e. whether to reset the backoff.
+    private boolean follow() throws IOException {
+        InetSocketAddress primary = config.getPrimaryAddress();
+        try (Socket connection = new Socket()) {
+            socket = connection;
+            connection.connect(new InetSocketAddress(primary.getHostString(), primary.getPort()), CONNECT_TIMEOUT_MS);
+            connection.setTcpNoDelay(true);
+            // Heartbeats arrive every second; a silent primary is treated as gone.
+            connection.setSoTimeout((int) (ReplicationPrimary.HEARTBEAT_MS * 5));
+            FrameReader in = new FrameReader(connection.getInputStream(), ReplicationPrimary.MAX_STREAM_FRAME_BYTES);
+            OutputStream out = connection.getOutputStream();
+
+            ReplicationFrame hello = ReplicationFrame.of(ReplicationFrame.HELLO);
+            hello.secret = config.getSecret();
+            hello.logId = logId;
+            hello.offset = appliedOffset;
+            out.write((hello.encode() + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            ReplicationFrame welcome = readFrame(in);
+            if (ReplicationFrame.REFUSED.equals(welcome.type)) {
+                logConsumer.accept("[REPLICATION] Primary refused this follower: " + welcome.message);
+                return false;
+            }
+            if (!ReplicationFrame.WELCOME.equals(welcome.type)) {
+                throw new IOException("Unexpected handshake frame: " + welcome.type);
+            }
+            connectPrimaryLink(primary.getHostString(), welcome.clientPort);
+            stats.recordPrimaryOffset(welcome.offset);
+            logConsumer.accept("[REPLICATION] Following primary " + primaryName() + " (log " + welcome.logId + ", offset "
+                    + welcome.offset + ") from offset " + appliedOffset + ".");
+
+            long snapshotOffset = 0;
+            while (running) {
+                ReplicationFrame frame = readFrame(in);
+                switch (frame.type) {
+                    case ReplicationFrame.SNAPSHOT:
+                        receivingSnapshot = true;
+                        snapshotOffset = frame.offset;
+                        store.beginSnapshot();
+                        break;
+                    case ReplicationFrame.ENTITY:
+                        store.apply(frame);
+                        break;
+                    case ReplicationFrame.SNAPSHOT_END:
+                        store.endSnapshot();
+                        logId = welcome.logId;
+                        stats.resetAfterSnapshot(snapshotOffset);
+                        markApplied(snapshotOffset);
+                        receivingSnapshot = false;
+                        logConsumer.accept("[REPLICATION] Applied snapshot at offset " + snapshotOffset + ".");
+                        break;
+                    case ReplicationFrame.ENTRY:
+                        if (frame.offset > appliedOffset) {
+                            store.apply(frame);
+                            stats.recordApplied(frame.offset, frame.primaryTime);
+                            markApplied(frame.offset);
+                        }
+                        break;
+                    case ReplicationFrame.HEARTBEAT:
+                        stats.recordPrimaryOffset(frame.offset);
+                        break;
+                    default:
+                        throw new IOException("Unexpected replication frame: " + frame.type);
+                }
+            }
+            return true;
+        } finally {
+            receivingSnapshot = false;
+            socket = null;
+        }
+    }
+
+    private String primaryName() {
+        return config.getPrimaryAddress().getHostString() + ":" + config.getPrimaryAddress().getPort();
+    }
+
+    private static ReplicationFrame readFrame(FrameReader in) throws IOException {
+        String json = in.readFrame();
+        if (json == null) {
+            throw new EOFException("Primary closed the replication stream.");
+        }
+        return ReplicationFrame.decode(json);
+    }
+
+    private synchronized void connectPrimaryLink(String host, int clientPort) {
+        PeerLink current = primaryLink;
+        InetSocketAddress address = InetSocketAddress.createUnresolved(host, clientPort);
+        if (current == null || !current.getNodeId().equals(address.toString())) {
+            if (current != null) {
+                current.close();
+            }
+            primaryLink = new PeerLink(address.toString(), address, logConsumer);
+        }
+    }
+
+    private void markApplied(long offset) {
+        appliedOffset = offset;
+        if (appliedWaiters.get() > 0) {
+            synchronized (appliedLock) {
+                appliedLock.notifyAll();
+            }
+        }
+    }
+
+    // Whether everything up to offset was applied here within the timeout.
+    public boolean awaitApplied(long offset, long timeoutMs) throws InterruptedException {
+        if (appliedOffset >= offset) {
+            return true;
+        }
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        appliedWaiters.incrementAndGet();
+        try {
+            synchronized (appliedLock) {
+                long remaining = timeoutMs;
+                while (appliedOffset < offset && remaining > 0) {
+                    appliedLock.wait(remaining);
+                    remaining = deadline - System.currentTimeMillis();
+                }
+            }
+        } finally {
+            appliedWaiters.decrementAndGet();
+        }
+        return appliedOffset >= offset;
+    }
+
+    // Every write opcode is registered to this on a follower.
+    public ProtocolMessage forwardWrite(ProtocolMessage request, ClientInfo clientInfo) {
+        String opCode = request.getOperationCode();
+        String errorOpCode = opCode.substring(0, 2) + "2";
+        PeerLink link = primaryLink;
+        if (link == null) {
+            return ProtocolMessage.createErrorMessage(errorOpCode, "Primary server is unavailable.");
+        }
+        String user = null;
+        if (request instanceof AuthenticatedRequest) {
+            ClientInfo session = authHandler.getAuthenticatedClientInfo(((AuthenticatedRequest) request).getToken());
+            user = session != null ? session.getUserId() : null;
+        }
+
+        CompletableFuture<ProtocolMessage> pending = link.send(new ForwardedWriteRequest(config.getSecret(), user, SerializationHelper.encode(request)));
+        ProtocolMessage forwarded;
+        try {
+            forwarded = pending.get(config.getWriteTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ProtocolMessage.createErrorMessage(errorOpCode, "Primary server is unavailable.");
+        } catch (Exception e) {
+            pending.cancel(false);
+            logConsumer.accept("[REPLICATION] Forwarded op " + opCode + " failed: " + e);
+            return ProtocolMessage.createErrorMessage(errorOpCode, "Primary server is unavailable.");
+        }
+        if (!(forwarded instanceof ForwardedWriteResponse)) {
+            logConsumer.accept("[REPLICATION] Primary rejected forwarded op " + opCode + ": "
+                    + (forwarded != null ? forwarded.getMessageContent() : "no response"));
+            return ProtocolMessage.createErrorMessage(errorOpCode, "Primary server rejected the request.");
+        }
+
+        ForwardedWriteResponse result = (ForwardedWriteResponse) forwarded;
+        try {
+            if (!awaitApplied(result.getOffset(), config.getWriteTimeoutMs())) {
+                logConsumer.accept("[REPLICATION] Op " + opCode + " answered before offset " + result.getOffset()
+                        + " was applied here (" + stats.getLagEntries() + " entries behind).");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        stats.recordForwardedWrite();
+        // The primary changed the user, not this connection's session; pick up a new nickname.
+        if (clientInfo.getUserId() != null) {
+            User self = authHandler.getUserByUsername(clientInfo.getUserId());
+            if (self != null) {
+                clientInfo.setName(self.getNickname());
+            }
+        }
+        return SerializationHelper.decode(result.getResponse());
+    }
+
+    private void writeSnapshotFile() {
+        String currentLogId = logId;
+        long offset = appliedOffset;
+        if (receivingSnapshot || currentLogId == null) {
+            return;
+        }
+        try {
+            store.writeSnapshot(config.getSnapshotFile(), currentLogId, offset, false);
+        } catch (IOException | RuntimeException e) {
+            logConsumer.accept("[REPLICATION] Could not write snapshot file: " + e.getMessage());
+        }
+    }
+
+    public void close() {
+        running = false;
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+                // Closing anyway.
+            }
+        }
+        PeerLink link = primaryLink;
+        if (link != null) {
+            link.close();
+        }
+        if (snapshotTimer != null) {
+            snapshotTimer.shutdownNow();
+            writeSnapshotFile();
+        }
+    }
+}
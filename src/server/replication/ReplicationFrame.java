@@ -0,0 +1,157 @@
+package server.replication;
+
+import com.google.gson.Gson;
+import com.google.gson.annotations.SerializedName;
+import server.model.MessageReply;
+import server.model.Topic;
+import server.model.User;
+
+// One newline-delimited JSON frame on the replication stream, and one line of a snapshot file.
+// Entity frames carry the whole current state of a topic, reply or user, never a diff, so
+// applying one twice or out of a snapshot that already had it changes nothing.
+final class ReplicationFrame {
+    static final String HELLO = "hello";
+    static final String WELCOME = "welcome";
+    static final String REFUSED = "refused";
+    static final String SNAPSHOT = "snapshot";
+    static final String ENTITY = "entity";
+    static final String SNAPSHOT_END = "snapshot_end";
+    static final String ENTRY = "entry";
+    static final String HEARTBEAT = "heartbeat";
+
+    static final String TOPIC = "topic";
+    static final String REPLY = "reply";
+    static final String REPLY_REMOVED = "reply_removed";
+    static final String USER = "user";
+    static final String USER_REMOVED = "user_removed";
+
+    private static final Gson GSON = new Gson();
+
+    @SerializedName("type")
+    String type;
+    @SerializedName("log_id")
+    String logId;
+    @SerializedName("secret")
+    String secret;
+    @SerializedName("offset")
+    Long offset;
+    @SerializedName("ts")
+    Long primaryTime;
+    @SerializedName("client_port")
+    Integer clientPort;
+    @SerializedName("msg")
+    String message;
+    // Snapshot files only: written by close(), so no entry after offset was ever streamed.
+    @SerializedName("clean")
+    Boolean clean;
+
+    @SerializedName("kind")
+    String kind;
+    @SerializedName("id")
+    Integer id;
+    @SerializedName("topic_id")
+    Integer topicId;
+    @SerializedName("title")
+    String title;
+    @SerializedName("subject")
+    String subject;
+    @SerializedName("content")
+    String content;
+    @SerializedName("author")
+    String author;
+    @SerializedName("timestamp")
+    Long timestamp;
+    @SerializedName("deleted")
+    Boolean deleted;
+    @SerializedName("user")
+    String username;
+    @SerializedName("password")
+    String password;
+    @SerializedName("nick")
+    String nickname;
+    @SerializedName("role")
+    String role;
+
+    private ReplicationFrame(String type) {
+        this.type = type;
+    }
+
+    static ReplicationFrame of(String type) {
+        return new ReplicationFrame(type);
+    }
+
+    static ReplicationFrame topic(Topic topic) {
+        ReplicationFrame frame = new ReplicationFrame(ENTITY);
+        frame.kind = TOPIC;
+        frame.id = topic.getId();
+        frame.title = topic.getTitle();
+        frame.subject = topic.getSubject();
+        frame.content = topic.getContent();
+        frame.author = topic.getAuthorUserId();
+        frame.deleted = topic.isDeleted() ? Boolean.TRUE : null;
+        return frame;
+    }
+
+    static ReplicationFrame reply(MessageReply reply) {
+        ReplicationFrame frame = new ReplicationFrame(ENTITY);
+        frame.kind = REPLY;
+        frame.id = reply.getId();
+        frame.topicId = reply.getTopicId();
+        frame.content = reply.getContent();
+        frame.author = reply.getAuthorUserId();
+        frame.timestamp = reply.getTimestamp();
+        frame.deleted = reply.isDeleted() ? Boolean.TRUE : null;
+        return frame;
+    }
+
+    static ReplicationFrame replyRemoved(int replyId) {
+        ReplicationFrame frame = new ReplicationFrame(ENTITY);
+        frame.kind = REPLY_REMOVED;
+        frame.id = replyId;
+        return frame;
+    }
+
+    static ReplicationFrame user(User user) {
+        ReplicationFrame frame = new ReplicationFrame(ENTITY);
+        frame.kind = USER;
+        frame.id = user.getId();
+        frame.username = user.getUsername();
+        frame.password = user.getPassword();
+        frame.nickname = user.getNickname();
+        frame.role = user.getRole();
+        return frame;
+    }
+
+    static ReplicationFrame userRemoved(String username) {
+        ReplicationFrame frame = new ReplicationFrame(ENTITY);
+        frame.kind = USER_REMOVED;
+        frame.username = username;
+        return frame;
+    }
+
+    boolean isDeleted() {
+        return Boolean.TRUE.equals(deleted);
+    }
+
+    Topic toTopic() {
+        Topic topic = new Topic(id, title, subject, content, author);
+        return isDeleted() ? topic.asDeleted() : topic;
+    }
+
+    MessageReply toReply() {
+        MessageReply reply = new MessageReply(id, topicId, author, content, timestamp);
+        return isDeleted() ? reply.asDeleted() : reply;
+    }
+
+    User toUser() {
+        return new User(username, password, nickname, role).withId(id);
+    }
+
+    String encode() {
+        return GSON.toJson(this);
+    }
+
+    static ReplicationFrame decode(String json) {
+        return GSON.fromJson(json, ReplicationFrame.class);
+    }
+}
@@ -0,0 +1,94 @@
+package server.replication;
+
+import server.repository.RepositoryListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// The primary's mutation log: every repository change becomes one numbered entry holding the
+// entity's state as of that entry. The state is read under the same lock that assigns the
+// offset, so a later offset never carries older state, however the writers' notifications
+// interleave. Only the newest entries are kept; a follower that falls further behind gets a
+// fresh snapshot instead.
+public class ReplicationLog implements RepositoryListener {
+    private final String logId;
+    private final ReplicaStore store;
+    private final ReplicationStats stats;
+    private final String[] entries; // encoded ENTRY frames, ring indexed by offset
+    private long lastOffset;
+    private int retained;
+
+    ReplicationLog(String logId, long lastOffset, ReplicaStore store, ReplicationStats stats, int capacity) {
+        this.logId = logId;
+        this.lastOffset = lastOffset;
+        this.store = store;
+        this.stats = stats;
+        this.entries = new String[capacity];
+    }
+
+    static String newLogId() {
+        return UUID.randomUUID().toString();
+    }
+
+    public String getLogId() {
+        return logId;
+    }
+
+    public synchronized long getLastOffset() {
+        return lastOffset;
+    }
+
+    @Override
+    public synchronized void topicChanged(int topicId) {
+        append(store.topicFrame(topicId));
+    }
+
+    @Override
+    public synchronized void replyChanged(int replyId) {
+        append(store.replyFrame(replyId));
+    }
+
+    @Override
+    public synchronized void userChanged(String username) {
+        append(store.userFrame(username));
+    }
+
+    private void append(ReplicationFrame frame) {
+        if (frame == null) {
+            return;
+        }
+        frame.type = ReplicationFrame.ENTRY;
+        frame.offset = ++lastOffset;
+        frame.primaryTime = System.currentTimeMillis();
+        entries[(int) (lastOffset % entries.length)] = frame.encode();
+        retained = Math.min(retained + 1, entries.length);
+        stats.recordApplied(lastOffset, frame.primaryTime);
+        notifyAll();
+    }
+
+    // Whether a follower that has applied everything up to offset can continue from the log.
+    public synchronized boolean canResumeFrom(long offset) {
+        return offset >= lastOffset - retained && offset <= lastOffset;
+    }
+
+    // Up to max entries after offset, waiting up to waitMillis for the first one. Empty when
+    // nothing arrived in time, null when the entries after offset are no longer retained.
+    synchronized List<String> readAfter(long offset, int max, long waitMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        long remaining = waitMillis;
+        while (offset == lastOffset && remaining > 0) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        if (!canResumeFrom(offset)) {
+            return null;
+        }
+        int count = (int) Math.min(max, lastOffset - offset);
+        List<String> batch = new ArrayList<>(count);
+        for (long next = offset + 1; next <= offset + count; next++) {
+            batch.add(entries[(int) (next % entries.length)]);
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,278 @@
+package server.replication;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import common.ClientInfo;
+import common.FrameReader;
+import common.ProtocolMessage;
+import common.SerializationHelper;
+import common.protocol.ForwardedWriteRequest;
+import common.protocol.ForwardedWriteResponse;
+import server.RequestDispatcher;
+import server.model.User;
+import server.repository.ReplyRepository;
+import server.repository.TopicRepository;
+import server.repository.UserRepository;
+import server.search.SearchIndex;
+import server.service.AuthHandler;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Primary side of replication. Followers connect to the replication port and say which log
+// and offset they have; they then get either the log entries after that offset, or a full
+// snapshot first when the offset is no longer retained or belongs to another log. Each follower
+// has its own thread writing straight to its socket, so a slow follower only fills its own TCP
+// window and never holds up clients or other followers.
+public class ReplicationPrimary {
+    static final long HEARTBEAT_MS = 1000;
+    static final int MAX_STREAM_FRAME_BYTES = 16 * 1024 * 1024;
+    private static final int BATCH_ENTRIES = 1024;
+    private static final int HANDSHAKE_TIMEOUT_MS = 10_000;
+
+    private final ReplicationConfig config;
+    private final ReplicaStore store;
+    private final UserRepository userRepository;
+    private final AuthHandler authHandler;
+    private final ReplicationLog log;
+    private final ReplicationStats stats;
+    private final Consumer<String> logConsumer;
+    private ServerSocket serverSocket;
+    private ScheduledExecutorService snapshotTimer;
+    private volatile boolean running;
+    private int clientPort;
+
+    // Loads the snapshot file, if there is one, so the log continues where it stopped. After a
+    // crash the offsets past the snapshot may already have been streamed, and would now be
+    // reused for other changes, so the log continues under a new id and followers resync.
+    public ReplicationPrimary(ReplicationConfig config, UserRepository userRepository, TopicRepository topicRepository,
+                              ReplyRepository replyRepository, SearchIndex searchIndex, AuthHandler authHandler,
+                              ReplicationStats stats, Consumer<String> logConsumer) throws IOException {
+        this.config = config;
+        this.store = new ReplicaStore(userRepository, topicRepository, replyRepository, searchIndex);
+        this.userRepository = userRepository;
+        this.authHandler = authHandler;
+        this.stats = stats;
+        this.logConsumer = logConsumer;
+        ReplicationFrame saved = config.getSnapshotFile() != null ? store.loadSnapshot(config.getSnapshotFile()) : null;
+        if (saved != null) {
+            String logId = Boolean.TRUE.equals(saved.clean) ? saved.logId : ReplicationLog.newLogId();
+            log = new ReplicationLog(logId, saved.offset, store, stats, config.getLogEntries());
+            logConsumer.accept("[REPLICATION] Loaded snapshot at offset " + saved.offset + " of log " + saved.logId
+                    + (logId.equals(saved.logId) ? "." : ", not written on shutdown; continuing as log " + logId + "."));
+            // A crash before the next periodic write must not find the file still marked clean.
+            writeSnapshotFile(false);
+        } else {
+            log = new ReplicationLog(ReplicationLog.newLogId(), 0, store, stats, config.getLogEntries());
+        }
+        stats.recordApplied(log.getLastOffset(), System.currentTimeMillis());
+        store.setListener(log);
+    }
+
+    public void start(int clientPort) throws IOException {
+        this.clientPort = clientPort;
+        serverSocket = new ServerSocket(config.getPort());
+        running = true;
+        Thread acceptThread = new Thread(this::acceptFollowersLoop, "replication-accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        if (config.getSnapshotFile() != null) {
+            snapshotTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "replication-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long seconds = config.getSnapshotIntervalSeconds();
+            snapshotTimer.scheduleWithFixedDelay(() -> writeSnapshotFile(false), seconds, seconds, TimeUnit.SECONDS);
+        }
+        logConsumer.accept("[REPLICATION] Primary of log " + log.getLogId() + " at offset " + log.getLastOffset()
+                + ", followers connect on port " + config.getPort() + ".");
+    }
+
+    private void acceptFollowersLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread thread = new Thread(() -> serveFollower(socket), "replication-follower");
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                if (running) {
+                    logConsumer.accept("[REPLICATION] Error accepting follower: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serveFollower(Socket socket) {
+        String follower = socket.getInetAddress().getHostAddress() + ":" + socket.getPort();
+        boolean counted = false;
+        try (socket) {
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+            socket.setTcpNoDelay(true);
+            FrameReader in = new FrameReader(socket.getInputStream(), FrameReader.DEFAULT_MAX_FRAME_BYTES);
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024);
+            String helloJson = in.readFrame();
+            ReplicationFrame hello = helloJson != null ? ReplicationFrame.decode(helloJson) : null;
+            if (hello == null || !ReplicationFrame.HELLO.equals(hello.type) || !secretMatches(hello.secret)) {
+                ReplicationFrame refused = ReplicationFrame.of(ReplicationFrame.REFUSED);
+                refused.message = "Invalid replication credentials.";
+                write(out, refused.encode());
+                out.flush();
+                logConsumer.accept("[REPLICATION] Refused follower " + follower + ": wrong secret or handshake.");
+                return;
+            }
+            socket.setSoTimeout(0);
+            stats.followerConnected();
+            counted = true;
+
+            long offset = hello.offset != null ? hello.offset : 0;
+            boolean resume = log.getLogId().equals(hello.logId) && log.canResumeFrom(offset);
+            ReplicationFrame welcome = ReplicationFrame.of(ReplicationFrame.WELCOME);
+            welcome.logId = log.getLogId();
+            welcome.clientPort = clientPort;
+            welcome.offset = log.getLastOffset();
+            write(out, welcome.encode());
+            if (resume) {
+                logConsumer.accept("[REPLICATION] Follower " + follower + " resumes after offset " + offset + ".");
+            } else {
+                offset = sendSnapshot(out);
+                logConsumer.accept("[REPLICATION] Sent snapshot at offset " + offset + " to follower " + follower + ".");
+            }
+            out.flush();
+
+            while (running) {
+                List<String> batch = log.readAfter(offset, BATCH_ENTRIES, HEARTBEAT_MS);
+                if (batch == null) {
+                    logConsumer.accept("[REPLICATION] Follower " + follower + " fell behind the retained log; it will resync.");
+                    return;
+                }
+                // Announces the head of the log, so the follower can tell how far behind it is.
+                ReplicationFrame heartbeat = ReplicationFrame.of(ReplicationFrame.HEARTBEAT);
+                heartbeat.offset = log.getLastOffset();
+                heartbeat.primaryTime = System.currentTimeMillis();
+                write(out, heartbeat.encode());
+                for (String entry : batch) {
+                    write(out, entry);
+                }
+                offset += batch.size();
+                out.flush();
+            }
+        } catch (SocketException e) {
+            logConsumer.accept("[REPLICATION] Follower " + follower + " disconnected: " + e.getMessage());
+        } catch (IOException | JsonParseException e) {
+            logConsumer.accept("[REPLICATION] Error streaming to follower " + follower + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (counted) {
+                stats.followerDisconnected();
+            }
+        }
+    }
+
+    // The offset is taken before the repositories are read, so every change the copy might
+    // have missed is in the entries streamed after it.
+    private long sendSnapshot(OutputStream out) throws IOException {
+        long offset = log.getLastOffset();
+        ReplicationFrame begin = ReplicationFrame.of(ReplicationFrame.SNAPSHOT);
+        begin.logId = log.getLogId();
+        begin.offset = offset;
+        write(out, begin.encode());
+        store.dump(frame -> write(out, frame.encode()));
+        write(out, ReplicationFrame.of(ReplicationFrame.SNAPSHOT_END).encode());
+        stats.recordSnapshotSent();
+        return offset;
+    }
+
+    private static void write(OutputStream out, String frame) throws IOException {
+        out.write(frame.getBytes(StandardCharsets.UTF_8));
+        out.write('\n');
+    }
+
+    private void writeSnapshotFile(boolean clean) {
+        try {
+            long offset = log.getLastOffset();
+            store.writeSnapshot(config.getSnapshotFile(), log.getLogId(), offset, clean);
+        } catch (IOException | RuntimeException e) {
+            logConsumer.accept("[REPLICATION] Could not write snapshot file: " + e.getMessage());
+        }
+    }
+
+    // 170 from a follower: runs the client's write here, under a session opened just for it.
+    public ProtocolMessage handleForwardedWrite(ForwardedWriteRequest request, ClientInfo clientInfo, RequestDispatcher dispatcher) {
+        if (!secretMatches(request.getSecret())) {
+            logConsumer.accept("[REPLICATION] Rejected forwarded write from " + clientInfo.getAddress().getHostAddress() + ": wrong secret.");
+            return ProtocolMessage.createErrorMessage("172", "Invalid replication credentials.");
+        }
+        JsonObject tree;
+        try {
+            tree = request.getRequest() != null ? JsonParser.parseString(request.getRequest()).getAsJsonObject() : null;
+        } catch (JsonParseException | IllegalStateException e) {
+            tree = null;
+        }
+        String opCode = tree != null && tree.has("op") && tree.get("op").isJsonPrimitive() ? tree.get("op").getAsString() : null;
+        if (opCode == null || !ReplicationConfig.WRITE_OPCODES.contains(opCode)) {
+            return ProtocolMessage.createErrorMessage("172", "Not a forwardable write: " + opCode);
+        }
+
+        // Same address and port as the follower's link, so the client list shows one entry for it.
+        ClientInfo actor = new ClientInfo("Replica", clientInfo.getAddress(), clientInfo.getPort());
+        String token = null;
+        User user = request.getUser() != null ? userRepository.findByUsername(request.getUser()) : null;
+        if (user != null) {
+            token = authHandler.openSession(user, actor);
+            tree.addProperty("token", token);
+        } else {
+            // Never let the follower's token string match a session of this server.
+            tree.remove("token");
+        }
+        try {
+            ProtocolMessage response = dispatcher.dispatch(SerializationHelper.decode(tree.toString()), actor);
+            if (response == null) {
+                return ProtocolMessage.createErrorMessage("172", "Unknown operation code: " + opCode);
+            }
+            stats.recordForwardedWrite();
+            return new ForwardedWriteResponse(log.getLastOffset(), SerializationHelper.encode(response));
+        } finally {
+            if (token != null) {
+                authHandler.closeSession(token);
+            }
+        }
+    }
+
+    private boolean secretMatches(String secret) {
+        return secret != null && MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8), config.getSecret().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public ReplicationLog getLog() {
+        return log;
+    }
+
+    public void close() {
+        running = false;
+        if (snapshotTimer != null) {
+            snapshotTimer.shutdownNow();
+            writeSnapshotFile(true);
+        }
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            logConsumer.accept("[REPLICATION] Error closing replication port: " + e.getMessage());
+        }
+    }
+}
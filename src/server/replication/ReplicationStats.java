@@ -0,0 +1,69 @@
+package server.replication;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Replication progress for either role. On a follower the lag is how far the applied state is
+// behind the newest offset the primary has announced, in entries and in age of the data.
+public class ReplicationStats {
+    private volatile long primaryOffset;
+    private volatile long appliedOffset;
+    private volatile long appliedPrimaryTime;
+    private final AtomicInteger followers = new AtomicInteger();
+    private final LongAdder snapshots = new LongAdder();
+    private final LongAdder forwardedWrites = new LongAdder();
+
+    void recordPrimaryOffset(long offset) {
+        primaryOffset = Math.max(primaryOffset, offset);
+    }
+
+    void recordApplied(long offset, long primaryTime) {
+        appliedOffset = offset;
+        appliedPrimaryTime = primaryTime;
+        recordPrimaryOffset(offset);
+    }
+
+    void resetAfterSnapshot(long offset) {
+        appliedOffset = offset;
+        primaryOffset = offset;
+        appliedPrimaryTime = System.currentTimeMillis();
+        snapshots.increment();
+    }
+
+    void recordSnapshotSent() {
+        snapshots.increment();
+    }
+
+    void followerConnected() {
+        followers.incrementAndGet();
+    }
+
+    void followerDisconnected() {
+        followers.decrementAndGet();
+    }
+
+    void recordForwardedWrite() {
+        forwardedWrites.increment();
+    }
+
+    public long getPrimaryOffset() { return primaryOffset; }
+    public long getAppliedOffset() { return appliedOffset; }
+    public int getFollowers() { return followers.get(); }
+    public long getSnapshots() { return snapshots.sum(); }
+    public long getForwardedWrites() { return forwardedWrites.sum(); }
+
+    public long getLagEntries() {
+        return Math.max(0, primaryOffset - appliedOffset);
+    }
+
+    // 0 when caught up; otherwise how long ago the primary wrote the newest entry applied here.
+    public long getLagMillis() {
+        return getLagEntries() == 0 ? 0 : Math.max(0, System.currentTimeMillis() - appliedPrimaryTime);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("applied=%d, primary=%d, lag=%d entries/%d ms, followers=%d, snapshots=%d, forwarded writes=%d",
+                getAppliedOffset(), getPrimaryOffset(), getLagEntries(), getLagMillis(), getFollowers(), getSnapshots(), getForwardedWrites());
+    }
+}
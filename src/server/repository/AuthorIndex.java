@@ -0,0 +1,68 @@
+package server.repository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Author username -> ids of their posts in the order they were saved. Mutations go through
+// compute() so they are atomic per author; readers lock the list itself.
+final class AuthorIndex {
+    private final Map<String, IdList> idsByAuthor = new ConcurrentHashMap<>();
+
+    void add(String author, int id) {
+        idsByAuthor.compute(author, (key, ids) -> {
+            if (ids == null) {
+                ids = new IdList();
+            }
+            synchronized (ids) {
+                ids.add(id);
+            }
+            return ids;
+        });
+    }
+
+    void remove(String author, int id) {
+        idsByAuthor.computeIfPresent(author, (key, ids) -> {
+            synchronized (ids) {
+                ids.remove(id);
+                return ids.size == 0 ? null : ids;
+            }
+        });
+    }
+
+    int[] removeAll(String author) {
+        IdList ids = idsByAuthor.remove(author);
+        if (ids == null) {
+            return IdList.NO_IDS;
+        }
+        synchronized (ids) {
+            return ids.toArray();
+        }
+    }
+
+    int count(String author) {
+        IdList ids = idsByAuthor.get(author);
+        if (ids == null) {
+            return 0;
+        }
+        synchronized (ids) {
+            return ids.size;
+        }
+    }
+
+    // Newest first.
+    int[] page(String author, int offset, int limit) {
+        IdList ids = idsByAuthor.get(author);
+        if (ids == null) {
+            return IdList.NO_IDS;
+        }
+        synchronized (ids) {
+            int from = ids.size - 1 - offset;
+            int length = Math.max(0, Math.min(limit, from + 1));
+            int[] page = new int[length];
+            for (int i = 0; i < length; i++) {
+                page[i] = ids.values[from - i];
+            }
+            return page;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package server.repository;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Entities keyed by small sequential int ids, stored in fixed-size chunks indexed directly by
+// id. Lookups are two array reads with no hashing or boxing; growing only adds chunks, so
+// existing entries are never copied. Reads are lock-free, adding a chunk takes a lock.
+final class DenseIdTable<T> {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private volatile AtomicReferenceArray<T>[] chunks = new AtomicReferenceArray[1];
+    private volatile int maxId;
+
+    T get(int id) {
+        if (id <= 0) {
+            return null;
+        }
+        AtomicReferenceArray<T>[] current = chunks;
+        int chunkIndex = id >>> CHUNK_BITS;
+        if (chunkIndex >= current.length) {
+            return null;
+        }
+        AtomicReferenceArray<T> chunk = current[chunkIndex];
+        return chunk == null ? null : chunk.get(id & CHUNK_MASK);
+    }
+
+    // Returns the previous value.
+    T put(int id, T value) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Ids start at 1: " + id);
+        }
+        T previous = chunkFor(id).getAndSet(id & CHUNK_MASK, value);
+        if (id > maxId) {
+            synchronized (this) {
+                if (id > maxId) {
+                    maxId = id;
+                }
+            }
+        }
+        return previous;
+    }
+
+    // Swaps in value only if the slot still holds expected (compared by identity).
+    boolean replace(int id, T expected, T value) {
+        AtomicReferenceArray<T>[] current = chunks;
+        int chunkIndex = id >>> CHUNK_BITS;
+        if (id <= 0 || chunkIndex >= current.length || current[chunkIndex] == null) {
+            return false;
+        }
+        return current[chunkIndex].compareAndSet(id & CHUNK_MASK, expected, value);
+    }
+
+    T remove(int id) {
+        AtomicReferenceArray<T>[] current = chunks;
+        int chunkIndex = id >>> CHUNK_BITS;
+        if (id <= 0 || chunkIndex >= current.length || current[chunkIndex] == null) {
+            return null;
+        }
+        return current[chunkIndex].getAndSet(id & CHUNK_MASK, null);
+    }
+
+    // Highest id ever stored; iterate 1..maxId() and skip nulls to visit every entry in id order.
+    int maxId() {
+        return maxId;
+    }
+
+    private AtomicReferenceArray<T> chunkFor(int id) {
+        int chunkIndex = id >>> CHUNK_BITS;
+        AtomicReferenceArray<T>[] current = chunks;
+        if (chunkIndex < current.length && current[chunkIndex] != null) {
+            return current[chunkIndex];
+        }
+        synchronized (this) {
+            current = chunks;
+            if (chunkIndex < current.length && current[chunkIndex] != null) {
+                return current[chunkIndex];
+            }
+            // Publish a new directory so readers going through the volatile field see the chunk.
+            int length = chunkIndex < current.length ? current.length : Math.max(chunkIndex + 1, current.length * 2);
+            AtomicReferenceArray<T>[] grown = Arrays.copyOf(current, length);
+            grown[chunkIndex] = new AtomicReferenceArray<>(CHUNK_SIZE);
+            chunks = grown;
+            return grown[chunkIndex];
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package server.repository;
+
+import java.util.Arrays;
+
+// Growable int array of post ids, kept in ascending order. Not thread-safe; owners synchronize
+// on the list.
+final class IdList {
+    static final int[] NO_IDS = new int[0];
+
+    int[] values = new int[4];
+    int size;
+    // Advanced by owners that version the list's contents (ReplyRepository, per topic).
+    long version;
+
+    void add(int id) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        // Ids are handed out in increasing order, so this is an append unless two saves raced.
+        int i = size;
+        while (i > 0 && values[i - 1] > id) {
+            values[i] = values[i - 1];
+            i--;
+        }
+        values[i] = id;
+        size++;
+    }
+
+    void remove(int id) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (values[i] == id) {
+                System.arraycopy(values, i + 1, values, i, size - i - 1);
+                size--;
+                return;
+            }
+        }
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    int[] toArray(int from, int to) {
+        return Arrays.copyOfRange(values, Math.min(from, size), Math.min(to, size));
+    }
+}
@@ -1,50 +1,233 @@
 package server.repository;
 
+import server.jfr.RepositoryMutationEvent;
 import server.model.MessageReply;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
 
 public class ReplyRepository {
-    private final Map<String, List<MessageReply>> topicReplies;
+    private final DenseIdTable<IdList> topicReplies; // topicId -> reply ids in arrival order
+    private final DenseIdTable<MessageReply> repliesById;
+    private final AuthorIndex repliesByAuthor = new AuthorIndex();
     private final AtomicInteger nextReplyId;
+    private volatile RepositoryListener listener = RepositoryListener.NONE;
 
     public ReplyRepository() {
-        topicReplies = new ConcurrentHashMap<>();
+        topicReplies = new DenseIdTable<>();
+        repliesById = new DenseIdTable<>();
         nextReplyId = new AtomicInteger(1);
     }
 
+    public RepositoryListener getListener() {
+        return listener;
+    }
+
+    public void setListener(RepositoryListener listener) {
+        this.listener = listener;
+    }
+
     public void save(MessageReply reply) {
-        topicReplies.computeIfAbsent(reply.getTopicId(), k -> new ArrayList<>()).add(reply);
+        RepositoryMutationEvent event = new RepositoryMutationEvent();
+        event.begin();
+        MessageReply previous = repliesById.put(reply.getId(), reply);
+        if (previous == null) {
+            IdList ids = topicReplies.get(reply.getTopicId());
+            if (ids == null) {
+                synchronized (topicReplies) {
+                    ids = topicReplies.get(reply.getTopicId());
+                    if (ids == null) {
+                        ids = new IdList();
+                        topicReplies.put(reply.getTopicId(), ids);
+                    }
+                }
+            }
+            synchronized (ids) {
+                ids.add(reply.getId());
+            }
+        } else if (!previous.isDeleted()) {
+            repliesByAuthor.remove(previous.getAuthorUserId(), previous.getId());
+        }
+        if (!reply.isDeleted()) {
+            repliesByAuthor.add(reply.getAuthorUserId(), reply.getId());
+        }
+        advanceVersion(reply.getTopicId());
+        nextReplyId.accumulateAndGet(reply.getId() + 1, Math::max);
+        listener.replyChanged(reply.getId());
+        event.complete("reply", "save", reply.getId(), 1);
+    }
+
+    public MessageReply findById(int replyId) {
+        return repliesById.get(replyId);
+    }
+
+    // Live replies by the author, newest first.
+    public List<MessageReply> findByAuthor(String author, int offset, int limit) {
+        List<MessageReply> replies = new ArrayList<>();
+        for (int id : repliesByAuthor.page(author, offset, limit)) {
+            MessageReply reply = repliesById.get(id);
+            if (reply != null) {
+                replies.add(reply);
+            }
+        }
+        return replies;
+    }
+
+    public int countByAuthor(String author) {
+        return repliesByAuthor.count(author);
+    }
+
+    // Swaps in a tombstoned copy; it stays in its topic but leaves the author's list.
+    public MessageReply markDeleted(int replyId) {
+        RepositoryMutationEvent event = new RepositoryMutationEvent();
+        event.begin();
+        MessageReply reply = tombstone(replyId);
+        if (reply != null) {
+            repliesByAuthor.remove(reply.getAuthorUserId(), replyId);
+            advanceVersion(reply.getTopicId());
+            listener.replyChanged(replyId);
+            event.complete("reply", "delete", replyId, 1);
+        }
+        return reply;
+    }
+
+    public List<MessageReply> markAllDeletedByAuthor(String author) {
+        RepositoryMutationEvent event = new RepositoryMutationEvent();
+        event.begin();
+        List<MessageReply> deleted = new ArrayList<>();
+        for (int id : repliesByAuthor.removeAll(author)) {
+            MessageReply reply = tombstone(id);
+            if (reply != null) {
+                deleted.add(reply);
+                advanceVersion(reply.getTopicId());
+                listener.replyChanged(id);
+            }
+        }
+        event.complete("reply", "deleteByAuthor", author, deleted.size());
+        return deleted;
+    }
+
+    // The live reply that was replaced, or null if it is missing or already deleted.
+    private MessageReply tombstone(int replyId) {
+        while (true) {
+            MessageReply reply = repliesById.get(replyId);
+            if (reply == null || reply.isDeleted()) {
+                return null;
+            }
+            if (repliesById.replace(replyId, reply, reply.asDeleted())) {
+                return reply;
+            }
+        }
+    }
+
+    // Every reply, including deleted ones, in id order.
+    public List<MessageReply> findAll() {
+        int maxId = repliesById.maxId();
+        List<MessageReply> replies = new ArrayList<>(maxId);
+        for (int id = 1; id <= maxId; id++) {
+            MessageReply reply = repliesById.get(id);
+            if (reply != null) {
+                replies.add(reply);
+            }
+        }
+        return replies;
+    }
+
+    // Advances after every change to the topic's replies; 0 until it has any. Read it before
+    // the replies, as with TopicRepository.getVersion().
+    public long getVersion(int topicId) {
+        IdList ids = topicReplies.get(topicId);
+        if (ids == null) {
+            return 0;
+        }
+        synchronized (ids) {
+            return ids.version;
+        }
     }
 
-    public List<MessageReply> findByTopicId(String topicId) {
-        return new ArrayList<>(topicReplies.getOrDefault(topicId, new ArrayList<>()));
+    private void advanceVersion(int topicId) {
+        IdList ids = topicReplies.get(topicId);
+        if (ids != null) {
+            synchronized (ids) {
+                ids.version++;
+            }
+        }
+    }
+
+    // The topic's replies in id order.
+    public List<MessageReply> findByTopicId(int topicId) {
+        IdList ids = topicReplies.get(topicId);
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+        int[] replyIds;
+        synchronized (ids) {
+            replyIds = ids.toArray();
+        }
+        return resolve(replyIds);
     }
 
-    public MessageReply findReplyByIdInTopic(String topicId, String replyId) {
-        List<MessageReply> replies = topicReplies.get(topicId);
-        if (replies != null) {
-            return replies.stream()
-                    .filter(r -> r.getId().equals(replyId))
-                    .findFirst()
-                    .orElse(null);
+    // The replies at [offset, offset + limit) of findByTopicId(), without building the whole list.
+    public List<MessageReply> findPageByTopicId(int topicId, int offset, int limit) {
+        IdList ids = topicReplies.get(topicId);
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+        int[] replyIds;
+        synchronized (ids) {
+            replyIds = ids.toArray(offset, (int) Math.min((long) offset + limit, Integer.MAX_VALUE));
         }
-        return null;
+        return resolve(replyIds);
     }
 
-    public void deleteReply(String topicId, String replyId) {
-        List<MessageReply> replies = topicReplies.get(topicId);
-        if (replies != null) {
-            replies.removeIf(reply -> reply.getId().equals(replyId));
+    public int countByTopicId(int topicId) {
+        IdList ids = topicReplies.get(topicId);
+        if (ids == null) {
+            return 0;
+        }
+        synchronized (ids) {
+            return ids.size;
+        }
+    }
+
+    private List<MessageReply> resolve(int[] replyIds) {
+        List<MessageReply> replies = new ArrayList<>(replyIds.length);
+        for (int replyId : replyIds) {
+            MessageReply reply = repliesById.get(replyId);
+            if (reply != null) {
+                replies.add(reply);
+            }
+        }
+        return replies;
+    }
+
+    public MessageReply findReplyByIdInTopic(int topicId, int replyId) {
+        MessageReply reply = repliesById.get(replyId);
+        return reply != null && reply.getTopicId() == topicId ? reply : null;
+    }
+
+    public void deleteReply(int topicId, int replyId) {
+        RepositoryMutationEvent event = new RepositoryMutationEvent();
+        event.begin();
+        IdList ids = topicReplies.get(topicId);
+        if (ids != null) {
+            synchronized (ids) {
+                ids.remove(replyId);
+                ids.version++;
+            }
+        }
+        MessageReply removed = repliesById.remove(replyId);
+        if (removed != null && !removed.isDeleted()) {
+            repliesByAuthor.remove(removed.getAuthorUserId(), replyId);
+        }
+        if (removed != null) {
+            listener.replyChanged(replyId);
+            event.complete("reply", "remove", replyId, 1);
         }
     }
 
-    public String getNextReplyId() {
-        return String.valueOf(nextReplyId.getAndIncrement());
+    public int getNextReplyId() {
+        return nextReplyId.getAndIncrement();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,41 @@
+package server.repository;
+
+// Told after every change to a repository, on the thread that made it. Two threads' calls can
+// arrive in either order, so a listener should re-read the entity's current state rather than
+// trust the order of the calls.
+public interface RepositoryListener {
+    RepositoryListener NONE = new RepositoryListener() {
+    };
+
+    // Tells first, then second.
+    static RepositoryListener both(RepositoryListener first, RepositoryListener second) {
+        return new RepositoryListener() {
+            @Override
+            public void topicChanged(int topicId) {
+                first.topicChanged(topicId);
+                second.topicChanged(topicId);
+            }
+
+            @Override
+            public void replyChanged(int replyId) {
+                first.replyChanged(replyId);
+                second.replyChanged(replyId);
+            }
+
+            @Override
+            public void userChanged(String username) {
+                first.userChanged(username);
+                second.userChanged(username);
+            }
+        };
+    }
+
+    default void topicChanged(int topicId) {
+    }
+
+    default void replyChanged(int replyId) {
+    }
+
+    default void userChanged(String username) {
+    }
+}
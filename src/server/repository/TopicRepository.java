@@ -1,37 +1,180 @@
 package server.repository;
 
+import server.jfr.RepositoryMutationEvent;
 import server.model.Topic;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
 
 public class TopicRepository {
-    private final Map<String, Topic> topicDatabase; // topicId -> Topic object
+    private final DenseIdTable<Topic> topicDatabase; // topicId -> Topic object
     private final AtomicInteger nextTopicId;
+    private final AuthorIndex topicsByAuthor = new AuthorIndex();
+    private final IntPredicate ownsId;
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicInteger count = new AtomicInteger();
+    private volatile RepositoryListener listener = RepositoryListener.NONE;
 
     public TopicRepository() {
-        topicDatabase = new ConcurrentHashMap<>();
+        this(id -> true);
+    }
+
+    // In a cluster each node only allocates and keeps the topic ids it owns, so ids stay unique
+    // across nodes without coordination. The seed topics get ids 1 and 2 everywhere and are kept
+    // by their owners.
+    public TopicRepository(IntPredicate ownsId) {
+        this.ownsId = ownsId;
+        topicDatabase = new DenseIdTable<>();
         nextTopicId = new AtomicInteger(1);
-        topicDatabase.put("1", new Topic("1", "Bem-vindos ao Fórum", "Introdução", "Olá a todos! Este é o primeiro tópico do nosso fórum.", "admin"));
-        topicDatabase.put("2", new Topic("2", "Dicas de Programação Java", "Desenvolvimento", "Compartilhe suas melhores dicas e truques de Java aqui!", "user1"));
+        saveSeed(new Topic(nextTopicId.getAndIncrement(), "Bem-vindos ao Fórum", "Introdução", "Olá a todos! Este é o primeiro tópico do nosso fórum.", "admin"));
+        saveSeed(new Topic(nextTopicId.getAndIncrement(), "Dicas de Programação Java", "Desenvolvimento", "Compartilhe suas melhores dicas e truques de Java aqui!", "user1"));
+    }
+
+    private void saveSeed(Topic topic) {
+        if (ownsId.test(topic.getId())) {
+            save(topic);
+        }
+    }
+
+    public RepositoryListener getListener() {
+        return listener;
+    }
+
+    public void setListener(RepositoryListener listener) {
+        this.listener = listener;
     }
 
     public void save(Topic topic) {
-        topicDatabase.put(topic.getId(), topic);
+        RepositoryMutationEvent event = new RepositoryMutationEvent();
+        event.begin();
+        Topic previous = topicDatabase.put(topic.getId(), topic);
+        if (previous == null) {
+            count.incrementAndGet();
+        }
+        if (previous != null && !previous.isDeleted()) {
+            topicsByAuthor.remove(previous.getAuthorUserId(), previous.getId());
+        }
+        if (!topic.isDeleted()) {
+            topicsByAuthor.add(topic.getAuthorUserId(), topic.getId());
+        }
+        // Topics copied in from another server keep their ids; new ones are numbered after them.
+        nextTopicId.accumulateAndGet(topic.getId() + 1, Math::max);
+        version.incrementAndGet();
+        listener.topicChanged(topic.getId());
+        event.complete("topic", "save", topic.getId(), 1);
+    }
+
+    // Advances after every change to any topic. Read it before the topics, so a list built
+    // during a change is tagged with the older version and fetched again next time.
+    public long getVersion() {
+        return version.get();
     }
 
-    public Topic findById(String id) {
+    public Topic findById(int id) {
         return topicDatabase.get(id);
     }
 
+    // In id (creation) order.
     public List<Topic> findAll() {
-        return new ArrayList<>(topicDatabase.values());
+        int maxId = topicDatabase.maxId();
+        List<Topic> topics = new ArrayList<>(maxId);
+        for (int id = 1; id <= maxId; id++) {
+            Topic topic = topicDatabase.get(id);
+            if (topic != null) {
+                topics.add(topic);
+            }
+        }
+        return topics;
+    }
+
+    // Topics findAll() would return, deleted ones included.
+    public int count() {
+        return count.get();
+    }
+
+    // The topics at [offset, offset + limit) of findAll(), without building the whole list.
+    // Ids are nearly dense, so skipping to offset costs about offset table reads.
+    public List<Topic> findPage(int offset, int limit) {
+        int maxId = topicDatabase.maxId();
+        List<Topic> topics = new ArrayList<>(Math.min(limit, Math.max(maxId - offset, 0)));
+        int skipped = 0;
+        for (int id = 1; id <= maxId && topics.size() < limit; id++) {
+            Topic topic = topicDatabase.get(id);
+            if (topic != null && skipped++ >= offset) {
+                topics.add(topic);
+            }
+        }
+        return topics;
+    }
+
+    // Live topics by the author, newest first.
+    public List<Topic> findByAuthor(String author, int offset, int limit) {
+        List<Topic> topics = new ArrayList<>();
+        for (int id : topicsByAuthor.page(author, offset, limit)) {
+            Topic topic = topicDatabase.get(id);
+            if (topic != null) {
+                topics.add(topic);
+            }
+        }
+        return topics;
+    }
+
+    public int countByAuthor(String author) {
+        return topicsByAuthor.count(author);
+    }
+
+    // Swaps in a tombstoned copy; it stays readable but leaves the author's list.
+    public Topic markDeleted(int id) {
+        RepositoryMutationEvent event = new RepositoryMutationEvent();
+        event.begin();
+        Topic topic = tombstone(id);
+        if (topic != null) {
+            topicsByAuthor.remove(topic.getAuthorUserId(), id);
+            version.incrementAndGet();
+            listener.topicChanged(id);
+            event.complete("topic", "delete", id, 1);
+        }
+        return topic;
+    }
+
+    public List<Topic> markAllDeletedByAuthor(String author) {
+        RepositoryMutationEvent event = new RepositoryMutationEvent();
+        event.begin();
+        List<Topic> deleted = new ArrayList<>();
+        for (int id : topicsByAuthor.removeAll(author)) {
+            Topic topic = tombstone(id);
+            if (topic != null) {
+                deleted.add(topic);
+                version.incrementAndGet();
+                listener.topicChanged(id);
+            }
+        }
+        event.complete("topic", "deleteByAuthor", author, deleted.size());
+        return deleted;
+    }
+
+    // The live topic that was replaced, or null if it is missing or already deleted.
+    private Topic tombstone(int id) {
+        while (true) {
+            Topic topic = topicDatabase.get(id);
+            if (topic == null || topic.isDeleted()) {
+                return null;
+            }
+            if (topicDatabase.replace(id, topic, topic.asDeleted())) {
+                return topic;
+            }
+        }
     }
 
-    public String getNextTopicId() {
-        return String.valueOf(nextTopicId.getAndIncrement());
+    public int getNextTopicId() {
+        while (true) {
+            int id = nextTopicId.getAndIncrement();
+            if (ownsId.test(id)) {
+                return id;
+            }
+        }
     }
-}
\ No newline at end of file
+}
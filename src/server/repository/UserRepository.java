@@ -1,10 +1,13 @@
 package server.repository;
 
+import server.jfr.RepositoryMutationEvent;
 import server.model.User;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 public class UserRepository {
@@ -12,19 +15,71 @@ public class UserRepository {
     private final Map<String, User> usersByUsername = new ConcurrentHashMap<>();
     private final Map<Integer, User> usersById = new ConcurrentHashMap<>();
     private final AtomicInteger idCounter = new AtomicInteger(0);
+    private final AtomicLong version = new AtomicLong();
+    private volatile RepositoryListener listener = RepositoryListener.NONE;
 
     public UserRepository() {
         User adminUser = new User("admin123", "admin123", "admin123", "admin");
         save(adminUser);
     }
 
-    public void save(User user) {
+    public RepositoryListener getListener() {
+        return listener;
+    }
+
+    public void setListener(RepositoryListener listener) {
+        this.listener = listener;
+    }
+
+    // Returns the stored snapshot, which carries the assigned id for new users.
+    public User save(User user) {
+        RepositoryMutationEvent event = new RepositoryMutationEvent();
+        event.begin();
         if (user.getId() == 0) {
-            int newId = idCounter.incrementAndGet();
-            user.setId(newId);
+            user = user.withId(idCounter.incrementAndGet());
+        } else {
+            idCounter.accumulateAndGet(user.getId(), Math::max);
+        }
+        User previous = usersByUsername.put(user.getUsername(), user);
+        if (previous != null && previous.getId() != user.getId()) {
+            usersById.remove(previous.getId(), previous);
         }
-        usersByUsername.put(user.getUsername(), user);
         usersById.put(user.getId(), user);
+        if (previous != null) {
+            version.incrementAndGet();
+        }
+        listener.userChanged(user.getUsername());
+        event.complete("user", "save", user.getUsername(), 1);
+        return user;
+    }
+
+    // Swaps in updated only if current is still the stored snapshot. Readers never block; a
+    // writer that loses the race re-reads and retries instead of overwriting the other change.
+    public boolean replace(User current, User updated) {
+        RepositoryMutationEvent event = new RepositoryMutationEvent();
+        event.begin();
+        boolean[] replaced = new boolean[1];
+        usersByUsername.computeIfPresent(current.getUsername(), (username, stored) -> {
+            if (stored != current) {
+                return stored;
+            }
+            // Under the entry's lock, so the id map sees updates to this user in order.
+            usersById.put(updated.getId(), updated);
+            replaced[0] = true;
+            return updated;
+        });
+        if (replaced[0]) {
+            version.incrementAndGet();
+            listener.userChanged(current.getUsername());
+            event.complete("user", "replace", current.getUsername(), 1);
+        }
+        return replaced[0];
+    }
+
+    // Advances when an existing user changes or is deleted, which is when nicknames shown next
+    // to posts can change; registering a new user leaves it alone.
+    public long getVersion() {
+        return version.get();
     }
 
     public User findByUsername(String username) {
@@ -40,12 +95,21 @@ public class UserRepository {
     }
 
     public void deleteByUsername(String username) {
+        RepositoryMutationEvent event = new RepositoryMutationEvent();
+        event.begin();
         User user = usersByUsername.remove(username);
         if (user != null) {
             usersById.remove(user.getId());
+            version.incrementAndGet();
+            listener.userChanged(username);
+            event.complete("user", "delete", username, 1);
         }
     }
 
+    public List<User> findAll() {
+        return new ArrayList<>(usersByUsername.values());
+    }
+
     public List<String> listAllUsernames() {
         return usersByUsername.values().stream()
                 .map(User::getUsername)
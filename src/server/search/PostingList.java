@@ -0,0 +1,108 @@
+package server.search;
+
+import java.util.Arrays;
+
+// Ascending document ids with their term frequencies, stored as varint deltas. Every
+// SKIP_INTERVAL postings a skip entry records the last id before it and where decoding can
+// resume, so intersecting a rare term with a common one does not decode the whole list.
+final class PostingList {
+    static final int NO_MORE_DOCS = Integer.MAX_VALUE;
+    private static final int SKIP_INTERVAL = 128;
+
+    private byte[] data = new byte[8];
+    private int length;
+    private int count;
+    private int lastDocId = -1;
+    private int[] skipDocIds = new int[0];
+    private int[] skipOffsets = new int[0];
+    private int skipCount;
+
+    // Ids must be added in increasing order.
+    void add(int docId, int termFrequency) {
+        if (count > 0 && count % SKIP_INTERVAL == 0) {
+            if (skipCount == skipDocIds.length) {
+                skipDocIds = Arrays.copyOf(skipDocIds, Math.max(4, skipCount * 2));
+                skipOffsets = Arrays.copyOf(skipOffsets, skipDocIds.length);
+            }
+            skipDocIds[skipCount] = lastDocId;
+            skipOffsets[skipCount] = length;
+            skipCount++;
+        }
+        writeVarInt(docId - lastDocId);
+        writeVarInt(termFrequency);
+        lastDocId = docId;
+        count++;
+    }
+
+    int size() { return count; }
+
+    int sizeInBytes() {
+        return length + skipCount * 8;
+    }
+
+    // Sees the postings present when it was created; callers hold the index read lock.
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    private void writeVarInt(int value) {
+        if (length + 5 > data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        while ((value & ~0x7F) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    final class Cursor {
+        private final int end = count;
+        private int index;
+        private int offset;
+        private int nextSkip;
+        private int docId = -1;
+        private int termFrequency;
+
+        int docId() { return docId; }
+        int termFrequency() { return termFrequency; }
+
+        int next() {
+            if (index == end) {
+                return docId = NO_MORE_DOCS;
+            }
+            docId += readVarInt();
+            termFrequency = readVarInt();
+            index++;
+            return docId;
+        }
+
+        // Moves to the first id >= target.
+        int advance(int target) {
+            while (nextSkip < skipCount && (nextSkip + 1) * SKIP_INTERVAL <= end && skipDocIds[nextSkip] < target) {
+                if ((nextSkip + 1) * SKIP_INTERVAL > index) {
+                    docId = skipDocIds[nextSkip];
+                    offset = skipOffsets[nextSkip];
+                    index = (nextSkip + 1) * SKIP_INTERVAL;
+                }
+                nextSkip++;
+            }
+            while (docId < target) {
+                next();
+            }
+            return docId;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package server.search;
+
+import common.protocol.PostRow;
+import server.model.MessageReply;
+import server.model.Topic;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory inverted index over topics and replies. Every post gets an internal document id in
+// arrival order, so posting lists only ever grow at the end. Deleted or replaced posts are
+// tombstoned rather than removed from the lists. Queries match documents containing every term
+// and rank them with BM25.
+public class SearchIndex {
+    public static final String TOPIC = PostRow.TOPIC;
+    public static final String REPLY = PostRow.REPLY;
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int MAX_TERM_LENGTH = 32;
+    private static final int MAX_QUERY_TERMS = 8;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    // Post id -> document id + 1, 0 when the post is not indexed.
+    private int[] topicDocIds = new int[1024];
+    private int[] replyDocIds = new int[1024];
+    private boolean[] docIsTopic = new boolean[1024];
+    private int[] docPostIds = new int[1024];
+    private int[] docTopicIds = new int[1024];
+    private int[] docLengths = new int[1024];
+    private int docCount;
+    private int liveDocCount;
+    private long liveTermCount;
+
+    public static final class Hit {
+        private final String kind;
+        private final int id;
+        private final int topicId;
+        private final float score;
+
+        Hit(String kind, int id, int topicId, float score) {
+            this.kind = kind;
+            this.id = id;
+            this.topicId = topicId;
+            this.score = score;
+        }
+
+        public String getKind() { return kind; }
+        public int getId() { return id; }
+        public int getTopicId() { return topicId; }
+        public float getScore() { return score; }
+    }
+
+    public void indexTopic(Topic topic) {
+        add(true, topic.getId(), topic.getId(), topic.getTitle() + " " + topic.getSubject() + " " + topic.getContent());
+    }
+
+    public void indexReply(MessageReply reply) {
+        add(false, reply.getId(), reply.getTopicId(), reply.getContent());
+    }
+
+    public void removeTopic(int topicId) {
+        remove(true, topicId);
+    }
+
+    public void removeReply(int replyId) {
+        remove(false, replyId);
+    }
+
+    public List<Hit> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        if (terms.size() > MAX_QUERY_TERMS) {
+            terms = terms.subList(0, MAX_QUERY_TERMS);
+        }
+
+        lock.readLock().lock();
+        try {
+            PostingList.Cursor[] cursors = new PostingList.Cursor[terms.size()];
+            float[] idf = new float[terms.size()];
+            PostingList[] lists = new PostingList[terms.size()];
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = postings.get(terms.get(i));
+                if (lists[i] == null) {
+                    return Collections.emptyList();
+                }
+            }
+            // Rarest term first: it drives the intersection and the others skip ahead to it.
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+            for (int i = 0; i < lists.length; i++) {
+                cursors[i] = lists[i].cursor();
+                float df = lists[i].size();
+                idf[i] = (float) Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+            }
+            float averageLength = liveDocCount == 0 ? 1f : (float) liveTermCount / liveDocCount;
+
+            PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, (a, b) -> Float.compare(a.score, b.score));
+            int candidate = cursors[0].next();
+            candidates:
+            while (candidate != PostingList.NO_MORE_DOCS) {
+                for (int i = 1; i < cursors.length; i++) {
+                    int docId = cursors[i].advance(candidate);
+                    if (docId != candidate) {
+                        // Overshot: move the driving list up to where this term continues.
+                        candidate = docId == PostingList.NO_MORE_DOCS ? docId : cursors[0].advance(docId);
+                        continue candidates;
+                    }
+                }
+
+                if (!deleted.get(candidate)) {
+                    float norm = K1 * (1 - B + B * docLengths[candidate] / averageLength);
+                    float score = 0;
+                    for (int t = 0; t < cursors.length; t++) {
+                        int tf = cursors[t].termFrequency();
+                        score += idf[t] * tf * (K1 + 1) / (tf + norm);
+                    }
+                    if (top.size() < limit || score > top.peek().score) {
+                        top.add(new Hit(docIsTopic[candidate] ? TOPIC : REPLY, docPostIds[candidate], docTopicIds[candidate], score));
+                        if (top.size() > limit) {
+                            top.poll();
+                        }
+                    }
+                }
+                candidate = cursors[0].next();
+            }
+
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort((a, b) -> Float.compare(b.score, a.score));
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getLiveDocumentCount() {
+        lock.readLock().lock();
+        try {
+            return liveDocCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String getStats() {
+        lock.readLock().lock();
+        try {
+            long postingBytes = 0;
+            for (PostingList list : postings.values()) {
+                postingBytes += list.sizeInBytes();
+            }
+            return String.format("documents=%d (%d deleted), terms=%d, posting bytes=%d",
+                    liveDocCount, docCount - liveDocCount, postings.size(), postingBytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Lower-cased, accents stripped ("Fórum" -> "forum"), split on anything that is not a
+    // letter or digit.
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i <= folded.length(); i++) {
+            char c = i < folded.length() ? folded.charAt(i) : ' ';
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (term.length() < MAX_TERM_LENGTH) {
+                    term.append(Character.toLowerCase(c));
+                }
+            } else if (term.length() > 0) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        return terms;
+    }
+
+    private void add(boolean isTopic, int postId, int topicId, String text) {
+        List<String> terms = tokenize(text);
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : terms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        lock.writeLock().lock();
+        try {
+            int previous = docIdFor(isTopic, postId);
+            if (previous >= 0) {
+                tombstone(previous);
+            }
+            int docId = docCount++;
+            if (docId == docLengths.length) {
+                int newSize = docLengths.length * 2;
+                docIsTopic = Arrays.copyOf(docIsTopic, newSize);
+                docPostIds = Arrays.copyOf(docPostIds, newSize);
+                docTopicIds = Arrays.copyOf(docTopicIds, newSize);
+                docLengths = Arrays.copyOf(docLengths, newSize);
+            }
+            docIsTopic[docId] = isTopic;
+            docPostIds[docId] = postId;
+            docTopicIds[docId] = topicId;
+            docLengths[docId] = terms.size();
+            if (isTopic) {
+                topicDocIds = setDocId(topicDocIds, postId, docId);
+            } else {
+                replyDocIds = setDocId(replyDocIds, postId, docId);
+            }
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new PostingList()).add(docId, entry.getValue());
+            }
+            liveDocCount++;
+            liveTermCount += terms.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(boolean isTopic, int postId) {
+        lock.writeLock().lock();
+        try {
+            int docId = docIdFor(isTopic, postId);
+            if (docId >= 0) {
+                tombstone(docId);
+                if (isTopic) {
+                    topicDocIds[postId] = 0;
+                } else {
+                    replyDocIds[postId] = 0;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int docIdFor(boolean isTopic, int postId) {
+        int[] docIds = isTopic ? topicDocIds : replyDocIds;
+        return postId >= 0 && postId < docIds.length ? docIds[postId] - 1 : -1;
+    }
+
+    private static int[] setDocId(int[] docIds, int postId, int docId) {
+        if (postId >= docIds.length) {
+            docIds = Arrays.copyOf(docIds, Math.max(postId + 1, docIds.length * 2));
+        }
+        docIds[postId] = docId + 1;
+        return docIds;
+    }
+
+    private void tombstone(int docId) {
+        if (!deleted.get(docId)) {
+            deleted.set(docId);
+            liveDocCount--;
+            liveTermCount -= docLengths[docId];
+        }
+    }
+}
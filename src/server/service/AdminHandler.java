@@ -2,12 +2,18 @@ package server.service;
 
 import common.ClientInfo;
 import common.ProtocolMessage;
+import common.protocol.AdminChangeUserRequest;
+import common.protocol.AdminDeleteMessageRequest;
+import common.protocol.AdminDeleteUserRequest;
+import common.protocol.ListUsersRequest;
+import common.protocol.UserListResponse;
 import server.model.MessageReply;
 import server.model.Topic;
 import server.model.User;
 import server.repository.ReplyRepository;
 import server.repository.TopicRepository;
 import server.repository.UserRepository;
+import server.search.SearchIndex;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -15,14 +21,16 @@ public class AdminHandler {
     private final UserRepository userRepository;
     private final TopicRepository topicRepository;
     private final ReplyRepository replyRepository;
+    private final SearchIndex searchIndex;
     private final AuthHandler authHandler; // To validate tokens and get user data
     private final Consumer<String> logConsumer;
     private final Consumer<ClientInfo> clientListUpdater;
 
-    public AdminHandler(UserRepository userRepository, TopicRepository topicRepository, ReplyRepository replyRepository, AuthHandler authHandler, Consumer<String> logConsumer, Consumer<ClientInfo> clientListUpdater) {
+    public AdminHandler(UserRepository userRepository, TopicRepository topicRepository, ReplyRepository replyRepository, SearchIndex searchIndex, AuthHandler authHandler, Consumer<String> logConsumer, Consumer<ClientInfo> clientListUpdater) {
         this.userRepository = userRepository;
         this.topicRepository = topicRepository;
         this.replyRepository = replyRepository;
+        this.searchIndex = searchIndex;
         this.authHandler = authHandler;
         this.logConsumer = logConsumer;
         this.clientListUpdater = clientListUpdater;
@@ -37,7 +45,7 @@ public class AdminHandler {
         return user != null && "admin".equals(user.getRole());
     }
 
-    public ProtocolMessage handleChangeUserByAdmin(ProtocolMessage request, ClientInfo clientInfo) {
+    public ProtocolMessage handleChangeUserByAdmin(AdminChangeUserRequest request, ClientInfo clientInfo) {
         String token = request.getToken();
         String targetUser = request.getUser();
         String newNick = request.getNewNickname();
@@ -58,42 +66,47 @@ public class AdminHandler {
             logConsumer.accept("Admin change profile failed: Admin cannot alter their own account via this operation (080).");
             return ProtocolMessage.createErrorMessage("082", "Admin cannot alter their own account via this operation.");
         }
-        if ("admin".equals(userRepository.findByUsername(targetUser).getRole())) {
+        User targetAccount = userRepository.findByUsername(targetUser);
+        if (targetAccount != null && "admin".equals(targetAccount.getRole())) {
             logConsumer.accept("Admin change profile failed: Cannot alter another admin account.");
             return ProtocolMessage.createErrorMessage("082", "Cannot alter another admin account.");
         }
 
 
-        User userToChange = userRepository.findByUsername(targetUser);
-        if (userToChange == null) {
-            logConsumer.accept("Admin change profile failed: Target user '" + targetUser + "' not found.");
-            return ProtocolMessage.createErrorMessage("082", "Target user not found.");
+        if (newNick != null && !newNick.isEmpty() && (newNick.length() < 6 || newNick.length() > 16 || !newNick.matches("[a-zA-Z0-9]+"))) {
+            logConsumer.accept("Admin change profile failed: New nickname must be 6-16 alphanumeric characters.");
+            return ProtocolMessage.createErrorMessage("082", "New nickname must be 6-16 alphanumeric characters.");
+        }
+        if (newPass != null && !newPass.isEmpty() && (newPass.length() < 6 || newPass.length() > 32 || !newPass.matches("[a-zA-Z0-9]+"))) {
+            logConsumer.accept("Admin change profile failed: New password must be 6-32 alphanumeric characters.");
+            return ProtocolMessage.createErrorMessage("082", "New password must be 6-32 alphanumeric characters.");
         }
 
-        boolean changed = false;
-        String oldNick = userToChange.getNickname();
-
-        if (newNick != null && !newNick.isEmpty()) {
-            if (newNick.length() < 6 || newNick.length() > 16 || !newNick.matches("[a-zA-Z0-9]+")) {
-                logConsumer.accept("Admin change profile failed: New nickname must be 6-16 alphanumeric characters.");
-                return ProtocolMessage.createErrorMessage("082", "New nickname must be 6-16 alphanumeric characters.");
+        // Applied to the latest snapshot, so a concurrent self-edit by the user is not lost.
+        User userToChange;
+        User updatedUser;
+        do {
+            userToChange = userRepository.findByUsername(targetUser);
+            if (userToChange == null) {
+                logConsumer.accept("Admin change profile failed: Target user '" + targetUser + "' not found.");
+                return ProtocolMessage.createErrorMessage("082", "Target user not found.");
             }
-            if (!oldNick.equals(newNick)) {
-                userToChange.setNickname(newNick);
-                changed = true;
-                logConsumer.accept("User '" + targetUser + "' nickname changed by admin from '" + oldNick + "' to '" + newNick + "'.");
+            updatedUser = userToChange;
+            if (newNick != null && !newNick.isEmpty() && !userToChange.getNickname().equals(newNick)) {
+                updatedUser = updatedUser.withNickname(newNick);
             }
-        }
-        if (newPass != null && !newPass.isEmpty()) {
-            if (newPass.length() < 6 || newPass.length() > 32 || !newPass.matches("[a-zA-Z0-9]+")) {
-                logConsumer.accept("Admin change profile failed: New password must be 6-32 alphanumeric characters.");
-                return ProtocolMessage.createErrorMessage("082", "New password must be 6-32 alphanumeric characters.");
-            }
-            if (!userToChange.getPassword().equals(newPass)) {
-                userToChange.setPassword(newPass);
-                changed = true;
-                logConsumer.accept("User '" + targetUser + "' password changed by admin.");
+            if (newPass != null && !newPass.isEmpty() && !userToChange.getPassword().equals(newPass)) {
+                updatedUser = updatedUser.withPassword(newPass);
             }
+        } while (updatedUser != userToChange && !userRepository.replace(userToChange, updatedUser));
+
+        boolean changed = updatedUser != userToChange;
+        String oldNick = userToChange.getNickname();
+        if (!oldNick.equals(updatedUser.getNickname())) {
+            logConsumer.accept("User '" + targetUser + "' nickname changed by admin from '" + oldNick + "' to '" + newNick + "'.");
+        }
+        if (!userToChange.getPassword().equals(updatedUser.getPassword())) {
+            logConsumer.accept("User '" + targetUser + "' password changed by admin.");
         }
 
         if (changed) {
@@ -105,7 +118,7 @@ public class AdminHandler {
         }
     }
 
-    public ProtocolMessage handleDeleteUserByAdmin(ProtocolMessage request, ClientInfo clientInfo) {
+    public ProtocolMessage handleDeleteUserByAdmin(AdminDeleteUserRequest request, ClientInfo clientInfo) {
         String token = request.getToken();
         String targetUser = request.getUser();
 
@@ -139,10 +152,15 @@ public class AdminHandler {
         userRepository.deleteByUsername(targetUser);
         logConsumer.accept("User account '" + targetUser + "' deleted by admin '" + clientInfo.getUserId() + "'.");
 
+        if (Boolean.TRUE.equals(request.getDeletePosts())) {
+            int deletedPosts = deletePostsBy(targetUser);
+            logConsumer.accept("Deleted " + deletedPosts + " topics/replies by '" + targetUser + "' along with the account.");
+            return new ProtocolMessage("091", "User account and " + deletedPosts + " posts deleted successfully.");
+        }
         return new ProtocolMessage("091", "User account deleted successfully.");
     }
 
-    public ProtocolMessage handleDeleteMessage(ProtocolMessage request, ClientInfo clientInfo) {
+    public ProtocolMessage handleDeleteMessage(AdminDeleteMessageRequest request, ClientInfo clientInfo) {
         String token = request.getToken();
         String messageId = request.getId();
 
@@ -157,26 +175,20 @@ public class AdminHandler {
             return ProtocolMessage.createErrorMessage("102", "Message ID cannot be null/empty.");
         }
 
-        Topic topicToDelete = topicRepository.findById(messageId);
+        int id = Ids.parse(messageId);
+        Topic topicToDelete = topicRepository.findById(id);
         if (topicToDelete != null) {
-            topicToDelete.markAsDeleted();
+            topicRepository.markDeleted(id);
+            searchIndex.removeTopic(id);
             logConsumer.accept("Topic '" + messageId + "' marked as deleted by admin '" + clientInfo.getUserId() + "'.");
             return new ProtocolMessage("101", "Topic deleted successfully.");
         }
-        MessageReply replyToDelete = null;
-        String parentTopicId = null;
-        for (Topic t : topicRepository.findAll()) {
-            MessageReply foundReply = replyRepository.findReplyByIdInTopic(t.getId(), messageId);
-            if (foundReply != null) {
-                replyToDelete = foundReply;
-                parentTopicId = t.getId();
-                break;
-            }
-        }
 
+        MessageReply replyToDelete = replyRepository.findById(id);
         if (replyToDelete != null) {
-            replyToDelete.markAsDeleted();
-            logConsumer.accept("Reply '" + messageId + "' in topic '" + parentTopicId + "' marked as deleted by admin '" + clientInfo.getUserId() + "'.");
+            replyRepository.markDeleted(id);
+            searchIndex.removeReply(id);
+            logConsumer.accept("Reply '" + messageId + "' in topic '" + replyToDelete.getTopicId() + "' marked as deleted by admin '" + clientInfo.getUserId() + "'.");
             return new ProtocolMessage("101", "Reply deleted successfully.");
         }
 
@@ -184,8 +196,22 @@ public class AdminHandler {
         return ProtocolMessage.createErrorMessage("102", "Message/Topic not found.");
     }
 
+    // Walks the author indexes, so the cost is proportional to the user's own posts.
+    private int deletePostsBy(String username) {
+        int count = 0;
+        for (Topic topic : topicRepository.markAllDeletedByAuthor(username)) {
+            searchIndex.removeTopic(topic.getId());
+            count++;
+        }
+        for (MessageReply reply : replyRepository.markAllDeletedByAuthor(username)) {
+            searchIndex.removeReply(reply.getId());
+            count++;
+        }
+        return count;
+    }
+
     // --- Operation 110: Retornar TODOS Usuários (admin) ---
-    public ProtocolMessage handleListAllUsers(ProtocolMessage request, ClientInfo clientInfo) {
+    public ProtocolMessage handleListAllUsers(ListUsersRequest request, ClientInfo clientInfo) {
         String token = request.getToken();
 
         logConsumer.accept("Admin '" + clientInfo.getUserId() + "' attempting to list all users.");
@@ -196,8 +222,7 @@ public class AdminHandler {
         }
 
         List<String> allUsernames = userRepository.listAllUsernames();
-        ProtocolMessage response = new ProtocolMessage("111");
-        response.setUserList(allUsernames); // Set the user_list field
+        ProtocolMessage response = new UserListResponse(allUsernames.toArray(new String[0]));
         logConsumer.accept("Sent 111 response with " + allUsernames.size() + " users.");
         return response;
     }
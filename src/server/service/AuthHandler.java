@@ -2,30 +2,36 @@ package server.service;
 
 import common.ClientInfo;
 import common.ProtocolMessage;
+import common.protocol.LoginRequest;
+import common.protocol.LoginResponse;
+import common.protocol.LogoutRequest;
+import common.protocol.RegisterRequest;
 import server.model.User;
 import server.repository.UserRepository;
+import server.session.SessionStore;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 public class AuthHandler {
     private final UserRepository userRepository;
-    private final Map<String, ClientInfo> authenticatedUsers;
-    private final AtomicInteger nextTokenId;
+    private final SessionStore sessionStore;
     private final Consumer<String> logConsumer;
     private final Consumer<ClientInfo> clientListUpdater;
+    private volatile Consumer<String> logoutListener = token -> { };
 
-    public AuthHandler(UserRepository userRepository, Map<String, ClientInfo> authenticatedUsers, Consumer<String> logConsumer, Consumer<ClientInfo> clientListUpdater) {
+    public AuthHandler(UserRepository userRepository, SessionStore sessionStore, Consumer<String> logConsumer, Consumer<ClientInfo> clientListUpdater) {
         this.userRepository = userRepository;
-        this.authenticatedUsers = authenticatedUsers;
-        this.nextTokenId = new AtomicInteger(1);
+        this.sessionStore = sessionStore;
         this.logConsumer = logConsumer;
         this.clientListUpdater = clientListUpdater;
     }
 
-    public ProtocolMessage handleLogin(ProtocolMessage request, ClientInfo clientInfo) {
+    // Told the token of every session ended by 020.
+    public void setLogoutListener(Consumer<String> logoutListener) {
+        this.logoutListener = logoutListener;
+    }
+
+    public ProtocolMessage handleLogin(LoginRequest request, ClientInfo clientInfo) {
         String user = request.getUser();
         String pass = request.getPassword();
 
@@ -47,23 +53,15 @@ public class AuthHandler {
             return ProtocolMessage.createErrorMessage("002", "Senha errada.");
         }
 
-        String rolePrefix = "common".equals(storedUser.getRole()) ? "c" : "a";
-        String token = rolePrefix + String.format("%05d", nextTokenId.getAndIncrement());
-
-        clientInfo.setUserId(user);
-        clientInfo.setName(storedUser.getNickname());
-        clientInfo.setToken(token);
-        authenticatedUsers.put(token, clientInfo);
+        String token = openSession(storedUser, clientInfo);
 
         clientListUpdater.accept(clientInfo);
         logConsumer.accept("Client '" + user + "' (ID: " + storedUser.getId() + ") logged in with token: " + token);
 
-        ProtocolMessage response = new ProtocolMessage("001");
-        response.setToken(token);
-        return response;
+        return new LoginResponse(token);
     }
 
-    public ProtocolMessage handleRegister(ProtocolMessage request, ClientInfo clientInfo) {
+    public ProtocolMessage handleRegister(RegisterRequest request, ClientInfo clientInfo) {
         String user = request.getUser();
         String nick = request.getNickname();
         String pass = request.getPassword();
@@ -80,34 +78,74 @@ public class AuthHandler {
             return ProtocolMessage.createErrorMessage("012", "Formato de Usuario, Nick ou Senha errados.");
         }
 
-        User newUser = new User(user, pass, nick, "common");
-        userRepository.save(newUser);
+        User newUser = userRepository.save(new User(user, pass, nick, "common"));
 
         logConsumer.accept("New user registered: '" + user + "' (ID: " + newUser.getId() + ")");
 
         return new ProtocolMessage("011", "Cadastro realizado com sucesso.");
     }
 
-    public ProtocolMessage handleLogout(ProtocolMessage request, ClientInfo clientInfo) {
+    public ProtocolMessage handleLogout(LogoutRequest request, ClientInfo clientInfo) {
         String user = request.getUser();
         String token = request.getToken();
 
         logConsumer.accept("Attempting logout for user: '" + user + "' with token: '" + token + "'");
 
-        ClientInfo authClient = authenticatedUsers.get(token);
+        ClientInfo authClient = sessionStore.get(token);
         if (authClient == null || !authClient.getUserId().equals(user)) {
             return ProtocolMessage.createErrorMessage("022", "Token pertence a outro usuario ou nao existe.");
         }
 
-        authenticatedUsers.remove(token);
+        sessionStore.remove(token);
+        logoutListener.accept(token);
         clientListUpdater.accept(clientInfo);
         logConsumer.accept("Client '" + user + "' logged out. Token: " + token + " removed.");
 
         return new ProtocolMessage("021", "Logout realizado com sucesso.");
     }
 
+    // Issues a token for a user whose credentials were already checked and binds it to clientInfo.
+    public String openSession(User user, ClientInfo clientInfo) {
+        String token = sessionStore.newToken("common".equals(user.getRole()) ? "c" : "a");
+
+        clientInfo.setUserId(user.getUsername());
+        clientInfo.setName(user.getNickname());
+        clientInfo.setToken(token);
+        sessionStore.put(token, clientInfo);
+        return token;
+    }
+
+    public void closeSession(String token) {
+        sessionStore.remove(token);
+    }
+
+    // A token issued to an earlier connection, possibly on another server or before a restart:
+    // binds it to this connection as if the client had logged in here. Only sessions, not
+    // accounts, are shared, so this fails on a server that does not have the user.
+    public boolean resumeSession(String token, ClientInfo clientInfo) {
+        ClientInfo session = sessionStore.get(token);
+        if (session == null) {
+            return false;
+        }
+        User storedUser = userRepository.findByUsername(session.getUserId());
+        if (storedUser == null) {
+            return false;
+        }
+        clientInfo.setUserId(storedUser.getUsername());
+        clientInfo.setName(storedUser.getNickname());
+        clientInfo.setToken(token);
+        clientListUpdater.accept(clientInfo);
+        logConsumer.accept("Client '" + storedUser.getUsername() + "' resumed session with token: " + token);
+        return true;
+    }
+
     public ClientInfo getAuthenticatedClientInfo(String token) {
-        return authenticatedUsers.get(token);
+        return sessionStore.get(token);
+    }
+
+    // See UserRepository.getVersion().
+    public long getUserVersion() {
+        return userRepository.getVersion();
     }
 
     public User getUserByUsername(String username) {
@@ -0,0 +1,27 @@
+package server.service;
+
+// Post ids are ints inside the server and decimal strings on the wire; requests are converted
+// here, once, before they reach the repositories.
+public final class Ids {
+    public static final int NONE = 0;
+
+    private Ids() {
+    }
+
+    // NONE for anything that is not a positive int, so unknown and malformed ids are both
+    // just "not found".
+    public static int parse(String id) {
+        if (id == null || id.isEmpty() || id.length() > 10) {
+            return NONE;
+        }
+        long value = 0;
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return NONE;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value > Integer.MAX_VALUE ? NONE : (int) value;
+    }
+}
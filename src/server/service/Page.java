@@ -0,0 +1,43 @@
+package server.service;
+
+import java.util.Arrays;
+
+// The rows [from, to) of a list of total rows that a request's offset and limit select; a
+// request without limit selects the whole list. Limits above MAX_LIMIT are cut down to it.
+public final class Page {
+    public static final int MAX_LIMIT = 100;
+    // For requests that always page, such as 140, when the client sends no limit.
+    public static final int DEFAULT_LIMIT = 20;
+
+    private final int from;
+    private final int to;
+    private final boolean paged;
+
+    private Page(int from, int to, boolean paged) {
+        this.from = from;
+        this.to = to;
+        this.paged = paged;
+    }
+
+    // null when offset is negative or limit is not positive.
+    public static Page of(Integer offset, Integer limit, int total) {
+        if (limit == null) {
+            return new Page(0, total, false);
+        }
+        int start = offset == null ? 0 : offset;
+        if (start < 0 || limit <= 0) {
+            return null;
+        }
+        int from = Math.min(start, total);
+        return new Page(from, (int) Math.min((long) from + Math.min(limit, MAX_LIMIT), total), true);
+    }
+
+    public int getFrom() { return from; }
+    public int getTo() { return to; }
+    public int size() { return to - from; }
+    public boolean isPaged() { return paged; }
+
+    public <T> T[] slice(T[] rows) {
+        return paged ? Arrays.copyOfRange(rows, Math.min(from, rows.length), Math.min(to, rows.length)) : rows;
+    }
+}
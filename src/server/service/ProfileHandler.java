@@ -2,6 +2,8 @@ package server.service;
 
 import common.ClientInfo;
 import common.ProtocolMessage;
+import common.protocol.ChangeProfileRequest;
+import common.protocol.DeleteAccountRequest;
 import server.model.User;
 import server.repository.UserRepository;
 
@@ -20,7 +22,7 @@ public class ProfileHandler {
         this.clientListUpdater = clientListUpdater;
     }
 
-    public ProtocolMessage handleChangeProfile(ProtocolMessage request, ClientInfo clientInfo) {
+    public ProtocolMessage handleChangeProfile(ChangeProfileRequest request, ClientInfo clientInfo) {
         String user = request.getUser();
         String pass = request.getPassword();
         String newNick = request.getNewNickname();
@@ -41,36 +43,41 @@ public class ProfileHandler {
             return ProtocolMessage.createErrorMessage("032", "Admin user cannot alter their own profile via this operation.");
         }
 
-        User storedUser = userRepository.findByUsername(user);
-        if (storedUser == null || !storedUser.getPassword().equals(pass)) {
-            logConsumer.accept("Profile change failed: Incorrect current password or user does not exist.");
-            return ProtocolMessage.createErrorMessage("032", "Incorrect current password or user does not exist.");
+        if (newNick != null && !newNick.isEmpty() && (newNick.length() < 6 || newNick.length() > 16 || !newNick.matches("[a-zA-Z0-9]+"))) {
+            logConsumer.accept("Profile change failed: New nickname must be 6-16 alphanumeric characters.");
+            return ProtocolMessage.createErrorMessage("032", "New nickname must be 6-16 alphanumeric characters.");
+        }
+        if (newPass != null && !newPass.isEmpty() && (newPass.length() < 6 || newPass.length() > 32 || !newPass.matches("[a-zA-Z0-9]+"))) {
+            logConsumer.accept("Profile change failed: New password must be 6-32 alphanumeric characters.");
+            return ProtocolMessage.createErrorMessage("032", "New password must be 6-32 alphanumeric characters.");
         }
 
-        boolean changed = false;
-        String oldNick = storedUser.getNickname();
-        if (newNick != null && !newNick.isEmpty()) {
-            if (newNick.length() < 6 || newNick.length() > 16 || !newNick.matches("[a-zA-Z0-9]+")) {
-                logConsumer.accept("Profile change failed: New nickname must be 6-16 alphanumeric characters.");
-                return ProtocolMessage.createErrorMessage("032", "New nickname must be 6-16 alphanumeric characters.");
+        // Re-validated against the latest snapshot whenever a concurrent edit wins the swap.
+        User storedUser;
+        User updatedUser;
+        do {
+            storedUser = userRepository.findByUsername(user);
+            if (storedUser == null || !storedUser.getPassword().equals(pass)) {
+                logConsumer.accept("Profile change failed: Incorrect current password or user does not exist.");
+                return ProtocolMessage.createErrorMessage("032", "Incorrect current password or user does not exist.");
             }
-            if (!oldNick.equals(newNick)) {
-                storedUser.setNickname(newNick);
-                clientInfo.setName(newNick);
-                changed = true;
-                logConsumer.accept("User '" + user + "' changed nickname from '" + oldNick + "' to '" + newNick + "'.");
+            updatedUser = storedUser;
+            if (newNick != null && !newNick.isEmpty() && !storedUser.getNickname().equals(newNick)) {
+                updatedUser = updatedUser.withNickname(newNick);
             }
-        }
-        if (newPass != null && !newPass.isEmpty()) {
-            if (newPass.length() < 6 || newPass.length() > 32 || !newPass.matches("[a-zA-Z0-9]+")) {
-                logConsumer.accept("Profile change failed: New password must be 6-32 alphanumeric characters.");
-                return ProtocolMessage.createErrorMessage("032", "New password must be 6-32 alphanumeric characters.");
-            }
-            if (!storedUser.getPassword().equals(newPass)) {
-                storedUser.setPassword(newPass);
-                changed = true;
-                logConsumer.accept("User '" + user + "' changed password.");
+            if (newPass != null && !newPass.isEmpty() && !storedUser.getPassword().equals(newPass)) {
+                updatedUser = updatedUser.withPassword(newPass);
             }
+        } while (updatedUser != storedUser && !userRepository.replace(storedUser, updatedUser));
+
+        boolean changed = updatedUser != storedUser;
+        String oldNick = storedUser.getNickname();
+        if (!oldNick.equals(updatedUser.getNickname())) {
+            clientInfo.setName(newNick);
+            logConsumer.accept("User '" + user + "' changed nickname from '" + oldNick + "' to '" + newNick + "'.");
+        }
+        if (!storedUser.getPassword().equals(updatedUser.getPassword())) {
+            logConsumer.accept("User '" + user + "' changed password.");
         }
 
         if (changed) {
@@ -83,7 +90,7 @@ public class ProfileHandler {
         }
     }
 
-    public ProtocolMessage handleDeleteAccount(ProtocolMessage request, ClientInfo clientInfo) {
+    public ProtocolMessage handleDeleteAccount(DeleteAccountRequest request, ClientInfo clientInfo) {
         String user = request.getUser();
         String token = request.getToken();
         String pass = request.getPassword();
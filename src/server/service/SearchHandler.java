@@ -0,0 +1,100 @@
+package server.service;
+
+import common.ClientInfo;
+import common.ProtocolMessage;
+import common.protocol.PostRow;
+import common.protocol.SearchRequest;
+import common.protocol.SearchResponse;
+import server.model.MessageReply;
+import server.model.Topic;
+import server.model.User;
+import server.repository.ReplyRepository;
+import server.repository.TopicRepository;
+import server.search.SearchIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class SearchHandler {
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 100;
+    private static final int MAX_QUERY_LENGTH = 200;
+    private static final int SNIPPET_LENGTH = 120;
+
+    private final SearchIndex searchIndex;
+    private final TopicRepository topicRepository;
+    private final ReplyRepository replyRepository;
+    private final AuthHandler authHandler;
+    private final Consumer<String> logConsumer;
+
+    public SearchHandler(SearchIndex searchIndex, TopicRepository topicRepository, ReplyRepository replyRepository, AuthHandler authHandler, Consumer<String> logConsumer) {
+        this.searchIndex = searchIndex;
+        this.topicRepository = topicRepository;
+        this.replyRepository = replyRepository;
+        this.authHandler = authHandler;
+        this.logConsumer = logConsumer;
+    }
+
+    // Builds the index from what the repositories already hold; handlers keep it current after.
+    public void indexExistingContent() {
+        for (Topic topic : topicRepository.findAll()) {
+            searchIndex.indexTopic(topic);
+            for (MessageReply reply : replyRepository.findByTopicId(topic.getId())) {
+                searchIndex.indexReply(reply);
+            }
+        }
+        logConsumer.accept("Search index built: " + searchIndex.getStats());
+    }
+
+    public ProtocolMessage handleSearch(SearchRequest request, ClientInfo clientInfo) {
+        String query = request.getQuery();
+        if (query == null || query.trim().isEmpty()) {
+            return ProtocolMessage.createErrorMessage("132", "Search query cannot be null/empty.");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            return ProtocolMessage.createErrorMessage("132", "Search query is too long.");
+        }
+        int limit = request.getLimit() == null ? DEFAULT_LIMIT : Math.max(1, Math.min(request.getLimit(), MAX_LIMIT));
+
+        long start = System.nanoTime();
+        List<SearchIndex.Hit> hits = searchIndex.search(query, limit);
+        long elapsedMicros = (System.nanoTime() - start) / 1000;
+
+        // Only the top hits are looked up, so the cost does not depend on forum size.
+        List<PostRow> rows = new ArrayList<>(hits.size());
+        for (SearchIndex.Hit hit : hits) {
+            Topic topic = topicRepository.findById(hit.getTopicId());
+            if (topic == null) {
+                continue;
+            }
+            String id = String.valueOf(hit.getId());
+            String topicId = String.valueOf(hit.getTopicId());
+            if (SearchIndex.TOPIC.equals(hit.getKind())) {
+                rows.add(new PostRow(hit.getKind(), id, topicId, topic.getTitle(),
+                        nicknameOf(topic.getAuthorUserId()), snippet(topic.getContent())));
+            } else {
+                MessageReply reply = replyRepository.findById(hit.getId());
+                if (reply != null) {
+                    rows.add(new PostRow(hit.getKind(), id, topicId, topic.getTitle(),
+                            nicknameOf(reply.getAuthorUserId()), snippet(reply.getContent())));
+                }
+            }
+        }
+
+        logConsumer.accept("Search '" + query + "' by '" + clientInfo.getName() + "': " + rows.size() + " results in " + elapsedMicros + " us.");
+        return new SearchResponse(query, rows.toArray(new PostRow[0]));
+    }
+
+    private String nicknameOf(String username) {
+        User user = authHandler.getUserByUsername(username);
+        return user != null ? user.getNickname() : "Unknown";
+    }
+
+    private static String snippet(String content) {
+        if (content == null || content.length() <= SNIPPET_LENGTH) {
+            return content;
+        }
+        return content.substring(0, SNIPPET_LENGTH) + "...";
+    }
+}
@@ -0,0 +1,64 @@
+package server.service;
+
+import common.ClientInfo;
+import common.ProtocolMessage;
+import common.protocol.StatsRequest;
+import common.protocol.StatsResponse;
+import server.RequestStats;
+import server.model.User;
+import server.replication.ReplicationStats;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+// Snapshots of the server's counters for the dashboard, read in-process by the server window or
+// over the protocol (200, admins only) by a dashboard attached from elsewhere. Everything read
+// here is a LongAdder sum, a size or an MXBean value, so taking a snapshot never blocks
+// request threads.
+public class StatsHandler {
+    private final RequestStats requestStats;
+    private final IntSupplier connections;
+    private final IntSupplier sessions;
+    private final IntSupplier outboundQueue;
+    private final ReplicationStats replication;
+    private final AuthHandler authHandler;
+    private final Consumer<String> logConsumer;
+
+    // replication is null when the server does not replicate.
+    public StatsHandler(RequestStats requestStats, IntSupplier connections, IntSupplier sessions, IntSupplier outboundQueue,
+                        ReplicationStats replication, AuthHandler authHandler, Consumer<String> logConsumer) {
+        this.requestStats = requestStats;
+        this.connections = connections;
+        this.sessions = sessions;
+        this.outboundQueue = outboundQueue;
+        this.replication = replication;
+        this.authHandler = authHandler;
+        this.logConsumer = logConsumer;
+    }
+
+    public StatsResponse collect() {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long gcCount = 0;
+        long gcMillis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += Math.max(collector.getCollectionCount(), 0);
+            gcMillis += Math.max(collector.getCollectionTime(), 0);
+        }
+        return new StatsResponse(System.currentTimeMillis(), connections.getAsInt(), sessions.getAsInt(), outboundQueue.getAsInt(),
+                requestStats.getRequestCounts(), requestStats.getLatencyCounts(), heap.getUsed(), heap.getMax(), gcCount, gcMillis,
+                replication != null ? replication.getLagEntries() : null, replication != null ? replication.getLagMillis() : null);
+    }
+
+    public ProtocolMessage handleStats(StatsRequest request, ClientInfo clientInfo) {
+        String token = request.getToken();
+        ClientInfo client = token == null || token.isEmpty() ? null : authHandler.getAuthenticatedClientInfo(token);
+        User user = client != null ? authHandler.getUserByUsername(client.getUserId()) : null;
+        if (user == null || !"admin".equals(user.getRole())) {
+            logConsumer.accept("Stats request failed: Invalid or non-admin token.");
+            return ProtocolMessage.createErrorMessage("202", "Invalid or non-admin token.");
+        }
+        return collect();
+    }
+}
@@ -1,38 +1,57 @@
 package server.service;
 
 import common.ClientInfo;
+import common.FrameWriter;
 import common.ProtocolMessage;
 import common.SerializationHelper;
+import common.protocol.CreateTopicRequest;
+import common.protocol.GetRepliesRequest;
+import common.protocol.GetTopicsRequest;
+import common.protocol.MyPostsRequest;
+import common.protocol.MyPostsResponse;
+import common.protocol.NotModifiedResponse;
+import common.protocol.PostRow;
+import common.protocol.ReplyListResponse;
+import common.protocol.ReplyRequest;
+import common.protocol.ReplyRow;
+import common.protocol.TopicListResponse;
+import common.protocol.TopicRow;
 import server.model.MessageReply;
 import server.model.Topic;
 import server.model.User;
 import server.repository.ReplyRepository;
 import server.repository.TopicRepository;
+import server.search.SearchIndex;
 import java.io.IOException;
-import java.io.PrintWriter; //
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 public class TopicHandler {
     private final TopicRepository topicRepository;
     private final ReplyRepository replyRepository;
+    private final SearchIndex searchIndex;
     private final AuthHandler authHandler;
     private final Consumer<String> logConsumer;
-    private final Map<String, PrintWriter> activeClientOutputs;
+    private final Map<String, FrameWriter> activeClientOutputs;
+    private final Map<String, String> remoteNicknames = new ConcurrentHashMap<>();
+    // Repository versions restart with the server; the epoch keeps a version cached by a client
+    // from an earlier run from matching a different list.
+    private final String versionEpoch = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
 
-    public TopicHandler(TopicRepository topicRepository, ReplyRepository replyRepository, AuthHandler authHandler, Consumer<String> logConsumer, Map<String, PrintWriter> activeClientOutputs) {
+    public TopicHandler(TopicRepository topicRepository, ReplyRepository replyRepository, SearchIndex searchIndex, AuthHandler authHandler, Consumer<String> logConsumer, Map<String, FrameWriter> activeClientOutputs) {
         this.topicRepository = topicRepository;
         this.replyRepository = replyRepository;
+        this.searchIndex = searchIndex;
         this.authHandler = authHandler;
         this.logConsumer = logConsumer;
         this.activeClientOutputs = activeClientOutputs;
     }
 
-    public ProtocolMessage handleCreateTopic(ProtocolMessage request, ClientInfo clientInfo) {
+    public ProtocolMessage handleCreateTopic(CreateTopicRequest request, ClientInfo clientInfo) {
         String token = request.getToken();
         String title = request.getTitle();
         String subject = request.getSubject();
@@ -50,21 +69,21 @@ public class TopicHandler {
             return ProtocolMessage.createErrorMessage("052", "Invalid or expired token.");
         }
 
-        String topicId = topicRepository.getNextTopicId();
+        int topicId = topicRepository.getNextTopicId();
         Topic newTopic = new Topic(topicId, title, subject, msgContent, authClient.getUserId());
         topicRepository.save(newTopic);
+        searchIndex.indexTopic(newTopic);
 
         logConsumer.accept("New topic created by " + authClient.getUserId() + ": '" + title + "' (ID: " + topicId + ")");
 
         return new ProtocolMessage("051", "Topic created successfully!");
     }
 
-    public ProtocolMessage handleReplyMessage(ProtocolMessage request, ClientInfo clientInfo) {
+    public ProtocolMessage handleReplyMessage(ReplyRequest request, ClientInfo clientInfo) {
         String token = request.getToken();
-        String topicId = request.getId();
         String msgContent = request.getMessageContent();
 
-        if (token == null || token.isEmpty() || topicId == null || topicId.isEmpty() || msgContent == null || msgContent.isEmpty()) {
+        if (token == null || token.isEmpty() || request.getId() == null || request.getId().isEmpty() || msgContent == null || msgContent.isEmpty()) {
             return ProtocolMessage.createErrorMessage("062", "Token, Topic ID, or message cannot be null/empty.");
         }
 
@@ -73,75 +92,172 @@ public class TopicHandler {
             return ProtocolMessage.createErrorMessage("062", "Invalid or expired token.");
         }
 
+        return postReply(Ids.parse(request.getId()), authClient.getUserId(), msgContent);
+    }
+
+    // The part of 060 after authentication; cluster nodes call it directly for replies that
+    // were authenticated by another node.
+    public ProtocolMessage postReply(int topicId, String author, String msgContent) {
         if (topicRepository.findById(topicId) == null) {
             return ProtocolMessage.createErrorMessage("062", "Topic not found.");
         }
 
-        String replyId = replyRepository.getNextReplyId();
-        MessageReply newReply = new MessageReply(replyId, topicId, authClient.getUserId(), msgContent);
+        int replyId = replyRepository.getNextReplyId();
+        MessageReply newReply = new MessageReply(replyId, topicId, author, msgContent);
         replyRepository.save(newReply);
+        searchIndex.indexReply(newReply);
 
-        logConsumer.accept("New reply created by " + authClient.getUserId() + " to topic '" + topicId + "' (Reply ID: " + replyId + ")");
+        logConsumer.accept("New reply created by " + author + " to topic '" + topicId + "' (Reply ID: " + replyId + ")");
 
         return new ProtocolMessage("061", "Reply sent successfully!");
     }
 
-    public ProtocolMessage handleGetReplies(ProtocolMessage request, ClientInfo clientInfo) {
-        String topicId = request.getId();
+    public ProtocolMessage handleGetReplies(GetRepliesRequest request, ClientInfo clientInfo) {
+        String requestedId = request.getId();
 
-        if (topicId == null || topicId.isEmpty()) {
+        if (requestedId == null || requestedId.isEmpty()) {
             return ProtocolMessage.createErrorMessage("072", "Topic ID cannot be null/empty.");
         }
 
+        int topicId = Ids.parse(requestedId);
         if (topicRepository.findById(topicId) == null) {
             return ProtocolMessage.createErrorMessage("072", "Topic not found.");
         }
 
-        List<MessageReply> replies = replyRepository.findByTopicId(topicId);
-        replies.sort(Comparator.comparingLong(MessageReply::getTimestamp));
+        String version = listVersion(replyRepository.getVersion(topicId));
+        int total = replyRepository.countByTopicId(topicId);
+        Page page = Page.of(request.getOffset(), request.getLimit(), total);
+        if (page == null) {
+            return ProtocolMessage.createErrorMessage("072", "Offset must be >= 0 and limit > 0.");
+        }
+        if (version.equals(request.getIfVersion())) {
+            return new NotModifiedResponse(NotModifiedResponse.REPLIES_OPCODE, String.valueOf(topicId), version);
+        }
+
+        // Reply ids are handed out in posting order, so the id-ordered list is already sorted by
+        // time and only the page's replies are looked up.
+        List<MessageReply> replies = page.isPaged()
+                ? replyRepository.findPageByTopicId(topicId, page.getFrom(), page.size())
+                : replyRepository.findByTopicId(topicId);
+        ReplyRow[] rows = new ReplyRow[replies.size()];
+        for (int i = 0; i < rows.length; i++) {
+            MessageReply reply = replies.get(i);
+            rows[i] = new ReplyRow(String.valueOf(reply.getId()), nicknameOf(reply.getAuthorUserId()), reply.getContent());
+        }
+        if (page.isPaged()) {
+            return new ReplyListResponse(String.valueOf(topicId), rows, version, page.getFrom(), total);
+        }
+        return new ReplyListResponse(String.valueOf(topicId), rows, version);
+    }
+
+    public ProtocolMessage handleGetTopics(GetTopicsRequest request, ClientInfo clientInfo) {
+        String version = listVersion(topicRepository.getVersion());
+        int total = topicRepository.count();
+        Page page = Page.of(request.getOffset(), request.getLimit(), total);
+        if (page == null) {
+            return ProtocolMessage.createErrorMessage("077", "Offset must be >= 0 and limit > 0.");
+        }
+        if (version.equals(request.getIfVersion())) {
+            logConsumer.accept("Sent 078: topic list unchanged since " + version + ".");
+            return new NotModifiedResponse(NotModifiedResponse.TOPICS_OPCODE, null, version);
+        }
+        TopicRow[] rows = topicRows(page.isPaged() ? topicRepository.findPage(page.getFrom(), page.size()) : topicRepository.findAll());
+        if (page.isPaged()) {
+            logConsumer.accept("Sent 076 page with " + rows.length + " of " + total + " topics from offset " + page.getFrom() + ".");
+            return new TopicListResponse(rows, version, page.getFrom(), total);
+        }
+
+        logConsumer.accept("Sent 076 response with " + rows.length + " topics.");
+        return new TopicListResponse(rows, version);
+    }
+
+    // The first limit topics in id order, or all of them for null, with total set to all of
+    // them. A cluster page at offset needs offset + limit rows from each node, so limit is not
+    // capped like a client's.
+    public TopicListResponse getFirstTopics(Integer limit) {
+        int total = topicRepository.count();
+        TopicRow[] rows = topicRows(limit == null ? topicRepository.findAll() : topicRepository.findPage(0, limit));
+        return new TopicListResponse(rows, null, 0, total);
+    }
+
+    private TopicRow[] topicRows(List<Topic> topics) {
+        TopicRow[] rows = new TopicRow[topics.size()];
+        for (int i = 0; i < rows.length; i++) {
+            Topic topic = topics.get(i);
+            rows[i] = new TopicRow(String.valueOf(topic.getId()), topic.getTitle(), topic.getSubject(), nicknameOf(topic.getAuthorUserId()), topic.getContent());
+        }
+        return rows;
+    }
+
+    public ProtocolMessage handleGetMyPosts(MyPostsRequest request, ClientInfo clientInfo) {
+        String token = request.getToken();
+        String kind = request.getKind() == null ? PostRow.TOPIC : request.getKind();
+        // 140 always pages, so a request without limit gets the default page instead of every post.
+        Integer limit = request.getLimit() == null ? Page.DEFAULT_LIMIT : request.getLimit();
+
+        if (token == null || token.isEmpty()) {
+            return ProtocolMessage.createErrorMessage("142", "Token cannot be null/empty.");
+        }
+        if (!PostRow.TOPIC.equals(kind) && !PostRow.REPLY.equals(kind)) {
+            return ProtocolMessage.createErrorMessage("142", "Kind must be 'topic' or 'reply'.");
+        }
+        if (Page.of(request.getOffset(), limit, 0) == null) {
+            return ProtocolMessage.createErrorMessage("142", "Offset must be >= 0 and limit > 0.");
+        }
+
+        ClientInfo authClient = authHandler.getAuthenticatedClientInfo(token);
+        if (authClient == null || !authClient.getUserId().equals(clientInfo.getUserId())) {
+            return ProtocolMessage.createErrorMessage("142", "Invalid or expired token.");
+        }
+        String author = authClient.getUserId();
+        String nick = nicknameOf(author);
+
+        List<PostRow> rows = new ArrayList<>();
+        int total;
+        Page page;
+        if (PostRow.TOPIC.equals(kind)) {
+            total = topicRepository.countByAuthor(author);
+            page = Page.of(request.getOffset(), limit, total);
+            for (Topic topic : topicRepository.findByAuthor(author, page.getFrom(), page.size())) {
+                String id = String.valueOf(topic.getId());
+                rows.add(new PostRow(PostRow.TOPIC, id, id, topic.getTitle(), nick, topic.getContent()));
+            }
+        } else {
+            total = replyRepository.countByAuthor(author);
+            page = Page.of(request.getOffset(), limit, total);
+            for (MessageReply reply : replyRepository.findByAuthor(author, page.getFrom(), page.size())) {
+                Topic topic = topicRepository.findById(reply.getTopicId());
+                rows.add(new PostRow(PostRow.REPLY, String.valueOf(reply.getId()), String.valueOf(reply.getTopicId()),
+                        topic != null ? topic.getTitle() : null, nick, reply.getContent()));
+            }
+        }
+
+        logConsumer.accept("Sent 141 response with " + rows.size() + " of " + total + " " + kind + "s by '" + author + "'.");
+        return new MyPostsResponse(kind, page.getFrom(), total, rows.toArray(new PostRow[0]));
+    }
 
-        List<Map<String, String>> replyData = replies.stream()
-                .map(reply -> {
-                    Map<String, String> replyMap = new ConcurrentHashMap<>();
-                    replyMap.put("id", reply.getId());
-                    User authorUser = authHandler.getUserByUsername(reply.getAuthorUserId());
-                    replyMap.put("nick", authorUser != null ? authorUser.getNickname() : "Unknown");
-                    replyMap.put("msg", reply.getContent());
-                    return replyMap;
-                })
-                .collect(Collectors.toList());
+    // Lists show nicknames, so a profile change makes them stale too.
+    private String listVersion(long contentVersion) {
+        return versionEpoch + "." + contentVersion + "." + authHandler.getUserVersion();
+    }
 
-        ProtocolMessage response = new ProtocolMessage("071");
-        response.setMessageList(replyData);
-        return response;
+    // Authors whose accounts live on another cluster node, as of their latest forwarded post.
+    public void rememberRemoteNickname(String username, String nickname) {
+        remoteNicknames.put(username, nickname);
     }
 
-    public ProtocolMessage handleGetTopics(ProtocolMessage request, ClientInfo clientInfo) {
-        List<Map<String, String>> topicsData = topicRepository.findAll().stream()
-                .map(topic -> {
-                    Map<String, String> topicMap = new ConcurrentHashMap<>();
-                    topicMap.put("id", topic.getId());
-                    topicMap.put("title", topic.getTitle());
-                    topicMap.put("subject", topic.getSubject());
-                    User authorUser = authHandler.getUserByUsername(topic.getAuthorUserId());
-                    topicMap.put("nick", authorUser != null ? authorUser.getNickname() : "Unknown");
-                    topicMap.put("msg", topic.getContent());
-                    return topicMap;
-                })
-                .collect(Collectors.toList());
-
-        ProtocolMessage response = new ProtocolMessage("076");
-        response.setMessageList(topicsData);
-        logConsumer.accept("Sent 076 response with " + topicsData.size() + " topics.");
-        return response;
+    private String nicknameOf(String username) {
+        User authorUser = authHandler.getUserByUsername(username);
+        return authorUser != null ? authorUser.getNickname() : remoteNicknames.getOrDefault(username, "Unknown");
     }
 
     private void broadcastMessage(ProtocolMessage message) {
         logConsumer.accept("Broadcasting message op: " + message.getOperationCode() + " to all authenticated clients.");
 
-        for (Map.Entry<String, PrintWriter> entry : new ConcurrentHashMap<>(activeClientOutputs).entrySet()) {
+        String frame = SerializationHelper.encode(message);
+        for (Map.Entry<String, FrameWriter> entry : new ConcurrentHashMap<>(activeClientOutputs).entrySet()) {
             try {
-                SerializationHelper.writeMessage(message, entry.getValue());
+                entry.getValue().send(frame);
             } catch (IOException e) {
                 logConsumer.accept("Error broadcasting to client " + entry.getKey() + ": " + e.getMessage() + ". Removing client output.");
                 activeClientOutputs.remove(entry.getKey());
@@ -2,6 +2,8 @@ package server.service;
 
 import common.ClientInfo;
 import common.ProtocolMessage;
+import common.protocol.UserDataRequest;
+import common.protocol.UserDataResponse;
 import server.model.User;
 import server.repository.UserRepository;
 
@@ -18,7 +20,7 @@ public class UserDataHandler {
         this.logConsumer = logConsumer;
     }
 
-    public ProtocolMessage handleRetrieveUserData(ProtocolMessage request, ClientInfo clientInfo) {
+    public ProtocolMessage handleRetrieveUserData(UserDataRequest request, ClientInfo clientInfo) {
         String targetUsername = request.getUser();
         String token = request.getToken();
 
@@ -44,9 +46,7 @@ public class UserDataHandler {
             return ProtocolMessage.createErrorMessage("007", "Usuario nao existe.");
         }
 
-        ProtocolMessage response = new ProtocolMessage("006");
-        response.setUser(storedUser.getUsername());
-        response.setNickname(storedUser.getNickname());
+        ProtocolMessage response = new UserDataResponse(storedUser.getUsername(), storedUser.getNickname());
         logConsumer.accept("Sent 006 response with data for user '" + storedUser.getUsername() + "'");
         return response;
     }
@@ -0,0 +1,40 @@
+package server.session;
+
+import common.ClientInfo;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Sessions in this process only, lost on restart. The map is its own near cache.
+public class InMemorySessionStore implements SessionStore {
+    private final Map<String, ClientInfo> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger nextTokenId = new AtomicInteger(1);
+
+    @Override
+    public String newToken(String rolePrefix) {
+        return rolePrefix + String.format("%05d", nextTokenId.getAndIncrement());
+    }
+
+    @Override
+    public void put(String token, ClientInfo session) {
+        sessions.put(token, session);
+    }
+
+    @Override
+    public ClientInfo get(String token) {
+        return token != null ? sessions.get(token) : null;
+    }
+
+    @Override
+    public void remove(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    @Override
+    public void close() {
+        sessions.clear();
+    }
+}
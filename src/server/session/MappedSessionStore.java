@@ -0,0 +1,280 @@
+package server.session;
+
+import common.ClientInfo;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Sessions in a memory-mapped file, so a restarted server still knows every token it issued.
+// The file is an open-addressing hash table of fixed-size slots; writes go straight to the
+// mapping and reach the disk through the page cache, so a crashed process loses nothing. Hits
+// come from the near cache; the file is only probed for tokens this process has not seen yet.
+public class MappedSessionStore implements SessionStore {
+    static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int MAX_CAPACITY = 1 << 23; // keeps the file under 1 GB and offsets in an int
+
+    private static final int MAGIC = 0x46534553; // "FSES"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int MAGIC_AT = 0;
+    private static final int VERSION_AT = 4;
+    private static final int CAPACITY_AT = 8;
+    private static final int NEXT_TOKEN_AT = 12;
+
+    // Slot: state, then token, user and nickname as a length byte plus up to 31 bytes of UTF-8,
+    // then the client's address (length byte plus up to 16 bytes) and port.
+    private static final int SLOT_BYTES = 128;
+    private static final int FIELD_BYTES = 32;
+    private static final int TOKEN_AT = 1;
+    private static final int USER_AT = TOKEN_AT + FIELD_BYTES;
+    private static final int NAME_AT = USER_AT + FIELD_BYTES;
+    private static final int ADDRESS_AT = NAME_AT + FIELD_BYTES;
+    private static final int PORT_AT = ADDRESS_AT + 17;
+    private static final byte EMPTY = 0;
+    private static final byte USED = 1;
+    private static final byte REMOVED = 2;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer slots;
+    private final int capacity;
+    private final Map<String, ClientInfo> nearCache = new ConcurrentHashMap<>();
+    private final Consumer<String> logConsumer;
+    private int used; // guarded by this
+    private int removed; // guarded by this
+    private boolean warnedFull; // guarded by this
+
+    public MappedSessionStore(Path file, int requestedCapacity, Consumer<String> logConsumer) throws IOException {
+        if (requestedCapacity <= 0 || requestedCapacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Session capacity must be between 1 and " + MAX_CAPACITY + ": " + requestedCapacity);
+        }
+        this.logConsumer = logConsumer;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean fresh = channel.size() == 0;
+        if (fresh) {
+            capacity = Integer.highestOneBit(Math.max(16, requestedCapacity - 1) << 1);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            channel.read(header, 0);
+            if (header.getInt(MAGIC_AT) != MAGIC || header.getInt(VERSION_AT) != VERSION) {
+                channel.close();
+                throw new IOException("Not a session file: " + file);
+            }
+            capacity = header.getInt(CAPACITY_AT);
+        }
+        slots = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * SLOT_BYTES);
+        if (fresh) {
+            slots.putInt(MAGIC_AT, MAGIC);
+            slots.putInt(VERSION_AT, VERSION);
+            slots.putInt(CAPACITY_AT, capacity);
+            slots.putInt(NEXT_TOKEN_AT, 1);
+        } else {
+            synchronized (this) {
+                for (int slot = 0; slot < capacity; slot++) {
+                    byte state = slots.get(slotOffset(slot));
+                    if (state == USED) {
+                        used++;
+                    } else if (state == REMOVED) {
+                        removed++;
+                    }
+                }
+                compactIfNeeded();
+            }
+            logConsumer.accept("Session file " + file + ": " + used + " sessions kept from the last run.");
+        }
+    }
+
+    @Override
+    public synchronized String newToken(String rolePrefix) {
+        int id = slots.getInt(NEXT_TOKEN_AT);
+        slots.putInt(NEXT_TOKEN_AT, id + 1);
+        return rolePrefix + String.format("%05d", id);
+    }
+
+    @Override
+    public void put(String token, ClientInfo session) {
+        nearCache.put(token, session);
+        synchronized (this) {
+            int slot = findSlot(token);
+            if (slot >= 0) {
+                writeSlot(slot, token, session);
+                return;
+            }
+            compactIfNeeded();
+            slot = freeSlot(token);
+            if (slot < 0 || !writeSlot(slot, token, session)) {
+                if (!warnedFull) {
+                    warnedFull = true;
+                    logConsumer.accept("Session file is full or a session is too large for a slot; such sessions are kept in memory only.");
+                }
+                return;
+            }
+            if (slots.get(slotOffset(slot)) == REMOVED) {
+                removed--;
+            }
+            slots.put(slotOffset(slot), USED);
+            used++;
+        }
+    }
+
+    @Override
+    public ClientInfo get(String token) {
+        if (token == null) {
+            return null;
+        }
+        ClientInfo session = nearCache.get(token);
+        if (session != null) {
+            return session;
+        }
+        synchronized (this) {
+            int slot = findSlot(token);
+            if (slot < 0) {
+                return null;
+            }
+            session = readSlot(slot, token);
+        }
+        nearCache.put(token, session);
+        return session;
+    }
+
+    @Override
+    public void remove(String token) {
+        if (token == null) {
+            return;
+        }
+        nearCache.remove(token);
+        synchronized (this) {
+            int slot = findSlot(token);
+            if (slot >= 0) {
+                slots.put(slotOffset(slot), REMOVED);
+                used--;
+                removed++;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        nearCache.clear();
+        try {
+            slots.force();
+            channel.close();
+        } catch (IOException e) {
+            logConsumer.accept("Error closing session file: " + e.getMessage());
+        }
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    private int home(String token) {
+        int hash = token.hashCode();
+        return (hash ^ (hash >>> 16)) & (capacity - 1);
+    }
+
+    // The token's slot, or -1. Caller holds the lock.
+    private int findSlot(String token) {
+        for (int probe = 0, slot = home(token); probe < capacity; probe++, slot = (slot + 1) & (capacity - 1)) {
+            byte state = slots.get(slotOffset(slot));
+            if (state == EMPTY) {
+                return -1;
+            }
+            if (state == USED && token.equals(readField(slotOffset(slot) + TOKEN_AT))) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    // The first empty or removed slot on the token's probe path, or -1 when the table is full.
+    private int freeSlot(String token) {
+        for (int probe = 0, slot = home(token); probe < capacity; probe++, slot = (slot + 1) & (capacity - 1)) {
+            if (slots.get(slotOffset(slot)) != USED) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    // Removed slots lengthen every probe; rewrite the table without them once they pile up.
+    private void compactIfNeeded() {
+        if (removed == 0 || used + removed < capacity / 2) {
+            return;
+        }
+        List<byte[]> live = new ArrayList<>(used);
+        for (int slot = 0; slot < capacity; slot++) {
+            int offset = slotOffset(slot);
+            if (slots.get(offset) == USED) {
+                byte[] copy = new byte[SLOT_BYTES];
+                slots.get(offset, copy);
+                live.add(copy);
+            }
+            slots.put(offset, EMPTY);
+        }
+        for (byte[] copy : live) {
+            String token = decode(copy, TOKEN_AT);
+            slots.put(slotOffset(freeSlot(token)), copy);
+        }
+        removed = 0;
+    }
+
+    private boolean writeSlot(int slot, String token, ClientInfo session) {
+        int offset = slotOffset(slot);
+        byte[] address = session.getAddress() != null ? session.getAddress().getAddress() : new byte[0];
+        if (!fits(token) || !fits(session.getUserId()) || !fits(session.getName())) {
+            return false;
+        }
+        writeField(offset + TOKEN_AT, token);
+        writeField(offset + USER_AT, session.getUserId());
+        writeField(offset + NAME_AT, session.getName());
+        slots.put(offset + ADDRESS_AT, (byte) address.length);
+        slots.put(offset + ADDRESS_AT + 1, address);
+        slots.putInt(offset + PORT_AT, session.getPort());
+        return true;
+    }
+
+    private ClientInfo readSlot(int slot, String token) {
+        int offset = slotOffset(slot);
+        byte[] address = new byte[slots.get(offset + ADDRESS_AT)];
+        slots.get(offset + ADDRESS_AT + 1, address);
+        InetAddress inetAddress;
+        try {
+            inetAddress = address.length > 0 ? InetAddress.getByAddress(address) : InetAddress.getLoopbackAddress();
+        } catch (UnknownHostException e) {
+            inetAddress = InetAddress.getLoopbackAddress();
+        }
+        return new ClientInfo(readField(offset + NAME_AT), readField(offset + USER_AT), token, inetAddress, slots.getInt(offset + PORT_AT));
+    }
+
+    private static boolean fits(String value) {
+        return value == null || value.getBytes(StandardCharsets.UTF_8).length < FIELD_BYTES;
+    }
+
+    private void writeField(int offset, String value) {
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        slots.put(offset, (byte) bytes.length);
+        slots.put(offset + 1, bytes);
+    }
+
+    private String readField(int offset) {
+        byte[] bytes = new byte[slots.get(offset)];
+        slots.get(offset + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String decode(byte[] slot, int offset) {
+        return new String(slot, offset + 1, slot[offset], StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,244 @@
+package server.session;
+
+import common.ClientInfo;
+import common.ProtocolMessage;
+import common.protocol.SessionSyncRequest;
+import common.protocol.SessionSyncResponse;
+import server.cluster.ClusterConfig;
+import server.cluster.PeerLink;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Sessions shared by several servers, so a client can reconnect to any of them with its token.
+// Logins and logouts are announced to every peer (180), which keeps them in its near cache. A
+// token a server has not heard of, because it was down or has just restarted, is asked for once
+// and then cached; unknown tokens are remembered for a few seconds so a bad token does not
+// cost a round trip on every request. A logout is resent until each peer has acknowledged it,
+// since a peer that missed it would go on accepting the token.
+public class ReplicatedSessionStore implements SessionStore {
+    // The fetch runs on the request's thread, so it is kept well under a client's patience.
+    private static final long DEFAULT_TIMEOUT_MS = 300;
+    private static final long MISS_TTL_MS = 5000;
+    private static final int MAX_MISSES = 10_000;
+    private static final long REMOVE_RETRY_MS = 1000;
+    private static final int MAX_PENDING_REMOVES = 10_000;
+
+    private final Map<String, ClientInfo> nearCache = new ConcurrentHashMap<>();
+    private final Map<String, Long> misses = new ConcurrentHashMap<>(); // token -> remembered until
+    private final List<PeerLink> peers = new ArrayList<>();
+    private final Map<PeerLink, Set<String>> pendingRemoves = new ConcurrentHashMap<>(); // tokens not yet acknowledged
+    private final ScheduledExecutorService retryTimer;
+    private final String secret;
+    private final long timeoutMs;
+    // Tokens carry it so they never repeat one issued by another server or by an earlier run.
+    private final String epoch;
+    private final AtomicInteger nextTokenId = new AtomicInteger(1);
+    private final Consumer<String> logConsumer;
+
+    public ReplicatedSessionStore(List<InetSocketAddress> peerAddresses, String secret, long timeoutMs, Consumer<String> logConsumer) {
+        // Anyone who can send 180 with the secret can plant a session for any user.
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("forum.sessions.secret (or forum.cluster.secret) must be set for replicated sessions.");
+        }
+        for (InetSocketAddress address : peerAddresses) {
+            PeerLink peer = new PeerLink(address.getHostString() + ":" + address.getPort(), address, logConsumer);
+            peers.add(peer);
+            pendingRemoves.put(peer, ConcurrentHashMap.newKeySet());
+        }
+        this.secret = secret;
+        this.timeoutMs = timeoutMs;
+        this.epoch = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+        this.logConsumer = logConsumer;
+        this.retryTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-sync-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.retryTimer.scheduleWithFixedDelay(this::retryRemoves, REMOVE_RETRY_MS, REMOVE_RETRY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Peers from -Dforum.sessions.peers=host:port,.... Cluster nodes are not peers by default:
+    // accounts stay on the node they were created on, and a session can only be resumed where
+    // its user exists, so the peers should be servers sharing accounts, such as a replication
+    // primary and its followers.
+    static ReplicatedSessionStore fromSystemProperties(ClusterConfig clusterConfig, Consumer<String> logConsumer) {
+        List<InetSocketAddress> peerAddresses = new ArrayList<>();
+        String peerList = System.getProperty("forum.sessions.peers");
+        if (peerList != null && !peerList.trim().isEmpty()) {
+            for (String entry : peerList.split(",")) {
+                String trimmed = entry.trim();
+                int colon = trimmed.lastIndexOf(':');
+                if (colon <= 0) {
+                    throw new IllegalArgumentException("Session peer must look like host:port, got: " + trimmed);
+                }
+                peerAddresses.add(InetSocketAddress.createUnresolved(trimmed.substring(0, colon), Integer.parseInt(trimmed.substring(colon + 1))));
+            }
+        } else {
+            throw new IllegalArgumentException("forum.sessions.peers must be set for replicated sessions.");
+        }
+        String secret = System.getProperty("forum.sessions.secret", clusterConfig != null ? clusterConfig.getSecret() : "");
+        return new ReplicatedSessionStore(peerAddresses, secret, Long.getLong("forum.sessions.timeoutMs", DEFAULT_TIMEOUT_MS), logConsumer);
+    }
+
+    @Override
+    public String newToken(String rolePrefix) {
+        return rolePrefix + String.format("%05d", nextTokenId.getAndIncrement()) + "-" + epoch;
+    }
+
+    // Logins are not retried: a peer that misses one asks for the token when it is used.
+    @Override
+    public void put(String token, ClientInfo session) {
+        nearCache.put(token, session);
+        misses.remove(token);
+        broadcast(new SessionSyncRequest(secret, SessionSyncRequest.PUT, token, session.getUserId(), session.getName()));
+    }
+
+    @Override
+    public ClientInfo get(String token) {
+        if (token == null) {
+            return null;
+        }
+        ClientInfo session = nearCache.get(token);
+        if (session != null) {
+            return session;
+        }
+        Long missUntil = misses.get(token);
+        if (missUntil != null && missUntil > System.currentTimeMillis()) {
+            return null;
+        }
+        session = fetch(token);
+        if (session != null) {
+            ClientInfo raced = nearCache.putIfAbsent(token, session);
+            return raced != null ? raced : session;
+        }
+        if (misses.size() >= MAX_MISSES) {
+            misses.clear();
+        }
+        misses.put(token, System.currentTimeMillis() + MISS_TTL_MS);
+        return null;
+    }
+
+    @Override
+    public void remove(String token) {
+        if (token == null) {
+            return;
+        }
+        nearCache.remove(token);
+        for (PeerLink peer : peers) {
+            Set<String> pending = pendingRemoves.get(peer);
+            if (pending.size() >= MAX_PENDING_REMOVES) {
+                logConsumer.accept("Session peer " + peer.getNodeId() + " has " + pending.size() + " unacknowledged logouts; dropping them.");
+                pending.clear();
+            }
+            pending.add(token);
+        }
+        retryTimer.execute(this::retryRemoves);
+    }
+
+    private void broadcast(SessionSyncRequest request) {
+        for (PeerLink peer : peers) {
+            peer.send(request);
+        }
+    }
+
+    // Runs on the retry timer, so a peer that is down delays no request. Sends every logout a
+    // peer has not acknowledged yet, stopping at the first that cannot even be sent.
+    private void retryRemoves() {
+        for (PeerLink peer : peers) {
+            Set<String> pending = pendingRemoves.get(peer);
+            for (String token : pending) {
+                CompletableFuture<ProtocolMessage> sent = peer.send(new SessionSyncRequest(secret, SessionSyncRequest.REMOVE, token, null, null));
+                if (sent.isCompletedExceptionally()) {
+                    break;
+                }
+                sent.thenAccept(response -> {
+                    if (response instanceof SessionSyncResponse) {
+                        pending.remove(token);
+                    }
+                });
+            }
+        }
+    }
+
+    // Asks every peer at once and takes the first that knows the token.
+    private ClientInfo fetch(String token) {
+        List<CompletableFuture<ProtocolMessage>> pending = new ArrayList<>(peers.size());
+        for (PeerLink peer : peers) {
+            pending.add(peer.send(new SessionSyncRequest(secret, SessionSyncRequest.GET, token, null, null)));
+        }
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        for (int i = 0; i < pending.size(); i++) {
+            ProtocolMessage response;
+            try {
+                response = pending.get(i).get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (Exception e) {
+                pending.get(i).cancel(false);
+                logConsumer.accept("Session peer " + peers.get(i).getNodeId() + " did not answer: " + e);
+                continue;
+            }
+            if (response instanceof SessionSyncResponse && ((SessionSyncResponse) response).getUser() != null) {
+                SessionSyncResponse found = (SessionSyncResponse) response;
+                return new ClientInfo(found.getNickname(), found.getUser(), token, InetAddress.getLoopbackAddress(), 0);
+            }
+        }
+        return null;
+    }
+
+    // 180 from a peer. Answered from the near cache only, never passed on.
+    public ProtocolMessage handleSync(SessionSyncRequest request, ClientInfo clientInfo) {
+        if (request.getSecret() == null || !MessageDigest.isEqual(
+                request.getSecret().getBytes(StandardCharsets.UTF_8), secret.getBytes(StandardCharsets.UTF_8))) {
+            logConsumer.accept("Rejected session sync from " + clientInfo.getAddress().getHostAddress() + ": wrong secret.");
+            return ProtocolMessage.createErrorMessage("182", "Invalid session sync credentials.");
+        }
+        String token = request.getToken();
+        if (token == null || token.isEmpty()) {
+            return ProtocolMessage.createErrorMessage("182", "Token cannot be null/empty.");
+        }
+        switch (request.getAction() != null ? request.getAction() : "") {
+            case SessionSyncRequest.PUT:
+                if (request.getUser() == null) {
+                    return ProtocolMessage.createErrorMessage("182", "User cannot be null.");
+                }
+                nearCache.put(token, new ClientInfo(request.getNickname(), request.getUser(), token, clientInfo.getAddress(), clientInfo.getPort()));
+                misses.remove(token);
+                return new SessionSyncResponse(token, request.getUser(), request.getNickname());
+            case SessionSyncRequest.REMOVE:
+                nearCache.remove(token);
+                return new SessionSyncResponse(token, null, null);
+            case SessionSyncRequest.GET:
+                ClientInfo session = nearCache.get(token);
+                return new SessionSyncResponse(token, session != null ? session.getUserId() : null, session != null ? session.getName() : null);
+            default:
+                return ProtocolMessage.createErrorMessage("182", "Unknown session sync action: " + request.getAction());
+        }
+    }
+
+    @Override
+    public void close() {
+        retryTimer.shutdownNow();
+        for (PeerLink peer : peers) {
+            peer.close();
+        }
+        nearCache.clear();
+        misses.clear();
+    }
+}
@@ -0,0 +1,40 @@
+package server.session;
+
+import common.ClientInfo;
+import server.cluster.ClusterConfig;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.function.Consumer;
+
+// Where AuthHandler keeps its sessions, token -> the client that logged in. Every request checks
+// its token here, so get() must stay a local map lookup in the common case; implementations
+// that keep sessions elsewhere put a near cache in front.
+public interface SessionStore {
+    // A token no other live session has, starting with the role prefix ("a" or "c").
+    String newToken(String rolePrefix);
+
+    void put(String token, ClientInfo session);
+
+    ClientInfo get(String token);
+
+    void remove(String token);
+
+    void close();
+
+    // -Dforum.sessions=memory (default), mapped or replicated; see the README.
+    static SessionStore fromSystemProperties(ClusterConfig clusterConfig, Consumer<String> logConsumer) throws IOException {
+        String kind = System.getProperty("forum.sessions", "memory");
+        switch (kind) {
+            case "memory":
+                return new InMemorySessionStore();
+            case "mapped":
+                return new MappedSessionStore(Paths.get(System.getProperty("forum.sessions.file", "sessions.dat")),
+                        Integer.getInteger("forum.sessions.capacity", MappedSessionStore.DEFAULT_CAPACITY), logConsumer);
+            case "replicated":
+                return ReplicatedSessionStore.fromSystemProperties(clusterConfig, logConsumer);
+            default:
+                throw new IllegalArgumentException("forum.sessions must be memory, mapped or replicated, got: " + kind);
+        }
+    }
+}